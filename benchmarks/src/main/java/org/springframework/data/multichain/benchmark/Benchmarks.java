@@ -0,0 +1,53 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks, accepting the same command line options as the
+ * JMH launcher, with the GC profiler always enabled so that allocation rates
+ * are reported along with throughput.
+ */
+public final class Benchmarks
+{
+  /**
+   * Prevents instantiation.
+   */
+  private Benchmarks()
+  {
+  }
+
+  /**
+   * Runs the benchmarks.
+   *
+   * @param args JMH command line options, for example a regular expression
+   *             selecting the benchmarks to run.
+   * @throws CommandLineOptionException if the options are invalid.
+   * @throws RunnerException            if the benchmarks fail.
+   */
+  public static void main(final String[] args) throws CommandLineOptionException, RunnerException
+  {
+    new Runner(new OptionsBuilder().parent(new CommandLineOptions(args))
+                                   .addProfiler(GCProfiler.class)
+                                   .build()).run();
+  }
+}
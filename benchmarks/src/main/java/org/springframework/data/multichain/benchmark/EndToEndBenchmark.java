@@ -0,0 +1,350 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.benchmark;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * Measures the throughput and latency of repository operations end to end:
+ * through a Spring application context with repositories created by
+ * {@code @EnableMultiChainRepositories}, over HTTP, to a simulated
+ * MultiChain node (see {@link EndToEndConfiguration}).
+ * </p>
+ * <p>
+ * The benchmark sweeps client thread counts, entity sizes and read/write
+ * mixes, and reports for {@code findOne}, {@code exists} and {@code save}
+ * the number of operations per second and latency percentiles, recorded
+ * with HdrHistogram. Settings are passed as {@code name=value} arguments:
+ * </p>
+ * <ul>
+ * <li>{@code threads}: comma-separated client thread counts;</li>
+ * <li>{@code sizes}: comma-separated approximate entity sizes, in bytes;</li>
+ * <li>{@code reads}: comma-separated percentages of read operations, split
+ * evenly between {@code findOne} and {@code exists}, the rest being
+ * {@code save}s;</li>
+ * <li>{@code warmup} and {@code duration}: the time to warm up and to
+ * measure each combination, in seconds;</li>
+ * <li>{@code entities}: the number of entities saved before measuring, for
+ * reads to find;</li>
+ * <li>{@code latency}: the median latency added by the simulated node, in
+ * microseconds;</li>
+ * <li>{@code blockInterval} and {@code serverThreads}: the block interval, in
+ * milliseconds, and the number of RPC threads of the simulated node.</li>
+ * </ul>
+ */
+public final class EndToEndBenchmark
+{
+  private static final Map<String, Object> DEFAULTS = new LinkedHashMap<>();
+
+  static
+  {
+    DEFAULTS.put("threads", "1,4,16");
+    DEFAULTS.put("sizes", "256,4096,65536");
+    DEFAULTS.put("reads", "95,50,0");
+    DEFAULTS.put("warmup", "5");
+    DEFAULTS.put("duration", "15");
+    DEFAULTS.put("entities", "1000");
+    DEFAULTS.put("latency", "0");
+    DEFAULTS.put("blockInterval", "1000");
+    DEFAULTS.put("serverThreads", "16");
+  }
+
+  /**
+   * Prevents instantiation.
+   */
+  private EndToEndBenchmark()
+  {
+  }
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args Settings, as {@code name=value} pairs.
+   * @throws InterruptedException if interrupted while running.
+   */
+  public static void main(final String[] args) throws InterruptedException
+  {
+    final Map<String, Object> settings = new LinkedHashMap<>(DEFAULTS);
+    for (final String arg : args)
+    {
+      final int separator = arg.indexOf('=');
+
+      if (separator <= 0 || !DEFAULTS.containsKey(arg.substring(0, separator)))
+      {
+        throw new IllegalArgumentException(String.format("Unrecognized setting %s; expected one of %s as name=value.", arg, DEFAULTS.keySet()));
+      }
+
+      settings.put(arg.substring(0, separator), arg.substring(separator + 1));
+    }
+
+    System.out.printf("Settings: %s%n%n", settings);
+
+    try (final AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext())
+    {
+      context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", settings));
+      context.register(EndToEndConfiguration.class);
+      context.refresh();
+
+      final FlatEntityRepository repository = context.getBean(FlatEntityRepository.class);
+      final long warmup = Long.parseLong(settings.get("warmup").toString());
+      final long duration = Long.parseLong(settings.get("duration").toString());
+      final int entities = Integer.parseInt(settings.get("entities").toString());
+
+      System.out.printf("%7s %7s %5s  %-8s %9s %10s %9s %9s %9s %9s %9s %7s%n"
+          , "threads", "size", "reads", "op", "count", "ops/s", "p50(us)", "p90(us)", "p99(us)", "p99.9(us)", "max(us)", "errors");
+
+      for (final int size : parse(settings.get("sizes")))
+      {
+        final List<String> ids = preload(repository, size, entities);
+
+        for (final int threads : parse(settings.get("threads")))
+        {
+          for (final int reads : parse(settings.get("reads")))
+          {
+            new Run(repository, ids, size, threads, reads).execute(warmup, duration);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Parses a comma-separated list of integers.
+   *
+   * @param value The list.
+   * @return The integers.
+   */
+  private static List<Integer> parse(final Object value)
+  {
+    final List<Integer> result = new ArrayList<>();
+    for (final String element : value.toString().split(","))
+    {
+      result.add(Integer.parseInt(element.trim()));
+    }
+
+    return result;
+  }
+
+  /**
+   * Saves entities for reads to find.
+   *
+   * @param repository The repository to save entities to.
+   * @param size       The approximate size of the entities, in bytes.
+   * @param count      The number of entities to save.
+   * @return The identifiers of the entities.
+   */
+  private static List<String> preload(final FlatEntityRepository repository, final int size, final int count)
+  {
+    final List<String> ids = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i)
+    {
+      final String id = String.format("preload-%d-%d", size, i);
+
+      repository.save(EntityShape.FLAT.<FlatEntity>create(id, size));
+      ids.add(id);
+    }
+
+    return ids;
+  }
+
+  /**
+   * Repository operations measured by the benchmark.
+   */
+  private enum Operation
+  {
+    EXISTS, FIND_ONE, SAVE
+  }
+
+  /**
+   * A single combination of thread count, entity size and read/write mix.
+   */
+  private static final class Run
+  {
+    private final AtomicLong               errors    = new AtomicLong();
+    private final List<String>             ids;
+    private final int                      reads;
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+    private final FlatEntityRepository     repository;
+    private final int                      size;
+    private final int                      threads;
+
+    private volatile boolean measuring;
+    private volatile boolean running = true;
+
+    /**
+     * Creates a run.
+     *
+     * @param repository The repository to invoke.
+     * @param ids        The identifiers of existing entities.
+     * @param size       The approximate size of saved entities, in bytes.
+     * @param threads    The number of client threads.
+     * @param reads      The percentage of read operations.
+     */
+    private Run(final FlatEntityRepository repository
+        , final List<String> ids
+        , final int size
+        , final int threads
+        , final int reads)
+    {
+      this.ids = ids;
+      this.reads = reads;
+      this.repository = repository;
+      this.size = size;
+      this.threads = threads;
+
+      for (final Operation operation : Operation.values())
+      {
+        recorders.put(operation, new Recorder(3));
+      }
+    }
+
+    /**
+     * Warms up, measures and reports the results.
+     *
+     * @param warmup   The time to warm up, in seconds.
+     * @param duration The time to measure, in seconds.
+     * @throws InterruptedException if interrupted while running.
+     */
+    private void execute(final long warmup, final long duration) throws InterruptedException
+    {
+      final ExecutorService executor = Executors.newFixedThreadPool(threads);
+      for (int i = 0; i < threads; ++i)
+      {
+        executor.execute(this::work);
+      }
+
+      TimeUnit.SECONDS.sleep(warmup);
+
+      errors.set(0);
+      measuring = true;
+
+      final long start = System.nanoTime();
+      TimeUnit.SECONDS.sleep(duration);
+
+      measuring = false;
+
+      final double elapsed = (System.nanoTime() - start) / 1e9;
+
+      running = false;
+      executor.shutdown();
+      executor.awaitTermination(1, TimeUnit.MINUTES);
+
+      final Histogram total = new Histogram(3);
+      for (final Operation operation : Operation.values())
+      {
+        final Histogram histogram = recorders.get(operation).getIntervalHistogram();
+
+        if (histogram.getTotalCount() > 0)
+        {
+          report(operation.name(), histogram, elapsed, 0);
+          total.add(histogram);
+        }
+      }
+
+      report("ALL", total, elapsed, errors.get());
+      System.out.println();
+    }
+
+    /**
+     * Reports the results for an operation.
+     *
+     * @param name      The name of the operation.
+     * @param histogram The latencies of the operation, in microseconds.
+     * @param elapsed   The time measured, in seconds.
+     * @param errors    The number of failed operations.
+     */
+    private void report(final String name, final Histogram histogram, final double elapsed, final long errors)
+    {
+      System.out.printf("%7d %7d %5d  %-8s %9d %10.1f %9d %9d %9d %9d %9d %7d%n"
+          , threads
+          , size
+          , reads
+          , name
+          , histogram.getTotalCount()
+          , histogram.getTotalCount() / elapsed
+          , histogram.getValueAtPercentile(50)
+          , histogram.getValueAtPercentile(90)
+          , histogram.getValueAtPercentile(99)
+          , histogram.getValueAtPercentile(99.9)
+          , histogram.getMaxValue()
+          , errors);
+    }
+
+    /**
+     * Invokes randomly chosen operations until the run ends.
+     */
+    private void work()
+    {
+      final ThreadLocalRandom random = ThreadLocalRandom.current();
+
+      while (running)
+      {
+        final Operation operation = random.nextInt(100) < reads
+                                    ? (random.nextBoolean() ? Operation.FIND_ONE : Operation.EXISTS)
+                                    : Operation.SAVE;
+        final String id = operation == Operation.SAVE
+                          ? UUID.randomUUID().toString()
+                          : ids.get(random.nextInt(ids.size()));
+        final FlatEntity entity = operation == Operation.SAVE
+                                  ? EntityShape.FLAT.create(id, size)
+                                  : null;
+
+        final long start = System.nanoTime();
+        try
+        {
+          switch (operation)
+          {
+            case EXISTS:
+              repository.exists(id);
+              break;
+
+            case FIND_ONE:
+              repository.findOne(id);
+              break;
+
+            default:
+              repository.save(entity);
+          }
+        }
+        catch (final RuntimeException e)
+        {
+          errors.incrementAndGet();
+        }
+
+        if (measuring)
+        {
+          recorders.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.benchmark;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.multichain.repository.config.EnableMultiChainRepositories;
+import org.springframework.data.multichain.server.MultiChainClient;
+import org.springframework.data.multichain.server.simulator.LatencyDistribution;
+import org.springframework.data.multichain.server.simulator.MultiChainSimulator;
+import org.springframework.data.multichain.server.support.MultiChainTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Java configuration for the end-to-end benchmark, connecting repositories
+ * to a {@link MultiChainSimulator} started along with the application
+ * context.
+ */
+@Configuration
+@EnableMultiChainRepositories(basePackageClasses = FlatEntityRepository.class)
+public class EndToEndConfiguration
+{
+  /**
+   * Creates a {@link MultiChainClient} connected to the simulator.
+   *
+   * @param simulator The {@link MultiChainSimulator} to connect to.
+   * @return A {@link MultiChainClient}.
+   */
+  @Bean
+  public MultiChainClient multiChainClient(final MultiChainSimulator simulator)
+  {
+    return new MultiChainTemplate("127.0.0.1", simulator.getPort(), simulator.getUsername(), simulator.getPassword(), false);
+  }
+
+  /**
+   * Creates and starts a {@link MultiChainSimulator}, configured from the
+   * {@literal latency} (median, in microseconds), {@literal blockInterval}
+   * (in milliseconds) and {@literal serverThreads} properties.
+   *
+   * @param environment The {@link Environment} to read properties from.
+   * @return A running {@link MultiChainSimulator}.
+   */
+  @Bean(destroyMethod = "stop")
+  public MultiChainSimulator simulator(final Environment environment)
+  {
+    final long latency = environment.getProperty("latency", Long.class, 0L);
+
+    final MultiChainSimulator simulator = new MultiChainSimulator();
+    simulator.createStream("flat");
+    simulator.setBlockInterval(environment.getProperty("blockInterval", Long.class, 1000L));
+    simulator.setLatency(latency > 0
+                         ? LatencyDistribution.logNormal(latency, 0.5, TimeUnit.MICROSECONDS)
+                         : LatencyDistribution.none());
+    simulator.setThreads(environment.getProperty("serverThreads", Integer.class, 16));
+    simulator.start();
+
+    return simulator;
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Shapes of entities to benchmark with. Each shape creates entities whose
+ * JSON representation is roughly of a requested size, from content that is
+ * random, but the same for every run, so that results can be compared
+ * between runs.
+ */
+public enum EntityShape
+{
+  /**
+   * Text fields only (see {@link FlatEntity}).
+   */
+  FLAT(FlatEntity.class)
+      {
+        @Override
+        Object create(final String id, final int size, final Random random)
+        {
+          return new FlatEntity(id, text(16, random), text(size / 4, random), text(size * 3 / 4 - 80, random));
+        }
+      },
+
+  /**
+   * A list of nested objects (see {@link NestedEntity}).
+   */
+  NESTED(NestedEntity.class)
+      {
+        @Override
+        Object create(final String id, final int size, final Random random)
+        {
+          final List<NestedEntity.LineItem> items = new ArrayList<>();
+          for (int i = 0; i < Math.max(1, size / 100); ++i)
+          {
+            items.add(new NestedEntity.LineItem(text(8, random)
+                , text(32, random)
+                , random.nextInt(100)
+                , BigDecimal.valueOf(random.nextInt(1000000), 2)));
+          }
+
+          return new NestedEntity(id, text(16, random), items);
+        }
+      },
+
+  /**
+   * Numbers and dates (see {@link NumericEntity}).
+   */
+  NUMERIC(NumericEntity.class)
+      {
+        @Override
+        Object create(final String id, final int size, final Random random)
+        {
+          final int count = Math.max(1, size / 45);
+
+          final BigDecimal[] amounts = new BigDecimal[count];
+          final long[] counters = new long[count];
+          final double[] readings = new double[count];
+
+          for (int i = 0; i < count; ++i)
+          {
+            amounts[i] = BigDecimal.valueOf(random.nextInt(10000000), 2);
+            counters[i] = random.nextInt(Integer.MAX_VALUE);
+            readings[i] = random.nextDouble();
+          }
+
+          return new NumericEntity(id, new Date(1514764800000L + random.nextInt(Integer.MAX_VALUE)), amounts, counters, readings);
+        }
+      };
+
+  private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz ABCDEFGHIJKLMNOPQRSTUVWXYZ 0123456789";
+
+  private final Class<?> type;
+
+  /**
+   * Creates a shape.
+   *
+   * @param type The entity type for the shape.
+   */
+  EntityShape(final Class<?> type)
+  {
+    this.type = type;
+  }
+
+  /**
+   * Creates an entity of this shape.
+   *
+   * @param id   The identifier for the entity.
+   * @param size The approximate size of the JSON representation of the
+   *             entity, in bytes.
+   * @param <T>  The entity type.
+   * @return An entity.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T create(final String id, final int size)
+  {
+    return (T) create(id, size, new Random(size));
+  }
+
+  /**
+   * Gets the entity type for this shape.
+   *
+   * @param <T> The entity type.
+   * @return The entity type.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> Class<T> getType()
+  {
+    return (Class<T>) type;
+  }
+
+  /**
+   * Creates an entity of this shape.
+   *
+   * @param id     The identifier for the entity.
+   * @param size   The approximate size of the JSON representation of the
+   *               entity, in bytes.
+   * @param random The source of the entity content.
+   * @return An entity.
+   */
+  abstract Object create(String id, int size, Random random);
+
+  /**
+   * Creates random text.
+   *
+   * @param length The length of the text.
+   * @param random The source of the text.
+   * @return The text.
+   */
+  private static String text(final int length, final Random random)
+  {
+    final char[] text = new char[Math.max(1, length)];
+    for (int i = 0; i < text.length; ++i)
+    {
+      text[i] = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+    }
+
+    return new String(text);
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.benchmark;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.multichain.annotation.MultiChainStream;
+
+/**
+ * An entity made up of text fields only.
+ */
+@MultiChainStream("flat")
+public class FlatEntity
+{
+  @Id
+  private String id;
+
+  private String description;
+  private String name;
+  private String notes;
+
+  /**
+   * Default constructor; required for serialization libraries to create
+   * instances.
+   */
+  public FlatEntity()
+  {
+  }
+
+  /**
+   * Creates an entity.
+   *
+   * @param id          The unique identifier for the entity.
+   * @param name        A short text.
+   * @param description A medium-sized text.
+   * @param notes       A long text.
+   */
+  public FlatEntity(final String id, final String name, final String description, final String notes)
+  {
+    this.description = description;
+    this.id = id;
+    this.name = name;
+    this.notes = notes;
+  }
+
+  /**
+   * Gets the unique identifier for the entity.
+   *
+   * @return The unique identifier for the entity.
+   */
+  public String getId()
+  {
+    return id;
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.benchmark;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.multichain.annotation.MultiChainStream;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * An entity containing a list of nested objects, like an order with its
+ * order lines.
+ */
+@MultiChainStream("nested")
+public class NestedEntity
+{
+  @Id
+  private String id;
+
+  private String         customer;
+  private List<LineItem> items;
+
+  /**
+   * Default constructor; required for serialization libraries to create
+   * instances.
+   */
+  public NestedEntity()
+  {
+  }
+
+  /**
+   * Creates an entity.
+   *
+   * @param id       The unique identifier for the entity.
+   * @param customer A short text.
+   * @param items    The nested objects.
+   */
+  public NestedEntity(final String id, final String customer, final List<LineItem> items)
+  {
+    this.customer = customer;
+    this.id = id;
+    this.items = items;
+  }
+
+  /**
+   * Gets the unique identifier for the entity.
+   *
+   * @return The unique identifier for the entity.
+   */
+  public String getId()
+  {
+    return id;
+  }
+
+  /**
+   * An object nested inside a {@link NestedEntity}.
+   */
+  public static class LineItem
+  {
+    private String     description;
+    private BigDecimal price;
+    private int        quantity;
+    private String     sku;
+
+    /**
+     * Default constructor; required for serialization libraries to create
+     * instances.
+     */
+    public LineItem()
+    {
+    }
+
+    /**
+     * Creates a nested object.
+     *
+     * @param sku         A short text.
+     * @param description A medium-sized text.
+     * @param quantity    An integer.
+     * @param price       A decimal number.
+     */
+    public LineItem(final String sku, final String description, final int quantity, final BigDecimal price)
+    {
+      this.description = description;
+      this.price = price;
+      this.quantity = quantity;
+      this.sku = sku;
+    }
+  }
+}
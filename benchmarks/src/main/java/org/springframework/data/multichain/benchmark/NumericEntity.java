@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.benchmark;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.multichain.annotation.MultiChainStream;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * An entity made up mostly of numbers and dates, like a series of
+ * measurements.
+ */
+@MultiChainStream("numeric")
+public class NumericEntity
+{
+  @Id
+  private String id;
+
+  private BigDecimal[] amounts;
+  private Date         created;
+  private long[]       counters;
+  private double[]     readings;
+
+  /**
+   * Default constructor; required for serialization libraries to create
+   * instances.
+   */
+  public NumericEntity()
+  {
+  }
+
+  /**
+   * Creates an entity.
+   *
+   * @param id       The unique identifier for the entity.
+   * @param created  A date.
+   * @param amounts  Decimal numbers.
+   * @param counters Integers.
+   * @param readings Floating-point numbers.
+   */
+  public NumericEntity(final String id
+      , final Date created
+      , final BigDecimal[] amounts
+      , final long[] counters
+      , final double[] readings)
+  {
+    this.amounts = amounts;
+    this.counters = counters;
+    this.created = created;
+    this.id = id;
+    this.readings = readings;
+  }
+
+  /**
+   * Gets the unique identifier for the entity.
+   *
+   * @return The unique identifier for the entity.
+   */
+  public String getId()
+  {
+    return id;
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.repository.support;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.multichain.benchmark.EntityShape;
+import org.springframework.data.multichain.mapping.MultiChainPersistentEntity;
+import org.springframework.data.multichain.mapping.context.MultiChainMappingContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks reading the identifier of an entity, as done by
+ * {@link SimpleMultiChainRepository} on every save, against reading it
+ * through a {@link org.springframework.data.mapping.IdentifierAccessor}
+ * created for the entity.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+public class IdentifierBenchmark
+{
+  @Param({ "FLAT", "NESTED", "NUMERIC" })
+  private EntityShape shape;
+
+  private Object                                      entity;
+  private MultiChainEntityInformation<Object, String> entityInformation;
+  private MultiChainPersistentEntity<Object>          persistentEntity;
+
+  /**
+   * Creates the entity and its metadata.
+   */
+  @SuppressWarnings("unchecked")
+  @Setup
+  public void setUp()
+  {
+    persistentEntity = (MultiChainPersistentEntity<Object>) new MultiChainMappingContext().getRequiredPersistentEntity(shape.getType());
+    entityInformation = new MultiChainEntityInformation<>(persistentEntity);
+    entity = shape.create("benchmark", 256);
+  }
+
+  /**
+   * Reads the identifier of the entity as repositories do.
+   *
+   * @return The identifier.
+   */
+  @Benchmark
+  public String getId()
+  {
+    return entityInformation.getId(entity);
+  }
+
+  /**
+   * Reads the identifier of the entity through an identifier accessor.
+   *
+   * @return The identifier.
+   */
+  @Benchmark
+  public Object getIdThroughAccessor()
+  {
+    return persistentEntity.getIdentifierAccessor(entity).getIdentifier();
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.repository.support;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.multichain.benchmark.EntityShape;
+import org.springframework.data.multichain.benchmark.FlatEntity;
+import org.springframework.data.multichain.mapping.MultiChainPersistentEntity;
+import org.springframework.data.multichain.mapping.context.MultiChainMappingContext;
+import org.springframework.data.multichain.serializer.GsonEntitySerializer;
+import org.springframework.data.multichain.server.command.PublishMultiRequest;
+import org.springframework.data.multichain.server.command.PublishResponse;
+import org.springframework.data.multichain.server.simulator.LatencyDistribution;
+import org.springframework.data.multichain.server.simulator.MultiChainSimulator;
+import org.springframework.data.multichain.server.support.MultiChainTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks scanning a whole data stream on a simulated node that adds a
+ * fixed latency to every command: a page at a time with
+ * {@link SimpleMultiChainRepository#findAll(Pageable)}, with the read-ahead
+ * of {@link SimpleMultiChainRepository#streamAll()}, and with the
+ * range-partitioned {@link SimpleMultiChainRepository#parallelStreamAll()},
+ * through a {@link MultiChainTemplate} pooling a given number of connections.
+ * Parallel scans run in a pool of {@link #PARALLELISM} threads, against a
+ * node handling as many commands concurrently, so that the number of
+ * pooled connections is what limits them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 2)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+public class ScanBenchmark
+{
+  private static final int PARALLELISM = 16;
+
+  @Param({ "2", "64" })
+  private int connections;
+  @Param({ "20000" })
+  private int entities;
+  @Param({ "2", "20" })
+  private int latency;
+
+  private IoExecutor                             executor;
+  private ForkJoinPool                           pool;
+  private SimpleMultiChainRepository<FlatEntity> repository;
+  private MultiChainSimulator                    simulator;
+
+  /**
+   * Starts the simulator and publishes the entities, a thousand per
+   * transaction.
+   */
+  @SuppressWarnings("unchecked")
+  @Setup
+  public void setUp()
+  {
+    simulator = new MultiChainSimulator();
+    simulator.createStream("flat");
+    simulator.setLatency(LatencyDistribution.fixed(latency, TimeUnit.MILLISECONDS));
+    simulator.setThreads(PARALLELISM);
+    simulator.start();
+
+    pool = new ForkJoinPool(PARALLELISM);
+
+    final MultiChainTemplate client = new MultiChainTemplate("127.0.0.1"
+        , simulator.getPort()
+        , simulator.getUsername()
+        , simulator.getPassword()
+        , false
+        , connections
+        , connections);
+    final MultiChainPersistentEntity<FlatEntity> persistentEntity = (MultiChainPersistentEntity<FlatEntity>) new MultiChainMappingContext()
+        .getRequiredPersistentEntity(FlatEntity.class);
+
+    executor = new IoExecutor(IoExecutor.DEFAULT_THREADS, "scan-io-");
+    repository = new SimpleMultiChainRepository<>(new MultiChainEntityInformation<>(persistentEntity)
+        , client
+        , new GsonEntitySerializer()
+        , null
+        , null
+        , executor);
+
+    for (int start = 0; start < entities; start += 1000)
+    {
+      final List<PublishMultiRequest.Item> items = new ArrayList<>();
+      for (int i = start; i < Math.min(entities, start + 1000); ++i)
+      {
+        final String id = "scan-" + i;
+
+        items.add(new PublishMultiRequest.Item(id, repository.serialize(EntityShape.FLAT.create(id, 256))));
+      }
+
+      client.invoke(new PublishMultiRequest("flat", items, false), PublishResponse.class);
+    }
+  }
+
+  /**
+   * Stops the simulator and the thread pools.
+   */
+  @TearDown
+  public void tearDown()
+  {
+    executor.close();
+    pool.shutdown();
+    simulator.stop();
+  }
+
+  /**
+   * Scans the stream a page of a thousand items at a time.
+   *
+   * @return The number of entities found.
+   */
+  @Benchmark
+  public long findAllPaged()
+  {
+    long count = 0;
+
+    Page<FlatEntity> page = repository.findAll(PageRequest.of(0, 1000));
+    count += page.getNumberOfElements();
+
+    while (page.hasNext())
+    {
+      page = repository.findAll(page.nextPageable());
+      count += page.getNumberOfElements();
+    }
+
+    return count;
+  }
+
+  /**
+   * Scans the stream in parallel ranges, in the thread pool for parallel
+   * scans.
+   *
+   * @return The number of entities found.
+   */
+  @Benchmark
+  public long parallelStreamAll()
+  {
+    return pool.submit(() -> {
+      try (final Stream<FlatEntity> stream = repository.parallelStreamAll())
+      {
+        return stream.count();
+      }
+    }).join();
+  }
+
+  /**
+   * Scans the stream, fetching the next page while the current one is
+   * consumed.
+   *
+   * @return The number of entities found.
+   */
+  @Benchmark
+  public long streamAll()
+  {
+    try (final Stream<FlatEntity> stream = repository.streamAll())
+    {
+      return stream.count();
+    }
+  }
+}
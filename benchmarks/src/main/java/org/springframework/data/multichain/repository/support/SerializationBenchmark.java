@@ -0,0 +1,147 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.repository.support;
+
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.multichain.benchmark.EntityShape;
+import org.springframework.data.multichain.mapping.MultiChainPersistentEntity;
+import org.springframework.data.multichain.mapping.context.MultiChainMappingContext;
+import org.springframework.data.multichain.serializer.EntitySerializer;
+import org.springframework.data.multichain.serializer.EntitySerializers;
+import org.springframework.data.multichain.serializer.GsonEntitySerializer;
+import org.springframework.data.multichain.server.MultiChainClient;
+import org.springframework.data.multichain.server.command.Request;
+import org.springframework.data.multichain.server.command.Response;
+import org.springframework.data.multichain.server.command.StreamItemData;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the conversion of entities to and from the hexadecimal-coded
+ * data stored in MultiChain data streams by
+ * {@link SimpleMultiChainRepository}, for each built-in
+ * {@link EntitySerializer}, optionally compressed (run with
+ * {@code -p compression=1} to compress with Deflate). Gson JSON is written
+ * with the adapters derived from mapping metadata, unless run with
+ * {@code -p reflective=true} to use the reflective adapters of Gson itself.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+public class SerializationBenchmark
+{
+  /**
+   * Identifier of the codec to compress with, as defined by
+   * {@link EntitySerializers}, or {@literal 0} for no compression.
+   */
+  @Param({ "0" })
+  private byte compression;
+
+  /**
+   * Identifier of the format to write, as defined by
+   * {@link EntitySerializers}.
+   */
+  @Param({ "0", "1", "2", "3", "4" })
+  private byte format;
+
+  /**
+   * Whether to write Gson JSON with the reflective adapters of Gson itself.
+   */
+  @Param({ "false" })
+  private boolean reflective;
+
+  @Param({ "FLAT", "NESTED", "NUMERIC" })
+  private EntityShape shape;
+
+  @Param({ "256", "4096", "65536" })
+  private int size;
+
+  private StreamItemData                     data;
+  private Object                             entity;
+  private SimpleMultiChainRepository<Object> repository;
+
+  /**
+   * Creates the repository and the entity to convert.
+   */
+  @Setup
+  public void setUp()
+  {
+    @SuppressWarnings("unchecked")
+    final MultiChainPersistentEntity<Object> persistentEntity = (MultiChainPersistentEntity<Object>) new MultiChainMappingContext()
+        .getRequiredPersistentEntity(shape.getType());
+
+    repository = new SimpleMultiChainRepository<>(new MultiChainEntityInformation<>(persistentEntity)
+        , new UnusedMultiChainClient()
+        , reflective && format == EntitySerializers.GSON
+          ? new GsonEntitySerializer(new Gson())
+          : EntitySerializers.getSerializer(format)
+        , EntitySerializers.getCodec(compression));
+    entity = shape.create("benchmark", size);
+    data = repository.serialize(entity);
+  }
+
+  /**
+   * Converts hexadecimal-coded data into an entity.
+   *
+   * @return The entity.
+   */
+  @Benchmark
+  public Object deserialize()
+  {
+    return repository.deserialize(data);
+  }
+
+  /**
+   * Converts an entity into hexadecimal-coded data.
+   *
+   * @return The hexadecimal-coded data.
+   */
+  @Benchmark
+  public StreamItemData serialize()
+  {
+    return repository.serialize(entity);
+  }
+
+  /**
+   * A {@link MultiChainClient} for repositories that are never expected to
+   * invoke any command.
+   */
+  private static final class UnusedMultiChainClient implements MultiChainClient
+  {
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <Q extends Request, R extends Response<?>> R invoke(final Q request, final Class<R> responseType)
+    {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.server.command;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.multichain.benchmark.EntityShape;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the decoding of {@code liststreamkeyitems} responses by Gson,
+ * as done for every lookup by identifier.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+public class ResponseDecodingBenchmark
+{
+  @Param({ "1", "10" })
+  private int items;
+
+  @Param({ "FLAT", "NESTED", "NUMERIC" })
+  private EntityShape shape;
+
+  @Param({ "256", "4096", "65536" })
+  private int size;
+
+  private byte[] bytes;
+  private String json;
+  private Gson   serializer;
+
+  /**
+   * Creates the response to decode.
+   */
+  @Setup
+  public void setUp()
+  {
+    serializer = new Gson();
+
+    final String data = new BigInteger(1, serializer.toJson(shape.create("benchmark", size))
+                                                    .getBytes(StandardCharsets.UTF_8)).toString(16);
+
+    final JsonArray result = new JsonArray();
+    for (int i = 0; i < items; ++i)
+    {
+      final JsonArray publishers = new JsonArray();
+      publishers.add("1SimuLatedMu1tiChainNodeAddressXXXXXX");
+
+      final JsonObject item = new JsonObject();
+      item.add("publishers", publishers);
+      item.addProperty("key", "benchmark");
+      item.addProperty("data", data);
+      item.addProperty("confirmations", 10);
+      item.addProperty("blocktime", 1514764800L + i);
+      item.addProperty("txid", String.format("%064x", i));
+
+      result.add(item);
+    }
+
+    final JsonObject response = new JsonObject();
+    response.add("result", result);
+    response.add("error", null);
+    response.addProperty("id", "benchmark");
+
+    json = response.toString();
+    bytes = json.getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Decodes a response from a UTF-8 byte stream, as received from the
+   * MultiChain RPC server.
+   *
+   * @return The response.
+   */
+  @Benchmark
+  public ListStreamKeyItemsResponse decodeStream()
+  {
+    return serializer.fromJson(new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8)
+        , ListStreamKeyItemsResponse.class);
+  }
+
+  /**
+   * Decodes a response from a {@link String}.
+   *
+   * @return The response.
+   */
+  @Benchmark
+  public ListStreamKeyItemsResponse decodeString()
+  {
+    return serializer.fromJson(json, ListStreamKeyItemsResponse.class);
+  }
+}
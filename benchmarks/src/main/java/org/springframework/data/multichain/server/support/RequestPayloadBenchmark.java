@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.server.support;
+
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.multichain.server.command.ListStreamKeyItemsRequest;
+import org.springframework.data.multichain.server.command.PublishRequest;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the creation of JSON-RPC payloads by
+ * {@link MultiChainTemplate}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+public class RequestPayloadBenchmark
+{
+  @Param({ "256", "4096", "65536" })
+  private int size;
+
+  private ListStreamKeyItemsRequest listStreamKeyItemsRequest;
+  private PublishRequest            publishRequest;
+  private MultiChainTemplate        template;
+
+  /**
+   * Creates the template and the requests to convert.
+   */
+  @Setup
+  public void setUp()
+  {
+    final byte[] data = new byte[size];
+    new Random(size).nextBytes(data);
+
+    final StringBuilder hex = new StringBuilder(size * 2);
+    for (final byte b : data)
+    {
+      hex.append(String.format("%02x", b));
+    }
+
+    template = new MultiChainTemplate(URI.create("http://127.0.0.1:9560"), new RestTemplate(), new Gson());
+    listStreamKeyItemsRequest = new ListStreamKeyItemsRequest("benchmark", "key");
+    publishRequest = new PublishRequest("benchmark", "key", hex.toString());
+  }
+
+  /**
+   * Creates the payload for a {@code liststreamkeyitems} command, whose size
+   * does not depend on the entity size.
+   *
+   * @return The payload.
+   */
+  @Benchmark
+  public String listStreamKeyItems()
+  {
+    return template.createRequestPayload(listStreamKeyItemsRequest);
+  }
+
+  /**
+   * Creates the payload for a {@code publish} command.
+   *
+   * @return The payload.
+   */
+  @Benchmark
+  public String publish()
+  {
+    return template.createRequestPayload(publishRequest);
+  }
+}
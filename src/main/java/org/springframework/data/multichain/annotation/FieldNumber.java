@@ -0,0 +1,51 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * <p>
+ * Assigns a permanent number to an entity property, identifying the
+ * property in entities stored in binary formats that tag each value with
+ * a number instead of a name, such as
+ * {@link org.springframework.data.multichain.serializer.CompactEntitySerializer}.
+ * </p>
+ * <p>
+ * Numbers must be unique within an entity type, between {@literal 1} and
+ * {@link #MAX_VALUE}, and must never be reused for a different property
+ * once entities have been stored, so that older and newer versions of the
+ * entity type can read each other's items. Properties without a number get
+ * one derived from their name, which takes more space and changes if the
+ * property is renamed.
+ * </p>
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.FIELD, ElementType.METHOD, ElementType.ANNOTATION_TYPE })
+public @interface FieldNumber
+{
+  /**
+   * The highest number that can be assigned explicitly. Numbers derived
+   * from property names are always higher.
+   */
+  int MAX_VALUE = 65535;
+
+  /**
+   * The number for the property.
+   */
+  int value();
+}
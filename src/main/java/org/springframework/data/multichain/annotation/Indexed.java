@@ -0,0 +1,43 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * <p>
+ * Indexes an entity property through the keys of the items in the data
+ * stream. Each entity is published under its identifier and, for each
+ * indexed property with a value, under a key made of {@code index:}, the
+ * name of the property and the value, such as {@code index:customerId:42},
+ * so that query methods such as {@code findByCustomerId} are answered by
+ * the node with {@code liststreamkeyitems} instead of scanning the data
+ * stream.
+ * </p>
+ * <p>
+ * Indexed properties must hold simple values, whose canonical string
+ * forms are used as keys, and the keys must not be longer than 256 bytes.
+ * Entity identifiers must not start with {@code index:}. Indexing a
+ * property only applies to entities saved after the property has been
+ * annotated.
+ * </p>
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.FIELD, ElementType.METHOD, ElementType.ANNOTATION_TYPE })
+public @interface Indexed
+{
+}
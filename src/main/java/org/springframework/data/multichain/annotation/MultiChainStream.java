@@ -16,6 +16,8 @@
 package org.springframework.data.multichain.annotation;
 
 import org.springframework.core.annotation.AliasFor;
+import org.springframework.data.multichain.serializer.CompressionCodec;
+import org.springframework.data.multichain.serializer.EntitySerializer;
 
 import java.lang.annotation.*;
 
@@ -30,6 +32,85 @@ import java.lang.annotation.*;
 @Target(ElementType.TYPE)
 public @interface MultiChainStream
 {
+  /**
+   * The default for {@link #maxEntitySize()}: 64 MB.
+   */
+  int DEFAULT_MAX_ENTITY_SIZE = 64 * 1024 * 1024;
+
+  /**
+   * The smallest {@link #chunkSize()} other than {@literal 0}, which also
+   * bounds the number of chunks an entity read from the data stream may be
+   * split into.
+   */
+  int MIN_CHUNK_SIZE = 128;
+
+  /**
+   * <p>
+   * (Optional) The largest number of bytes to store in a single item. Larger
+   * entities are split into chunks of this size, published as separate
+   * items along with a manifest item in a single transaction, and
+   * reassembled when read. This should be set to no more than the
+   * {@code max-std-element-size} of the blockchain, and to no less than
+   * {@link #MIN_CHUNK_SIZE}. Chunking applies only to entities stored as
+   * {@link StreamItemFormat#BINARY}.
+   * </p>
+   * <p>
+   * Defaults to {@literal 0}, for no chunking.
+   * </p>
+   */
+  int chunkSize() default 0;
+
+  /**
+   * <p>
+   * (Optional) The type of {@link CompressionCodec} to compress entities
+   * with, once they have been written by the {@link #serializer()}. The type
+   * must have a public no-argument constructor. Compression applies only to
+   * entities stored as {@link StreamItemFormat#BINARY}.
+   * </p>
+   * <p>
+   * Defaults to no compression. Compressed items can always be read,
+   * whatever codec is configured.
+   * </p>
+   */
+  Class<? extends CompressionCodec> compression() default CompressionCodec.class;
+
+  /**
+   * <p>
+   * (Optional) The length in bytes from which entities are compressed, if a
+   * {@link #compression()} codec is configured. Smaller entities are stored
+   * uncompressed, as are entities that compression would not make smaller.
+   * </p>
+   * <p>
+   * Defaults to {@literal 1024}.
+   * </p>
+   */
+  int compressionThreshold() default 1024;
+
+  /**
+   * <p>
+   * (Optional) The form in which entities are stored in the data stream.
+   * </p>
+   * <p>
+   * Defaults to {@link StreamItemFormat#BINARY}. Items stored in any form
+   * can always be read, whatever form is configured.
+   * </p>
+   */
+  StreamItemFormat format() default StreamItemFormat.BINARY;
+
+  /**
+   * <p>
+   * (Optional) The largest number of bytes an entity stored as
+   * {@link StreamItemFormat#BINARY} may take, after serialization and
+   * compression. Larger entities cannot be saved, and chunk manifests read
+   * from the data stream that declare larger entities are rejected before
+   * anything is allocated or any chunk is fetched.
+   * </p>
+   * <p>
+   * Defaults to {@link #DEFAULT_MAX_ENTITY_SIZE}.
+   * </p>
+   */
+  int maxEntitySize() default DEFAULT_MAX_ENTITY_SIZE;
+
   /**
    * <p>
    * (Optional) The name of the data stream.
@@ -51,4 +132,48 @@ public @interface MultiChainStream
    */
   @AliasFor("name")
   String value() default "";
+
+  /**
+   * <p>
+   * (Optional) Whether entities are stored off-chain, which requires
+   * MultiChain 2.0 or later. Only a hash of each off-chain entity is stored
+   * on the blockchain, keeping blocks small and quick to propagate, while
+   * the entity itself is delivered to other nodes separately.
+   * </p>
+   * <p>
+   * Defaults to {@literal false}. Entities stored either way can always be
+   * read, once they are available to the node.
+   * </p>
+   */
+  boolean offchain() default false;
+
+  /**
+   * <p>
+   * (Optional) Whether the data stream is replicated locally, for
+   * read-heavy entities. The confirmed items of the data stream are copied
+   * into a memory-mapped file in the replica directory configured for the
+   * repository, so that entities can be found without a round trip to the
+   * node. Items not yet copied are still found on the node.
+   * </p>
+   * <p>
+   * Defaults to {@literal false}. Has no effect unless a replica directory
+   * has been configured.
+   * </p>
+   */
+  boolean replicated() default false;
+
+  /**
+   * <p>
+   * (Optional) The type of {@link EntitySerializer} to use for writing
+   * entities to the data stream. The type must have a public no-argument
+   * constructor.
+   * </p>
+   * <p>
+   * Defaults to the serializer configured for the repository, which itself
+   * defaults to {@link org.springframework.data.multichain.serializer.GsonEntitySerializer}.
+   * Entities written in any format can always be read, whatever serializer
+   * is configured.
+   * </p>
+   */
+  Class<? extends EntitySerializer> serializer() default EntitySerializer.class;
 }
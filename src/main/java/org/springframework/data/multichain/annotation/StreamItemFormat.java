@@ -0,0 +1,40 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.annotation;
+
+/**
+ * The forms in which entities can be stored as the data of MultiChain
+ * stream items.
+ */
+public enum StreamItemFormat
+{
+  /**
+   * Binary data, as produced by the
+   * {@link org.springframework.data.multichain.serializer.EntitySerializer}
+   * for the entity and exchanged with MultiChain as hexadecimal digits. Works
+   * with all serializers and all versions of MultiChain.
+   */
+  BINARY,
+  /**
+   * Native JSON, published as {@code {"json": ...}} and returned as such by
+   * MultiChain 1.0.2 and later. Items take half the space of hexadecimal
+   * JSON in requests and responses, need no hexadecimal conversion, and can
+   * be read by any MultiChain client. Requires a JSON serializer: either
+   * {@link org.springframework.data.multichain.serializer.GsonEntitySerializer}
+   * or {@link org.springframework.data.multichain.serializer.JacksonJsonEntitySerializer}.
+   */
+  JSON
+}
@@ -16,6 +16,11 @@
 package org.springframework.data.multichain.mapping;
 
 import org.springframework.data.mapping.model.MutablePersistentEntity;
+import org.springframework.data.multichain.annotation.StreamItemFormat;
+import org.springframework.data.multichain.serializer.CompressionCodec;
+import org.springframework.data.multichain.serializer.EntitySerializer;
+
+import java.util.List;
 
 /**
  * Contract for a domain entity whose instances can be persisted to a
@@ -25,6 +30,71 @@ import org.springframework.data.mapping.model.MutablePersistentEntity;
  */
 public interface MultiChainPersistentEntity<T> extends MutablePersistentEntity<T, MultiChainPersistentProperty>
 {
+  /**
+   * Gets the largest number of bytes to store in a single item for an
+   * instance of this entity, larger instances being split into chunks.
+   *
+   * @return The chunk size, or {@literal 0} if instances should not be
+   * split.
+   */
+  int getChunkSize();
+
+  /**
+   * Gets the identifier of an instance of this entity, read through
+   * {@link MultiChainPersistentProperty#getValue(Object)}.
+   *
+   * @param bean The instance; must not be {@literal null}.
+   * @return The identifier, or {@literal null} if the entity has no
+   * identifier property or the instance has no identifier.
+   */
+  Object getIdentifier(Object bean);
+
+  /**
+   * Gets the keys, besides its identifier, under which an instance of this
+   * entity is published: one for each
+   * {@link MultiChainPersistentProperty#isIndexed() indexed} property with a
+   * value, in the order in which the properties are declared.
+   *
+   * @param bean The instance; must not be {@literal null}.
+   * @return The keys, which are empty if the entity has no indexed
+   * properties.
+   * @see MultiChainPersistentProperty#getIndexKey(Object)
+   */
+  List<String> getIndexKeys(Object bean);
+
+  /**
+   * Gets the type of {@link CompressionCodec} to compress instances of this
+   * entity with, if compression has been enabled for the entity.
+   *
+   * @return The type of {@link CompressionCodec}, or {@literal null} if
+   * instances should not be compressed.
+   */
+  Class<? extends CompressionCodec> getCompressionCodecType();
+
+  /**
+   * Gets the length in bytes from which instances of this entity should be
+   * compressed, if compression has been enabled for the entity.
+   *
+   * @return The length from which instances should be compressed.
+   */
+  int getCompressionThreshold();
+
+  /**
+   * Gets the form in which instances of this entity should be stored in
+   * the data stream.
+   *
+   * @return The {@link StreamItemFormat}.
+   */
+  StreamItemFormat getItemFormat();
+
+  /**
+   * Gets the largest number of bytes an instance of this entity may take
+   * when stored, including when read from chunks.
+   *
+   * @return The maximum entity size.
+   */
+  int getMaxEntitySize();
+
   /**
    * Gets the name of the MultiChain data stream to which instances of this
    * entity should be persisted.
@@ -33,4 +103,27 @@ public interface MultiChainPersistentEntity<T> extends MutablePersistentEntity<T
    * entity should be persisted.
    */
   String getStreamName();
+
+  /**
+   * Gets whether instances of this entity should be stored off-chain.
+   *
+   * @return {@literal true} if instances should be stored off-chain.
+   */
+  boolean isOffchain();
+
+  /**
+   * Gets whether the data stream should be replicated locally.
+   *
+   * @return {@literal true} if the data stream should be replicated.
+   */
+  boolean isReplicated();
+
+  /**
+   * Gets the type of {@link EntitySerializer} to use for writing instances
+   * of this entity, if one has been specified for the entity.
+   *
+   * @return The type of {@link EntitySerializer}, or {@literal null} if the
+   * serializer configured for the repository should be used.
+   */
+  Class<? extends EntitySerializer> getSerializerType();
 }
@@ -15,6 +15,7 @@
  */
 package org.springframework.data.multichain.mapping;
 
+import org.springframework.data.mapping.MappingException;
 import org.springframework.data.mapping.PersistentProperty;
 
 /**
@@ -23,4 +24,66 @@ import org.springframework.data.mapping.PersistentProperty;
  */
 public interface MultiChainPersistentProperty extends PersistentProperty<MultiChainPersistentProperty>
 {
+  /**
+   * The prefix of the keys derived from indexed properties, which entity
+   * identifiers must not start with, so that an index key is never taken
+   * for an identifier.
+   */
+  String INDEX_KEY_PREFIX = "index:";
+
+  /**
+   * The largest length of an item key accepted by MultiChain, in bytes.
+   */
+  int MAX_KEY_LENGTH = 256;
+
+  /**
+   * Gets the number that identifies this property in entities stored in
+   * binary formats: the one assigned through
+   * {@link org.springframework.data.multichain.annotation.FieldNumber} if
+   * any, one derived from the name of the property otherwise.
+   *
+   * @return The number of the property.
+   */
+  int getFieldNumber();
+
+  /**
+   * Gets the key under which entities with a given value for this property
+   * are published, if this property is
+   * {@link org.springframework.data.multichain.annotation.Indexed indexed}:
+   * {@link #INDEX_KEY_PREFIX}, the name of the property and the value,
+   * separated by {@code :}. Values are written in a canonical form, so that
+   * equal values always give the same key: enumerated values by their
+   * names, decimals without trailing zeros, dates and instants as ISO-8601
+   * instants in UTC, and other values by their string forms.
+   *
+   * @param value The value of the property.
+   * @return The key, or {@literal null} if {@code value} is
+   * {@literal null}.
+   * @throws IllegalArgumentException if the key is longer than
+   *                                  {@link #MAX_KEY_LENGTH} bytes.
+   */
+  String getIndexKey(Object value);
+
+  /**
+   * Gets the value of this property on an entity, through its getter if
+   * the property is accessed as a property, or its field otherwise. The
+   * accessor is looked up once and reused for all entities, so reading a
+   * property neither creates objects nor goes through reflection.
+   *
+   * @param bean The entity; must be an instance of the owner of the
+   *             property.
+   * @return The value of the property.
+   * @throws MappingException if the property has neither a getter nor a
+   *                          field.
+   */
+  Object getValue(Object bean);
+
+  /**
+   * Gets whether this property has been annotated with
+   * {@link org.springframework.data.multichain.annotation.Indexed}.
+   *
+   * @return {@literal true} if entities are published under a key derived
+   * from the value of this property.
+   */
+  boolean isIndexed();
 }
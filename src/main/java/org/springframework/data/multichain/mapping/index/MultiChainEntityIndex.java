@@ -0,0 +1,335 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.mapping.index;
+
+import org.springframework.core.io.UrlResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * <p>
+ * The index of MultiChain entity types written at compile time by
+ * {@link MultiChainEntityIndexProcessor}: the name of every class annotated
+ * with {@link org.springframework.data.multichain.annotation.MultiChainStream},
+ * with the name of its data stream and of its identifier property.
+ * </p>
+ * <p>
+ * The index is stored in {@link #LOCATION} as properties, two per entity
+ * type, named after the binary name of the class:
+ * </p>
+ * <pre>
+ * com.example.Trade#stream=trades
+ * com.example.Trade#id=id
+ * </pre>
+ * <p>
+ * If repository implementations are generated, the index also maps the
+ * binary name of each repository interface to that of its implementation,
+ * or marks the interface as implemented by a proxy if it declares methods
+ * of its own:
+ * </p>
+ * <pre>
+ * com.example.TradeRepository#implementation=com.example.TradeRepository_MultiChain
+ * com.example.QuoteRepository#proxy=true
+ * </pre>
+ * <p>
+ * Indexes found in several classpath locations are merged.
+ * </p>
+ */
+public final class MultiChainEntityIndex
+{
+  /**
+   * The location of the index on the classpath.
+   */
+  public static final String LOCATION = "META-INF/spring.multichain";
+
+  private static final Map<ClassLoader, MultiChainEntityIndex> CACHE                 = new ConcurrentReferenceHashMap<>();
+  private static final String                                  ID_SUFFIX             = "#id";
+  private static final String                                  IMPLEMENTATION_SUFFIX = "#implementation";
+  private static final String                                  PROXY_SUFFIX          = "#proxy";
+  private static final String                                  STREAM_SUFFIX         = "#stream";
+
+  private final Properties entries;
+
+  /**
+   * Creates an index.
+   *
+   * @param entries The entries of the index.
+   */
+  MultiChainEntityIndex(final Properties entries)
+  {
+    this.entries = entries;
+  }
+
+  /**
+   * Loads the index from all the classpath locations visible to a class
+   * loader. Indexes are loaded once per class loader.
+   *
+   * @param classLoader The class loader, or {@literal null} to use the one
+   *                    that loaded this class.
+   * @return The index, which is empty if no index was found.
+   * @throws IllegalStateException if an index cannot be read.
+   */
+  public static MultiChainEntityIndex load(final ClassLoader classLoader)
+  {
+    return CACHE.computeIfAbsent(classLoader != null ? classLoader : MultiChainEntityIndex.class.getClassLoader()
+        , MultiChainEntityIndex::read);
+  }
+
+  /**
+   * Checks whether an entity type is in the index.
+   *
+   * @param typeName The binary name of the entity type.
+   * @return {@literal true} if the entity type is in the index.
+   */
+  public boolean contains(final String typeName)
+  {
+    return entries.containsKey(typeName + STREAM_SUFFIX);
+  }
+
+  /**
+   * Gets the names of all the entity types in the index.
+   *
+   * @return The binary names of the entity types, in alphabetical order.
+   */
+  public Set<String> getEntityTypeNames()
+  {
+    final Set<String> names = entries.stringPropertyNames()
+                                     .stream()
+                                     .filter(name -> name.endsWith(STREAM_SUFFIX))
+                                     .map(name -> name.substring(0, name.length() - STREAM_SUFFIX.length()))
+                                     .collect(Collectors.toCollection(TreeSet::new));
+
+    return Collections.unmodifiableSet(names);
+  }
+
+  /**
+   * Gets the name of the identifier property of an entity type.
+   *
+   * @param typeName The binary name of the entity type.
+   * @return The name of the identifier property, or {@literal null} if the
+   * entity type is not in the index or has no identifier property.
+   */
+  public String getIdPropertyName(final String typeName)
+  {
+    return entries.getProperty(typeName + ID_SUFFIX);
+  }
+
+  /**
+   * Gets the name of the implementation generated at compile time for a
+   * repository interface.
+   *
+   * @param interfaceName The binary name of the repository interface.
+   * @return The binary name of the implementation, or {@literal null} if
+   * none was generated.
+   */
+  public String getImplementationName(final String interfaceName)
+  {
+    return entries.getProperty(interfaceName + IMPLEMENTATION_SUFFIX);
+  }
+
+  /**
+   * Gets the names of all the repository interfaces in the index, whether
+   * an implementation was generated for them or not.
+   *
+   * @return The binary names of the repository interfaces, in alphabetical
+   * order.
+   */
+  public Set<String> getRepositoryInterfaceNames()
+  {
+    final Set<String> names = entries.stringPropertyNames()
+                                     .stream()
+                                     .filter(name -> name.endsWith(IMPLEMENTATION_SUFFIX) || name.endsWith(PROXY_SUFFIX))
+                                     .map(name -> name.substring(0, name.lastIndexOf('#')))
+                                     .collect(Collectors.toCollection(TreeSet::new));
+
+    return Collections.unmodifiableSet(names);
+  }
+
+  /**
+   * Gets the name of the data stream of an entity type.
+   *
+   * @param typeName The binary name of the entity type.
+   * @return The name of the data stream, or {@literal null} if the entity
+   * type is not in the index.
+   */
+  public String getStreamName(final String typeName)
+  {
+    return entries.getProperty(typeName + STREAM_SUFFIX);
+  }
+
+  /**
+   * Checks whether the index is empty, which is the case when no index was
+   * written for any of the classes visible to the class loader.
+   *
+   * @return {@literal true} if the index is empty.
+   */
+  public boolean isEmpty()
+  {
+    return entries.isEmpty();
+  }
+
+  /**
+   * Adds an entity type to the entries of an index.
+   *
+   * @param entries        The entries.
+   * @param typeName       The binary name of the entity type.
+   * @param streamName     The name of the data stream of the entity type.
+   * @param idPropertyName The name of the identifier property of the entity
+   *                       type, or {@literal null} if it has none.
+   */
+  static void addEntity(final Properties entries, final String typeName, final String streamName, final String idPropertyName)
+  {
+    entries.setProperty(typeName + STREAM_SUFFIX, streamName);
+
+    if (idPropertyName != null)
+    {
+      entries.setProperty(typeName + ID_SUFFIX, idPropertyName);
+    }
+    else
+    {
+      entries.remove(typeName + ID_SUFFIX);
+    }
+  }
+
+  /**
+   * Adds a repository interface to the entries of an index, with the
+   * implementation generated for it.
+   *
+   * @param entries            The entries.
+   * @param interfaceName      The binary name of the repository interface.
+   * @param implementationName The binary name of the implementation, or
+   *                           {@literal null} if the interface is
+   *                           implemented by a proxy.
+   */
+  static void addRepository(final Properties entries, final String interfaceName, final String implementationName)
+  {
+    removeRepository(entries, interfaceName);
+
+    if (implementationName != null)
+    {
+      entries.setProperty(interfaceName + IMPLEMENTATION_SUFFIX, implementationName);
+    }
+    else
+    {
+      entries.setProperty(interfaceName + PROXY_SUFFIX, Boolean.TRUE.toString());
+    }
+  }
+
+  /**
+   * Removes a repository interface from the entries of an index.
+   *
+   * @param entries       The entries.
+   * @param interfaceName The binary name of the repository interface.
+   */
+  static void removeRepository(final Properties entries, final String interfaceName)
+  {
+    entries.remove(interfaceName + IMPLEMENTATION_SUFFIX);
+    entries.remove(interfaceName + PROXY_SUFFIX);
+  }
+
+  /**
+   * Removes the entity types and repository interfaces that no longer
+   * exist from the entries of an index.
+   *
+   * @param entries The entries.
+   * @param exists  Checks whether a type, given by its binary name, still
+   *                exists.
+   */
+  static void retainExisting(final Properties entries, final Predicate<String> exists)
+  {
+    entries.stringPropertyNames()
+           .stream()
+           .filter(name -> !exists.test(name.substring(0, name.lastIndexOf('#'))))
+           .forEach(entries::remove);
+  }
+
+  /**
+   * Writes the entries of an index in alphabetical order, so that the same
+   * entity types always give the same file.
+   *
+   * @param entries The entries.
+   * @param writer  The writer to write to.
+   * @throws IOException if the entries cannot be written.
+   */
+  static void write(final Properties entries, final Writer writer) throws IOException
+  {
+    final StringWriter properties = new StringWriter();
+    entries.store(properties, null);
+
+    // Properties are written one per line, after a comment with the date.
+    final Set<String> lines = new TreeSet<>();
+    try (final BufferedReader reader = new BufferedReader(new StringReader(properties.toString())))
+    {
+      for (String line = reader.readLine(); line != null; line = reader.readLine())
+      {
+        if (!line.startsWith("#"))
+        {
+          lines.add(line);
+        }
+      }
+    }
+
+    for (final String line : lines)
+    {
+      writer.write(line);
+      writer.write('\n');
+    }
+  }
+
+  /**
+   * Reads the index from all the classpath locations visible to a class
+   * loader.
+   *
+   * @param classLoader The class loader.
+   * @return The index.
+   * @throws IllegalStateException if an index cannot be read.
+   */
+  private static MultiChainEntityIndex read(final ClassLoader classLoader)
+  {
+    final Properties entries = new Properties();
+
+    try
+    {
+      final Enumeration<URL> urls = classLoader.getResources(LOCATION);
+
+      while (urls.hasMoreElements())
+      {
+        entries.putAll(PropertiesLoaderUtils.loadProperties(new UrlResource(urls.nextElement())));
+      }
+    }
+    catch (final IOException e)
+    {
+      throw new IllegalStateException(String.format("Could not read the MultiChain entity index from %s.", LOCATION), e);
+    }
+
+    return new MultiChainEntityIndex(entries);
+  }
+}
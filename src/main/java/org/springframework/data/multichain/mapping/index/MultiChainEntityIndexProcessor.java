@@ -0,0 +1,570 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.mapping.index;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.multichain.annotation.MultiChainStream;
+import org.springframework.data.multichain.repository.MultiChainRepository;
+import org.springframework.data.multichain.repository.support.IoExecutor;
+import org.springframework.data.multichain.repository.support.MultiChainEntityInformation;
+import org.springframework.data.multichain.repository.support.SimpleMultiChainRepository;
+import org.springframework.data.multichain.repository.support.StreamReplica;
+import org.springframework.data.multichain.serializer.CompressionCodec;
+import org.springframework.data.multichain.serializer.EntitySerializer;
+import org.springframework.data.multichain.server.MultiChainClient;
+import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.beans.Introspector;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * <p>
+ * An annotation processor that writes the {@link MultiChainEntityIndex} of
+ * the classes being compiled: every class annotated with
+ * {@link MultiChainStream}, with the name of its data stream and of its
+ * identifier property, worked out as by the mapping metadata.
+ * </p>
+ * <p>
+ * With the {@value #GENERATE_REPOSITORIES} option, the processor also
+ * generates a class implementing each repository interface that extends
+ * {@link MultiChainRepository} without declaring methods of its own, and
+ * records it in the index. The class extends
+ * {@link org.springframework.data.multichain.repository.support.SimpleMultiChainRepository},
+ * and is named after the interface with the suffix
+ * {@value #IMPLEMENTATION_SUFFIX}. Repositories created from such
+ * interfaces are instances of the generated class, called without going
+ * through a proxy.
+ * </p>
+ * <p>
+ * Next to the index, the processor writes the GraalVM {@code native-image}
+ * reflection and proxy configuration for the types in it, under
+ * {@code META-INF/native-image}, so that entities and repositories work in
+ * native images without further configuration. Proxy configuration is only
+ * written for repository interfaces found with the
+ * {@value #GENERATE_REPOSITORIES} option.
+ * </p>
+ * <p>
+ * The processor is registered as a service, so it runs whenever this module
+ * is on the compile classpath, unless annotation processing is disabled.
+ * When only some classes are compiled, the existing index is updated
+ * rather than replaced.
+ * </p>
+ */
+@SupportedAnnotationTypes("org.springframework.data.multichain.annotation.MultiChainStream")
+@SupportedOptions(MultiChainEntityIndexProcessor.GENERATE_REPOSITORIES)
+public class MultiChainEntityIndexProcessor extends AbstractProcessor
+{
+  /**
+   * The option that turns on the generation of repository implementations,
+   * given to the compiler as {@code -Amultichain.generateRepositories=true}.
+   */
+  public static final String GENERATE_REPOSITORIES = "multichain.generateRepositories";
+  /**
+   * The suffix of the names of generated repository implementations.
+   */
+  public static final String IMPLEMENTATION_SUFFIX = "_MultiChain";
+
+  private final Properties entries = new Properties();
+
+  private boolean generateRepositories;
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * All types are processed when repository implementations are generated,
+   * since repository interfaces need not be annotated.
+   */
+  @Override
+  public Set<String> getSupportedAnnotationTypes()
+  {
+    return generateRepositories ? Collections.singleton("*") : super.getSupportedAnnotationTypes();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public SourceVersion getSupportedSourceVersion()
+  {
+    return SourceVersion.latestSupported();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void init(final ProcessingEnvironment processingEnv)
+  {
+    super.init(processingEnv);
+
+    generateRepositories = Boolean.parseBoolean(processingEnv.getOptions().get(GENERATE_REPOSITORIES));
+
+    readExisting();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv)
+  {
+    for (final Element element : roundEnv.getElementsAnnotatedWith(MultiChainStream.class))
+    {
+      if (element.getKind() == ElementKind.CLASS && !element.getModifiers().contains(Modifier.ABSTRACT))
+      {
+        index((TypeElement) element);
+      }
+    }
+
+    if (generateRepositories)
+    {
+      ElementFilter.typesIn(roundEnv.getRootElements()).forEach(this::generateRepositories);
+    }
+
+    if (roundEnv.processingOver() && !entries.isEmpty())
+    {
+      write();
+    }
+
+    return false;
+  }
+
+  /**
+   * Generates the implementation of a repository interface, and records it
+   * in the index.
+   *
+   * @param repositoryInterface The repository interface.
+   * @param domainType          The type of entities in the repository.
+   */
+  private void generateRepository(final TypeElement repositoryInterface, final TypeMirror domainType)
+  {
+    final String packageName = processingEnv.getElementUtils().getPackageOf(repositoryInterface).getQualifiedName().toString();
+    final String interfaceName = processingEnv.getElementUtils().getBinaryName(repositoryInterface).toString();
+    final String simpleName = (packageName.isEmpty() ? interfaceName : interfaceName.substring(packageName.length() + 1)).replace('$', '_')
+                              + IMPLEMENTATION_SUFFIX;
+    final String implementationName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+
+    final StringBuilder source = new StringBuilder();
+    if (!packageName.isEmpty())
+    {
+      source.append("package ").append(packageName).append(";\n\n");
+    }
+
+    source.append("/**\n")
+          .append(" * Implementation of {@link ").append(repositoryInterface.getQualifiedName()).append("}, generated by\n")
+          .append(" * {@link ").append(getClass().getName()).append("}.\n")
+          .append(" */\n")
+          .append("public class ").append(simpleName).append("\n")
+          .append("    extends ").append(SimpleMultiChainRepository.class.getName()).append("<").append(domainType).append(">\n")
+          .append("    implements ").append(repositoryInterface.getQualifiedName()).append("\n")
+          .append("{\n")
+          .append("  public ").append(simpleName).append("(final ").append(MultiChainEntityInformation.class.getName())
+          .append("<").append(domainType).append(", java.lang.String> entityInformation\n")
+          .append("      , final ").append(MultiChainClient.class.getName()).append(" multiChainClient\n")
+          .append("      , final ").append(EntitySerializer.class.getName()).append(" serializer\n")
+          .append("      , final ").append(CompressionCodec.class.getName()).append(" codec\n")
+          .append("      , final ").append(StreamReplica.class.getName()).append(" replica\n")
+          .append("      , final ").append(IoExecutor.class.getName()).append(" executor)\n")
+          .append("  {\n")
+          .append("    super(entityInformation, multiChainClient, serializer, codec, replica, executor);\n")
+          .append("  }\n")
+          .append("}\n");
+
+    try
+    {
+      final JavaFileObject file = processingEnv.getFiler().createSourceFile(implementationName, repositoryInterface);
+
+      try (final Writer writer = file.openWriter())
+      {
+        writer.write(source.toString());
+      }
+    }
+    catch (final IOException e)
+    {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR
+          , String.format("Could not generate %s: %s", implementationName, e.getMessage())
+          , repositoryInterface);
+
+      return;
+    }
+
+    MultiChainEntityIndex.addRepository(entries, interfaceName, implementationName);
+  }
+
+  /**
+   * Generates the implementations of a type, if it is a repository
+   * interface that can be implemented without a proxy, and of the types
+   * nested in it. Repository interfaces that declare methods of their own
+   * are recorded as implemented by a proxy. Implementations generated by
+   * earlier compilations are forgotten for interfaces that no longer
+   * qualify.
+   *
+   * @param type The type.
+   */
+  private void generateRepositories(final TypeElement type)
+  {
+    MultiChainEntityIndex.removeRepository(entries, processingEnv.getElementUtils().getBinaryName(type).toString());
+
+    if (type.getKind() == ElementKind.INTERFACE
+        && type.getAnnotation(NoRepositoryBean.class) == null
+        && type.getTypeParameters().isEmpty())
+    {
+      final TypeElement multiChainRepository = processingEnv.getElementUtils().getTypeElement(MultiChainRepository.class.getName());
+      final TypeMirror domainType = getDomainType(type.asType(), multiChainRepository);
+
+      if (domainType != null && declaresMethods(type, multiChainRepository))
+      {
+        MultiChainEntityIndex.addRepository(entries, processingEnv.getElementUtils().getBinaryName(type).toString(), null);
+      }
+      else if (domainType != null)
+      {
+        generateRepository(type, domainType);
+      }
+    }
+
+    ElementFilter.typesIn(type.getEnclosedElements()).forEach(this::generateRepositories);
+  }
+
+  /**
+   * Checks whether a repository interface, or any of the interfaces it
+   * extends, declares abstract methods other than those of
+   * {@link MultiChainRepository}, such as query methods or methods of custom
+   * fragments, which are implemented through the repository proxy.
+   *
+   * @param repositoryInterface  The repository interface.
+   * @param multiChainRepository The {@link MultiChainRepository} interface.
+   * @return {@literal true} if the interface declares other methods.
+   */
+  private boolean declaresMethods(final TypeElement repositoryInterface, final TypeElement multiChainRepository)
+  {
+    return ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(repositoryInterface))
+                        .stream()
+                        .anyMatch(method -> method.getModifiers().contains(Modifier.ABSTRACT)
+                                            && !method.getEnclosingElement().equals(multiChainRepository));
+  }
+
+  /**
+   * Gets the type of entities in a repository: the type argument given to
+   * {@link MultiChainRepository} by the repository interface, directly or
+   * through the interfaces it extends.
+   *
+   * @param type                 The repository interface.
+   * @param multiChainRepository The {@link MultiChainRepository} interface.
+   * @return The type of entities, or {@literal null} if the interface does
+   * not extend {@link MultiChainRepository} with a class as type argument.
+   */
+  private TypeMirror getDomainType(final TypeMirror type, final TypeElement multiChainRepository)
+  {
+    for (final TypeMirror supertype : processingEnv.getTypeUtils().directSupertypes(type))
+    {
+      if (supertype.getKind() != TypeKind.DECLARED)
+      {
+        continue;
+      }
+      else if (((DeclaredType) supertype).asElement().equals(multiChainRepository))
+      {
+        final List<? extends TypeMirror> arguments = ((DeclaredType) supertype).getTypeArguments();
+
+        return arguments.size() == 1 && arguments.get(0).getKind() == TypeKind.DECLARED ? arguments.get(0) : null;
+      }
+
+      final TypeMirror domainType = getDomainType(supertype, multiChainRepository);
+      if (domainType != null)
+      {
+        return domainType;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Gets the name of the identifier property of an entity type: the field,
+   * or the property of the getter, annotated with {@link Id} in the type or
+   * any of its superclasses.
+   *
+   * @param type The entity type.
+   * @return The name of the identifier property, or {@literal null} if the
+   * entity type has none.
+   */
+  private static String getIdPropertyName(final TypeElement type)
+  {
+    for (TypeElement current = type; current != null; current = getSuperclass(current))
+    {
+      for (final Element member : current.getEnclosedElements())
+      {
+        if (member.getAnnotation(Id.class) == null)
+        {
+          continue;
+        }
+        else if (member.getKind() == ElementKind.FIELD)
+        {
+          return member.getSimpleName().toString();
+        }
+        else if (member.getKind() == ElementKind.METHOD && ((ExecutableElement) member).getParameters().isEmpty())
+        {
+          final String name = member.getSimpleName().toString();
+
+          if (name.startsWith("get") && name.length() > 3)
+          {
+            return Introspector.decapitalize(name.substring(3));
+          }
+          else if (name.startsWith("is") && name.length() > 2)
+          {
+            return Introspector.decapitalize(name.substring(2));
+          }
+        }
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Gets the name of the data stream of an entity type: the name given by
+   * its annotation, or its simple name in lower case otherwise.
+   *
+   * @param type The entity type.
+   * @return The name of the data stream.
+   */
+  private static String getStreamName(final TypeElement type)
+  {
+    final MultiChainStream annotation = type.getAnnotation(MultiChainStream.class);
+
+    // The value is an alias for the name, which is only resolved at run
+    // time.
+    final String name = StringUtils.hasText(annotation.name()) ? annotation.name() : annotation.value();
+
+    return StringUtils.hasText(name)
+           ? name.trim()
+           : type.getSimpleName().toString().toLowerCase(Locale.ENGLISH);
+  }
+
+  /**
+   * Gets the superclass of a type.
+   *
+   * @param type The type.
+   * @return The superclass, or {@literal null} if the type has none.
+   */
+  private static TypeElement getSuperclass(final TypeElement type)
+  {
+    final TypeMirror superclass = type.getSuperclass();
+
+    return superclass.getKind() == TypeKind.DECLARED
+           ? (TypeElement) ((DeclaredType) superclass).asElement()
+           : null;
+  }
+
+  /**
+   * Adds an entity type to the index.
+   *
+   * @param type The entity type.
+   */
+  private void index(final TypeElement type)
+  {
+    MultiChainEntityIndex.addEntity(entries
+        , processingEnv.getElementUtils().getBinaryName(type).toString()
+        , getStreamName(type)
+        , getIdPropertyName(type));
+  }
+
+  /**
+   * Reads the index written by an earlier compilation, if any, keeping the
+   * entity types that still exist.
+   */
+  private void readExisting()
+  {
+    try
+    {
+      final FileObject file = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", MultiChainEntityIndex.LOCATION);
+
+      try (final Reader reader = file.openReader(true))
+      {
+        entries.load(reader);
+      }
+    }
+    catch (final IOException | IllegalArgumentException e)
+    {
+      // There is no index yet.
+      return;
+    }
+
+    MultiChainEntityIndex.retainExisting(entries, name -> processingEnv.getElementUtils().getTypeElement(name.replace('$', '.')) != null);
+  }
+
+  /**
+   * Writes the index, and the GraalVM {@code native-image} metadata for the
+   * types in it.
+   */
+  private void write()
+  {
+    final NativeImageMetadata metadata = getNativeImageMetadata();
+
+    write(MultiChainEntityIndex.LOCATION, writer -> MultiChainEntityIndex.write(entries, writer));
+    write(NativeImageMetadata.REFLECT_CONFIG, metadata::writeReflectConfig);
+    write(NativeImageMetadata.PROXY_CONFIG, metadata::writeProxyConfig);
+  }
+
+  /**
+   * Writes a resource to the class output.
+   *
+   * @param location The location of the resource.
+   * @param content  Writes the content of the resource.
+   */
+  private void write(final String location, final ResourceContent content)
+  {
+    try
+    {
+      final FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", location);
+
+      try (final Writer writer = file.openWriter())
+      {
+        content.write(writer);
+      }
+    }
+    catch (final IOException e)
+    {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR
+          , String.format("Could not write %s: %s", location, e.getMessage()));
+    }
+  }
+
+  /**
+   * Gets the GraalVM {@code native-image} metadata for the types in the
+   * index: the entity types, with their superclasses and the types of their
+   * fields, whose instances are created and read through reflection, the
+   * repository interfaces, whose methods Spring Data inspects, the
+   * generated implementations, which are created through reflection, and
+   * the proxies of the other repository interfaces.
+   *
+   * @return The metadata.
+   */
+  private NativeImageMetadata getNativeImageMetadata()
+  {
+    final MultiChainEntityIndex index = new MultiChainEntityIndex(entries);
+    final NativeImageMetadata metadata = new NativeImageMetadata();
+
+    for (final String typeName : index.getEntityTypeNames())
+    {
+      final TypeElement type = processingEnv.getElementUtils().getTypeElement(typeName.replace('$', '.'));
+
+      if (type != null)
+      {
+        addReachableTypes(type.asType(), metadata);
+      }
+    }
+
+    for (final String interfaceName : index.getRepositoryInterfaceNames())
+    {
+      final String implementationName = index.getImplementationName(interfaceName);
+
+      metadata.addType(interfaceName, "allPublicMethods");
+
+      if (implementationName != null)
+      {
+        metadata.addType(implementationName, "allDeclaredConstructors", "allPublicMethods");
+      }
+      else
+      {
+        metadata.addProxy(interfaceName);
+      }
+    }
+
+    return metadata;
+  }
+
+  /**
+   * Adds a type whose instances are created and read through reflection to
+   * the {@code native-image} metadata, with the types reachable from it:
+   * its superclasses, the types of its fields and its type arguments.
+   * Types from the JDK are left out, as libraries handle them without
+   * reflection.
+   *
+   * @param type     The type.
+   * @param metadata The metadata.
+   */
+  private void addReachableTypes(final TypeMirror type, final NativeImageMetadata metadata)
+  {
+    if (type.getKind() == TypeKind.ARRAY)
+    {
+      addReachableTypes(((ArrayType) type).getComponentType(), metadata);
+    }
+    else if (type.getKind() == TypeKind.DECLARED)
+    {
+      final TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+      final String typeName = processingEnv.getElementUtils().getBinaryName(element).toString();
+
+      ((DeclaredType) type).getTypeArguments().forEach(argument -> addReachableTypes(argument, metadata));
+
+      if (typeName.startsWith("java.")
+          || typeName.startsWith("javax.")
+          || !metadata.addType(typeName, "allDeclaredConstructors", "allDeclaredFields", "allDeclaredMethods", "allPublicMethods"))
+      {
+        return;
+      }
+
+      ElementFilter.fieldsIn(element.getEnclosedElements())
+                   .stream()
+                   .filter(field -> !field.getModifiers().contains(Modifier.STATIC))
+                   .forEach(field -> addReachableTypes(field.asType(), metadata));
+
+      addReachableTypes(element.getSuperclass(), metadata);
+    }
+  }
+
+  /**
+   * Writes the content of a resource.
+   */
+  @FunctionalInterface
+  private interface ResourceContent
+  {
+    /**
+     * Writes the content of a resource.
+     *
+     * @param writer The writer to write to.
+     * @throws IOException if the content cannot be written.
+     */
+    void write(Writer writer) throws IOException;
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.mapping.index;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * The reachability metadata that GraalVM {@code native-image} needs for the
+ * types in an entity index: the types that are created and read through
+ * reflection, and the interfaces of the proxies created for repositories.
+ * The metadata is written as JSON to the locations from which
+ * {@code native-image} picks it up when building an image.
+ */
+final class NativeImageMetadata
+{
+  /**
+   * The location of the proxy configuration on the classpath.
+   */
+  static final String PROXY_CONFIG   = "META-INF/native-image/spring.multichain/proxy-config.json";
+  /**
+   * The location of the reflection configuration on the classpath.
+   */
+  static final String REFLECT_CONFIG = "META-INF/native-image/spring.multichain/reflect-config.json";
+
+  private static final List<String> PROXY_INTERFACES = Arrays.asList("org.springframework.data.repository.Repository"
+      , "org.springframework.transaction.interceptor.TransactionalProxy"
+      , "org.springframework.aop.SpringProxy"
+      , "org.springframework.aop.framework.Advised"
+      , "org.springframework.core.DecoratingProxy");
+
+  private final Set<String>              proxies = new TreeSet<>();
+  private final Map<String, Set<String>> types   = new TreeMap<>();
+
+  /**
+   * Adds a repository interface implemented by a proxy. The proxy
+   * implements the interfaces added by Spring Data and Spring AOP as well,
+   * in the order in which they are given to the proxy.
+   *
+   * @param interfaceName The binary name of the repository interface.
+   */
+  void addProxy(final String interfaceName)
+  {
+    proxies.add(interfaceName);
+  }
+
+  /**
+   * Adds a type accessed through reflection.
+   *
+   * @param typeName The binary name of the type.
+   * @param members  The members to register, such as
+   *                 {@code allDeclaredFields}.
+   * @return {@literal true} if the type had not been added yet.
+   */
+  boolean addType(final String typeName, final String... members)
+  {
+    final boolean added = !types.containsKey(typeName);
+
+    Collections.addAll(types.computeIfAbsent(typeName, name -> new TreeSet<>()), members);
+
+    return added;
+  }
+
+  /**
+   * Writes the proxy configuration.
+   *
+   * @param writer The writer to write to.
+   * @throws IOException if the configuration cannot be written.
+   */
+  void writeProxyConfig(final Writer writer) throws IOException
+  {
+    writer.write("[");
+
+    for (final Iterator<String> proxy = proxies.iterator(); proxy.hasNext(); )
+    {
+      writer.write("\n  {\n    \"interfaces\": [\n      \"" + proxy.next() + "\"");
+
+      for (final String interfaceName : PROXY_INTERFACES)
+      {
+        writer.write(",\n      \"" + interfaceName + "\"");
+      }
+
+      writer.write("\n    ]\n  }" + (proxy.hasNext() ? "," : "\n"));
+    }
+
+    writer.write("]\n");
+  }
+
+  /**
+   * Writes the reflection configuration.
+   *
+   * @param writer The writer to write to.
+   * @throws IOException if the configuration cannot be written.
+   */
+  void writeReflectConfig(final Writer writer) throws IOException
+  {
+    writer.write("[");
+
+    for (final Iterator<Map.Entry<String, Set<String>>> type = types.entrySet().iterator(); type.hasNext(); )
+    {
+      final Map.Entry<String, Set<String>> entry = type.next();
+
+      writer.write("\n  {\n    \"name\": \"" + entry.getKey() + "\"");
+
+      for (final String member : entry.getValue())
+      {
+        writer.write(",\n    \"" + member + "\": true");
+      }
+
+      writer.write("\n  }" + (type.hasNext() ? "," : "\n"));
+    }
+
+    writer.write("]\n");
+  }
+}
@@ -15,15 +15,26 @@
  */
 package org.springframework.data.multichain.mapping.model;
 
+import org.springframework.data.mapping.MappingException;
 import org.springframework.data.mapping.PersistentEntity;
 import org.springframework.data.mapping.model.BasicPersistentEntity;
 import org.springframework.data.multichain.annotation.MultiChainStream;
+import org.springframework.data.multichain.annotation.StreamItemFormat;
 import org.springframework.data.multichain.mapping.MultiChainPersistentEntity;
 import org.springframework.data.multichain.mapping.MultiChainPersistentProperty;
+import org.springframework.data.multichain.serializer.CompressionCodec;
+import org.springframework.data.multichain.serializer.EntitySerializer;
 import org.springframework.data.util.TypeInformation;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+
+import static org.springframework.util.Assert.notNull;
 
 /**
  * Represents a MultiChain {@link PersistentEntity} holding information
@@ -36,7 +47,16 @@ public class SimpleMultiChainPersistentEntity<T>
     extends BasicPersistentEntity<T, MultiChainPersistentProperty>
     implements MultiChainPersistentEntity<T>
 {
-  private final String streamName;
+  private final int                                chunkSize;
+  private final Class<? extends CompressionCodec>  compressionCodecType;
+  private final int                                compressionThreshold;
+  private final List<MultiChainPersistentProperty> indexedProperties = new ArrayList<>();
+  private final StreamItemFormat                   itemFormat;
+  private final int                                maxEntitySize;
+  private final boolean                            offchain;
+  private final boolean                            replicated;
+  private final Class<? extends EntitySerializer>  serializerType;
+  private final String                             streamName;
 
   /**
    * Creates a new instance.
@@ -48,9 +68,131 @@ public class SimpleMultiChainPersistentEntity<T>
   {
     super(typeInformation);
 
+    final MultiChainStream annotation = findAnnotation(MultiChainStream.class);
+
+    this.chunkSize = annotation != null ? annotation.chunkSize() : 0;
+    this.compressionCodecType = annotation != null && annotation.compression() != CompressionCodec.class
+                                ? annotation.compression()
+                                : null;
+    this.compressionThreshold = annotation != null ? annotation.compressionThreshold() : 0;
+    this.itemFormat = annotation != null ? annotation.format() : StreamItemFormat.BINARY;
+    this.maxEntitySize = annotation != null ? annotation.maxEntitySize() : MultiChainStream.DEFAULT_MAX_ENTITY_SIZE;
+    this.offchain = annotation != null && annotation.offchain();
+    this.replicated = annotation != null && annotation.replicated();
+    this.serializerType = extractSerializerType();
     this.streamName = extractStreamName(typeInformation);
   }
 
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Also records the property if it is indexed.
+   */
+  @Override
+  public void addPersistentProperty(final MultiChainPersistentProperty property)
+  {
+    super.addPersistentProperty(property);
+
+    if (property.isIndexed())
+    {
+      indexedProperties.add(property);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getChunkSize()
+  {
+    return chunkSize;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Class<? extends CompressionCodec> getCompressionCodecType()
+  {
+    return compressionCodecType;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getCompressionThreshold()
+  {
+    return compressionThreshold;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Object getIdentifier(final Object bean)
+  {
+    notNull(bean, "Bean must not be null!");
+
+    final MultiChainPersistentProperty idProperty = getIdProperty();
+
+    return idProperty != null ? idProperty.getValue(bean) : null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public List<String> getIndexKeys(final Object bean)
+  {
+    notNull(bean, "Bean must not be null!");
+
+    if (indexedProperties.isEmpty())
+    {
+      return Collections.emptyList();
+    }
+
+    final List<String> keys = new ArrayList<>(indexedProperties.size());
+    for (final MultiChainPersistentProperty property : indexedProperties)
+    {
+      final String key = property.getIndexKey(property.getValue(bean));
+
+      if (key != null)
+      {
+        keys.add(key);
+      }
+    }
+
+    return keys;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public StreamItemFormat getItemFormat()
+  {
+    return itemFormat;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getMaxEntitySize()
+  {
+    return maxEntitySize;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Class<? extends EntitySerializer> getSerializerType()
+  {
+    return serializerType;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -60,6 +202,120 @@ public class SimpleMultiChainPersistentEntity<T>
     return streamName;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isOffchain()
+  {
+    return offchain;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isReplicated()
+  {
+    return replicated;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @throws MappingException if two properties have the same field number,
+   *                          if the identifier property or a property
+   *                          that does not hold simple values is indexed,
+   *                          if compression or chunking is enabled for an
+   *                          entity stored as native JSON, if the
+   *                          compression threshold is negative, if the
+   *                          chunk size is negative or below
+   *                          {@link MultiChainStream#MIN_CHUNK_SIZE}, or
+   *                          if the maximum entity size is not positive.
+   */
+  @Override
+  public void verify()
+  {
+    super.verify();
+
+    if (compressionCodecType != null && itemFormat != StreamItemFormat.BINARY)
+    {
+      throw new MappingException(String.format("%s is stored as %s, which cannot be compressed."
+          , getName()
+          , itemFormat));
+    }
+    else if (compressionThreshold < 0)
+    {
+      throw new MappingException(String.format("Compression threshold of %s must not be negative.", getName()));
+    }
+    else if (chunkSize != 0 && itemFormat != StreamItemFormat.BINARY)
+    {
+      throw new MappingException(String.format("%s is stored as %s, which cannot be split into chunks."
+          , getName()
+          , itemFormat));
+    }
+    else if (chunkSize < 0)
+    {
+      throw new MappingException(String.format("Chunk size of %s must not be negative.", getName()));
+    }
+    else if (chunkSize != 0 && chunkSize < MultiChainStream.MIN_CHUNK_SIZE)
+    {
+      throw new MappingException(String.format("Chunk size of %s must be at least %d."
+          , getName()
+          , MultiChainStream.MIN_CHUNK_SIZE));
+    }
+    else if (maxEntitySize <= 0)
+    {
+      throw new MappingException(String.format("Maximum entity size of %s must be positive.", getName()));
+    }
+
+    for (final MultiChainPersistentProperty property : indexedProperties)
+    {
+      if (property.isIdProperty())
+      {
+        throw new MappingException(String.format("Property %s of %s is the identifier, which cannot be indexed."
+            , property.getName()
+            , getName()));
+      }
+      else if (property.isEntity() || property.isCollectionLike() || property.isMap())
+      {
+        throw new MappingException(String.format("Property %s of %s does not hold simple values, so cannot be indexed."
+            , property.getName()
+            , getName()));
+      }
+    }
+
+    final Map<Integer, MultiChainPersistentProperty> properties = new HashMap<>();
+    doWithProperties((MultiChainPersistentProperty property) -> {
+      final MultiChainPersistentProperty other = properties.putIfAbsent(property.getFieldNumber(), property);
+
+      if (other != null)
+      {
+        throw new MappingException(String.format("Properties %s and %s of %s have the same field number %d. Assign distinct numbers with @FieldNumber."
+            , other.getName()
+            , property.getName()
+            , getName()
+            , property.getFieldNumber()));
+      }
+    });
+  }
+
+  /**
+   * Gets the type of {@link EntitySerializer} specified through
+   * {@link MultiChainStream#serializer()}, if any.
+   *
+   * @return The type of {@link EntitySerializer}, or {@literal null} if
+   * none has been specified.
+   */
+  private Class<? extends EntitySerializer> extractSerializerType()
+  {
+    final MultiChainStream annotation = findAnnotation(MultiChainStream.class);
+
+    return annotation != null && annotation.serializer() != EntitySerializer.class
+           ? annotation.serializer()
+           : null;
+  }
+
   /**
    * <p>
    * Derives the name of the MultiChain Data Stream to which the entity
@@ -16,11 +16,33 @@
 package org.springframework.data.multichain.mapping.model;
 
 import org.springframework.data.mapping.Association;
+import org.springframework.data.mapping.MappingException;
 import org.springframework.data.mapping.PersistentEntity;
 import org.springframework.data.mapping.model.AnnotationBasedPersistentProperty;
 import org.springframework.data.mapping.model.Property;
 import org.springframework.data.mapping.model.SimpleTypeHolder;
+import org.springframework.data.multichain.annotation.FieldNumber;
+import org.springframework.data.multichain.annotation.Indexed;
 import org.springframework.data.multichain.mapping.MultiChainPersistentProperty;
+import org.springframework.data.util.Lazy;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.Calendar;
+import java.util.Date;
+
+import static org.springframework.util.Assert.isTrue;
 
 /**
  * MultiChain specific {@link org.springframework.data.mapping.PersistentProperty}
@@ -31,6 +53,23 @@ public class SimpleMultiChainPersistentProperty
     extends AnnotationBasedPersistentProperty<MultiChainPersistentProperty>
     implements MultiChainPersistentProperty
 {
+  /**
+   * The number of values available for numbers derived from property
+   * names, chosen so that field tags fit in four bytes when written as
+   * variable-length integers.
+   */
+  private static final int DERIVED_FIELD_NUMBERS = (1 << 25) - FieldNumber.MAX_VALUE - 1;
+
+  /**
+   * The separator between the name of an indexed property and its value in
+   * the keys derived from the property.
+   */
+  private static final char INDEX_KEY_SEPARATOR = ':';
+
+  private final int                fieldNumber;
+  private final Lazy<MethodHandle> getter;
+  private final boolean            indexed;
+
   /**
    * Creates metadata about a persistent property.
    *
@@ -46,6 +85,10 @@ public class SimpleMultiChainPersistentProperty
       , final SimpleTypeHolder simpleTypeHolder)
   {
     super(property, owner, simpleTypeHolder);
+
+    this.fieldNumber = extractFieldNumber();
+    this.getter = Lazy.of(this::createGetter);
+    this.indexed = isAnnotationPresent(Indexed.class);
   }
 
   /**
@@ -57,6 +100,54 @@ public class SimpleMultiChainPersistentProperty
     return null;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getFieldNumber()
+  {
+    return fieldNumber;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getIndexKey(final Object value)
+  {
+    if (value == null)
+    {
+      return null;
+    }
+
+    final String key = INDEX_KEY_PREFIX + getName() + INDEX_KEY_SEPARATOR + toCanonicalString(value);
+
+    isTrue(key.getBytes(StandardCharsets.UTF_8).length <= MAX_KEY_LENGTH
+        , String.format("Key for property %s of %s is longer than %d bytes.", getName(), getOwner().getName(), MAX_KEY_LENGTH));
+
+    return key;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Object getValue(final Object bean)
+  {
+    try
+    {
+      return getter.get().invokeExact(bean);
+    }
+    catch (final RuntimeException | Error e)
+    {
+      throw e;
+    }
+    catch (final Throwable e)
+    {
+      throw new UndeclaredThrowableException(e);
+    }
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -65,4 +156,131 @@ public class SimpleMultiChainPersistentProperty
   {
     return false;
   }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isIndexed()
+  {
+    return indexed;
+  }
+
+  /**
+   * Creates the method handle that reads the value of the property: its
+   * getter if the property is accessed as a property or has no field, its
+   * field otherwise, as the accessors of Spring Data do. The handle takes
+   * and returns {@link Object}, so that it can be invoked exactly.
+   *
+   * @return The method handle.
+   * @throws MappingException if the property has neither a getter nor a
+   *                          field, or they cannot be accessed.
+   */
+  private MethodHandle createGetter()
+  {
+    final Field field = getField();
+    final Method method = getGetter();
+
+    try
+    {
+      final MethodHandle handle;
+      if (field != null && (method == null || !usePropertyAccess()))
+      {
+        ReflectionUtils.makeAccessible(field);
+
+        handle = MethodHandles.lookup().unreflectGetter(field);
+      }
+      else if (method != null)
+      {
+        ReflectionUtils.makeAccessible(method);
+
+        handle = MethodHandles.lookup().unreflect(method);
+      }
+      else
+      {
+        throw new MappingException(String.format("Property %s of %s has neither a getter nor a field."
+            , getName()
+            , getOwner().getName()));
+      }
+
+      return handle.asType(MethodType.methodType(Object.class, Object.class));
+    }
+    catch (final IllegalAccessException e)
+    {
+      throw new MappingException(String.format("Property %s of %s cannot be read.", getName(), getOwner().getName()), e);
+    }
+  }
+
+  /**
+   * Determines the number of the property, from the {@link FieldNumber}
+   * annotation if present, or from the name of the property otherwise.
+   * Derived numbers are above {@link FieldNumber#MAX_VALUE}, so that they
+   * never clash with explicitly assigned ones.
+   *
+   * @return The number of the property.
+   * @throws MappingException if the number assigned to the property is out
+   *                          of range.
+   */
+  private int extractFieldNumber()
+  {
+    final FieldNumber annotation = findAnnotation(FieldNumber.class);
+
+    if (annotation == null)
+    {
+      // String#hashCode is specified, so derived numbers are the same for
+      // all JVMs.
+      return FieldNumber.MAX_VALUE + 1 + Math.floorMod(getName().hashCode(), DERIVED_FIELD_NUMBERS);
+    }
+    else if (annotation.value() < 1 || annotation.value() > FieldNumber.MAX_VALUE)
+    {
+      throw new MappingException(String.format("Field number %d of property %s must be between 1 and %d."
+          , annotation.value()
+          , getName()
+          , FieldNumber.MAX_VALUE));
+    }
+
+    return annotation.value();
+  }
+
+  /**
+   * Writes a property value in a canonical form, which is the same for all
+   * values that are equal, whatever their scale or time zone.
+   *
+   * @param value The value.
+   * @return The canonical form of {@code value}.
+   */
+  private static String toCanonicalString(final Object value)
+  {
+    if (value instanceof Enum)
+    {
+      return ((Enum<?>) value).name();
+    }
+    else if (value instanceof BigDecimal)
+    {
+      return ((BigDecimal) value).stripTrailingZeros().toPlainString();
+    }
+    else if (value instanceof Timestamp)
+    {
+      return ((Timestamp) value).toInstant().toString();
+    }
+    // java.sql.Date and java.sql.Time do not support toInstant.
+    else if (value instanceof Date)
+    {
+      return Instant.ofEpochMilli(((Date) value).getTime()).toString();
+    }
+    else if (value instanceof Calendar)
+    {
+      return ((Calendar) value).toInstant().toString();
+    }
+    else if (value instanceof OffsetDateTime)
+    {
+      return ((OffsetDateTime) value).toInstant().toString();
+    }
+    else if (value instanceof ZonedDateTime)
+    {
+      return ((ZonedDateTime) value).toInstant().toString();
+    }
+
+    return value.toString();
+  }
 }
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.repository;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+
+/**
+ * Persists the positions reached by named scans of data streams, so that a
+ * scan interrupted by a failure or a restart resumes from where it
+ * stopped.
+ *
+ * @see MultiChainRepository#scan(String, CheckpointStore, StreamListener)
+ */
+public interface CheckpointStore
+{
+  /**
+   * Loads the position reached by a scan.
+   *
+   * @param name The name of the scan.
+   * @return The position of the first item not yet scanned, or
+   * {@literal 0} if no position has been saved for the scan.
+   * @throws DataAccessResourceFailureException if the position cannot be
+   *                                            loaded.
+   */
+  int load(String name);
+
+  /**
+   * Saves the position reached by a scan, replacing any position saved
+   * before.
+   *
+   * @param name     The name of the scan.
+   * @param position The position of the first item not yet scanned.
+   * @throws DataAccessResourceFailureException if the position cannot be
+   *                                            saved.
+   */
+  void save(String name, int position);
+}
@@ -19,9 +19,14 @@ import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.DataRetrievalFailureException;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.NoRepositoryBean;
 import org.springframework.data.repository.Repository;
 
+import java.util.stream.Stream;
+
 /**
  * Contract for accessing entities in a MultiChain data stream.
  *
@@ -30,6 +35,23 @@ import org.springframework.data.repository.Repository;
 @NoRepositoryBean
 public interface MultiChainRepository<T> extends Repository<T, String>
 {
+  /**
+   * Counts the items in the data stream, as reported by the node, which is
+   * not the number of entities if any entity has been split into chunks:
+   * such an entity is counted once for its manifest and once for each
+   * chunk. Counting the entities themselves would take a scan of the data
+   * stream; the count is exact for entity types that are never split into
+   * chunks.
+   *
+   * @return The number of items in the data stream, which is at least the
+   * number of entities.
+   * @throws DataRetrievalFailureException if an error occurs while
+   *                                       attempting to count the items, or
+   *                                       if the node is not subscribed to
+   *                                       the data stream.
+   */
+  long count();
+
   /**
    * Finds whether an entity with a given unique identifier exists.
    *
@@ -37,7 +59,13 @@ public interface MultiChainRepository<T> extends Repository<T, String>
    *           {@literal null}.
    * @return {@literal true} if an entity with the given identifier exists,
    * {@literal false} otherwise.
-   * @throws IllegalArgumentException               if {@code id} is blank.
+   * @throws IllegalArgumentException               if {@code id} is blank
+   *                                                or starts with
+   *                                                {@code index:} or
+   *                                                {@code chunk:}, which are
+   *                                                reserved for the keys of
+   *                                                indexed properties and
+   *                                                chunks.
    * @throws DataRetrievalFailureException          if an error occurs while
    *                                                attempting to find the
    *                                                entity.
@@ -47,6 +75,29 @@ public interface MultiChainRepository<T> extends Repository<T, String>
    */
   boolean exists(String id);
 
+  /**
+   * Finds a page of entities, in the order in which they were published.
+   * Pages are ranges of the items in the data stream, so that a page of
+   * entities that have been split into chunks holds fewer entities than the
+   * page size, one for each manifest in the range. For the same reason, the
+   * total number of elements and of pages of the returned {@link Page} count
+   * the items in the data stream, as {@link #count()} does, not the
+   * entities.
+   *
+   * @param pageable The page to find; must not be {@literal null} and must
+   *                 be unsorted. Unpaged requests find all entities.
+   * @return The entities in the page.
+   * @throws IllegalArgumentException             if {@code pageable} is
+   *                                              {@literal null} or sorted.
+   * @throws DataRetrievalFailureException        if an error occurs while
+   *                                              attempting to find the
+   *                                              entities.
+   * @throws TransientDataAccessResourceException if an entity in the page
+   *                                              is stored off-chain and
+   *                                              not yet available.
+   */
+  Page<T> findAll(Pageable pageable);
+
   /**
    * Finds an entity by its unique identifier.
    *
@@ -54,7 +105,13 @@ public interface MultiChainRepository<T> extends Repository<T, String>
    *           {@literal null}.
    * @return The entity with the given identifier or {@literal null} if none
    * found.
-   * @throws IllegalArgumentException               if {@code id} is blank.
+   * @throws IllegalArgumentException               if {@code id} is blank
+   *                                                or starts with
+   *                                                {@code index:} or
+   *                                                {@code chunk:}, which are
+   *                                                reserved for the keys of
+   *                                                indexed properties and
+   *                                                chunks.
    * @throws DataRetrievalFailureException          if an error occurs while
    *                                                attempting to find the
    *                                                entity.
@@ -64,6 +121,33 @@ public interface MultiChainRepository<T> extends Repository<T, String>
    */
   T findOne(String id);
 
+  /**
+   * Streams all the entities published before the stream was created, in
+   * parallel. The items in the data stream are split into ranges that are
+   * fetched concurrently, by the common fork/join pool or by the
+   * {@link java.util.concurrent.ForkJoinPool} in which the stream is
+   * consumed, and decoded on the I/O threads of the repository. The number
+   * of items fetched at a time adapts to the response times and sizes
+   * observed by all the threads. Any deadline in effect when the stream is
+   * created applies to every range.
+   * <p>
+   * Fetching a range blocks on the node. The pool is allowed to start spare
+   * threads meanwhile, but a scan still competes with every other task of
+   * the pool, so consume the stream in a pool of its own rather than the
+   * common pool.
+   * </p>
+   *
+   * @return A lazily populated parallel {@link Stream} of entities.
+   * @throws DataRetrievalFailureException        if an error occurs while
+   *                                              attempting to count or find
+   *                                              the entities.
+   * @throws TransientDataAccessResourceException if an entity is stored
+   *                                              off-chain and not yet
+   *                                              available, when the stream
+   *                                              is consumed.
+   */
+  Stream<T> parallelStreamAll();
+
   /**
    * Saves a given entity. Use the returned instance for further operations as
    * the operation might have changed the entity instance completely.
@@ -72,7 +156,14 @@ public interface MultiChainRepository<T> extends Repository<T, String>
    * @return The saved entity.
    * @throws DataIntegrityViolationException if a unique identifier is not
    *                                         available for the entity to
-   *                                         save.
+   *                                         save, the identifier starts
+   *                                         with {@code index:} or
+   *                                         {@code chunk:}, a key
+   *                                         derived from an indexed
+   *                                         property is longer than 256
+   *                                         bytes, or the entity is larger
+   *                                         than the maximum entity size of
+   *                                         its data stream.
    * @throws DuplicateKeyException           if an entity with the specified
    *                                         identifier already exists in
    *                                         the data stream.
@@ -87,4 +178,76 @@ public interface MultiChainRepository<T> extends Repository<T, String>
    * @throws NullPointerException if {@code entities} is {@literal null}.
    */
   <S extends T> Iterable<S> save(Iterable<S> entities);
+
+  /**
+   * Delivers the entities in the data stream to a listener on the calling
+   * thread, resuming from the position saved for a named scan and saving
+   * the position reached after each batch of items, so that a scan
+   * interrupted by a failure or a restart does not start over. The scan
+   * ends at the first item that has not been confirmed. If the listener
+   * throws an exception, or an entity cannot be read, the position of that
+   * entity is saved before the exception is rethrown, so that the next scan
+   * resumes with it. Entities delivered after the last saved position are
+   * delivered again if the process stops without saving it.
+   *
+   * @param name        The name of the scan; must not be blank.
+   * @param checkpoints The store for the position reached by the scan; must
+   *                    not be {@literal null}.
+   * @param listener    The listener to deliver entities to; must not be
+   *                    {@literal null}. Its {@link StreamListener#onError}
+   *                    method is not called.
+   * @return The position of the first item not yet scanned, which the next
+   * scan with the same name resumes from.
+   * @throws IllegalArgumentException             if {@code name} is blank,
+   *                                              or {@code checkpoints} or
+   *                                              {@code listener} is
+   *                                              {@literal null}.
+   * @throws DataRetrievalFailureException        if an error occurs while
+   *                                              attempting to find the
+   *                                              entities.
+   * @throws TransientDataAccessResourceException if an entity is stored
+   *                                              off-chain and not yet
+   *                                              available.
+   */
+  int scan(String name, CheckpointStore checkpoints, StreamListener<? super T> listener);
+
+  /**
+   * Streams all entities, in the order in which they were published. Items
+   * are fetched a page at a time as the stream is consumed, the next page
+   * being fetched in the background while the entities of the current one
+   * are consumed, so that data streams of any length can be processed in
+   * constant memory. The stream should be closed once it is no longer
+   * needed, to stop fetching pages.
+   *
+   * @return A lazily populated {@link Stream} of entities.
+   * @throws DataRetrievalFailureException        if an error occurs while
+   *                                              attempting to find the
+   *                                              entities, when the stream is
+   *                                              consumed.
+   * @throws TransientDataAccessResourceException if an entity is stored
+   *                                              off-chain and not yet
+   *                                              available, when the stream
+   *                                              is consumed.
+   */
+  Stream<T> streamAll();
+
+  /**
+   * Delivers the entities in the data stream from a given position onwards
+   * to a listener, including entities published after the subscription is
+   * made, until the subscription is closed. Items are polled in batches on
+   * a background thread. Polling goes on without a pause while full
+   * batches are found, so that the listener catches up, and the pause
+   * between polls otherwise adapts to the rate at which items arrive.
+   * Only confirmed items are delivered, since the positions of unconfirmed
+   * items may change. Failures to poll the node are retried.
+   *
+   * @param fromIndex The position of the first item to deliver, counting
+   *                  from {@literal 0}, such as the position of a previous
+   *                  subscription.
+   * @param listener  The listener to deliver entities to.
+   * @return The subscription.
+   * @throws IllegalArgumentException if {@code fromIndex} is negative or
+   *                                  {@code listener} is {@literal null}.
+   */
+  StreamSubscription tail(int fromIndex, StreamListener<? super T> listener);
 }
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.repository;
+
+/**
+ * Receives the entities published to a data stream, as they are confirmed.
+ *
+ * @param <T> The type of entities.
+ * @see MultiChainRepository#tail(int, StreamListener)
+ */
+@FunctionalInterface
+public interface StreamListener<T>
+{
+  /**
+   * Receives an entity. Entities are received one at a time, in the order
+   * in which they were published.
+   *
+   * @param entity   The entity.
+   * @param position The position in the data stream of the item holding
+   *                 the entity. Tailing from the next position resumes
+   *                 after this entity.
+   */
+  void onEntity(T entity, int position);
+
+  /**
+   * Receives the error that stopped the subscription: an entity that
+   * could not be read, or an exception thrown by {@link #onEntity}. The
+   * position of the subscription is left at the entity that failed.
+   * <p>
+   * Does nothing by default.
+   * </p>
+   *
+   * @param error The error.
+   */
+  default void onError(final RuntimeException error)
+  {
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.repository;
+
+/**
+ * A subscription to the entities published to a data stream, delivering
+ * them to a {@link StreamListener} until it is closed.
+ *
+ * @see MultiChainRepository#tail(int, StreamListener)
+ */
+public interface StreamSubscription extends AutoCloseable
+{
+  /**
+   * Stops delivering entities. An entity being delivered when the
+   * subscription is closed is delivered in full.
+   */
+  @Override
+  void close();
+
+  /**
+   * Gets the position in the data stream of the next item to deliver,
+   * which can be saved to resume tailing from later.
+   *
+   * @return The position of the next item.
+   */
+  int getPosition();
+
+  /**
+   * Gets whether entities are still being delivered, that is the
+   * subscription has neither been closed nor stopped by an error.
+   *
+   * @return {@literal true} if entities are still being delivered.
+   */
+  boolean isActive();
+}
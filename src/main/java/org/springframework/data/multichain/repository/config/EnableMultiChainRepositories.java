@@ -50,6 +50,31 @@ public @interface EnableMultiChainRepositories
    */
   Class<?>[] basePackageClasses() default {};
 
+  /**
+   * <p>
+   * Configures the name of the {@link org.springframework.data.multichain.serializer.EntitySerializer}
+   * bean to use for entities that do not specify a serializer through
+   * {@link org.springframework.data.multichain.annotation.MultiChainStream#serializer()}.
+   * </p>
+   * <p>
+   * Defaults to a {@link org.springframework.data.multichain.serializer.GsonEntitySerializer}.
+   * </p>
+   */
+  String entitySerializerRef() default "";
+
+  /**
+   * <p>
+   * Configures the directory to hold the local replicas of the data streams
+   * of entity types that are
+   * {@link org.springframework.data.multichain.annotation.MultiChainStream#replicated() replicated}.
+   * Placeholders are resolved.
+   * </p>
+   * <p>
+   * Defaults to none, so that no data stream is replicated.
+   * </p>
+   */
+  String replicaDirectory() default "";
+
   /**
    * Specifies which types are not eligible for component scanning.
    */
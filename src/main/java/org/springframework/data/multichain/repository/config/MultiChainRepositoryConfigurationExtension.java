@@ -15,18 +15,22 @@
  */
 package org.springframework.data.multichain.repository.config;
 
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.support.AbstractBeanDefinition;
 import org.springframework.beans.factory.support.BeanDefinitionBuilder;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.data.multichain.annotation.MultiChainStream;
 import org.springframework.data.multichain.mapping.context.MultiChainMappingContext;
+import org.springframework.data.multichain.mapping.index.MultiChainEntityIndex;
 import org.springframework.data.multichain.repository.MultiChainRepository;
 import org.springframework.data.multichain.repository.support.MultiChainRepositoryFactoryBean;
 import org.springframework.data.repository.config.AnnotationRepositoryConfigurationSource;
 import org.springframework.data.repository.config.RepositoryConfigurationExtensionSupport;
 import org.springframework.data.repository.config.RepositoryConfigurationSource;
 import org.springframework.data.repository.config.XmlRepositoryConfigurationSource;
+import org.springframework.data.repository.core.RepositoryMetadata;
+import org.springframework.util.StringUtils;
 
 import java.lang.annotation.Annotation;
 import java.util.Collection;
@@ -34,6 +38,8 @@ import java.util.Collections;
 
 public class MultiChainRepositoryConfigurationExtension extends RepositoryConfigurationExtensionSupport
 {
+  private static final String MAPPING_CONTEXT_BEAN_NAME = "multiChainMappingContext";
+
   /**
    * {@inheritDoc}
    */
@@ -52,6 +58,15 @@ public class MultiChainRepositoryConfigurationExtension extends RepositoryConfig
     return MultiChainRepositoryFactoryBean.class.getName();
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void postProcess(final BeanDefinitionBuilder builder, final RepositoryConfigurationSource source)
+  {
+    builder.addPropertyReference("multiChainMappingContext", MAPPING_CONTEXT_BEAN_NAME);
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -59,6 +74,9 @@ public class MultiChainRepositoryConfigurationExtension extends RepositoryConfig
   public void postProcess(final BeanDefinitionBuilder builder, final AnnotationRepositoryConfigurationSource config)
   {
     builder.addPropertyReference("multiChainClient", "multiChainClient");
+
+    config.getAttribute("entitySerializerRef").ifPresent(ref -> builder.addPropertyReference("entitySerializer", ref));
+    config.getAttribute("replicaDirectory").ifPresent(directory -> builder.addPropertyValue("replicaDirectory", directory));
   }
 
   /**
@@ -68,6 +86,18 @@ public class MultiChainRepositoryConfigurationExtension extends RepositoryConfig
   public void postProcess(final BeanDefinitionBuilder builder, final XmlRepositoryConfigurationSource config)
   {
     builder.addPropertyReference("multiChainClient", config.getElement().getAttribute("multichain-client-ref"));
+
+    final String entitySerializerRef = config.getElement().getAttribute("entity-serializer-ref");
+    if (StringUtils.hasText(entitySerializerRef))
+    {
+      builder.addPropertyReference("entitySerializer", entitySerializerRef);
+    }
+
+    final String replicaDirectory = config.getElement().getAttribute("replica-directory");
+    if (StringUtils.hasText(replicaDirectory))
+    {
+      builder.addPropertyValue("replicaDirectory", replicaDirectory);
+    }
   }
 
   /**
@@ -82,7 +112,15 @@ public class MultiChainRepositoryConfigurationExtension extends RepositoryConfig
     definition.setRole(AbstractBeanDefinition.ROLE_INFRASTRUCTURE);
     definition.setSource(config.getSource());
 
-    registerIfNotAlreadyRegistered(definition, registry, "multiChainMappingContext", definition);
+    // Entity types listed in the index written at compile time are mapped
+    // once, when the context starts, and shared by all repositories.
+    final MultiChainEntityIndex index = MultiChainEntityIndex.load(getBeanClassLoader(registry));
+    if (!index.isEmpty())
+    {
+      definition.getPropertyValues().add("initialEntitySet", index.getEntityTypeNames());
+    }
+
+    registerIfNotAlreadyRegistered(definition, registry, MAPPING_CONTEXT_BEAN_NAME, definition);
   }
 
   /**
@@ -102,4 +140,32 @@ public class MultiChainRepositoryConfigurationExtension extends RepositoryConfig
   {
     return Collections.singleton(MultiChainRepository.class);
   }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Repositories for entity types listed in the index written at compile
+   * time are candidates without inspecting the entity types.
+   */
+  @Override
+  protected boolean isStrictRepositoryCandidate(final RepositoryMetadata metadata)
+  {
+    final Class<?> domainType = metadata.getDomainType();
+
+    return MultiChainEntityIndex.load(domainType.getClassLoader()).contains(domainType.getName())
+           || super.isStrictRepositoryCandidate(metadata);
+  }
+
+  /**
+   * Gets the class loader of the bean factory that repositories are
+   * registered with.
+   *
+   * @param registry The bean definition registry.
+   * @return The class loader, or {@literal null} if the registry is not a
+   * bean factory.
+   */
+  private static ClassLoader getBeanClassLoader(final BeanDefinitionRegistry registry)
+  {
+    return registry instanceof ConfigurableBeanFactory ? ((ConfigurableBeanFactory) registry).getBeanClassLoader() : null;
+  }
 }
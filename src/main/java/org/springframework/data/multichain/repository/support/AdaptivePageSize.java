@@ -0,0 +1,173 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.repository.support;
+
+import org.springframework.data.multichain.server.command.ListStreamItemsResult;
+import org.springframework.data.multichain.server.command.StreamItemData;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.util.Assert.isTrue;
+
+/**
+ * Adapts the number of items fetched at a time to the observed response
+ * times and sizes, so that each page takes about a target time to fetch and
+ * does not exceed a maximum size. Starts from a small page, and moves half
+ * way towards the page size suggested by each response, so that a single
+ * slow or large response does not make the page size swing. Shared by all
+ * the threads scanning the same data stream.
+ */
+final class AdaptivePageSize
+{
+  /**
+   * The default largest number of items to fetch at a time.
+   */
+  static final int DEFAULT_MAXIMUM = 5000;
+
+  /**
+   * The default largest amount of item data, in bytes, to fetch at a time.
+   */
+  static final long DEFAULT_MAXIMUM_BYTES = 8L << 20;
+
+  /**
+   * The default smallest number of items to fetch at a time.
+   */
+  static final int DEFAULT_MINIMUM = 10;
+
+  /**
+   * The default time, in milliseconds, that fetching a page should take.
+   */
+  static final long DEFAULT_TARGET_TIME = 250;
+
+  private final int  maximum;
+  private final long maximumBytes;
+  private final int  minimum;
+  private final long targetNanos;
+
+  private volatile int pageSize;
+
+  /**
+   * Creates a page size with the default bounds and target time.
+   */
+  AdaptivePageSize()
+  {
+    this(DEFAULT_MINIMUM, DEFAULT_MAXIMUM, DEFAULT_MAXIMUM_BYTES, DEFAULT_TARGET_TIME, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Creates a page size, starting from the minimum.
+   *
+   * @param minimum      The smallest number of items to fetch at a time.
+   * @param maximum      The largest number of items to fetch at a time.
+   * @param maximumBytes The largest amount of item data, in bytes, to fetch
+   *                     at a time.
+   * @param targetTime   The time that fetching a page should take.
+   * @param unit         The unit of {@code targetTime}.
+   * @throws IllegalArgumentException if {@code minimum} is not positive, if
+   *                                  {@code maximum} is less than
+   *                                  {@code minimum}, or if
+   *                                  {@code maximumBytes} or
+   *                                  {@code targetTime} is not positive.
+   */
+  AdaptivePageSize(final int minimum, final int maximum, final long maximumBytes, final long targetTime, final TimeUnit unit)
+  {
+    isTrue(minimum > 0, "Minimum must be positive.");
+    isTrue(maximum >= minimum, "Maximum must not be less than the minimum.");
+    isTrue(maximumBytes > 0, "Maximum bytes must be positive.");
+    isTrue(targetTime > 0, "Target time must be positive.");
+
+    this.maximum = maximum;
+    this.maximumBytes = maximumBytes;
+    this.minimum = minimum;
+    this.pageSize = minimum;
+    this.targetNanos = unit.toNanos(targetTime);
+  }
+
+  /**
+   * Gets the number of items to fetch next.
+   *
+   * @return The page size.
+   */
+  int get()
+  {
+    return pageSize;
+  }
+
+  /**
+   * Adapts the page size to a response.
+   *
+   * @param items The items in the response.
+   * @param nanos The time, in nanoseconds, taken to fetch the items.
+   */
+  void record(final List<ListStreamItemsResult> items, final long nanos)
+  {
+    if (items.isEmpty())
+    {
+      return;
+    }
+
+    long bytes = 0;
+    for (final ListStreamItemsResult item : items)
+    {
+      bytes += getSize(item.getItemData());
+    }
+
+    // The number of items that would have taken the target time, and that
+    // would have reached the maximum size, at the observed rates.
+    final double byTime = (double) items.size() * targetNanos / Math.max(1, nanos);
+    final double byBytes = bytes > 0 ? (double) items.size() * maximumBytes / bytes : maximum;
+
+    final int target = clamp(Math.min(byTime, byBytes));
+
+    synchronized (this)
+    {
+      pageSize = target + (pageSize - target) / 2;
+    }
+  }
+
+  /**
+   * Limits a page size to the configured bounds.
+   *
+   * @param size The page size.
+   * @return The page size, between the minimum and maximum.
+   */
+  private int clamp(final double size)
+  {
+    return (int) Math.max(minimum, Math.min(maximum, size));
+  }
+
+  /**
+   * Approximates the size of item data. Native JSON data is not counted,
+   * as measuring it would mean writing it out.
+   *
+   * @param data The item data.
+   * @return The size of the data in bytes, approximately.
+   */
+  private static long getSize(final StreamItemData data)
+  {
+    if (data == null)
+    {
+      return 0;
+    }
+    else if (data.getHex() != null)
+    {
+      return data.getHex().length() / 2;
+    }
+
+    return data.getText() != null ? data.getText().length() : 0;
+  }
+}
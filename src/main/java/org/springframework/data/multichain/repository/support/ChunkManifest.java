@@ -0,0 +1,281 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.repository.support;
+
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.data.multichain.annotation.MultiChainStream;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * Describes an entity that has been split into chunks, each published as a
+ * separate item, because it is too large to be published as a single item.
+ * The manifest is published under the identifier of the entity, in the same
+ * transaction as the chunks, and holds:
+ * </p>
+ * <ol>
+ * <li>{@link #MAGIC}, which can start neither an item written by an
+ * {@link org.springframework.data.multichain.serializer.EntitySerializer}
+ * nor a compressed item;</li>
+ * <li>the number of chunks, the length of the entity data and the length of
+ * each chunk but the last, as four byte big-endian integers;</li>
+ * <li>eight random bytes, from which the keys of the chunks are derived, so
+ * that they do not collide with the chunks of other entities; chunk keys
+ * start with {@link #CHUNK_KEY_PREFIX}, which repositories reject in
+ * entity identifiers, so that they cannot collide with identifiers
+ * either; and</li>
+ * <li>the SHA-256 digest of the entity data, which is checked once the
+ * chunks have been reassembled.</li>
+ * </ol>
+ */
+final class ChunkManifest
+{
+  /**
+   * The first byte of a manifest.
+   */
+  static final byte MAGIC = (byte) 0xF7;
+
+  /**
+   * The prefix of the keys of chunks, which entity identifiers must not
+   * start with.
+   */
+  static final String CHUNK_KEY_PREFIX = "chunk:";
+
+  private static final String  ALGORITHM     = "SHA-256";
+  private static final Pattern CHUNK_KEY     = Pattern.compile(CHUNK_KEY_PREFIX + "[0-9a-f]{16}:\\d+");
+  private static final int     DIGEST_LENGTH = 32;
+  private static final int     LENGTH        = 1 + 4 + 4 + 4 + 8 + DIGEST_LENGTH;
+
+  private final int    chunkCount;
+  private final int    chunkSize;
+  private final byte[] digest;
+  private final int    length;
+  private final long   nonce;
+
+  /**
+   * Creates a manifest.
+   *
+   * @param chunkCount The number of chunks.
+   * @param chunkSize  The length of each chunk but the last.
+   * @param length     The length of the entity data.
+   * @param nonce      The value from which the keys of the chunks are
+   *                   derived.
+   * @param digest     The SHA-256 digest of the entity data.
+   */
+  private ChunkManifest(final int chunkCount, final int chunkSize, final int length, final long nonce, final byte[] digest)
+  {
+    this.chunkCount = chunkCount;
+    this.chunkSize = chunkSize;
+    this.digest = digest;
+    this.length = length;
+    this.nonce = nonce;
+  }
+
+  /**
+   * Creates a manifest for splitting entity data into chunks.
+   *
+   * @param data      The entity data.
+   * @param chunkSize The largest length of a chunk.
+   * @return A {@link ChunkManifest}.
+   */
+  static ChunkManifest create(final byte[] data, final int chunkSize)
+  {
+    return new ChunkManifest((int) ((data.length + (long) chunkSize - 1) / chunkSize)
+        , chunkSize
+        , data.length
+        , ThreadLocalRandom.current().nextLong()
+        , digest(data));
+  }
+
+  /**
+   * Checks whether an item key is the key of a chunk, rather than the
+   * identifier of an entity, which cannot take that form.
+   *
+   * @param key The item key.
+   * @return {@literal true} if {@code key} has the form of a chunk key.
+   */
+  static boolean isChunkKey(final String key)
+  {
+    return key != null && CHUNK_KEY.matcher(key).matches();
+  }
+
+  /**
+   * Checks whether item data is a manifest.
+   *
+   * @param data The item data.
+   * @return {@literal true} if {@code data} is a manifest.
+   */
+  static boolean isManifest(final byte[] data)
+  {
+    return data.length == LENGTH && data[0] == MAGIC;
+  }
+
+  /**
+   * Reads a manifest from item data.
+   *
+   * Manifests come from the data stream, so their lengths are checked
+   * before anything is allocated or fetched: the entity must not be longer
+   * than {@code maxLength}, and the chunks must not be shorter than
+   * {@link MultiChainStream#MIN_CHUNK_SIZE}, which bounds their number.
+   *
+   * @param data      The item data.
+   * @param maxLength The largest length of entity data to accept.
+   * @return A {@link ChunkManifest}.
+   * @throws DataRetrievalFailureException if {@code data} is not a valid
+   *                                       manifest, or declares an entity
+   *                                       longer than {@code maxLength} or
+   *                                       chunks shorter than the minimum.
+   */
+  static ChunkManifest read(final byte[] data, final int maxLength)
+  {
+    if (!isManifest(data))
+    {
+      throw new DataRetrievalFailureException("Item data is not a chunk manifest.");
+    }
+
+    final ByteBuffer buffer = ByteBuffer.wrap(data, 1, LENGTH - 1);
+    final int chunkCount = buffer.getInt();
+    final int length = buffer.getInt();
+    final int chunkSize = buffer.getInt();
+    final long nonce = buffer.getLong();
+    final byte[] digest = new byte[DIGEST_LENGTH];
+    buffer.get(digest);
+
+    if (length > maxLength)
+    {
+      throw new DataRetrievalFailureException(String.format("Chunk manifest for %d bytes exceeds the maximum entity size of %d bytes."
+          , length
+          , maxLength));
+    }
+    else if (chunkSize < MultiChainStream.MIN_CHUNK_SIZE
+        || length < 0
+        || chunkCount != (int) ((length + (long) chunkSize - 1) / chunkSize))
+    {
+      throw new DataRetrievalFailureException(String.format("Chunk manifest for %d bytes in %d chunks of %d bytes is invalid."
+          , length
+          , chunkCount
+          , chunkSize));
+    }
+
+    return new ChunkManifest(chunkCount, chunkSize, length, nonce, digest);
+  }
+
+  /**
+   * Gets the number of chunks.
+   *
+   * @return The number of chunks.
+   */
+  int getChunkCount()
+  {
+    return chunkCount;
+  }
+
+  /**
+   * Gets the key under which a chunk is published.
+   *
+   * @param index The index of the chunk.
+   * @return The key for the chunk.
+   */
+  String getChunkKey(final int index)
+  {
+    return String.format(CHUNK_KEY_PREFIX + "%016x:%d", nonce, index);
+  }
+
+  /**
+   * Gets the length of a chunk.
+   *
+   * @param index The index of the chunk.
+   * @return The length of the chunk.
+   */
+  int getChunkLength(final int index)
+  {
+    return Math.min(chunkSize, length - getChunkOffset(index));
+  }
+
+  /**
+   * Gets the position of the first byte of a chunk in the entity data.
+   *
+   * @param index The index of the chunk.
+   * @return The position of the chunk.
+   */
+  int getChunkOffset(final int index)
+  {
+    return index * chunkSize;
+  }
+
+  /**
+   * Gets the length of the entity data.
+   *
+   * @return The length of the entity data.
+   */
+  int getLength()
+  {
+    return length;
+  }
+
+  /**
+   * Checks whether reassembled entity data matches the data the manifest
+   * was created for.
+   *
+   * @param data The reassembled entity data.
+   * @return {@literal true} if the digest of {@code data} matches.
+   */
+  boolean matches(final byte[] data)
+  {
+    return data.length == length && MessageDigest.isEqual(digest, digest(data));
+  }
+
+  /**
+   * Converts the manifest into item data.
+   *
+   * @return The item data.
+   */
+  byte[] toBytes()
+  {
+    return ByteBuffer.allocate(LENGTH)
+                     .put(MAGIC)
+                     .putInt(chunkCount)
+                     .putInt(length)
+                     .putInt(chunkSize)
+                     .putLong(nonce)
+                     .put(digest)
+                     .array();
+  }
+
+  /**
+   * Computes the SHA-256 digest of data.
+   *
+   * @param data The data.
+   * @return The digest.
+   */
+  private static byte[] digest(final byte[] data)
+  {
+    try
+    {
+      return MessageDigest.getInstance(ALGORITHM).digest(data);
+    }
+    catch (final NoSuchAlgorithmException e)
+    {
+      // Every Java platform is required to support SHA-256.
+      throw new IllegalStateException(e);
+    }
+  }
+}
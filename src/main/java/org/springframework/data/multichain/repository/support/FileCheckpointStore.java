@@ -0,0 +1,168 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.repository.support;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.multichain.repository.CheckpointStore;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Pattern;
+
+import static org.springframework.util.Assert.hasText;
+import static org.springframework.util.Assert.isTrue;
+import static org.springframework.util.Assert.notNull;
+
+/**
+ * Saves the position reached by each scan in a file of its own, named
+ * after the scan, in a given directory. A position is written to a
+ * temporary file that then replaces the previous one, so that a failure
+ * while saving leaves the previous position in place.
+ */
+public class FileCheckpointStore implements CheckpointStore
+{
+  /**
+   * The extension of checkpoint files.
+   */
+  static final String EXTENSION = ".checkpoint";
+
+  private static final Pattern NAME = Pattern.compile("[\\w.-]+");
+
+  private final Path directory;
+
+  /**
+   * Creates a store for checkpoints in a directory, which is created when
+   * the first position is saved if it does not exist.
+   *
+   * @param directory The directory in which to store checkpoints.
+   * @throws IllegalArgumentException if {@code directory} is
+   *                                  {@literal null}.
+   */
+  public FileCheckpointStore(final Path directory)
+  {
+    notNull(directory, "Directory must not be null.");
+
+    this.directory = directory;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @throws IllegalArgumentException if {@code name} is blank or holds
+   *                                  characters other than letters,
+   *                                  digits, {@code _}, {@code .} and
+   *                                  {@code -}.
+   */
+  @Override
+  public int load(final String name)
+  {
+    final Path file = getFile(name);
+
+    try
+    {
+      return Integer.parseInt(new String(Files.readAllBytes(file), StandardCharsets.US_ASCII).trim());
+    }
+    catch (final NoSuchFileException e)
+    {
+      return 0;
+    }
+    catch (final IOException | NumberFormatException e)
+    {
+      throw new DataAccessResourceFailureException(String.format("Checkpoint %s could not be loaded.", file), e);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @throws IllegalArgumentException if {@code name} is blank or holds
+   *                                  characters other than letters,
+   *                                  digits, {@code _}, {@code .} and
+   *                                  {@code -}, or if {@code position} is
+   *                                  negative.
+   */
+  @Override
+  public void save(final String name, final int position)
+  {
+    isTrue(position >= 0, "Position must not be negative.");
+
+    final Path file = getFile(name);
+
+    try
+    {
+      Files.createDirectories(directory);
+
+      final Path temporary = Files.createTempFile(directory, name, EXTENSION);
+
+      try
+      {
+        Files.write(temporary
+            , Integer.toString(position).getBytes(StandardCharsets.US_ASCII)
+            , StandardOpenOption.WRITE
+            , StandardOpenOption.SYNC);
+
+        move(temporary, file);
+      }
+      finally
+      {
+        Files.deleteIfExists(temporary);
+      }
+    }
+    catch (final IOException e)
+    {
+      throw new DataAccessResourceFailureException(String.format("Checkpoint %s could not be saved.", file), e);
+    }
+  }
+
+  /**
+   * Gets the file holding the position reached by a scan.
+   *
+   * @param name The name of the scan.
+   * @return The file.
+   */
+  private Path getFile(final String name)
+  {
+    hasText(name, "Name must not be blank.");
+    isTrue(NAME.matcher(name).matches(), "Name must only hold letters, digits, '_', '.' and '-'.");
+
+    return directory.resolve(name + EXTENSION);
+  }
+
+  /**
+   * Replaces a file with another, atomically if the file system allows.
+   *
+   * @param source The file to move.
+   * @param target The file to replace.
+   * @throws IOException if the file cannot be moved.
+   */
+  private static void move(final Path source, final Path target) throws IOException
+  {
+    try
+    {
+      Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+    catch (final AtomicMoveNotSupportedException e)
+    {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+}
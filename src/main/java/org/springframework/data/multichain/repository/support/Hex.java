@@ -0,0 +1,142 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.repository.support;
+
+/**
+ * Converts bytes to and from the hexadecimal form in which MultiChain
+ * exchanges the data of stream items.
+ */
+final class Hex
+{
+  private static final char[] DIGITS = "0123456789abcdef".toCharArray();
+
+  /**
+   * Prevents instantiation.
+   */
+  private Hex()
+  {
+  }
+
+  /**
+   * Converts a hexadecimal {@link String} into bytes.
+   *
+   * @param hex The hexadecimal {@link String}, in upper or lower case.
+   * @return The bytes.
+   * @throws IllegalArgumentException if {@code hex} has an odd length or
+   *                                  contains characters that are not
+   *                                  hexadecimal digits.
+   */
+  static byte[] decode(final String hex)
+  {
+    if (hex.length() % 2 != 0)
+    {
+      throw new IllegalArgumentException("Hexadecimal data must have an even number of digits.");
+    }
+
+    final byte[] data = new byte[hex.length() / 2];
+    decode(hex, data, 0);
+
+    return data;
+  }
+
+  /**
+   * Converts a hexadecimal {@link String} into bytes, written into an
+   * existing array.
+   *
+   * @param hex    The hexadecimal {@link String}, in upper or lower case.
+   * @param data   The array to write the bytes into.
+   * @param offset The position in {@code data} of the first byte to write.
+   * @return The number of bytes written.
+   * @throws IllegalArgumentException  if {@code hex} has an odd length or
+   *                                   contains characters that are not
+   *                                   hexadecimal digits.
+   * @throws IndexOutOfBoundsException if the bytes do not fit in
+   *                                   {@code data}.
+   */
+  static int decode(final String hex, final byte[] data, final int offset)
+  {
+    if (hex.length() % 2 != 0)
+    {
+      throw new IllegalArgumentException("Hexadecimal data must have an even number of digits.");
+    }
+
+    final int length = hex.length() / 2;
+    if (offset < 0 || length > data.length - offset)
+    {
+      throw new IndexOutOfBoundsException(String.format("%d bytes do not fit at position %d of %d.", length, offset, data.length));
+    }
+
+    for (int i = 0; i < length; ++i)
+    {
+      data[offset + i] = (byte) (digit(hex, 2 * i) << 4 | digit(hex, 2 * i + 1));
+    }
+
+    return length;
+  }
+
+  /**
+   * Converts bytes into a lowercase hexadecimal {@link String}.
+   *
+   * @param data The bytes.
+   * @return The hexadecimal {@link String}.
+   */
+  static String encode(final byte[] data)
+  {
+    return encode(data, 0, data.length);
+  }
+
+  /**
+   * Converts part of an array of bytes into a lowercase hexadecimal
+   * {@link String}.
+   *
+   * @param data   The bytes.
+   * @param offset The position of the first byte to convert.
+   * @param length The number of bytes to convert.
+   * @return The hexadecimal {@link String}.
+   */
+  static String encode(final byte[] data, final int offset, final int length)
+  {
+    final char[] hex = new char[2 * length];
+    for (int i = 0; i < length; ++i)
+    {
+      hex[2 * i] = DIGITS[(data[offset + i] >> 4) & 0xF];
+      hex[2 * i + 1] = DIGITS[data[offset + i] & 0xF];
+    }
+
+    return new String(hex);
+  }
+
+  /**
+   * Gets the value of a hexadecimal digit.
+   *
+   * @param hex   The hexadecimal {@link String}.
+   * @param index The position of the digit.
+   * @return The value of the digit.
+   * @throws IllegalArgumentException if the character is not a hexadecimal
+   *                                  digit.
+   */
+  private static int digit(final String hex, final int index)
+  {
+    final int digit = Character.digit(hex.charAt(index), 16);
+
+    if (digit < 0)
+    {
+      throw new IllegalArgumentException(String.format("Invalid hexadecimal digit at position %d.", index));
+    }
+
+    return digit;
+  }
+}
@@ -0,0 +1,360 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.repository.support;
+
+import org.springframework.data.multichain.server.Deadline;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+import static org.springframework.util.Assert.isTrue;
+import static org.springframework.util.Assert.notNull;
+
+/**
+ * <p>
+ * A bounded pool of daemon threads for the blocking work that repositories
+ * do on behalf of a single call, such as fetching the chunks of an entity,
+ * decoding a page of items or fetching the next page of a stream, so that
+ * this work does not run on the common {@link java.util.concurrent.ForkJoinPool}
+ * and starve unrelated parallel streams of the application.
+ * </p>
+ * <p>
+ * Callers take part in their own work: a task that no pool thread has
+ * started by the time the caller needs it is run by the caller. Work
+ * submitted from a pool thread, or while all threads are busy, therefore
+ * never waits for a thread, and degrades to running on the caller. Any
+ * {@link Deadline} in effect on the caller applies to its tasks.
+ * </p>
+ * <p>
+ * Every thread sends commands to the MultiChain RPC server, so the
+ * connection pool of the {@link org.springframework.data.multichain.server.MultiChainClient}
+ * should allow more connections than the pool has threads, leaving
+ * connections for the callers themselves.
+ * </p>
+ */
+public final class IoExecutor implements AutoCloseable
+{
+  /**
+   * The default number of threads, half of
+   * {@link org.springframework.data.multichain.server.support.MultiChainTemplate#DEFAULT_MAX_CONNECTIONS},
+   * so that the default connection pool serves the threads and as many
+   * callers.
+   */
+  public static final int DEFAULT_THREADS = 32;
+
+  /**
+   * An executor without threads, which runs all tasks on their callers.
+   */
+  static final IoExecutor CALLER_RUNS = new IoExecutor();
+
+  private static final long KEEP_ALIVE = 60;
+
+  private final ThreadPoolExecutor executor;
+  private final int                threads;
+
+  /**
+   * Creates an executor with a given number of threads, which are started
+   * when needed and stopped once idle for a minute.
+   *
+   * @param threads The maximum number of threads.
+   * @param name    The prefix for the names of the threads.
+   * @throws IllegalArgumentException if {@code threads} is not positive or
+   *                                  {@code name} is {@literal null}.
+   */
+  public IoExecutor(final int threads, final String name)
+  {
+    isTrue(threads > 0, "Threads must be greater than zero.");
+    notNull(name, "Name must not be null.");
+
+    final AtomicInteger count = new AtomicInteger();
+
+    this.executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+      final Thread thread = new Thread(runnable, name + count.incrementAndGet());
+      thread.setDaemon(true);
+
+      return thread;
+    });
+    this.executor.allowCoreThreadTimeOut(true);
+    this.threads = threads;
+  }
+
+  /**
+   * Creates an executor without threads.
+   */
+  private IoExecutor()
+  {
+    this.executor = null;
+    this.threads = 0;
+  }
+
+  /**
+   * Stops the threads. Work submitted afterwards runs on its callers.
+   */
+  @Override
+  public void close()
+  {
+    if (executor != null)
+    {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Gets the maximum number of threads.
+   *
+   * @return The number of threads, {@literal 0} if all tasks run on their
+   * callers.
+   */
+  public int getThreads()
+  {
+    return threads;
+  }
+
+  /**
+   * Starts a task in the background.
+   *
+   * @param task The task.
+   * @param <V>  The type of result of the task.
+   * @return The task, whose result is obtained with {@link Task#join()}.
+   */
+  <V> Task<V> fork(final Supplier<V> task)
+  {
+    final Task<V> forked = new Task<>(task, Deadline.current());
+
+    execute(forked);
+
+    return forked;
+  }
+
+  /**
+   * Runs a number of tasks concurrently, on the caller and on up to as many
+   * threads as this executor has, and waits for all of them to complete.
+   * Once a task fails, the tasks not yet started are skipped.
+   *
+   * @param count The number of tasks.
+   * @param task  Runs the task with a given index, from {@literal 0}.
+   * @throws RuntimeException the exception thrown by the first task to
+   *                          fail, if any.
+   */
+  void runAll(final int count, final IntConsumer task)
+  {
+    final Deadline deadline = Deadline.current();
+    final CountDownLatch done = new CountDownLatch(count);
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    final AtomicInteger next = new AtomicInteger();
+
+    final Runnable worker = () -> {
+      for (int i = next.getAndIncrement(); i < count; i = next.getAndIncrement())
+      {
+        try
+        {
+          if (failure.get() == null)
+          {
+            final int index = i;
+
+            run(deadline, () -> {
+              task.accept(index);
+
+              return null;
+            });
+          }
+        }
+        catch (final RuntimeException | Error e)
+        {
+          failure.compareAndSet(null, e);
+        }
+        finally
+        {
+          done.countDown();
+        }
+      }
+    };
+
+    for (int i = Math.min(count - 1, threads); i > 0; --i)
+    {
+      execute(worker);
+    }
+
+    worker.run();
+
+    await(done);
+    rethrow(failure.get());
+  }
+
+  /**
+   * Waits for tasks to complete, without giving up if interrupted, since
+   * the tasks are running and bounded by the timeouts of the commands they
+   * send. The interrupt is restored afterwards.
+   *
+   * @param done Counts down as tasks complete.
+   */
+  private static void await(final CountDownLatch done)
+  {
+    boolean interrupted = false;
+
+    while (done.getCount() > 0)
+    {
+      try
+      {
+        done.await();
+      }
+      catch (final InterruptedException e)
+      {
+        interrupted = true;
+      }
+    }
+
+    if (interrupted)
+    {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Hands a task over to the threads, if any. Tasks that cannot be handed
+   * over are run by their callers when needed.
+   *
+   * @param task The task.
+   */
+  private void execute(final Runnable task)
+  {
+    if (executor != null)
+    {
+      try
+      {
+        executor.execute(task);
+      }
+      catch (final RejectedExecutionException e)
+      {
+        // Run by the caller.
+      }
+    }
+  }
+
+  /**
+   * Rethrows the exception thrown by a task, if any.
+   *
+   * @param failure The exception, or {@literal null}.
+   */
+  private static void rethrow(final Throwable failure)
+  {
+    if (failure instanceof RuntimeException)
+    {
+      throw (RuntimeException) failure;
+    }
+    else if (failure instanceof Error)
+    {
+      throw (Error) failure;
+    }
+  }
+
+  /**
+   * Runs a task under a deadline, if any.
+   *
+   * @param deadline The deadline, or {@literal null}.
+   * @param task     The task.
+   * @param <V>      The type of result of the task.
+   * @return The result of the task.
+   */
+  private static <V> V run(final Deadline deadline, final Supplier<V> task)
+  {
+    return deadline != null ? deadline.run(task) : task.get();
+  }
+
+  /**
+   * A task started in the background, which is run by the first of a pool
+   * thread or the caller to get to it.
+   *
+   * @param <V> The type of result of the task.
+   */
+  static final class Task<V> implements Runnable
+  {
+    private final Deadline       deadline;
+    private final CountDownLatch done    = new CountDownLatch(1);
+    private final AtomicBoolean  started = new AtomicBoolean();
+    private final Supplier<V>    task;
+
+    private volatile Throwable failure;
+    private volatile V         result;
+
+    /**
+     * Creates a task.
+     *
+     * @param task     The work to do.
+     * @param deadline The deadline to do it under, or {@literal null}.
+     */
+    private Task(final Supplier<V> task, final Deadline deadline)
+    {
+      this.deadline = deadline;
+      this.task = task;
+    }
+
+    /**
+     * Prevents the task from starting, if it has not started yet.
+     */
+    void cancel()
+    {
+      started.set(true);
+    }
+
+    /**
+     * Gets the result of the task, running it on the caller if it has not
+     * started yet, or waiting for it to complete otherwise.
+     *
+     * @return The result.
+     * @throws RuntimeException the exception thrown by the task, if any.
+     */
+    V join()
+    {
+      run();
+      await(done);
+      rethrow(failure);
+
+      return result;
+    }
+
+    /**
+     * Runs the task, unless it has started already.
+     */
+    @Override
+    public void run()
+    {
+      if (started.compareAndSet(false, true))
+      {
+        try
+        {
+          result = IoExecutor.run(deadline, task);
+        }
+        catch (final RuntimeException | Error e)
+        {
+          failure = e;
+        }
+        finally
+        {
+          done.countDown();
+        }
+      }
+    }
+  }
+}
@@ -15,10 +15,16 @@
  */
 package org.springframework.data.multichain.repository.support;
 
+import org.springframework.data.multichain.annotation.StreamItemFormat;
 import org.springframework.data.multichain.mapping.MultiChainPersistentEntity;
+import org.springframework.data.multichain.mapping.MultiChainPersistentProperty;
+import org.springframework.data.multichain.serializer.CompressionCodec;
+import org.springframework.data.multichain.serializer.EntitySerializer;
 import org.springframework.data.repository.core.support.AbstractEntityInformation;
 import org.springframework.data.repository.core.support.PersistentEntityInformation;
 
+import java.util.List;
+
 /**
  * MultiChain specific implementation of {@link AbstractEntityInformation}
  * that provides access to metadata about an entity class so that entity
@@ -47,6 +53,107 @@ public class MultiChainEntityInformation<T, ID> extends PersistentEntityInformat
     this.persistentEntity = persistentEntity;
   }
 
+  /**
+   * Gets the largest number of bytes to store in a single item for an
+   * entity.
+   *
+   * @return The chunk size, or {@literal 0} if entities should not be
+   * split.
+   */
+  int getChunkSize()
+  {
+    return persistentEntity.getChunkSize();
+  }
+
+  /**
+   * Gets the largest number of bytes an entity may take when stored.
+   *
+   * @return The maximum entity size.
+   */
+  int getMaxEntitySize()
+  {
+    return persistentEntity.getMaxEntitySize();
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Reads the identifier through the accessor cached by its property,
+   * rather than through an accessor created for the entity.
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public ID getId(final T entity)
+  {
+    return (ID) persistentEntity.getIdentifier(entity);
+  }
+
+  /**
+   * Gets a persistent property of the entity.
+   *
+   * @param name The name of the property.
+   * @return The property, or {@literal null} if the entity has no such
+   * property.
+   */
+  MultiChainPersistentProperty getPersistentProperty(final String name)
+  {
+    return persistentEntity.getPersistentProperty(name);
+  }
+
+  /**
+   * Gets the keys, besides its identifier, under which an entity is
+   * published.
+   *
+   * @param entity The entity.
+   * @return The keys derived from the indexed properties of the entity.
+   */
+  List<String> getIndexKeys(final T entity)
+  {
+    return persistentEntity.getIndexKeys(entity);
+  }
+
+  /**
+   * Gets the type of {@link CompressionCodec} specified for the entity.
+   *
+   * @return The type of {@link CompressionCodec}, or {@literal null} if
+   * entities should not be compressed.
+   */
+  Class<? extends CompressionCodec> getCompressionCodecType()
+  {
+    return persistentEntity.getCompressionCodecType();
+  }
+
+  /**
+   * Gets the length in bytes from which entities should be compressed.
+   *
+   * @return The length from which entities should be compressed.
+   */
+  int getCompressionThreshold()
+  {
+    return persistentEntity.getCompressionThreshold();
+  }
+
+  /**
+   * Gets the form in which entities should be stored.
+   *
+   * @return The {@link StreamItemFormat}.
+   */
+  StreamItemFormat getItemFormat()
+  {
+    return persistentEntity.getItemFormat();
+  }
+
+  /**
+   * Gets the type of {@link EntitySerializer} specified for the entity.
+   *
+   * @return The type of {@link EntitySerializer}, or {@literal null} if
+   * none has been specified.
+   */
+  Class<? extends EntitySerializer> getSerializerType()
+  {
+    return persistentEntity.getSerializerType();
+  }
+
   /**
    * Gets the name of the data stream to which entities should be persisted.
    *
@@ -57,4 +164,24 @@ public class MultiChainEntityInformation<T, ID> extends PersistentEntityInformat
   {
     return persistentEntity.getStreamName();
   }
+
+  /**
+   * Gets whether entities should be stored off-chain.
+   *
+   * @return {@literal true} if entities should be stored off-chain.
+   */
+  boolean isOffchain()
+  {
+    return persistentEntity.isOffchain();
+  }
+
+  /**
+   * Gets whether the data stream should be replicated locally.
+   *
+   * @return {@literal true} if the data stream should be replicated.
+   */
+  boolean isReplicated()
+  {
+    return persistentEntity.isReplicated();
+  }
 }
@@ -15,23 +15,98 @@
  */
 package org.springframework.data.multichain.repository.support;
 
+import org.springframework.beans.BeanUtils;
+import org.springframework.data.domain.AfterDomainEventPublication;
+import org.springframework.data.domain.DomainEvents;
+import org.springframework.data.multichain.mapping.index.MultiChainEntityIndex;
 import org.springframework.data.multichain.mapping.context.MultiChainMappingContext;
 import org.springframework.data.multichain.repository.MultiChainEntityInformationProvider;
 import org.springframework.data.multichain.repository.MultiChainRepository;
+import org.springframework.data.multichain.serializer.CompressionCodec;
+import org.springframework.data.multichain.serializer.EntitySerializer;
+import org.springframework.data.multichain.serializer.GsonEntitySerializer;
 import org.springframework.data.multichain.server.MultiChainClient;
 import org.springframework.data.repository.core.RepositoryInformation;
 import org.springframework.data.repository.core.RepositoryMetadata;
+import org.springframework.data.repository.core.support.EventPublishingRepositoryProxyPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
 import org.springframework.data.repository.core.support.RepositoryFactorySupport;
+import org.springframework.data.repository.core.support.RepositoryProxyPostProcessor;
+import org.springframework.data.repository.query.EvaluationContextProvider;
+import org.springframework.data.repository.query.QueryLookupStrategy;
+import org.springframework.data.repository.query.QueryMethod;
+import org.springframework.data.util.AnnotationDetectionMethodCallback;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
 
+import java.lang.annotation.Annotation;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.util.Assert.isTrue;
 import static org.springframework.util.Assert.notNull;
 
 /**
  * Creates {@link MultiChainRepository} instances.
+ * <p>
+ * Repositories are proxies dispatching to a
+ * {@link SimpleMultiChainRepository}, unless the build-time entity index
+ * names an implementation generated for the repository interface by the
+ * {@link org.springframework.data.multichain.mapping.index.MultiChainEntityIndexProcessor},
+ * in which case an instance of that implementation is returned. The proxy is
+ * still used when the repository has custom fragments, the factory has been
+ * given a repository base class or proxy post-processors, or the entity type
+ * publishes domain events.
+ * </p>
+ * <p>
+ * If a {@link #setReplicaDirectory(Path) replica directory} has been set,
+ * the data streams of entity types that are
+ * {@link org.springframework.data.multichain.annotation.MultiChainStream#replicated() replicated}
+ * are copied into a {@link StreamReplica} in that directory, which is
+ * synced in the background until the factory is {@link #close() closed}.
+ * </p>
+ * <p>
+ * Blocking work done on behalf of a single call, such as fetching the
+ * chunks of an entity, decoding a page of items or reading ahead while
+ * streaming, runs on an {@link IoExecutor} owned by the factory and shared
+ * by its repositories, with {@link IoExecutor#DEFAULT_THREADS} threads
+ * unless {@link #setIoThreads(int) configured} otherwise, until the factory
+ * is closed. The connection pool of the {@link MultiChainClient} should
+ * allow more connections than that.
+ * </p>
+ * <p>
+ * Query methods are derived from their names, and find entities by an
+ * {@link org.springframework.data.multichain.annotation.Indexed indexed}
+ * property, such as {@code findByCustomerId(String)}.
+ * </p>
  */
-public class MultiChainRepositoryFactory extends RepositoryFactorySupport
+public class MultiChainRepositoryFactory extends RepositoryFactorySupport implements AutoCloseable
 {
-  private final MultiChainEntityInformationProvider entityInformationProvider;
-  private final MultiChainClient                    multiChainClient;
+  /**
+   * The default interval, in milliseconds, between syncs of replicas.
+   */
+  public static final long DEFAULT_REPLICA_SYNC_INTERVAL = 1000;
+
+  private final Map<Class<? extends CompressionCodec>, CompressionCodec> codecs      = new ConcurrentHashMap<>();
+  private final Map<String, StreamReplica>                               replicas    = new ConcurrentHashMap<>();
+  private final Map<Class<? extends EntitySerializer>, EntitySerializer> serializers = new ConcurrentHashMap<>();
+  private final EntitySerializer                                         defaultSerializer;
+  private final MultiChainEntityInformationProvider                      entityInformationProvider;
+  private final MultiChainClient                                         multiChainClient;
+
+  private boolean                  customized;
+  private IoExecutor               executor;
+  private int                      ioThreads           = IoExecutor.DEFAULT_THREADS;
+  private Path                     replicaDirectory;
+  private long                     replicaSyncInterval = DEFAULT_REPLICA_SYNC_INTERVAL;
+  private ScheduledExecutorService replicaSyncer;
 
   /**
    * Creates an instance with a {@link MultiChainClient} to use for
@@ -43,11 +118,94 @@ public class MultiChainRepositoryFactory extends RepositoryFactorySupport
    *                                  {@literal null}.
    */
   public MultiChainRepositoryFactory(final MultiChainClient multiChainClient)
+  {
+    this(multiChainClient, new GsonEntitySerializer());
+  }
+
+  /**
+   * Creates an instance with a {@link MultiChainClient} to use for
+   * communicating with a MultiChain RPC server and the
+   * {@link EntitySerializer} to use for entities that do not specify one
+   * through {@link org.springframework.data.multichain.annotation.MultiChainStream#serializer()}.
+   *
+   * @param multiChainClient  A {@link MultiChainClient}; must not be
+   *                          {@literal null}.
+   * @param defaultSerializer An {@link EntitySerializer}; must not be
+   *                          {@literal null}.
+   * @throws IllegalArgumentException if {@code multiChainClient} or
+   *                                  {@code defaultSerializer} is
+   *                                  {@literal null}.
+   */
+  public MultiChainRepositoryFactory(final MultiChainClient multiChainClient, final EntitySerializer defaultSerializer)
+  {
+    this(multiChainClient, defaultSerializer, new MultiChainMappingContext());
+  }
+
+  /**
+   * Creates an instance with a {@link MultiChainClient} to use for
+   * communicating with a MultiChain RPC server, the
+   * {@link EntitySerializer} to use for entities that do not specify one
+   * through {@link org.springframework.data.multichain.annotation.MultiChainStream#serializer()},
+   * and the {@link MultiChainMappingContext} to get entity metadata from,
+   * which may be shared with other factories.
+   *
+   * @param multiChainClient  A {@link MultiChainClient}; must not be
+   *                          {@literal null}.
+   * @param defaultSerializer An {@link EntitySerializer}; must not be
+   *                          {@literal null}.
+   * @param mappingContext    A {@link MultiChainMappingContext}; must not be
+   *                          {@literal null}.
+   * @throws IllegalArgumentException if {@code multiChainClient},
+   *                                  {@code defaultSerializer} or
+   *                                  {@code mappingContext} is
+   *                                  {@literal null}.
+   */
+  public MultiChainRepositoryFactory(final MultiChainClient multiChainClient
+      , final EntitySerializer defaultSerializer
+      , final MultiChainMappingContext mappingContext)
   {
     notNull(multiChainClient, "MultiChainClient must not be null!");
+    notNull(defaultSerializer, "EntitySerializer must not be null!");
+    notNull(mappingContext, "MultiChainMappingContext must not be null!");
 
+    this.defaultSerializer = defaultSerializer;
     this.multiChainClient = multiChainClient;
-    this.entityInformationProvider = new MappingContextMultiChainEntityInformationProvider(new MultiChainMappingContext());
+    this.entityInformationProvider = new MappingContextMultiChainEntityInformationProvider(mappingContext);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void addRepositoryProxyPostProcessor(final RepositoryProxyPostProcessor processor)
+  {
+    super.addRepositoryProxyPostProcessor(processor);
+
+    customized |= !(processor instanceof EventPublishingRepositoryProxyPostProcessor);
+  }
+
+  /**
+   * Stops syncing replicas and closes them, and stops the threads of the
+   * {@link IoExecutor}. Repositories created by this factory go on working,
+   * doing all blocking work on the calling threads.
+   */
+  @Override
+  public synchronized void close()
+  {
+    if (replicaSyncer != null)
+    {
+      replicaSyncer.shutdownNow();
+      replicaSyncer = null;
+    }
+
+    if (executor != null)
+    {
+      executor.close();
+      executor = null;
+    }
+
+    replicas.values().forEach(StreamReplica::close);
+    replicas.clear();
   }
 
   /**
@@ -59,6 +217,106 @@ public class MultiChainRepositoryFactory extends RepositoryFactorySupport
     return entityInformationProvider.getEntityInformation(domainClass);
   }
 
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Returns an instance of the implementation generated for the repository
+   * interface, if there is one and no proxy is needed.
+   */
+  @Override
+  public <T> T getRepository(final Class<T> repositoryInterface, final RepositoryFragments fragments)
+  {
+    final Class<?> implementation = customized || !fragments.isEmpty() ? null : getImplementation(repositoryInterface);
+
+    if (implementation == null)
+    {
+      return super.getRepository(repositoryInterface, fragments);
+    }
+
+    final MultiChainEntityInformation<?, ?> entityInformation = getEntityInformation(getRepositoryMetadata(repositoryInterface).getDomainType());
+
+    return repositoryInterface.cast(getTargetRepositoryViaReflection(implementation, entityInformation, multiChainClient
+        , getSerializer(entityInformation)
+        , getCodec(entityInformation)
+        , getReplica(entityInformation)
+        , getExecutor()));
+  }
+
+  /**
+   * Sets the number of threads of the {@link IoExecutor} shared by the
+   * repositories created by this factory, which must be set before the
+   * first repository is created. Defaults to
+   * {@link IoExecutor#DEFAULT_THREADS}.
+   *
+   * @param ioThreads The number of threads.
+   * @throws IllegalArgumentException if {@code ioThreads} is not positive.
+   */
+  public void setIoThreads(final int ioThreads)
+  {
+    isTrue(ioThreads > 0, "I/O threads must be positive.");
+
+    this.ioThreads = ioThreads;
+  }
+
+  /**
+   * Sets the directory to hold the replicas of the data streams of entity
+   * types that are replicated. Defaults to none, so that no data stream is
+   * replicated.
+   *
+   * @param replicaDirectory The directory, which is created if it does not
+   *                         exist, or {@literal null}.
+   */
+  public void setReplicaDirectory(final Path replicaDirectory)
+  {
+    this.replicaDirectory = replicaDirectory;
+  }
+
+  /**
+   * Sets the interval between the end of a sync of each replica and the
+   * start of the next one. Defaults to
+   * {@link #DEFAULT_REPLICA_SYNC_INTERVAL}.
+   *
+   * @param replicaSyncInterval The interval, in milliseconds.
+   * @throws IllegalArgumentException if {@code replicaSyncInterval} is not
+   *                                  positive.
+   */
+  public void setReplicaSyncInterval(final long replicaSyncInterval)
+  {
+    isTrue(replicaSyncInterval > 0, "Replica sync interval must be positive.");
+
+    this.replicaSyncInterval = replicaSyncInterval;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void setRepositoryBaseClass(final Class<?> repositoryBaseClass)
+  {
+    super.setRepositoryBaseClass(repositoryBaseClass);
+
+    customized |= repositoryBaseClass != null;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Queries are always derived from the names of query methods, whatever
+   * the lookup strategy requested.
+   */
+  @Override
+  protected Optional<QueryLookupStrategy> getQueryLookupStrategy(final QueryLookupStrategy.Key key
+      , final EvaluationContextProvider evaluationContextProvider)
+  {
+    return Optional.of((method, metadata, projectionFactory, namedQueries) -> {
+      final QueryMethod queryMethod = new QueryMethod(method, metadata, projectionFactory);
+
+      return new PartTreeMultiChainQuery(queryMethod
+          , getEntityInformation(metadata.getDomainType())
+          , getQueryRepository(metadata.getDomainType()));
+    });
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -74,6 +332,205 @@ public class MultiChainRepositoryFactory extends RepositoryFactorySupport
   @Override
   protected Object getTargetRepository(final RepositoryInformation repositoryInformation)
   {
-    return getTargetRepositoryViaReflection(repositoryInformation, getEntityInformation(repositoryInformation.getDomainType()), multiChainClient);
+    final MultiChainEntityInformation<?, ?> entityInformation = getEntityInformation(repositoryInformation.getDomainType());
+
+    return getTargetRepositoryViaReflection(repositoryInformation, entityInformation, multiChainClient
+        , getSerializer(entityInformation)
+        , getCodec(entityInformation)
+        , getReplica(entityInformation)
+        , getExecutor());
+  }
+
+  /**
+   * Gets the {@link CompressionCodec} for an entity type, if compression has
+   * been enabled for the type. Codecs are created once and shared by all
+   * repositories created by this factory.
+   *
+   * @param entityInformation Metadata about the entity type.
+   * @return A {@link CompressionCodec}, or {@literal null} if entities of
+   * the type should not be compressed.
+   */
+  private CompressionCodec getCodec(final MultiChainEntityInformation<?, ?> entityInformation)
+  {
+    final Class<? extends CompressionCodec> codecType = entityInformation.getCompressionCodecType();
+
+    return codecType != null ? codecs.computeIfAbsent(codecType, BeanUtils::instantiateClass) : null;
+  }
+
+  /**
+   * Gets the {@link IoExecutor} shared by the repositories created by this
+   * factory, creating it when first needed.
+   *
+   * @return An {@link IoExecutor}.
+   */
+  private synchronized IoExecutor getExecutor()
+  {
+    if (executor == null)
+    {
+      executor = new IoExecutor(ioThreads, "multichain-io-");
+    }
+
+    return executor;
+  }
+
+  /**
+   * Gets the implementation generated for a repository interface, as
+   * recorded in the build-time entity index.
+   *
+   * @param repositoryInterface The repository interface.
+   * @return The implementation, or {@literal null} if there is none, it
+   * cannot be loaded, or the entity type publishes domain events.
+   */
+  private Class<?> getImplementation(final Class<?> repositoryInterface)
+  {
+    final ClassLoader classLoader = repositoryInterface.getClassLoader();
+    final String implementationName = MultiChainEntityIndex.load(classLoader).getImplementationName(repositoryInterface.getName());
+
+    if (implementationName == null)
+    {
+      return null;
+    }
+
+    final Class<?> implementation;
+    try
+    {
+      implementation = ClassUtils.forName(implementationName, classLoader);
+    }
+    catch (final ClassNotFoundException | LinkageError e)
+    {
+      return null;
+    }
+
+    if (!repositoryInterface.isAssignableFrom(implementation)
+        || !SimpleMultiChainRepository.class.isAssignableFrom(implementation))
+    {
+      return null;
+    }
+
+    final Class<?> domainType = getRepositoryMetadata(repositoryInterface).getDomainType();
+
+    return hasAnnotatedMethod(domainType, DomainEvents.class) || hasAnnotatedMethod(domainType, AfterDomainEventPublication.class)
+           ? null
+           : implementation;
+  }
+
+  /**
+   * Checks whether a type has a method with a given annotation.
+   *
+   * @param type           The type.
+   * @param annotationType The type of annotation.
+   * @return {@literal true} if the type has such a method.
+   */
+  private static boolean hasAnnotatedMethod(final Class<?> type, final Class<? extends Annotation> annotationType)
+  {
+    final AnnotationDetectionMethodCallback<?> callback = new AnnotationDetectionMethodCallback<>(annotationType);
+    ReflectionUtils.doWithMethods(type, callback);
+
+    return callback.hasFoundAnnotation();
+  }
+
+  /**
+   * Gets a repository for query methods to find entities of a type with.
+   *
+   * @param domainType The entity type.
+   * @param <T>        The entity type.
+   * @return A {@link SimpleMultiChainRepository}.
+   */
+  private <T> SimpleMultiChainRepository<T> getQueryRepository(final Class<T> domainType)
+  {
+    final MultiChainEntityInformation<T, String> entityInformation = getEntityInformation(domainType);
+
+    return new SimpleMultiChainRepository<>(entityInformation
+        , multiChainClient
+        , getSerializer(entityInformation)
+        , getCodec(entityInformation)
+        , getReplica(entityInformation)
+        , getExecutor());
+  }
+
+  /**
+   * Gets the {@link StreamReplica} for an entity type, if its data stream is
+   * replicated. Replicas are opened once, shared by all repositories
+   * created by this factory for the data stream, and synced in the
+   * background from the time they are opened.
+   *
+   * @param entityInformation Metadata about the entity type.
+   * @return A {@link StreamReplica}, or {@literal null} if the data stream
+   * is not replicated.
+   */
+  private StreamReplica getReplica(final MultiChainEntityInformation<?, ?> entityInformation)
+  {
+    if (replicaDirectory == null || !entityInformation.isReplicated())
+    {
+      return null;
+    }
+
+    return replicas.computeIfAbsent(entityInformation.getStreamName(), stream -> {
+      final StreamReplica replica = new StreamReplica(replicaDirectory, stream, multiChainClient);
+
+      scheduleSync(replica);
+
+      return replica;
+    });
+  }
+
+  /**
+   * Syncs a replica periodically in the background, on a single daemon
+   * thread shared by all replicas. Failed syncs are retried at the next
+   * interval; in the meantime, items not yet replicated are found on the
+   * node. A replica that has {@link StreamReplica#isStalled() stalled} is no
+   * longer synced.
+   *
+   * @param replica The replica.
+   */
+  private synchronized void scheduleSync(final StreamReplica replica)
+  {
+    if (replicaSyncer == null)
+    {
+      replicaSyncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "multichain-replica-sync");
+        thread.setDaemon(true);
+
+        return thread;
+      });
+    }
+
+    // The sync may run before it has been scheduled, so it cancels itself
+    // once the schedule is known.
+    final CompletableFuture<ScheduledFuture<?>> schedule = new CompletableFuture<>();
+
+    schedule.complete(replicaSyncer.scheduleWithFixedDelay(() -> {
+      try
+      {
+        replica.sync();
+      }
+      catch (final RuntimeException e)
+      {
+        // Retried at the next interval.
+      }
+
+      if (replica.isStalled())
+      {
+        schedule.thenAccept(scheduled -> scheduled.cancel(false));
+      }
+    }, 0, replicaSyncInterval, TimeUnit.MILLISECONDS));
+  }
+
+  /**
+   * Gets the {@link EntitySerializer} for an entity type: the one specified
+   * for the type if any, the default one otherwise. Serializers specified
+   * for entity types are created once and shared by all repositories
+   * created by this factory.
+   *
+   * @param entityInformation Metadata about the entity type.
+   * @return An {@link EntitySerializer}.
+   */
+  private EntitySerializer getSerializer(final MultiChainEntityInformation<?, ?> entityInformation)
+  {
+    final Class<? extends EntitySerializer> serializerType = entityInformation.getSerializerType();
+
+    return serializerType == null || serializerType == defaultSerializer.getClass()
+           ? defaultSerializer
+           : serializers.computeIfAbsent(serializerType, BeanUtils::instantiateClass);
   }
 }
@@ -15,12 +15,18 @@
  */
 package org.springframework.data.multichain.repository.support;
 
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.FactoryBean;
+import org.springframework.data.multichain.mapping.context.MultiChainMappingContext;
+import org.springframework.data.multichain.serializer.EntitySerializer;
+import org.springframework.data.multichain.serializer.GsonEntitySerializer;
 import org.springframework.data.multichain.server.MultiChainClient;
 import org.springframework.data.repository.Repository;
 import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
 import org.springframework.data.repository.core.support.RepositoryFactorySupport;
 
+import java.io.File;
+
 import static org.springframework.util.Assert.notNull;
 
 /**
@@ -32,8 +38,15 @@ import static org.springframework.util.Assert.notNull;
  */
 public class MultiChainRepositoryFactoryBean<R extends Repository<E, String>, E>
     extends RepositoryFactoryBeanSupport<R, E, String>
+    implements DisposableBean
 {
-  private MultiChainClient multiChainClient;
+  private EntitySerializer            entitySerializer    = new GsonEntitySerializer();
+  private MultiChainRepositoryFactory factory;
+  private int                         ioThreads           = IoExecutor.DEFAULT_THREADS;
+  private MultiChainClient            multiChainClient;
+  private MultiChainMappingContext    multiChainMappingContext;
+  private File                        replicaDirectory;
+  private long                        replicaSyncInterval = MultiChainRepositoryFactory.DEFAULT_REPLICA_SYNC_INTERVAL;
 
   /**
    * Sets the {@link Repository} interface for which the implementation needs
@@ -54,9 +67,47 @@ public class MultiChainRepositoryFactoryBean<R extends Repository<E, String>, E>
   {
     super.afterPropertiesSet();
 
+    notNull(entitySerializer, "EntitySerializer must not be null.");
     notNull(multiChainClient, "MultiChainClient must be configured.");
   }
 
+  /**
+   * Stops syncing the replica of the data stream, if any, and closes it.
+   */
+  @Override
+  public void destroy()
+  {
+    if (factory != null)
+    {
+      factory.close();
+    }
+  }
+
+  /**
+   * Sets the {@link EntitySerializer} to use for entities that do not
+   * specify one through
+   * {@link org.springframework.data.multichain.annotation.MultiChainStream#serializer()}.
+   * Defaults to {@link GsonEntitySerializer}.
+   *
+   * @param entitySerializer An {@link EntitySerializer}.
+   */
+  public void setEntitySerializer(final EntitySerializer entitySerializer)
+  {
+    this.entitySerializer = entitySerializer;
+  }
+
+  /**
+   * Sets the number of threads doing blocking work for the repository, such
+   * as fetching the chunks of entities. Defaults to
+   * {@link IoExecutor#DEFAULT_THREADS}.
+   *
+   * @param ioThreads The number of threads.
+   */
+  public void setIoThreads(final int ioThreads)
+  {
+    this.ioThreads = ioThreads;
+  }
+
   /**
    * Sets the {@link MultiChainClient} to use for creating the repository
    * implementation.
@@ -68,12 +119,58 @@ public class MultiChainRepositoryFactoryBean<R extends Repository<E, String>, E>
     this.multiChainClient = multiChainClient;
   }
 
+  /**
+   * Sets the {@link MultiChainMappingContext} to get entity metadata from,
+   * which is usually shared by all repositories. Defaults to a mapping
+   * context of the repository's own.
+   *
+   * @param multiChainMappingContext A {@link MultiChainMappingContext}.
+   */
+  public void setMultiChainMappingContext(final MultiChainMappingContext multiChainMappingContext)
+  {
+    super.setMappingContext(multiChainMappingContext);
+
+    this.multiChainMappingContext = multiChainMappingContext;
+  }
+
+  /**
+   * Sets the directory to hold the replica of the data stream, if the
+   * entity type is
+   * {@link org.springframework.data.multichain.annotation.MultiChainStream#replicated() replicated}.
+   * Defaults to none, so that the data stream is not replicated.
+   *
+   * @param replicaDirectory The directory, or {@literal null}.
+   */
+  public void setReplicaDirectory(final File replicaDirectory)
+  {
+    this.replicaDirectory = replicaDirectory;
+  }
+
+  /**
+   * Sets the interval between syncs of the replica of the data stream.
+   * Defaults to {@link MultiChainRepositoryFactory#DEFAULT_REPLICA_SYNC_INTERVAL}.
+   *
+   * @param replicaSyncInterval The interval, in milliseconds.
+   */
+  public void setReplicaSyncInterval(final long replicaSyncInterval)
+  {
+    this.replicaSyncInterval = replicaSyncInterval;
+  }
+
   /**
    * {@inheritDoc}
    */
   @Override
   protected RepositoryFactorySupport createRepositoryFactory()
   {
-    return new MultiChainRepositoryFactory(multiChainClient);
+    factory = multiChainMappingContext != null
+              ? new MultiChainRepositoryFactory(multiChainClient, entitySerializer, multiChainMappingContext)
+              : new MultiChainRepositoryFactory(multiChainClient, entitySerializer);
+
+    factory.setIoThreads(ioThreads);
+    factory.setReplicaDirectory(replicaDirectory != null ? replicaDirectory.toPath() : null);
+    factory.setReplicaSyncInterval(replicaSyncInterval);
+
+    return factory;
   }
 }
@@ -0,0 +1,452 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.repository.support;
+
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.multichain.mapping.MultiChainPersistentProperty;
+import org.springframework.data.repository.query.QueryCreationException;
+import org.springframework.data.repository.query.QueryMethod;
+import org.springframework.data.repository.query.RepositoryQuery;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.util.ClassUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * <p>
+ * A query derived from the name of a query method, such as
+ * {@code findByStatusAndRegion(Status, String)}, that finds the entities
+ * meeting all the conditions of the method.
+ * </p>
+ * <p>
+ * The query is planned when created. Conditions that compare an
+ * {@link org.springframework.data.multichain.annotation.Indexed indexed}
+ * property with an argument for equality are answered by the node, through
+ * the keys derived from the properties and the arguments: with
+ * {@code liststreamkeyitems} for a single key, and with a single
+ * {@code liststreamqueryitems} call for several keys, so that the node
+ * intersects its indexes. The other conditions are checked on the entities
+ * found, on the client. At least one condition must be answered by the
+ * node, so that queries never scan the data stream.
+ * </p>
+ * <p>
+ * Query methods may return entities, as collections, streams or a single
+ * entity, or count them or tell whether any exist.
+ * </p>
+ */
+final class PartTreeMultiChainQuery implements RepositoryQuery
+{
+  /**
+   * The types of conditions that can be checked on the client.
+   */
+  private static final Set<Part.Type> COMPARED = EnumSet.of(Part.Type.GREATER_THAN
+      , Part.Type.GREATER_THAN_EQUAL
+      , Part.Type.LESS_THAN
+      , Part.Type.LESS_THAN_EQUAL);
+  private static final Set<Part.Type> FILTERED = EnumSet.of(Part.Type.SIMPLE_PROPERTY
+      , Part.Type.NEGATING_SIMPLE_PROPERTY
+      , Part.Type.IS_NULL
+      , Part.Type.IS_NOT_NULL
+      , Part.Type.GREATER_THAN
+      , Part.Type.GREATER_THAN_EQUAL
+      , Part.Type.LESS_THAN
+      , Part.Type.LESS_THAN_EQUAL
+      , Part.Type.TRUE
+      , Part.Type.FALSE);
+
+  private final List<Condition>               filtered = new ArrayList<>();
+  private final List<Condition>               indexed  = new ArrayList<>();
+  private final QueryMethod                   queryMethod;
+  private final SimpleMultiChainRepository<?> repository;
+  private final PartTree                      tree;
+
+  /**
+   * Creates a query for a query method.
+   *
+   * @param queryMethod       The query method.
+   * @param entityInformation Metadata about the entities the query method
+   *                          finds.
+   * @param repository        The repository to find entities with.
+   * @throws QueryCreationException if the query method does not compare
+   *                                any indexed property with an argument,
+   *                                has conditions that are not supported,
+   *                                or has a return type or parameters that
+   *                                are not supported.
+   */
+  PartTreeMultiChainQuery(final QueryMethod queryMethod
+      , final MultiChainEntityInformation<?, ?> entityInformation
+      , final SimpleMultiChainRepository<?> repository)
+  {
+    this.queryMethod = queryMethod;
+    this.repository = repository;
+    this.tree = new PartTree(queryMethod.getName(), entityInformation.getJavaType());
+
+    if (tree.isDelete() || tree.isDistinct() || tree.isLimiting() || tree.getSort().isSorted())
+    {
+      throw QueryCreationException.create(queryMethod, "Only queries by properties, without modifiers, are supported.");
+    }
+    else if (queryMethod.isPageQuery() || queryMethod.isSliceQuery() || queryMethod.getParameters().hasSpecialParameter())
+    {
+      throw QueryCreationException.create(queryMethod, "Paging and sorting are not supported.");
+    }
+
+    plan(entityInformation);
+  }
+
+  /**
+   * Finds the entities meeting the conditions of the query method.
+   *
+   * @param parameters The arguments of the query method.
+   * @return The entities, as returned by the query method.
+   * @throws IncorrectResultSizeDataAccessException if the query method
+   *                                                returns a single entity
+   *                                                and more than one is
+   *                                                found.
+   */
+  @Override
+  public Object execute(final Object[] parameters)
+  {
+    final List<String> keys = new ArrayList<>(indexed.size());
+    for (final Condition condition : indexed)
+    {
+      final String key = condition.property.getIndexKey(parameters[condition.parameter]);
+
+      // Entities are never published under keys for missing values.
+      if (key == null)
+      {
+        return getResult(Collections.emptyList());
+      }
+      else if (!keys.contains(key))
+      {
+        keys.add(key);
+      }
+    }
+
+    final List<?> entities = repository.findAllByKeys(keys);
+
+    return getResult(filtered.isEmpty()
+                     ? entities
+                     : entities.stream()
+                               .filter(entity -> filtered.stream().allMatch(condition -> condition.matches(entity, parameters)))
+                               .collect(Collectors.toList()));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public QueryMethod getQueryMethod()
+  {
+    return queryMethod;
+  }
+
+  /**
+   * Converts the entities found into the result of the query method.
+   *
+   * @param entities The entities.
+   * @return The entities, their number, whether any were found, or the only
+   * entity found.
+   */
+  private Object getResult(final List<?> entities)
+  {
+    if (tree.isCountProjection())
+    {
+      return (long) entities.size();
+    }
+    else if (tree.isExistsProjection())
+    {
+      return !entities.isEmpty();
+    }
+    else if (queryMethod.isStreamQuery())
+    {
+      return entities.stream();
+    }
+    else if (queryMethod.isCollectionQuery())
+    {
+      return entities;
+    }
+    else if (entities.size() > 1)
+    {
+      throw new IncorrectResultSizeDataAccessException(1, entities.size());
+    }
+
+    return entities.isEmpty() ? null : entities.get(0);
+  }
+
+  /**
+   * Splits the conditions of the query method into those answered by the
+   * node through the keys derived from indexed properties, and those
+   * checked on the client.
+   *
+   * @param entityInformation Metadata about the entities.
+   * @throws QueryCreationException if the query method has alternative
+   *                                conditions, conditions on nested or
+   *                                unknown properties or of types that are
+   *                                not supported, order conditions on
+   *                                properties that are not
+   *                                {@link Comparable}, or no condition that
+   *                                the node can answer.
+   */
+  private void plan(final MultiChainEntityInformation<?, ?> entityInformation)
+  {
+    final Iterator<PartTree.OrPart> orParts = tree.iterator();
+    final PartTree.OrPart orPart = orParts.hasNext() ? orParts.next() : null;
+
+    if (orPart == null || orParts.hasNext())
+    {
+      throw QueryCreationException.create(queryMethod, "Queries must have conditions, none of which may be alternatives.");
+    }
+
+    int parameter = 0;
+    for (final Part part : orPart)
+    {
+      final MultiChainPersistentProperty property = part.getProperty().hasNext()
+                                                    ? null
+                                                    : entityInformation.getPersistentProperty(part.getProperty().getSegment());
+
+      if (property == null)
+      {
+        throw QueryCreationException.create(queryMethod, String.format("Conditions on nested property %s are not supported."
+            , part.getProperty().toDotPath()));
+      }
+      else if (!FILTERED.contains(part.getType()))
+      {
+        throw QueryCreationException.create(queryMethod, String.format("Conditions of type %s are not supported.", part.getType()));
+      }
+
+      else if (COMPARED.contains(part.getType())
+          && !Comparable.class.isAssignableFrom(ClassUtils.resolvePrimitiveIfNecessary(property.getType())))
+      {
+        throw QueryCreationException.create(queryMethod, String.format("Property %s is not comparable, so cannot be ordered."
+            , property.getName()));
+      }
+
+      final boolean ignoreCase = part.shouldIgnoreCase() != Part.IgnoreCaseType.NEVER && property.getType() == String.class;
+      if (part.shouldIgnoreCase() == Part.IgnoreCaseType.ALWAYS && !ignoreCase)
+      {
+        throw QueryCreationException.create(queryMethod, String.format("Property %s is not a string, so case cannot be ignored."
+            , property.getName()));
+      }
+
+      final Condition condition = new Condition(property, part.getType(), ignoreCase, parameter);
+
+      // Keys are case sensitive, so only exact equality is answered by the
+      // node.
+      if (property.isIndexed() && part.getType() == Part.Type.SIMPLE_PROPERTY && !ignoreCase)
+      {
+        indexed.add(condition);
+      }
+      else
+      {
+        filtered.add(condition);
+      }
+
+      parameter += part.getNumberOfArguments();
+    }
+
+    if (indexed.isEmpty())
+    {
+      throw QueryCreationException.create(queryMethod, String.format("Queries must compare at least one indexed property of %s with an argument."
+          , entityInformation.getJavaType().getName()));
+    }
+  }
+
+  /**
+   * A condition on a property of the entities, comparing its value with an
+   * argument of the query method, if any.
+   */
+  private static final class Condition
+  {
+    private final boolean                      ignoreCase;
+    private final int                          parameter;
+    private final MultiChainPersistentProperty property;
+    private final Part.Type                    type;
+
+    /**
+     * Creates a condition.
+     *
+     * @param property   The property.
+     * @param type       The type of condition.
+     * @param ignoreCase Whether strings are compared regardless of case.
+     * @param parameter  The index of the argument of the query method that
+     *                   the property is compared with.
+     */
+    Condition(final MultiChainPersistentProperty property, final Part.Type type, final boolean ignoreCase, final int parameter)
+    {
+      this.ignoreCase = ignoreCase;
+      this.parameter = parameter;
+      this.property = property;
+      this.type = type;
+    }
+
+    /**
+     * Checks whether an entity meets this condition.
+     *
+     * @param entity     The entity.
+     * @param parameters The arguments of the query method.
+     * @return {@literal true} if the entity meets the condition.
+     */
+    boolean matches(final Object entity, final Object[] parameters)
+    {
+      final Object value = property.getValue(entity);
+
+      switch (type)
+      {
+        case IS_NULL:
+          return value == null;
+
+        case IS_NOT_NULL:
+          return value != null;
+
+        case TRUE:
+          return Boolean.TRUE.equals(value);
+
+        case FALSE:
+          return Boolean.FALSE.equals(value);
+
+        case SIMPLE_PROPERTY:
+          return equal(value, parameters[parameter]);
+
+        case NEGATING_SIMPLE_PROPERTY:
+          return !equal(value, parameters[parameter]);
+
+        default:
+          return compare(value, parameters[parameter]);
+      }
+    }
+
+    /**
+     * Orders the value of the property with respect to the argument.
+     *
+     * @param value    The value of the property.
+     * @param argument The argument.
+     * @return {@literal true} if both are present and in the order required
+     * by this condition; {@literal false} if either is {@code NaN}.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean compare(final Object value, final Object argument)
+    {
+      if (value == null || argument == null || isNaN(value) || isNaN(argument))
+      {
+        return false;
+      }
+
+      final int order = value instanceof Number && argument instanceof Number && value.getClass() != argument.getClass()
+                        ? compareNumbers((Number) value, (Number) argument)
+                        : ((Comparable<Object>) value).compareTo(argument);
+
+      switch (type)
+      {
+        case GREATER_THAN:
+          return order > 0;
+
+        case GREATER_THAN_EQUAL:
+          return order >= 0;
+
+        case LESS_THAN:
+          return order < 0;
+
+        default:
+          return order <= 0;
+      }
+    }
+
+    /**
+     * Checks whether the value of the property equals the argument.
+     *
+     * @param value    The value of the property.
+     * @param argument The argument.
+     * @return {@literal true} if both are equal, regardless of case if this
+     * condition ignores case, and regardless of type if both are numbers.
+     */
+    private boolean equal(final Object value, final Object argument)
+    {
+      if (value == null || argument == null)
+      {
+        return value == argument;
+      }
+      else if (isNaN(value) || isNaN(argument))
+      {
+        return false;
+      }
+      else if (ignoreCase)
+      {
+        return value.toString().equalsIgnoreCase(argument.toString());
+      }
+      // Numbers of different types, such as an int argument for a long
+      // property, are compared by their values, as they are by the keys of
+      // indexed properties.
+      else if (value instanceof Number && argument instanceof Number && value.getClass() != argument.getClass())
+      {
+        return compareNumbers((Number) value, (Number) argument) == 0;
+      }
+
+      return value.equals(argument);
+    }
+
+    /**
+     * Compares numbers of different types by their values: exactly if both
+     * are finite, and as doubles otherwise, since infinities have no
+     * {@link BigDecimal} form.
+     *
+     * @param value    A number, which is not {@code NaN}.
+     * @param argument A number, which is not {@code NaN}.
+     * @return A negative number, zero or a positive number as {@code value}
+     * is less than, equal to or greater than {@code argument}.
+     */
+    private static int compareNumbers(final Number value, final Number argument)
+    {
+      return isInfinite(value) || isInfinite(argument)
+             ? Double.compare(value.doubleValue(), argument.doubleValue())
+             : new BigDecimal(value.toString()).compareTo(new BigDecimal(argument.toString()));
+    }
+
+    /**
+     * Checks whether a value is an infinite floating-point number.
+     *
+     * @param value The value.
+     * @return {@literal true} if {@code value} is an infinite {@link Double}
+     * or {@link Float}.
+     */
+    private static boolean isInfinite(final Object value)
+    {
+      return value instanceof Double && ((Double) value).isInfinite()
+             || value instanceof Float && ((Float) value).isInfinite();
+    }
+
+    /**
+     * Checks whether a value is a floating-point number that is not a
+     * number, which is neither equal to nor ordered with any value.
+     *
+     * @param value The value.
+     * @return {@literal true} if {@code value} is a {@link Double} or
+     * {@link Float} {@code NaN}.
+     */
+    private static boolean isNaN(final Object value)
+    {
+      return value instanceof Double && ((Double) value).isNaN()
+             || value instanceof Float && ((Float) value).isNaN();
+    }
+  }
+}
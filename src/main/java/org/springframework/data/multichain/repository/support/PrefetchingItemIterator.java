@@ -0,0 +1,151 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.repository.support;
+
+import org.springframework.data.multichain.server.Deadline;
+import org.springframework.data.multichain.server.command.ListStreamItemsResult;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static org.springframework.util.Assert.isTrue;
+import static org.springframework.util.Assert.notNull;
+
+/**
+ * Iterates over the entities in a data stream a page of items at a time,
+ * fetching the next page in the background, on an {@link IoExecutor}, while
+ * the entities of the current page are consumed. Only the current page and the next one are
+ * held at any time, so that data streams of any length can be iterated
+ * over in constant memory. Any {@link Deadline} in effect on the consuming
+ * thread when a page is requested applies to fetching that page.
+ *
+ * @param <T> The type of entities.
+ */
+final class PrefetchingItemIterator<T> implements Iterator<T>, AutoCloseable
+{
+  private final Function<List<ListStreamItemsResult>, List<T>>            decoder;
+  private final IoExecutor                                                executor;
+  private final BiFunction<Integer, Integer, List<ListStreamItemsResult>> fetcher;
+  private final int                                                       pageSize;
+
+  private Iterator<T>                                   current = Collections.emptyIterator();
+  private IoExecutor.Task<List<ListStreamItemsResult>> next;
+  private int                                           start;
+
+  /**
+   * Creates an iterator, requesting the first page right away.
+   *
+   * @param fetcher  Fetches the items in a range, given the position of the
+   *                 first item and the maximum number of items.
+   * @param decoder  Converts the items of a page into entities.
+   * @param pageSize The number of items to fetch at a time.
+   * @param executor The executor to fetch pages on.
+   * @throws IllegalArgumentException if {@code fetcher}, {@code decoder} or
+   *                                  {@code executor} is {@literal null},
+   *                                  or if {@code pageSize} is not
+   *                                  positive.
+   */
+  PrefetchingItemIterator(final BiFunction<Integer, Integer, List<ListStreamItemsResult>> fetcher
+      , final Function<List<ListStreamItemsResult>, List<T>> decoder
+      , final int pageSize
+      , final IoExecutor executor)
+  {
+    notNull(fetcher, "Fetcher must not be null.");
+    notNull(decoder, "Decoder must not be null.");
+    isTrue(pageSize > 0, "Page size must be positive.");
+    notNull(executor, "Executor must not be null.");
+
+    this.decoder = decoder;
+    this.executor = executor;
+    this.fetcher = fetcher;
+    this.pageSize = pageSize;
+
+    this.next = fetch(0);
+  }
+
+  /**
+   * Stops fetching pages, abandoning the page being fetched, if any.
+   */
+  @Override
+  public void close()
+  {
+    if (next != null)
+    {
+      next.cancel();
+      next = null;
+    }
+
+    current = Collections.emptyIterator();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean hasNext()
+  {
+    while (!current.hasNext())
+    {
+      if (next == null)
+      {
+        return false;
+      }
+
+      final List<ListStreamItemsResult> items = next.join();
+
+      // A short page is the last one; otherwise, fetch the next page while
+      // this one is decoded and consumed.
+      start += items.size();
+      next = items.size() == pageSize ? fetch(start) : null;
+
+      // Replacing the current page releases the previous one.
+      current = decoder.apply(items).iterator();
+    }
+
+    return true;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public T next()
+  {
+    if (!hasNext())
+    {
+      throw new NoSuchElementException();
+    }
+
+    return current.next();
+  }
+
+  /**
+   * Starts fetching a page in the background. The page is fetched by the
+   * consumer instead if no thread has started fetching it by the time it
+   * is needed.
+   *
+   * @param from The position of the first item in the page.
+   * @return The page being fetched.
+   */
+  private IoExecutor.Task<List<ListStreamItemsResult>> fetch(final int from)
+  {
+    return executor.fork(() -> fetcher.apply(from, pageSize));
+  }
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.repository.support;
+
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.data.multichain.server.Deadline;
+import org.springframework.data.multichain.server.command.ListStreamItemsResult;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.springframework.util.Assert.isTrue;
+import static org.springframework.util.Assert.notNull;
+
+/**
+ * Traverses the entities in a range of the items in a data stream, fetching
+ * the items a page at a time. Splitting hands the first half of the
+ * remaining range to a new spliterator, so that a parallel stream fetches
+ * and decodes disjoint ranges concurrently; the size of each page adapts to
+ * the responses observed by all the spliterators of a scan. The
+ * {@link Deadline} in effect when the scan was started, if any, applies to
+ * fetching and decoding every page, whichever thread does so.
+ * <p>
+ * Pages are fetched by the threads that consume the stream, which are
+ * usually those of a {@link ForkJoinPool}. Each fetch blocks on a round
+ * trip to the node, so it is run as a {@link ForkJoinPool.ManagedBlocker},
+ * allowing the pool to start spare threads while its threads are blocked
+ * rather than leaving the rest of its tasks, the common pool's included,
+ * waiting for the node.
+ * </p>
+ *
+ * @param <T> The type of entities.
+ */
+final class RangeItemSpliterator<T> implements Spliterator<T>
+{
+  private final Deadline                                                  deadline;
+  private final Function<List<ListStreamItemsResult>, List<T>>            decoder;
+  private final BiFunction<Integer, Integer, List<ListStreamItemsResult>> fetcher;
+  private final AdaptivePageSize                                          pageSize;
+  private final int                                                       to;
+
+  private Iterator<T> current = Collections.emptyIterator();
+  private int         from;
+
+  /**
+   * Creates a spliterator over a range of items.
+   *
+   * @param fetcher  Fetches the items in a range, given the position of the
+   *                 first item and the maximum number of items.
+   * @param decoder  Converts the items of a page into entities.
+   * @param pageSize The number of items to fetch at a time.
+   * @param from     The position of the first item in the range.
+   * @param to       The position after the last item in the range.
+   * @param deadline The deadline for fetching pages, or {@literal null}.
+   * @throws IllegalArgumentException if {@code fetcher}, {@code decoder} or
+   *                                  {@code pageSize} is {@literal null},
+   *                                  or if the range is invalid.
+   */
+  RangeItemSpliterator(final BiFunction<Integer, Integer, List<ListStreamItemsResult>> fetcher
+      , final Function<List<ListStreamItemsResult>, List<T>> decoder
+      , final AdaptivePageSize pageSize
+      , final int from
+      , final int to
+      , final Deadline deadline)
+  {
+    notNull(fetcher, "Fetcher must not be null.");
+    notNull(decoder, "Decoder must not be null.");
+    notNull(pageSize, "Page size must not be null.");
+    isTrue(0 <= from && from <= to, String.format("Range from %d to %d is invalid.", from, to));
+
+    this.deadline = deadline;
+    this.decoder = decoder;
+    this.fetcher = fetcher;
+    this.from = from;
+    this.pageSize = pageSize;
+    this.to = to;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int characteristics()
+  {
+    return ORDERED;
+  }
+
+  /**
+   * Estimates the number of entities left as the number of items left,
+   * which also counts the chunks of entities.
+   *
+   * @return The number of items left in the range.
+   */
+  @Override
+  public long estimateSize()
+  {
+    return to - from;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean tryAdvance(final Consumer<? super T> action)
+  {
+    notNull(action, "Action must not be null.");
+
+    while (!current.hasNext())
+    {
+      if (from >= to)
+      {
+        return false;
+      }
+
+      final List<ListStreamItemsResult> items = fetch(from, Math.min(to - from, pageSize.get()));
+
+      // Items are never removed from a stream, so an empty page can only
+      // mean that the node has not caught up with the expected range.
+      if (items.isEmpty())
+      {
+        from = to;
+
+        return false;
+      }
+
+      from += items.size();
+      current = run(() -> decoder.apply(items)).iterator();
+    }
+
+    action.accept(current.next());
+
+    return true;
+  }
+
+  /**
+   * Splits off the first half of the remaining range, unless the range is
+   * too small to be worth splitting or a page has been fetched but not
+   * consumed yet.
+   *
+   * @return A spliterator over the first half of the remaining range, or
+   * {@literal null} if the range cannot be split.
+   */
+  @Override
+  public Spliterator<T> trySplit()
+  {
+    final int remaining = to - from;
+
+    if (current.hasNext() || remaining < 2 * pageSize.get())
+    {
+      return null;
+    }
+
+    final int middle = from + remaining / 2;
+    final Spliterator<T> prefix = new RangeItemSpliterator<>(fetcher, decoder, pageSize, from, middle, deadline);
+
+    from = middle;
+
+    return prefix;
+  }
+
+  /**
+   * Fetches a page of items, timing the response to adapt the page size.
+   *
+   * @param start The position of the first item.
+   * @param count The maximum number of items.
+   * @return The items.
+   */
+  private List<ListStreamItemsResult> fetch(final int start, final int count)
+  {
+    final long started = System.nanoTime();
+
+    final List<ListStreamItemsResult> items = run(() -> block(() -> fetcher.apply(start, count)));
+
+    pageSize.record(items, System.nanoTime() - started);
+
+    return items;
+  }
+
+  /**
+   * Runs an action within the deadline for the scan, if any.
+   *
+   * @param action The action.
+   * @param <R>    The type of result of the action.
+   * @return The result of the action.
+   */
+  private <R> R run(final Supplier<R> action)
+  {
+    return deadline != null ? deadline.run(action) : action.get();
+  }
+
+  /**
+   * Runs a blocking action, letting the {@link ForkJoinPool} of the current
+   * thread, if any, compensate for the blocked thread.
+   *
+   * @param action The action.
+   * @param <R>    The type of result of the action.
+   * @return The result of the action.
+   * @throws DataRetrievalFailureException if the thread is interrupted
+   *                                       before the action has run.
+   */
+  private static <R> R block(final Supplier<R> action)
+  {
+    final Blocker<R> blocker = new Blocker<>(action);
+
+    try
+    {
+      ForkJoinPool.managedBlock(blocker);
+    }
+    catch (final InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+
+      throw new DataRetrievalFailureException("Interrupted while fetching items.", e);
+    }
+
+    return blocker.result;
+  }
+
+  /**
+   * Runs a blocking action once, as a {@link ForkJoinPool.ManagedBlocker}.
+   *
+   * @param <R> The type of result of the action.
+   */
+  private static final class Blocker<R> implements ForkJoinPool.ManagedBlocker
+  {
+    private final Supplier<R> action;
+
+    private boolean done;
+    private R       result;
+
+    /**
+     * Creates a blocker for an action.
+     *
+     * @param action The action.
+     */
+    private Blocker(final Supplier<R> action)
+    {
+      this.action = action;
+    }
+
+    /**
+     * Runs the action.
+     *
+     * @return {@literal true}, as no further blocking is needed.
+     */
+    @Override
+    public boolean block()
+    {
+      result = action.get();
+      done = true;
+
+      return true;
+    }
+
+    /**
+     * Tells whether the action has run.
+     *
+     * @return {@literal true} if the action has run, {@literal false}
+     * otherwise.
+     */
+    @Override
+    public boolean isReleasable()
+    {
+      return done;
+    }
+  }
+}
@@ -15,23 +15,57 @@
  */
 package org.springframework.data.multichain.repository.support;
 
-import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
 import org.springframework.dao.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.multichain.annotation.StreamItemFormat;
+import org.springframework.data.multichain.mapping.MultiChainPersistentProperty;
+import org.springframework.data.multichain.repository.CheckpointStore;
 import org.springframework.data.multichain.repository.MultiChainRepository;
+import org.springframework.data.multichain.repository.StreamListener;
+import org.springframework.data.multichain.repository.StreamSubscription;
+import org.springframework.data.multichain.serializer.CompressionCodec;
+import org.springframework.data.multichain.serializer.EntitySerializer;
+import org.springframework.data.multichain.serializer.EntitySerializers;
+import org.springframework.data.multichain.serializer.GsonEntitySerializer;
+import org.springframework.data.multichain.server.Deadline;
 import org.springframework.data.multichain.server.MultiChainClient;
+import org.springframework.data.multichain.server.command.ListStreamItemsRequest;
+import org.springframework.data.multichain.server.command.ListStreamItemsResponse;
+import org.springframework.data.multichain.server.command.ListStreamItemsResult;
 import org.springframework.data.multichain.server.command.ListStreamKeyItemsRequest;
 import org.springframework.data.multichain.server.command.ListStreamKeyItemsResponse;
+import org.springframework.data.multichain.server.command.ListStreamKeyItemsResult;
+import org.springframework.data.multichain.server.command.ListStreamQueryItemsRequest;
+import org.springframework.data.multichain.server.command.ListStreamQueryItemsResponse;
+import org.springframework.data.multichain.server.command.ListStreamsRequest;
+import org.springframework.data.multichain.server.command.ListStreamsResponse;
+import org.springframework.data.multichain.server.command.ListStreamsResult;
+import org.springframework.data.multichain.server.command.PublishMultiRequest;
 import org.springframework.data.multichain.server.command.PublishRequest;
 import org.springframework.data.multichain.server.command.PublishResponse;
+import org.springframework.data.multichain.server.command.Request;
+import org.springframework.data.multichain.server.command.StreamItemData;
+import org.springframework.data.multichain.server.command.StreamItemResult;
 import org.springframework.util.StringUtils;
 
-import java.math.BigInteger;
-import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static org.springframework.util.Assert.hasText;
+import static org.springframework.util.Assert.isTrue;
+import static org.springframework.util.Assert.notEmpty;
 import static org.springframework.util.Assert.notNull;
 
 /**
@@ -42,9 +76,23 @@ import static org.springframework.util.Assert.notNull;
  */
 public class SimpleMultiChainRepository<T> implements MultiChainRepository<T>
 {
+  /**
+   * The number of items fetched at a time when finding all entities without
+   * paging, or streaming them.
+   */
+  static final int BATCH_SIZE = 1000;
+
+  private final int                                    chunkSize;
+  private final CompressionCodec                       codec;
+  private final int                                    compressionThreshold;
   private final MultiChainEntityInformation<T, String> entityInformation;
+  private final IoExecutor                             executor;
+  private final StreamItemFormat                       itemFormat;
+  private final int                                    maxEntitySize;
   private final MultiChainClient                       multiChainClient;
-  private final Gson                                   serializer;
+  private final boolean                                offchain;
+  private final StreamReplica                          replica;
+  private final EntitySerializer                       serializer;
 
   /**
    * Creates a repository for an entity type using metadata for the type and
@@ -62,58 +110,303 @@ public class SimpleMultiChainRepository<T> implements MultiChainRepository<T>
    */
   public SimpleMultiChainRepository(final MultiChainEntityInformation<T, String> entityInformation
       , final MultiChainClient multiChainClient)
+  {
+    this(entityInformation, multiChainClient, new GsonEntitySerializer());
+  }
+
+  /**
+   * Creates a repository for an entity type using metadata for the type, a
+   * {@link MultiChainClient} to use for interacting with the MultiChain RPC
+   * server that stores entity data and an {@link EntitySerializer} for
+   * converting entities into stream item data.
+   *
+   * @param entityInformation Metadata about the entity type for this
+   *                          repository.
+   * @param multiChainClient  The {@link MultiChainClient} to use for
+   *                          persisting entity instances to the MultiChain
+   *                          RPC server that stores entity data.
+   * @param serializer        The {@link EntitySerializer} to use for
+   *                          writing entities. Entities written in other
+   *                          formats are read with the built-in serializer
+   *                          for their format.
+   * @throws IllegalArgumentException if {@code entityInformation},
+   *                                  {@code multiChainClient} or
+   *                                  {@code serializer} is {@literal null},
+   *                                  or if entities are to be stored as
+   *                                  native JSON and {@code serializer}
+   *                                  does not write JSON.
+   */
+  public SimpleMultiChainRepository(final MultiChainEntityInformation<T, String> entityInformation
+      , final MultiChainClient multiChainClient
+      , final EntitySerializer serializer)
+  {
+    this(entityInformation, multiChainClient, serializer, null);
+  }
+
+  /**
+   * Creates a repository for an entity type using metadata for the type, a
+   * {@link MultiChainClient} to use for interacting with the MultiChain RPC
+   * server that stores entity data, an {@link EntitySerializer} for
+   * converting entities into stream item data and a
+   * {@link CompressionCodec} for compressing that data.
+   *
+   * @param entityInformation Metadata about the entity type for this
+   *                          repository.
+   * @param multiChainClient  The {@link MultiChainClient} to use for
+   *                          persisting entity instances to the MultiChain
+   *                          RPC server that stores entity data.
+   * @param serializer        The {@link EntitySerializer} to use for
+   *                          writing entities. Entities written in other
+   *                          formats are read with the built-in serializer
+   *                          for their format.
+   * @param codec             The {@link CompressionCodec} to compress
+   *                          entities with, from the threshold configured
+   *                          for the entity type, or {@literal null} to
+   *                          store entities uncompressed. Entities
+   *                          compressed by other codecs are decompressed
+   *                          with the built-in codec.
+   * @throws IllegalArgumentException if {@code entityInformation},
+   *                                  {@code multiChainClient} or
+   *                                  {@code serializer} is {@literal null},
+   *                                  if entities are to be stored as native
+   *                                  JSON and {@code serializer} does not
+   *                                  write JSON, or if entities are to be
+   *                                  stored as native JSON and compressed.
+   */
+  public SimpleMultiChainRepository(final MultiChainEntityInformation<T, String> entityInformation
+      , final MultiChainClient multiChainClient
+      , final EntitySerializer serializer
+      , final CompressionCodec codec)
+  {
+    this(entityInformation, multiChainClient, serializer, codec, null);
+  }
+
+  /**
+   * Creates a repository for an entity type using metadata for the type, a
+   * {@link MultiChainClient} to use for interacting with the MultiChain RPC
+   * server that stores entity data, an {@link EntitySerializer} for
+   * converting entities into stream item data, a {@link CompressionCodec}
+   * for compressing that data and a local {@link StreamReplica} of the data
+   * stream to find entities in first.
+   *
+   * @param entityInformation Metadata about the entity type for this
+   *                          repository.
+   * @param multiChainClient  The {@link MultiChainClient} to use for
+   *                          persisting entity instances to the MultiChain
+   *                          RPC server that stores entity data.
+   * @param serializer        The {@link EntitySerializer} to use for
+   *                          writing entities. Entities written in other
+   *                          formats are read with the built-in serializer
+   *                          for their format.
+   * @param codec             The {@link CompressionCodec} to compress
+   *                          entities with, from the threshold configured
+   *                          for the entity type, or {@literal null} to
+   *                          store entities uncompressed. Entities
+   *                          compressed by other codecs are decompressed
+   *                          with the built-in codec.
+   * @param replica           The {@link StreamReplica} of the data stream,
+   *                          or {@literal null} to find all entities on
+   *                          the node. Entities not found in the replica
+   *                          are found on the node.
+   * @throws IllegalArgumentException if {@code entityInformation},
+   *                                  {@code multiChainClient} or
+   *                                  {@code serializer} is {@literal null},
+   *                                  if entities are to be stored as native
+   *                                  JSON and {@code serializer} does not
+   *                                  write JSON, or if entities are to be
+   *                                  stored as native JSON and compressed.
+   */
+  public SimpleMultiChainRepository(final MultiChainEntityInformation<T, String> entityInformation
+      , final MultiChainClient multiChainClient
+      , final EntitySerializer serializer
+      , final CompressionCodec codec
+      , final StreamReplica replica)
+  {
+    this(entityInformation, multiChainClient, serializer, codec, replica, null);
+  }
+
+  /**
+   * Creates a repository for an entity type using metadata for the type, a
+   * {@link MultiChainClient} to use for interacting with the MultiChain RPC
+   * server that stores entity data, an {@link EntitySerializer} for
+   * converting entities into stream item data, a {@link CompressionCodec}
+   * for compressing that data, a local {@link StreamReplica} of the data
+   * stream to find entities in first and an {@link IoExecutor} to fetch the
+   * chunks of entities, decode pages of items and read ahead on.
+   *
+   * @param entityInformation Metadata about the entity type for this
+   *                          repository.
+   * @param multiChainClient  The {@link MultiChainClient} to use for
+   *                          persisting entity instances to the MultiChain
+   *                          RPC server that stores entity data.
+   * @param serializer        The {@link EntitySerializer} to use for
+   *                          writing entities. Entities written in other
+   *                          formats are read with the built-in serializer
+   *                          for their format.
+   * @param codec             The {@link CompressionCodec} to compress
+   *                          entities with, from the threshold configured
+   *                          for the entity type, or {@literal null} to
+   *                          store entities uncompressed. Entities
+   *                          compressed by other codecs are decompressed
+   *                          with the built-in codec.
+   * @param replica           The {@link StreamReplica} of the data stream,
+   *                          or {@literal null} to find all entities on
+   *                          the node. Entities not found in the replica
+   *                          are found on the node.
+   * @param executor          The {@link IoExecutor} to do blocking work on
+   *                          in parallel, or {@literal null} to do all such
+   *                          work on the calling thread.
+   * @throws IllegalArgumentException if {@code entityInformation},
+   *                                  {@code multiChainClient} or
+   *                                  {@code serializer} is {@literal null},
+   *                                  if entities are to be stored as native
+   *                                  JSON and {@code serializer} does not
+   *                                  write JSON, or if entities are to be
+   *                                  stored as native JSON and compressed.
+   */
+  public SimpleMultiChainRepository(final MultiChainEntityInformation<T, String> entityInformation
+      , final MultiChainClient multiChainClient
+      , final EntitySerializer serializer
+      , final CompressionCodec codec
+      , final StreamReplica replica
+      , final IoExecutor executor)
   {
     notNull(entityInformation, "MultiChainEntityInformation must not be null.");
     notNull(multiChainClient, "MultiChainClient must not be null.");
+    notNull(serializer, "EntitySerializer must not be null.");
 
+    this.chunkSize = entityInformation.getChunkSize();
+    this.codec = codec;
+    this.compressionThreshold = entityInformation.getCompressionThreshold();
     this.entityInformation = entityInformation;
+    this.executor = executor != null ? executor : IoExecutor.CALLER_RUNS;
+    this.itemFormat = entityInformation.getItemFormat();
+    this.maxEntitySize = entityInformation.getMaxEntitySize();
     this.multiChainClient = multiChainClient;
-    this.serializer = new Gson();
+    this.offchain = entityInformation.isOffchain();
+    this.replica = replica;
+    this.serializer = serializer;
+
+    isTrue(itemFormat != StreamItemFormat.JSON || writesJson(serializer)
+        , String.format("Entities of %s are stored as JSON, which %s does not write."
+            , entityInformation.getJavaType().getName()
+            , serializer.getClass().getName()));
+    isTrue(itemFormat != StreamItemFormat.JSON || codec == null
+        , String.format("Entities of %s are stored as JSON, which cannot be compressed."
+            , entityInformation.getJavaType().getName()));
   }
 
   /**
    * {@inheritDoc}
    */
   @Override
-  public boolean exists(final String id)
+  public long count()
   {
-    return findOne(id) != null;
+    final ListStreamsResponse response = multiChainClient.invoke(new ListStreamsRequest(getStreamName())
+        , ListStreamsResponse.class);
+
+    // Ensure that no problems were encountered.
+    if (!response.isOk())
+    {
+      throw new DataRetrievalFailureException(response.getError().getMessage());
+    }
+
+    final List<ListStreamsResult> streams = response.getResult();
+
+    // Nodes only count the items in the streams to which they are
+    // subscribed.
+    if (streams == null || streams.size() != 1 || streams.get(0).getItems() == null)
+    {
+      throw new DataRetrievalFailureException(String.format("Items in stream %s are not counted by the node. Make sure that the node is subscribed to the stream."
+          , getStreamName()));
+    }
+
+    return streams.get(0).getItems();
   }
 
   /**
    * {@inheritDoc}
    */
   @Override
-  public T findOne(final String id)
+  public boolean exists(final String id)
   {
-    hasText(id, "Id must not be blank.");
+    checkId(id);
 
-    // Create a request to find entities tagged with the specified identifier.
-    final ListStreamKeyItemsRequest request = new ListStreamKeyItemsRequest(getStreamName(), id.trim());
+    // Off-chain items exist even if their data is not yet available.
+    return !findItems(id).isEmpty();
+  }
 
-    // Attempt to find items with the given identifier.
-    final ListStreamKeyItemsResponse response = multiChainClient.invoke(request, ListStreamKeyItemsResponse.class);
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Page<T> findAll(final Pageable pageable)
+  {
+    notNull(pageable, "Pageable must not be null.");
+    isTrue(pageable.getSort().isUnsorted(), "Entities can only be found in the order in which they were published.");
 
-    // Ensure that no problems were encountered.
-    if (!response.isOk())
+    if (pageable.isUnpaged())
     {
-      throw new DataRetrievalFailureException(response.getError().getMessage());
+      try (final Stream<T> entities = streamAll())
+      {
+        return new PageImpl<>(entities.collect(Collectors.toList()));
+      }
     }
+
+    isTrue(pageable.getOffset() + pageable.getPageSize() <= Integer.MAX_VALUE
+        , String.format("Page offset %d is too large.", pageable.getOffset()));
+
+    final int start = (int) pageable.getOffset();
+    final List<ListStreamItemsResult> items = listItems(start, pageable.getPageSize());
+
+    // A short page is the last one, so the items need counting only if the
+    // page is full, or empty beyond the first.
+    final long total = items.size() < pageable.getPageSize() && (start == 0 || !items.isEmpty())
+        ? start + items.size()
+        : count();
+
+    return new PageImpl<>(readItems(items), pageable, total);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @throws TransientDataAccessResourceException if the entity is stored
+   *                                              off-chain and has not yet
+   *                                              been delivered to the
+   *                                              node.
+   */
+  @Override
+  public T findOne(final String id)
+  {
+    checkId(id);
+
+    final List<ListStreamKeyItemsResult> items = findItems(id);
+
     // Ensure that not more than 1 entity with the specified identifier was
     // found.
-    else if (response.getResult().size() > 1)
+    if (items.size() > 1)
     {
-      throw new IncorrectResultSizeDataAccessException(1, response.getResult().size());
+      throw new IncorrectResultSizeDataAccessException(1, items.size());
     }
     // Ensure that at least 1 entity with the specified identifier was found.
-    else if (response.getResult().isEmpty())
+    else if (items.isEmpty())
     {
       return null;
     }
 
-    // Extract entity data, convert it into JSON and deserialize the
-    // resulting JSON into an entity.
-    return deserialize(response.getResult().iterator().next().getData());
+    final ListStreamKeyItemsResult item = items.get(0);
+
+    // Ensure that the entity data has been delivered, if stored off-chain.
+    if (!item.isAvailable())
+    {
+      throw new TransientDataAccessResourceException(String.format("Id %s for stream %s is stored off-chain and not yet available."
+          , id.trim()
+          , getStreamName()));
+    }
+
+    // Extract entity data and deserialize it into an entity.
+    return deserialize(item.getItemData());
   }
 
   /**
@@ -136,17 +429,36 @@ public class SimpleMultiChainRepository<T> implements MultiChainRepository<T>
       throw new DataIntegrityViolationException("Id not available for the entity. Make sure that the entity has a property annotated with @Id.");
     }
 
+    // Ensure that the identifier cannot be taken for an index or chunk key.
+    final String reservedPrefix = getReservedPrefix(id);
+    if (reservedPrefix != null)
+    {
+      throw new DataIntegrityViolationException(String.format("Id %s starts with %s, which is reserved for item keys."
+          , id
+          , reservedPrefix));
+    }
+
+    // Derive the keys of indexed properties, which must fit in a key.
+    final List<String> indexKeys;
+    try
+    {
+      indexKeys = entityInformation.getIndexKeys(entity);
+    }
+    catch (final IllegalArgumentException e)
+    {
+      throw new DataIntegrityViolationException(e.getMessage(), e);
+    }
+
     // Ensure that the identifier does not exist already.
     if (exists(id))
     {
       throw new DuplicateKeyException(String.format("Id %s already exists for stream %s.", id, getStreamName()));
     }
 
-    // Create a request for persisting the entity.
-    final PublishRequest request = new PublishRequest(getStreamName(), id, serialize(entity));
-
-    // Publish the entity on the blockchain.
-    final PublishResponse response = multiChainClient.invoke(request, PublishResponse.class);
+    // Publish the entity on the blockchain, in chunks if it is too large
+    // for a single item.
+    final PublishResponse response = multiChainClient.invoke(createPublishRequest(id, indexKeys, entity)
+        , PublishResponse.class);
 
     // Ensure that no problems were encountered.
     if (!response.isOk())
@@ -178,28 +490,421 @@ public class SimpleMultiChainRepository<T> implements MultiChainRepository<T>
   }
 
   /**
-   * Deserializes a hexadecimal {@link String} into an entity of the type
-   * managed by this repository.
+   * {@inheritDoc}
+   */
+  @Override
+  public Stream<T> parallelStreamAll()
+  {
+    final int total = (int) Math.min(Integer.MAX_VALUE, count());
+
+    return StreamSupport.stream(new RangeItemSpliterator<>(this::listItems, this::readItems, new AdaptivePageSize(), 0, total
+        , Deadline.current()), true);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int scan(final String name, final CheckpointStore checkpoints, final StreamListener<? super T> listener)
+  {
+    hasText(name, "Name must not be blank.");
+    notNull(checkpoints, "Checkpoint store must not be null.");
+    notNull(listener, "Listener must not be null.");
+
+    int position = checkpoints.load(name);
+    int scanned;
+
+    do
+    {
+      final List<ListStreamItemsResult> items = listItems(position, BATCH_SIZE);
+      final int start = position;
+
+      try
+      {
+        for (final ListStreamItemsResult item : items)
+        {
+          // The positions of unconfirmed items may still change.
+          if (!item.isConfirmed())
+          {
+            break;
+          }
+
+          if (!isChunk(item))
+          {
+            listener.onEntity(readItem(item), position);
+          }
+
+          ++position;
+        }
+      }
+      finally
+      {
+        // Save the position reached once per batch, including the position
+        // of an entity that failed, so that it is scanned again.
+        if (position != start)
+        {
+          checkpoints.save(name, position);
+        }
+      }
+
+      scanned = position - start;
+    }
+    while (scanned == BATCH_SIZE);
+
+    return position;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Stream<T> streamAll()
+  {
+    final PrefetchingItemIterator<T> iterator = new PrefetchingItemIterator<>(this::listItems, this::readItems, BATCH_SIZE, executor);
+
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                        .onClose(iterator::close);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public StreamSubscription tail(final int fromIndex, final StreamListener<? super T> listener)
+  {
+    isTrue(fromIndex >= 0, "Position must not be negative.");
+    notNull(listener, "Listener must not be null.");
+
+    return new TailingSubscription<>(this::listItems
+        , item -> isChunk(item) ? null : readItem(item)
+        , listener
+        , fromIndex
+        , BATCH_SIZE
+        , TailingSubscription.DEFAULT_MINIMUM_INTERVAL
+        , TailingSubscription.DEFAULT_MAXIMUM_INTERVAL
+        , "multichain-tail-" + getStreamName()).start();
+  }
+
+  /**
+   * Deserializes item data into an entity of the type managed by this
+   * repository. Binary data is reassembled from its chunks and decompressed
+   * if necessary, then read using the serializer for the format in which the
+   * entity was written; native JSON and text are read as JSON.
    *
-   * @param hex The hexadecimal {@link String} to convert.
-   * @return An entity if {@code hex} is not blank, is a valid hexadecimal
-   * {@link String}, can be converted into JSON and the JSON is valid for
-   * the type managed by this repository, {@code null} otherwise.
+   * @param data The item data to convert.
+   * @return An entity if {@code data} is not {@literal null} and is valid
+   * for the type managed by this repository, {@code null} if {@code data}
+   * is {@literal null}.
+   * @throws DataRetrievalFailureException if the item data is in an
+   *                                       unsupported form, or if chunks
+   *                                       of the entity are missing or
+   *                                       corrupt.
    */
-  private T deserialize(final String hex)
+  T deserialize(final StreamItemData data)
   {
-    return serializer.fromJson(hexToJson(hex), getEntityClass());
+    if (data == null)
+    {
+      return null;
+    }
+
+    final String hex = data.getHex();
+    if (hex != null)
+    {
+      final byte[] bytes = Hex.decode(hex);
+
+      return EntitySerializers.read(ChunkManifest.isManifest(bytes) ? readChunks(ChunkManifest.read(bytes, maxEntitySize)) : bytes
+          , getEntityClass()
+          , serializer
+          , codec);
+    }
+
+    final JsonElement json = data.getJson();
+    if (json != null)
+    {
+      return readJson(json);
+    }
+
+    final String text = data.getText();
+    if (text != null)
+    {
+      return EntitySerializers.read(text.getBytes(StandardCharsets.UTF_8), getEntityClass(), serializer);
+    }
+
+    throw new DataRetrievalFailureException(String.format("Item data in stream %s is neither binary, JSON nor text."
+        , getStreamName()));
   }
 
   /**
-   * Gets the character set to use for converting entities into
-   * hexadecimal-coded JSON and vice-versa.
+   * Finds the entities published under a key other than their identifier,
+   * such as a key derived from an indexed property, in the order in which
+   * they were published. Items are taken from the replica as far as it
+   * goes, and from the node beyond that, a batch at a time.
    *
-   * @return A {@link Charset}.
+   * @param key The key.
+   * @return The entities, which are empty if none were published under the
+   * key.
+   * @throws DataRetrievalFailureException        if an error occurs while
+   *                                              attempting to find the
+   *                                              entities.
+   * @throws TransientDataAccessResourceException if an entity is stored
+   *                                              off-chain and not yet
+   *                                              available.
    */
-  private Charset getCharset()
+  List<T> findAllByKey(final String key)
   {
-    return Charset.forName("UTF-8");
+    hasText(key, "Key must not be blank.");
+
+    // The replica holds the confirmed items at the start of the data stream,
+    // and so the first of the items tagged with the key, which need not be
+    // fetched from the node.
+    final List<ListStreamKeyItemsResult> items = new ArrayList<>(replica != null
+                                                                 ? replica.find(key.trim())
+                                                                 : Collections.emptyList());
+
+    List<ListStreamKeyItemsResult> batch;
+    do
+    {
+      batch = listNodeKeyItems(key.trim(), items.size(), BATCH_SIZE);
+      items.addAll(batch);
+    }
+    while (batch.size() == BATCH_SIZE);
+
+    return readAvailableItems(items);
+  }
+
+  /**
+   * Finds the entities published under all of a set of keys other than
+   * their identifiers, in the order in which they were published. A single
+   * key is looked up as by {@link #findAllByKey(String)}; several keys are
+   * looked up with a single {@code liststreamqueryitems} call, so that the
+   * node intersects its indexes of the keys.
+   *
+   * @param keys The keys; must not be empty.
+   * @return The entities, which are empty if none were published under all
+   * the keys.
+   * @throws DataRetrievalFailureException        if an error occurs while
+   *                                              attempting to find the
+   *                                              entities, such as the
+   *                                              node having to scan too
+   *                                              many items.
+   * @throws TransientDataAccessResourceException if an entity is stored
+   *                                              off-chain and not yet
+   *                                              available.
+   */
+  List<T> findAllByKeys(final List<String> keys)
+  {
+    notEmpty(keys, "Keys must not be empty.");
+
+    if (keys.size() == 1)
+    {
+      return findAllByKey(keys.get(0));
+    }
+
+    final ListStreamQueryItemsResponse response = multiChainClient.invoke(new ListStreamQueryItemsRequest(getStreamName(), keys)
+        , ListStreamQueryItemsResponse.class);
+
+    // Ensure that no problems were encountered.
+    if (!response.isOk())
+    {
+      throw new DataRetrievalFailureException(response.getError().getMessage());
+    }
+
+    return readAvailableItems(response.getResult() != null ? response.getResult() : Collections.emptyList());
+  }
+
+  /**
+   * Checks that an identifier is not blank, and cannot be taken for the key
+   * of an index or a chunk.
+   *
+   * @param id The identifier.
+   * @throws IllegalArgumentException if {@code id} is blank or starts with
+   *                                  a reserved prefix.
+   */
+  private static void checkId(final String id)
+  {
+    hasText(id, "Id must not be blank.");
+
+    final String reservedPrefix = getReservedPrefix(id);
+    isTrue(reservedPrefix == null, String.format("Id must not start with %s.", reservedPrefix));
+  }
+
+  /**
+   * Creates a request for publishing an entity: a single item if the entity
+   * fits in one, or a manifest and the chunks of the entity published in a
+   * single transaction otherwise. The item, or the manifest, is tagged with
+   * the identifier of the entity and the keys derived from its indexed
+   * properties.
+   *
+   * @param id        The identifier of the entity.
+   * @param indexKeys The keys derived from the indexed properties of the
+   *                  entity.
+   * @param entity    The entity.
+   * @return A {@link PublishRequest} or a {@link PublishMultiRequest}.
+   */
+  private Request<?> createPublishRequest(final String id, final List<String> indexKeys, final T entity)
+  {
+    final List<String> keys;
+    if (indexKeys.isEmpty())
+    {
+      keys = Collections.singletonList(id);
+    }
+    else
+    {
+      keys = new ArrayList<>(indexKeys.size() + 1);
+      keys.add(id);
+      keys.addAll(indexKeys);
+    }
+
+    if (itemFormat != StreamItemFormat.BINARY)
+    {
+      return new PublishRequest(getStreamName(), keys, serialize(entity), offchain);
+    }
+
+    final byte[] data = write(entity);
+
+    // Entities too large to be read back are not published.
+    if (data.length > maxEntitySize)
+    {
+      throw new DataIntegrityViolationException(String.format("Entity of %d bytes exceeds the maximum entity size of %d bytes for stream %s."
+          , data.length
+          , maxEntitySize
+          , getStreamName()));
+    }
+
+    if (chunkSize == 0 || data.length <= chunkSize)
+    {
+      return new PublishRequest(getStreamName(), keys, StreamItemData.hex(Hex.encode(data)), offchain);
+    }
+
+    final ChunkManifest manifest = ChunkManifest.create(data, chunkSize);
+
+    final List<PublishMultiRequest.Item> items = new ArrayList<>(manifest.getChunkCount() + 1);
+    items.add(new PublishMultiRequest.Item(keys, StreamItemData.hex(Hex.encode(manifest.toBytes()))));
+
+    for (int i = 0; i < manifest.getChunkCount(); ++i)
+    {
+      items.add(new PublishMultiRequest.Item(manifest.getChunkKey(i)
+          , StreamItemData.hex(Hex.encode(data, manifest.getChunkOffset(i), manifest.getChunkLength(i)))));
+    }
+
+    return new PublishMultiRequest(getStreamName(), items, offchain);
+  }
+
+  /**
+   * Finds the items for an identifier.
+   *
+   * @param id The identifier.
+   * @return The items tagged with the identifier, which may not all be
+   * available.
+   */
+  private List<ListStreamKeyItemsResult> findItems(final String id)
+  {
+    hasText(id, "Id must not be blank.");
+
+    // Items are never removed from a stream, so items found in the replica
+    // need not be looked for on the node.
+    if (replica != null)
+    {
+      final List<ListStreamKeyItemsResult> items = replica.find(id.trim());
+
+      if (!items.isEmpty())
+      {
+        return items;
+      }
+    }
+
+    // Create a request to find entities tagged with the specified identifier.
+    final ListStreamKeyItemsRequest request = new ListStreamKeyItemsRequest(getStreamName(), id.trim());
+
+    // Attempt to find items with the given identifier.
+    final ListStreamKeyItemsResponse response = multiChainClient.invoke(request, ListStreamKeyItemsResponse.class);
+
+    // Ensure that no problems were encountered.
+    if (!response.isOk())
+    {
+      throw new DataRetrievalFailureException(response.getError().getMessage());
+    }
+
+    return response.getResult();
+  }
+
+  /**
+   * Lists a range of the items in the data stream, from the replica as far
+   * as it goes and from the node beyond that.
+   *
+   * @param start The position of the first item.
+   * @param count The maximum number of items.
+   * @return The items in the range, which may not all be available.
+   */
+  private List<ListStreamItemsResult> listItems(final int start, final int count)
+  {
+    if (replica == null)
+    {
+      return listNodeItems(start, count);
+    }
+
+    // Only the items that have not been replicated yet are fetched from the
+    // node.
+    final List<ListStreamItemsResult> items = replica.list(start, count);
+
+    if (items.size() == count)
+    {
+      return items;
+    }
+    else if (items.isEmpty())
+    {
+      return listNodeItems(start, count);
+    }
+
+    final List<ListStreamItemsResult> result = new ArrayList<>(items);
+    result.addAll(listNodeItems(start + items.size(), count - items.size()));
+
+    return result;
+  }
+
+  /**
+   * Lists a range of the items in the data stream on the node.
+   *
+   * @param start The position of the first item.
+   * @param count The maximum number of items.
+   * @return The items in the range, which may not all be available.
+   */
+  private List<ListStreamItemsResult> listNodeItems(final int start, final int count)
+  {
+    final ListStreamItemsResponse response = multiChainClient.invoke(new ListStreamItemsRequest(getStreamName(), start, count)
+        , ListStreamItemsResponse.class);
+
+    // Ensure that no problems were encountered.
+    if (!response.isOk())
+    {
+      throw new DataRetrievalFailureException(response.getError().getMessage());
+    }
+
+    return response.getResult() != null ? response.getResult() : Collections.emptyList();
+  }
+
+  /**
+   * Lists a range of the items in the data stream tagged with a key, on the
+   * node.
+   *
+   * @param key   The key.
+   * @param start The position of the first item among those tagged with the
+   *              key.
+   * @param count The maximum number of items.
+   * @return The items in the range, which may not all be available.
+   */
+  private List<ListStreamKeyItemsResult> listNodeKeyItems(final String key, final int start, final int count)
+  {
+    final ListStreamKeyItemsResponse response = multiChainClient.invoke(new ListStreamKeyItemsRequest(getStreamName(), key, start, count)
+        , ListStreamKeyItemsResponse.class);
+
+    // Ensure that no problems were encountered.
+    if (!response.isOk())
+    {
+      throw new DataRetrievalFailureException(response.getError().getMessage());
+    }
+
+    return response.getResult() != null ? response.getResult() : Collections.emptyList();
   }
 
   /**
@@ -225,43 +930,250 @@ public class SimpleMultiChainRepository<T> implements MultiChainRepository<T>
   }
 
   /**
-   * Converts a hexadecimal {@link String} into JSON.
+   * Gets the prefix reserved for item keys that an identifier starts with,
+   * if any: {@code index:} for the keys of indexed properties, and
+   * {@code chunk:} for the keys of chunks.
+   *
+   * @param id The identifier.
+   * @return The reserved prefix, or {@literal null} if {@code id} starts
+   * with neither.
+   */
+  private static String getReservedPrefix(final String id)
+  {
+    final String trimmed = id.trim();
+
+    if (trimmed.startsWith(MultiChainPersistentProperty.INDEX_KEY_PREFIX))
+    {
+      return MultiChainPersistentProperty.INDEX_KEY_PREFIX;
+    }
+    else if (trimmed.startsWith(ChunkManifest.CHUNK_KEY_PREFIX))
+    {
+      return ChunkManifest.CHUNK_KEY_PREFIX;
+    }
+
+    return null;
+  }
+
+  /**
+   * Checks whether an item is a chunk of an entity, which is read through
+   * the manifest of the entity.
    *
-   * @param hex The hexadecimal {@link String} to convert.
-   * @return A JSON {@link String} if {@code hex} is not blank, is a valid
-   * hexadecimal {@link String} and can be converted into JSON,
-   * {@literal null} otherwise.
+   * @param item The item.
+   * @return {@literal true} if the item is a chunk.
    */
-  private String hexToJson(final String hex)
+  private static boolean isChunk(final ListStreamItemsResult item)
   {
-    return hex != null
-           ? new String(new BigInteger(hex, 16).toByteArray(), getCharset())
-           : null;
+    return item.getKeys().stream().anyMatch(ChunkManifest::isChunkKey);
   }
 
   /**
-   * Converts a JSON {@link String} into a hexadecimal {@link String}.
+   * Deserializes an item into an entity.
    *
-   * @param json The JSON {@link String} to convert.
-   * @return A hexadecimal {@link String} if {@code json} is not blank,
-   * {@literal null} otherwise.
+   * @param item The item.
+   * @return The entity.
+   * @throws TransientDataAccessResourceException if the item is stored
+   *                                              off-chain and not yet
+   *                                              available.
    */
-  private String jsonToHex(final String json)
+  private T readItem(final ListStreamItemsResult item)
   {
-    return json != null
-           ? new BigInteger(1, json.getBytes(getCharset())).toString(16)
-           : null;
+    if (!item.isAvailable())
+    {
+      throw new TransientDataAccessResourceException(String.format("Item %s for stream %s is stored off-chain and not yet available."
+          , item.getID()
+          , getStreamName()));
+    }
+
+    return deserialize(item.getItemData());
   }
 
   /**
-   * Serializes an entity into a hexadecimal version of its JSON
-   * representation.
+   * Deserializes items found by key into entities.
+   *
+   * @param items The items.
+   * @return The entities, in the order of their items.
+   * @throws TransientDataAccessResourceException if an item is stored
+   *                                              off-chain and not yet
+   *                                              available.
+   */
+  private List<T> readAvailableItems(final List<? extends StreamItemResult> items)
+  {
+    final List<T> entities = new ArrayList<>(items.size());
+    for (final StreamItemResult item : items)
+    {
+      // Ensure that the entity data has been delivered, if stored off-chain.
+      if (!item.isAvailable())
+      {
+        throw new TransientDataAccessResourceException(String.format("Item %s for stream %s is stored off-chain and not yet available."
+            , item.getID()
+            , getStreamName()));
+      }
+
+      entities.add(deserialize(item.getItemData()));
+    }
+
+    return entities;
+  }
+
+  /**
+   * Deserializes items into entities in parallel, on the {@link IoExecutor}
+   * of this repository, skipping the chunks of entities, which are fetched
+   * again for their manifests. Any {@link Deadline} in effect applies to
+   * deserializing every item.
+   *
+   * @param items The items.
+   * @return The entities, in the order of their items.
+   */
+  @SuppressWarnings("unchecked")
+  private List<T> readItems(final List<ListStreamItemsResult> items)
+  {
+    final List<ListStreamItemsResult> entityItems = items.stream()
+                                                         .filter(item -> !isChunk(item))
+                                                         .collect(Collectors.toList());
+
+    final Object[] entities = new Object[entityItems.size()];
+
+    executor.runAll(entities.length, i -> entities[i] = readItem(entityItems.get(i)));
+
+    return (List<T>) Arrays.asList(entities);
+  }
+
+  /**
+   * Converts native JSON item data into an entity, without going through
+   * JSON text if the serializer for this repository is based on Gson.
+   *
+   * @param json The JSON data.
+   * @return The entity.
+   */
+  private T readJson(final JsonElement json)
+  {
+    if (serializer instanceof GsonEntitySerializer)
+    {
+      return ((GsonEntitySerializer) serializer).deserialize(json, getEntityClass());
+    }
+    else if (serializer.getFormat() == EntitySerializers.JACKSON_JSON)
+    {
+      final byte[] bytes = json.toString().getBytes(StandardCharsets.UTF_8);
+
+      return serializer.deserialize(bytes, 0, bytes.length, getEntityClass());
+    }
+
+    return ((GsonEntitySerializer) EntitySerializers.getSerializer(EntitySerializers.GSON)).deserialize(json, getEntityClass());
+  }
+
+  /**
+   * Serializes an entity into item data, in the form configured for the
+   * entity type, compressing binary data if it reaches the compression
+   * threshold.
    *
    * @param entity The entity to serialize.
-   * @return Hexadecimal version of the JSON representation of the entity.
+   * @return The item data.
+   */
+  StreamItemData serialize(final T entity)
+  {
+    if (itemFormat == StreamItemFormat.BINARY)
+    {
+      return StreamItemData.hex(Hex.encode(write(entity)));
+    }
+    else if (serializer instanceof GsonEntitySerializer)
+    {
+      return StreamItemData.json(((GsonEntitySerializer) serializer).serializeToTree(entity));
+    }
+
+    return StreamItemData.json(new JsonParser().parse(new String(serializer.serialize(entity), StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * Fetches the chunks of an entity in parallel, on the {@link IoExecutor}
+   * of this repository, writing each one into place in the entity data as
+   * it arrives. Any {@link Deadline} in effect
+   * applies to fetching every chunk.
+   *
+   * @param manifest The manifest describing the chunks.
+   * @return The entity data.
+   * @throws DataRetrievalFailureException        if a chunk is missing, or
+   *                                              the reassembled data does
+   *                                              not match the manifest.
+   * @throws TransientDataAccessResourceException if a chunk is stored
+   *                                              off-chain and not yet
+   *                                              available.
+   */
+  private byte[] readChunks(final ChunkManifest manifest)
+  {
+    final byte[] data = new byte[manifest.getLength()];
+
+    executor.runAll(manifest.getChunkCount(), i -> readChunk(manifest, i, data));
+
+    if (!manifest.matches(data))
+    {
+      throw new DataRetrievalFailureException(String.format("Chunks in stream %s do not match their manifest."
+          , getStreamName()));
+    }
+
+    return data;
+  }
+
+  /**
+   * Fetches a chunk of an entity and writes it into place in the entity
+   * data.
+   *
+   * @param manifest The manifest describing the chunks.
+   * @param index    The index of the chunk.
+   * @param data     The entity data.
+   * @return The number of bytes written.
+   */
+  private int readChunk(final ChunkManifest manifest, final int index, final byte[] data)
+  {
+    final String key = manifest.getChunkKey(index);
+    final List<ListStreamKeyItemsResult> items = findItems(key);
+
+    if (items.size() != 1)
+    {
+      throw new DataRetrievalFailureException(String.format("Found %d items instead of 1 for chunk %s in stream %s."
+          , items.size()
+          , key
+          , getStreamName()));
+    }
+    else if (!items.get(0).isAvailable())
+    {
+      throw new TransientDataAccessResourceException(String.format("Chunk %s for stream %s is stored off-chain and not yet available."
+          , key
+          , getStreamName()));
+    }
+
+    final String hex = items.get(0).getData();
+
+    if (hex == null || hex.length() != 2 * manifest.getChunkLength(index))
+    {
+      throw new DataRetrievalFailureException(String.format("Chunk %s in stream %s does not have the expected length of %d bytes."
+          , key
+          , getStreamName()
+          , manifest.getChunkLength(index)));
+    }
+
+    return Hex.decode(hex, data, manifest.getChunkOffset(index));
+  }
+
+  /**
+   * Converts an entity into binary item data, compressed if configured.
+   *
+   * @param entity The entity.
+   * @return The item data.
+   */
+  private byte[] write(final T entity)
+  {
+    return EntitySerializers.write(entity, serializer, codec, compressionThreshold);
+  }
+
+  /**
+   * Checks whether a serializer writes JSON, which can be stored as native
+   * JSON.
+   *
+   * @param serializer The serializer.
+   * @return {@literal true} if the serializer writes JSON.
    */
-  private String serialize(final T entity)
+  private static boolean writesJson(final EntitySerializer serializer)
   {
-    return jsonToHex(serializer.toJson(entity));
+    return serializer instanceof GsonEntitySerializer || serializer.getFormat() == EntitySerializers.JACKSON_JSON;
   }
 }
@@ -0,0 +1,915 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.repository.support;
+
+import com.google.gson.JsonParser;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.data.multichain.server.MultiChainClient;
+import org.springframework.data.multichain.server.command.ListStreamItemsRequest;
+import org.springframework.data.multichain.server.command.ListStreamItemsResponse;
+import org.springframework.data.multichain.server.command.ListStreamItemsResult;
+import org.springframework.data.multichain.server.command.ListStreamKeyItemsResult;
+import org.springframework.data.multichain.server.command.StreamItemData;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static org.springframework.util.Assert.hasText;
+import static org.springframework.util.Assert.isTrue;
+import static org.springframework.util.Assert.notNull;
+
+/**
+ * <p>
+ * A local copy of the confirmed items of a data stream, held in an
+ * append-only memory-mapped file, so that items can be found without a
+ * round trip to the node. The copy is brought up to date by
+ * {@link #sync() polling} {@code liststreamitems} from the position of the
+ * first item not yet copied, and survives restarts.
+ * </p>
+ * <p>
+ * Items are looked up by key through a hash index, and by position through
+ * a table of record offsets, both held off-heap and rebuilt from the file
+ * when it is opened. Copying stops at the first unconfirmed item, whose
+ * position may still change, and at the first off-chain item whose data is
+ * not yet available, so that the position of every copied item matches its
+ * position on the node and items not yet copied can be fetched from the
+ * node by position.
+ * </p>
+ * <p>
+ * An item too large to fit in a region cannot be copied, and since items
+ * are copied in order, neither can any item after it. The replica is then
+ * {@link #isStalled() stalled}: it stops syncing for good, while the items
+ * copied so far are still found in it and the others on the node.
+ * </p>
+ * <p>
+ * The file is locked while open, so a data stream can only be replicated
+ * once in a replica directory at a time. Items are read concurrently, while
+ * {@link #sync()} copies new items one page at a time.
+ * </p>
+ */
+public final class StreamReplica implements Closeable
+{
+  /**
+   * The default size, in bytes, of each memory-mapped region of the file.
+   */
+  static final int DEFAULT_REGION_SIZE = 1 << 30;
+
+  private static final byte   BINARY        = 0;
+  private static final String EXTENSION     = ".replica";
+  private static final int    HEADER_SIZE   = 32;
+  private static final int    INITIAL_SLOTS = 1 << 10;
+  private static final int    MAGIC         = 0x4d435250;
+  private static final long   NO_TIME       = Long.MIN_VALUE;
+  private static final byte   OTHER         = 1;
+  private static final int    SLOT_SIZE     = 16;
+  private static final int    VERSION       = 1;
+
+  private final int                    batchSize;
+  private final FileChannel            channel;
+  private final ReadWriteLock          lock    = new ReentrantReadWriteLock();
+  private final MultiChainClient       multiChainClient;
+  private final List<MappedByteBuffer> regions = new ArrayList<>();
+  private final int                    regionSize;
+  private final String                 stream;
+
+  private boolean    closed;
+  private int        count;
+  private long       end;
+  private ByteBuffer index;
+  private int        indexed;
+  private ByteBuffer positions;
+  private boolean    stalled;
+
+  /**
+   * Opens the replica of a data stream in a directory, creating it if it
+   * does not exist yet.
+   *
+   * @param directory        The directory holding replicas.
+   * @param stream           The name of the data stream.
+   * @param multiChainClient The {@link MultiChainClient} to fetch items
+   *                         with.
+   * @throws DataAccessResourceFailureException if the replica cannot be
+   *                                            opened, or is open already.
+   * @throws IllegalArgumentException           if {@code directory} or
+   *                                            {@code multiChainClient} is
+   *                                            {@literal null}, or if
+   *                                            {@code stream} is blank.
+   */
+  StreamReplica(final Path directory, final String stream, final MultiChainClient multiChainClient)
+  {
+    this(directory, stream, multiChainClient, DEFAULT_REGION_SIZE, SimpleMultiChainRepository.BATCH_SIZE);
+  }
+
+  /**
+   * Opens the replica of a data stream in a directory, creating it if it
+   * does not exist yet.
+   *
+   * @param directory        The directory holding replicas.
+   * @param stream           The name of the data stream.
+   * @param multiChainClient The {@link MultiChainClient} to fetch items
+   *                         with.
+   * @param regionSize       The size, in bytes, of each memory-mapped region
+   *                         of the file, which limits the size of an item.
+   * @param batchSize        The number of items to fetch at a time.
+   * @throws DataAccessResourceFailureException if the replica cannot be
+   *                                            opened, or is open already.
+   * @throws IllegalArgumentException           if {@code directory} or
+   *                                            {@code multiChainClient} is
+   *                                            {@literal null}, if
+   *                                            {@code stream} is blank, or
+   *                                            if {@code regionSize} or
+   *                                            {@code batchSize} is too
+   *                                            small.
+   */
+  StreamReplica(final Path directory
+      , final String stream
+      , final MultiChainClient multiChainClient
+      , final int regionSize
+      , final int batchSize)
+  {
+    notNull(directory, "Directory must not be null.");
+    hasText(stream, "Stream must not be blank.");
+    notNull(multiChainClient, "MultiChainClient must not be null.");
+    isTrue(regionSize >= 2 * HEADER_SIZE, "Region size is too small.");
+    isTrue(batchSize > 0, "Batch size must be positive.");
+
+    this.batchSize = batchSize;
+    this.multiChainClient = multiChainClient;
+    this.regionSize = regionSize;
+    this.stream = stream;
+
+    final Path file = directory.resolve(stream + EXTENSION);
+
+    try
+    {
+      Files.createDirectories(directory);
+
+      channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+    catch (final IOException e)
+    {
+      throw new DataAccessResourceFailureException(String.format("Replica %s could not be opened.", file), e);
+    }
+
+    try
+    {
+      // The lock is held until the file is closed.
+      lock(file);
+
+      open();
+    }
+    catch (final IOException | RuntimeException e)
+    {
+      closeQuietly();
+
+      throw e instanceof DataAccessResourceFailureException
+            ? (DataAccessResourceFailureException) e
+            : new DataAccessResourceFailureException(String.format("Replica %s could not be opened.", file), e);
+    }
+  }
+
+  /**
+   * Closes the replica, after which it holds no items.
+   */
+  @Override
+  public void close()
+  {
+    lock.writeLock().lock();
+    try
+    {
+      if (!closed)
+      {
+        closed = true;
+
+        closeQuietly();
+      }
+    }
+    finally
+    {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Finds the items tagged with a key.
+   *
+   * @param key The key.
+   * @return The items, which is empty if no copied item is tagged with the
+   * key.
+   */
+  List<ListStreamKeyItemsResult> find(final String key)
+  {
+    lock.readLock().lock();
+    try
+    {
+      if (closed || indexed == 0)
+      {
+        return Collections.emptyList();
+      }
+
+      List<ListStreamKeyItemsResult> items = Collections.emptyList();
+
+      final long hash = hash(key);
+      final int mask = index.capacity() / SLOT_SIZE - 1;
+
+      for (int slot = mix(hash) & mask; index.getLong(slot * SLOT_SIZE) != 0; slot = (slot + 1) & mask)
+      {
+        if (index.getLong(slot * SLOT_SIZE) != hash)
+        {
+          continue;
+        }
+
+        final ByteBuffer record = getRecord(index.getLong(slot * SLOT_SIZE + 8));
+        final List<String> keys = readKeys(record);
+
+        if (keys.contains(key))
+        {
+          if (items.isEmpty())
+          {
+            items = new ArrayList<>(1);
+          }
+
+          items.add(readItem(record, keys, ListStreamKeyItemsResult::new));
+        }
+      }
+
+      return items;
+    }
+    finally
+    {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Lists a range of the copied items.
+   *
+   * @param start The position of the first item.
+   * @param count The maximum number of items.
+   * @return The copied items in the range, which may be fewer than
+   * {@code count}.
+   */
+  List<ListStreamItemsResult> list(final int start, final int count)
+  {
+    lock.readLock().lock();
+    try
+    {
+      if (closed || start >= this.count)
+      {
+        return Collections.emptyList();
+      }
+
+      final int to = (int) Math.min(this.count, (long) start + count);
+      final List<ListStreamItemsResult> items = new ArrayList<>(to - start);
+
+      for (int i = start; i < to; ++i)
+      {
+        final ByteBuffer record = getRecord(positions.getLong(i * 8));
+
+        items.add(readItem(record, readKeys(record), ListStreamItemsResult::new));
+      }
+
+      return items;
+    }
+    finally
+    {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Tells whether the replica has stalled on an item too large to fit in a
+   * region, so that no further items can be copied.
+   *
+   * @return {@literal true} if the replica has stalled, {@literal false}
+   * otherwise.
+   */
+  boolean isStalled()
+  {
+    lock.readLock().lock();
+    try
+    {
+      return stalled;
+    }
+    finally
+    {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Gets the number of items copied.
+   *
+   * @return The number of items copied.
+   */
+  int size()
+  {
+    lock.readLock().lock();
+    try
+    {
+      return closed ? 0 : count;
+    }
+    finally
+    {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Copies the items published since the last sync, a page at a time, up
+   * to the first item that is not confirmed or not available. Items are
+   * readable as soon as each page has been copied and written to disk.
+   * Nothing is copied once the replica has {@link #isStalled() stalled}.
+   *
+   * @return The number of items copied.
+   * @throws DataRetrievalFailureException      if the items cannot be
+   *                                            fetched.
+   * @throws DataAccessResourceFailureException if the items cannot be
+   *                                            written.
+   */
+  synchronized int sync()
+  {
+    int copied = 0;
+
+    while (!isStalled())
+    {
+      final List<ListStreamItemsResult> items = fetch(size(), batchSize);
+      final int appended = append(items);
+
+      copied += appended;
+
+      if (appended < items.size() || items.size() < batchSize)
+      {
+        return copied;
+      }
+    }
+
+    return copied;
+  }
+
+  /**
+   * Appends items to the file, then commits them by updating the header,
+   * stopping at the first item that is not confirmed or not available, or
+   * that is too large to fit in a region, in which case the replica has
+   * stalled.
+   *
+   * @param items The items.
+   * @return The number of items appended.
+   */
+  private int append(final List<ListStreamItemsResult> items)
+  {
+    lock.writeLock().lock();
+    try
+    {
+      if (closed)
+      {
+        return 0;
+      }
+
+      final int firstRegion = getRegionIndex(end);
+      int appended = 0;
+
+      for (final ListStreamItemsResult item : items)
+      {
+        if (!item.isConfirmed() || !item.isAvailable() || item.getItemData() == null)
+        {
+          break;
+        }
+
+        if (!write(item))
+        {
+          stalled = true;
+          break;
+        }
+
+        ++appended;
+      }
+
+      if (appended > 0)
+      {
+        for (int r = firstRegion; r < regions.size(); ++r)
+        {
+          regions.get(r).force();
+        }
+
+        writeHeader();
+      }
+
+      return appended;
+    }
+    finally
+    {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Releases the lock on the file and closes it, ignoring errors.
+   */
+  private void closeQuietly()
+  {
+    try
+    {
+      channel.close();
+    }
+    catch (final IOException e)
+    {
+      // The replica is no longer used either way.
+    }
+  }
+
+  /**
+   * Fetches a range of items from the node.
+   *
+   * @param start The position of the first item.
+   * @param count The maximum number of items.
+   * @return The items in the range.
+   */
+  private List<ListStreamItemsResult> fetch(final int start, final int count)
+  {
+    final ListStreamItemsResponse response = multiChainClient.invoke(new ListStreamItemsRequest(stream, start, count)
+        , ListStreamItemsResponse.class);
+
+    // Ensure that no problems were encountered.
+    if (!response.isOk())
+    {
+      throw new DataRetrievalFailureException(response.getError().getMessage());
+    }
+
+    return response.getResult() != null ? response.getResult() : Collections.emptyList();
+  }
+
+  /**
+   * Gets a record, positioned after its length.
+   *
+   * @param offset The offset of the record in the file.
+   * @return A buffer holding the record.
+   */
+  private ByteBuffer getRecord(final long offset)
+  {
+    final ByteBuffer record = getRegion(getRegionIndex(offset)).duplicate();
+    record.position(getRegionOffset(offset) + 4);
+
+    return record;
+  }
+
+  /**
+   * Gets a memory-mapped region of the file, mapping it and any region
+   * before it if necessary, which grows the file.
+   *
+   * @param region The index of the region.
+   * @return The region.
+   * @throws DataAccessResourceFailureException if the region cannot be
+   *                                            mapped.
+   */
+  private MappedByteBuffer getRegion(final int region)
+  {
+    while (regions.size() <= region)
+    {
+      try
+      {
+        regions.add(channel.map(FileChannel.MapMode.READ_WRITE, (long) regions.size() * regionSize, regionSize));
+      }
+      catch (final IOException e)
+      {
+        throw new DataAccessResourceFailureException(String.format("Replica of stream %s could not be mapped.", stream), e);
+      }
+    }
+
+    return regions.get(region);
+  }
+
+  /**
+   * Gets the index of the region holding an offset in the file.
+   *
+   * @param offset The offset.
+   * @return The index of the region.
+   */
+  private int getRegionIndex(final long offset)
+  {
+    return (int) (offset / regionSize);
+  }
+
+  /**
+   * Gets the position of an offset in the file within its region.
+   *
+   * @param offset The offset.
+   * @return The position within the region.
+   */
+  private int getRegionOffset(final long offset)
+  {
+    return (int) (offset % regionSize);
+  }
+
+  /**
+   * Adds a record to the indexes.
+   *
+   * @param offset The offset of the record in the file.
+   * @param keys   The keys of the record.
+   */
+  private void index(final long offset, final List<String> keys)
+  {
+    if (positions.capacity() < (count + 1) * 8)
+    {
+      positions = grow(positions, positions.capacity() * 2);
+    }
+
+    positions.putLong(count * 8, offset);
+
+    for (final String key : keys)
+    {
+      if (2 * (indexed + 1) > index.capacity() / SLOT_SIZE)
+      {
+        rehash(index.capacity() * 2);
+      }
+
+      insert(index, hash(key), offset);
+      ++indexed;
+    }
+  }
+
+  /**
+   * Maps the file, starting it afresh if it is not a replica of this
+   * version, and rebuilds the indexes from the items it holds.
+   *
+   * @throws IOException if the file cannot be read.
+   */
+  private void open() throws IOException
+  {
+    final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    while (header.hasRemaining() && channel.read(header, header.position()) >= 0)
+    {
+      // Keep reading until the header is complete or the file ends.
+    }
+
+    final boolean valid = !header.hasRemaining() && header.getInt(0) == MAGIC && header.getInt(4) == VERSION;
+
+    // The replica is only a copy, so one that cannot be used is copied
+    // again from scratch.
+    if (!valid)
+    {
+      channel.truncate(0);
+    }
+
+    final int items = valid ? header.getInt(8) : 0;
+
+    index = ByteBuffer.allocateDirect(INITIAL_SLOTS * SLOT_SIZE);
+    positions = ByteBuffer.allocateDirect(Math.max(INITIAL_SLOTS, items) * 8);
+    end = HEADER_SIZE;
+
+    getRegion(0);
+
+    for (int i = 0; i < items; ++i)
+    {
+      end = skipPadding(end);
+
+      final ByteBuffer record = getRecord(end);
+      final int length = record.getInt(getRegionOffset(end));
+
+      index(end, readKeys(record));
+      ++count;
+
+      end += 4 + length;
+    }
+
+    if (!valid)
+    {
+      writeHeader();
+    }
+  }
+
+  /**
+   * Rebuilds the hash index with more slots.
+   *
+   * @param capacity The capacity of the new index, in bytes.
+   */
+  private void rehash(final int capacity)
+  {
+    final ByteBuffer rehashed = ByteBuffer.allocateDirect(capacity);
+
+    for (int slot = 0; slot < index.capacity(); slot += SLOT_SIZE)
+    {
+      final long hash = index.getLong(slot);
+
+      if (hash != 0)
+      {
+        insert(rehashed, hash, index.getLong(slot + 8));
+      }
+    }
+
+    index = rehashed;
+  }
+
+  /**
+   * Skips the padding at the end of a region, which is left where the next
+   * record does not fit.
+   *
+   * @param offset The offset of the next record in the file.
+   * @return The offset at which the next record starts.
+   */
+  private long skipPadding(final long offset)
+  {
+    final int position = getRegionOffset(offset);
+
+    return position + 4 > regionSize || getRegion(getRegionIndex(offset)).getInt(position) == 0
+           ? (long) (getRegionIndex(offset) + 1) * regionSize
+           : offset;
+  }
+
+  /**
+   * Writes an item at the end of the file and indexes it.
+   *
+   * @param item The item.
+   * @return {@literal true} if the item has been written, {@literal false}
+   * if it is too large to fit in a region.
+   */
+  private boolean write(final ListStreamItemsResult item)
+  {
+    final List<String> keys = item.getKeys();
+    final byte[][] keyBytes = new byte[keys.size()][];
+    int length = 2;
+    for (int i = 0; i < keyBytes.length; ++i)
+    {
+      keyBytes[i] = keys.get(i).getBytes(StandardCharsets.UTF_8);
+      length += 2 + keyBytes[i].length;
+    }
+
+    final byte[] id = item.getID() != null ? item.getID().getBytes(StandardCharsets.UTF_8) : new byte[0];
+    final StreamItemData data = item.getItemData();
+    final byte kind = data.getHex() != null ? BINARY : OTHER;
+
+    // Binary data is stored as bytes, and any other data as the JSON that
+    // the node returned.
+    final byte[] payload = kind == BINARY ? Hex.decode(data.getHex()) : data.toString().getBytes(StandardCharsets.UTF_8);
+
+    length += 2 + id.length + 8 + 1 + 4 + payload.length;
+
+    if (4 + length > regionSize)
+    {
+      return false;
+    }
+
+    // Records do not span regions; the rest of a region that cannot hold
+    // the record is left as padding, marked by a zero length.
+    if (getRegionOffset(end) + 4 + length > regionSize)
+    {
+      if (getRegionOffset(end) + 4 <= regionSize)
+      {
+        getRegion(getRegionIndex(end)).putInt(getRegionOffset(end), 0);
+      }
+
+      end = (long) (getRegionIndex(end) + 1) * regionSize;
+    }
+
+    final ByteBuffer record = getRegion(getRegionIndex(end)).duplicate();
+    record.position(getRegionOffset(end));
+    record.putInt(length);
+    record.putShort((short) keyBytes.length);
+    for (final byte[] key : keyBytes)
+    {
+      record.putShort((short) key.length);
+      record.put(key);
+    }
+    record.putShort((short) id.length);
+    record.put(id);
+    record.putLong(item.getTime() != null ? item.getTime().getTime() : NO_TIME);
+    record.put(kind);
+    record.putInt(payload.length);
+    record.put(payload);
+
+    index(end, keys);
+    ++count;
+
+    end += 4 + length;
+
+    return true;
+  }
+
+  /**
+   * Writes the number of items and the end of the last one to the start of
+   * the file, which commits the items written before.
+   */
+  private void writeHeader()
+  {
+    final MappedByteBuffer region = getRegion(0);
+
+    region.putInt(0, MAGIC);
+    region.putInt(4, VERSION);
+    region.putInt(8, count);
+    region.putLong(16, end);
+    region.force();
+  }
+
+  /**
+   * Grows an off-heap buffer.
+   *
+   * @param buffer   The buffer.
+   * @param capacity The new capacity, in bytes.
+   * @return A buffer with the new capacity, holding the same bytes.
+   */
+  private static ByteBuffer grow(final ByteBuffer buffer, final int capacity)
+  {
+    final ByteBuffer grown = ByteBuffer.allocateDirect(capacity);
+
+    final ByteBuffer source = buffer.duplicate();
+    source.clear();
+    grown.put(source);
+    grown.clear();
+
+    return grown;
+  }
+
+  /**
+   * Hashes a key with 64-bit FNV-1a, avoiding {@literal 0}, which marks an
+   * empty slot.
+   *
+   * @param key The key.
+   * @return The hash of the key.
+   */
+  private static long hash(final String key)
+  {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < key.length(); ++i)
+    {
+      hash ^= key.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+
+    return hash != 0 ? hash : 1;
+  }
+
+  /**
+   * Inserts a record into a hash index, in the first free slot from the
+   * slot for its hash.
+   *
+   * @param index  The index.
+   * @param hash   The hash of a key of the record.
+   * @param offset The offset of the record in the file.
+   */
+  private static void insert(final ByteBuffer index, final long hash, final long offset)
+  {
+    final int mask = index.capacity() / SLOT_SIZE - 1;
+
+    int slot = mix(hash) & mask;
+    while (index.getLong(slot * SLOT_SIZE) != 0)
+    {
+      slot = (slot + 1) & mask;
+    }
+
+    index.putLong(slot * SLOT_SIZE + 8, offset);
+    index.putLong(slot * SLOT_SIZE, hash);
+  }
+
+  /**
+   * Locks the file for the lifetime of the replica.
+   *
+   * @param file The file.
+   * @throws IOException                        if the file cannot be
+   *                                            locked.
+   * @throws DataAccessResourceFailureException if the file is locked
+   *                                            already.
+   */
+  private void lock(final Path file) throws IOException
+  {
+    FileLock fileLock;
+    try
+    {
+      fileLock = channel.tryLock();
+    }
+    catch (final OverlappingFileLockException e)
+    {
+      fileLock = null;
+    }
+
+    if (fileLock == null)
+    {
+      throw new DataAccessResourceFailureException(String.format("Replica %s is already in use.", file));
+    }
+  }
+
+  /**
+   * Spreads the bits of a hash over the lower bits used to pick a slot.
+   *
+   * @param hash The hash.
+   * @return The mixed hash.
+   */
+  private static int mix(final long hash)
+  {
+    final long mixed = hash ^ (hash >>> 32);
+
+    return (int) (mixed ^ (mixed >>> 16));
+  }
+
+  /**
+   * Reads the rest of an item, after its keys.
+   *
+   * @param record  The record, positioned after the keys.
+   * @param keys    The keys of the item.
+   * @param factory Creates the item.
+   * @param <R>     The type of item.
+   * @return The item.
+   */
+  private static <R> R readItem(final ByteBuffer record, final List<String> keys, final ItemFactory<R> factory)
+  {
+    final String id = readString(record, record.getShort() & 0xffff);
+    final long time = record.getLong();
+    final byte kind = record.get();
+
+    final byte[] payload = new byte[record.getInt()];
+    record.get(payload);
+
+    final StreamItemData data = kind == BINARY
+                                ? StreamItemData.hex(Hex.encode(payload))
+                                : StreamItemData.from(new JsonParser().parse(new String(payload, StandardCharsets.UTF_8)));
+
+    return factory.create(id, keys, data, time != NO_TIME ? new Date(time) : null);
+  }
+
+  /**
+   * Reads the keys of an item.
+   *
+   * @param record The record, positioned after its length.
+   * @return The keys.
+   */
+  private static List<String> readKeys(final ByteBuffer record)
+  {
+    final int count = record.getShort() & 0xffff;
+
+    if (count == 1)
+    {
+      return Collections.singletonList(readString(record, record.getShort() & 0xffff));
+    }
+
+    final List<String> keys = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i)
+    {
+      keys.add(readString(record, record.getShort() & 0xffff));
+    }
+
+    return keys;
+  }
+
+  /**
+   * Reads a UTF-8 string.
+   *
+   * @param record The record, positioned at the string.
+   * @param length The length of the string, in bytes.
+   * @return The string.
+   */
+  private static String readString(final ByteBuffer record, final int length)
+  {
+    final byte[] bytes = new byte[length];
+    record.get(bytes);
+
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Creates an item read from the replica.
+   *
+   * @param <R> The type of item.
+   */
+  @FunctionalInterface
+  private interface ItemFactory<R>
+  {
+    /**
+     * Creates an item.
+     *
+     * @param id   The unique item identifier.
+     * @param keys The keys of the item.
+     * @param data The item data.
+     * @param time The time at which the item was confirmed, if known.
+     * @return The item.
+     */
+    R create(String id, List<String> keys, StreamItemData data, Date time);
+  }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.repository.support;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.multichain.repository.StreamListener;
+import org.springframework.data.multichain.repository.StreamSubscription;
+import org.springframework.data.multichain.server.command.ListStreamItemsResult;
+
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static org.springframework.util.Assert.isTrue;
+import static org.springframework.util.Assert.notNull;
+
+/**
+ * Polls a data stream for items from a position onwards on a thread of its
+ * own, delivering the entities they hold to a {@link StreamListener}. The
+ * pause between polls halves, down to a minimum, after each poll that finds
+ * new items, and doubles, up to a maximum, after each poll that finds none;
+ * a full batch is followed by the next poll right away. A poll that fails
+ * is retried after the maximum pause.
+ *
+ * @param <T> The type of entities.
+ */
+final class TailingSubscription<T> implements StreamSubscription, Runnable
+{
+  /**
+   * The default longest pause, in milliseconds, between polls.
+   */
+  static final long DEFAULT_MAXIMUM_INTERVAL = 5000;
+
+  /**
+   * The default shortest pause, in milliseconds, between polls.
+   */
+  static final long DEFAULT_MINIMUM_INTERVAL = 250;
+
+  private final int                                                       batchSize;
+  private final Function<ListStreamItemsResult, T>                        decoder;
+  private final ScheduledThreadPoolExecutor                               executor;
+  private final BiFunction<Integer, Integer, List<ListStreamItemsResult>> fetcher;
+  private final StreamListener<? super T>                                 listener;
+  private final long                                                      maximumInterval;
+  private final long                                                      minimumInterval;
+
+  private volatile boolean active = true;
+  private          long    interval;
+  private volatile int     position;
+
+  /**
+   * Creates a subscription, which is not polled until started.
+   *
+   * @param fetcher         Fetches the items in a range, given the position
+   *                        of the first item and the maximum number of
+   *                        items.
+   * @param decoder         Converts an item into an entity, or into
+   *                        {@literal null} if the item does not hold an
+   *                        entity by itself, such as a chunk of an entity.
+   * @param listener        The listener to deliver entities to.
+   * @param from            The position of the first item to deliver.
+   * @param batchSize       The number of items to fetch at a time.
+   * @param minimumInterval The shortest pause between polls, in
+   *                        milliseconds.
+   * @param maximumInterval The longest pause between polls, in
+   *                        milliseconds.
+   * @param name            The name of the polling thread.
+   * @throws IllegalArgumentException if {@code fetcher}, {@code decoder} or
+   *                                  {@code listener} is {@literal null},
+   *                                  if {@code from} is negative, if
+   *                                  {@code batchSize} or
+   *                                  {@code minimumInterval} is not
+   *                                  positive, or if
+   *                                  {@code maximumInterval} is less than
+   *                                  {@code minimumInterval}.
+   */
+  TailingSubscription(final BiFunction<Integer, Integer, List<ListStreamItemsResult>> fetcher
+      , final Function<ListStreamItemsResult, T> decoder
+      , final StreamListener<? super T> listener
+      , final int from
+      , final int batchSize
+      , final long minimumInterval
+      , final long maximumInterval
+      , final String name)
+  {
+    notNull(fetcher, "Fetcher must not be null.");
+    notNull(decoder, "Decoder must not be null.");
+    notNull(listener, "Listener must not be null.");
+    isTrue(from >= 0, "Position must not be negative.");
+    isTrue(batchSize > 0, "Batch size must be positive.");
+    isTrue(minimumInterval > 0, "Minimum interval must be positive.");
+    isTrue(maximumInterval >= minimumInterval, "Maximum interval must not be less than the minimum.");
+
+    this.batchSize = batchSize;
+    this.decoder = decoder;
+    this.fetcher = fetcher;
+    this.interval = minimumInterval;
+    this.listener = listener;
+    this.maximumInterval = maximumInterval;
+    this.minimumInterval = minimumInterval;
+    this.position = from;
+
+    this.executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+      final Thread thread = new Thread(runnable, name);
+      thread.setDaemon(true);
+
+      return thread;
+    });
+    this.executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void close()
+  {
+    active = false;
+
+    executor.shutdown();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getPosition()
+  {
+    return position;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isActive()
+  {
+    return active;
+  }
+
+  /**
+   * Polls once, delivers the entities found and schedules the next poll.
+   */
+  @Override
+  public void run()
+  {
+    if (!active)
+    {
+      return;
+    }
+
+    final List<ListStreamItemsResult> items;
+    try
+    {
+      items = fetcher.apply(position, batchSize);
+    }
+    catch (final DataAccessException e)
+    {
+      schedule(interval = maximumInterval);
+
+      return;
+    }
+
+    final int delivered;
+    try
+    {
+      delivered = deliver(items);
+    }
+    catch (final TransientDataAccessException e)
+    {
+      // Parts of the entity have not reached the node yet.
+      schedule(interval = maximumInterval);
+
+      return;
+    }
+    catch (final RuntimeException e)
+    {
+      active = false;
+      executor.shutdown();
+
+      listener.onError(e);
+
+      return;
+    }
+
+    schedule(getInterval(delivered));
+  }
+
+  /**
+   * Adapts the pause before the next poll to the number of items found.
+   *
+   * @param delivered The number of items passed in the last poll.
+   * @return The pause, in milliseconds.
+   */
+  long getInterval(final int delivered)
+  {
+    if (delivered == batchSize)
+    {
+      interval = minimumInterval;
+
+      return 0;
+    }
+
+    interval = delivered > 0 ? Math.max(minimumInterval, interval / 2) : Math.min(maximumInterval, interval * 2);
+
+    return interval;
+  }
+
+  /**
+   * Starts polling.
+   *
+   * @return This subscription.
+   */
+  TailingSubscription<T> start()
+  {
+    executor.execute(this);
+
+    return this;
+  }
+
+  /**
+   * Delivers the entities held by the items that have been confirmed and
+   * are available, up to the first one that is not.
+   *
+   * @param items The items, from the current position.
+   * @return The number of items passed, whether or not they held entities.
+   */
+  private int deliver(final List<ListStreamItemsResult> items)
+  {
+    int delivered = 0;
+
+    for (final ListStreamItemsResult item : items)
+    {
+      if (!active || !item.isConfirmed() || !item.isAvailable())
+      {
+        break;
+      }
+
+      final T entity = decoder.apply(item);
+
+      if (entity != null)
+      {
+        listener.onEntity(entity, position);
+      }
+
+      ++position;
+      ++delivered;
+    }
+
+    return delivered;
+  }
+
+  /**
+   * Schedules the next poll.
+   *
+   * @param delay The pause before the poll, in milliseconds.
+   */
+  private void schedule(final long delay)
+  {
+    try
+    {
+      if (active)
+      {
+        executor.schedule(this, delay, TimeUnit.MILLISECONDS);
+      }
+    }
+    catch (final RejectedExecutionException e)
+    {
+      // Closed in the meantime.
+    }
+  }
+}
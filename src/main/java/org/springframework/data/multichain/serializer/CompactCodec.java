@@ -0,0 +1,321 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.serializer;
+
+import org.springframework.core.serializer.support.SerializationFailedException;
+import org.springframework.data.mapping.MappingException;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Writes and reads single values of a given type in the compact binary
+ * format.
+ */
+final class CompactCodec
+{
+  private static final Map<Class<?>, CompactCodec> SCALARS = new HashMap<>();
+
+  static
+  {
+    SCALARS.put(Boolean.class, varint((out, value) -> out.writeVarint((Boolean) value ? 1 : 0), in -> in.readVarint() != 0));
+    SCALARS.put(Byte.class, varint((out, value) -> out.writeSignedVarint((Byte) value), in -> (byte) in.readSignedVarint()));
+    SCALARS.put(Character.class, varint((out, value) -> out.writeVarint((Character) value), in -> (char) in.readVarint()));
+    SCALARS.put(Short.class, varint((out, value) -> out.writeSignedVarint((Short) value), in -> (short) in.readSignedVarint()));
+    SCALARS.put(Integer.class, varint((out, value) -> out.writeSignedVarint((Integer) value), in -> (int) in.readSignedVarint()));
+    SCALARS.put(Long.class, varint((out, value) -> out.writeSignedVarint((Long) value), CompactInput::readSignedVarint));
+    SCALARS.put(Float.class, new CompactCodec(CompactOutput.FIXED32
+        , (out, value) -> out.writeFixed32(Float.floatToIntBits((Float) value))
+        , in -> Float.intBitsToFloat(in.readFixed32())));
+    SCALARS.put(Double.class, new CompactCodec(CompactOutput.FIXED64
+        , (out, value) -> out.writeFixed64(Double.doubleToLongBits((Double) value))
+        , in -> Double.longBitsToDouble(in.readFixed64())));
+
+    SCALARS.put(String.class, lengthDelimited((out, value) -> out.writeString((String) value), CompactInput::readString));
+    SCALARS.put(byte[].class, lengthDelimited((out, value) -> out.writeBytes((byte[]) value), CompactInput::readBytes));
+    SCALARS.put(BigInteger.class, lengthDelimited((out, value) -> out.writeBytes(((BigInteger) value).toByteArray())
+        , in -> new BigInteger(in.readBytes())));
+    SCALARS.put(BigDecimal.class, lengthDelimited(CompactCodec::writeBigDecimal, CompactCodec::readBigDecimal));
+    SCALARS.put(UUID.class, lengthDelimited(CompactCodec::writeUUID, CompactCodec::readUUID));
+
+    SCALARS.put(Date.class, varint((out, value) -> out.writeSignedVarint(((Date) value).getTime())
+        , in -> new Date(in.readSignedVarint())));
+    SCALARS.put(Instant.class, lengthDelimited(CompactCodec::writeInstant, CompactCodec::readInstant));
+    SCALARS.put(LocalDate.class, varint((out, value) -> out.writeSignedVarint(((LocalDate) value).toEpochDay())
+        , in -> LocalDate.ofEpochDay(in.readSignedVarint())));
+    SCALARS.put(LocalDateTime.class, lengthDelimited((out, value) -> writeInstant(out, ((LocalDateTime) value).toInstant(ZoneOffset.UTC))
+        , in -> LocalDateTime.ofInstant(readInstant(in), ZoneOffset.UTC)));
+  }
+
+  private final Function<CompactInput, Object>    reader;
+  private final int                               wireType;
+  private final BiConsumer<CompactOutput, Object> writer;
+
+  /**
+   * Creates a codec.
+   *
+   * @param wireType The wire type of the values.
+   * @param writer   Writes a value.
+   * @param reader   Reads a value.
+   */
+  private CompactCodec(final int wireType
+      , final BiConsumer<CompactOutput, Object> writer
+      , final Function<CompactInput, Object> reader)
+  {
+    this.reader = reader;
+    this.wireType = wireType;
+    this.writer = writer;
+  }
+
+  /**
+   * Gets the codec for a type of value.
+   *
+   * @param type    The type of value.
+   * @param schemas Gets the schema of entity types, for values that are
+   *                themselves entities.
+   * @return The codec.
+   * @throws MappingException if values of the type cannot be written in
+   *                          the compact format.
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  static CompactCodec forType(final Class<?> type, final Function<Class<?>, CompactSchema<?>> schemas)
+  {
+    final CompactCodec scalar = SCALARS.get(ClassUtils.resolvePrimitiveIfNecessary(type));
+
+    if (scalar != null)
+    {
+      return scalar;
+    }
+    else if (type.isEnum())
+    {
+      return lengthDelimited((out, value) -> out.writeString(((Enum<?>) value).name())
+          , in -> readEnum((Class<? extends Enum>) type, in.readString()));
+    }
+    else if (type.isArray()
+        || type.isInterface()
+        || Modifier.isAbstract(type.getModifiers())
+        || Collection.class.isAssignableFrom(type)
+        || Map.class.isAssignableFrom(type)
+        || type == Object.class)
+    {
+      throw new MappingException(String.format("Values of type %s cannot be written in the compact format.", type.getName()));
+    }
+
+    // Any other type is written as a nested record. Its schema is looked up
+    // only when needed, so that entity types may refer to themselves.
+    return lengthDelimited((out, value) -> {
+      final int mark = out.beginLengthDelimited();
+      schemas.apply(type).write(value, out);
+      out.endLengthDelimited(mark);
+    }, in -> {
+      final int limit = in.pushLimit();
+      final Object value = schemas.apply(type).read(in);
+      in.popLimit(limit);
+
+      return value;
+    });
+  }
+
+  /**
+   * Gets the wire type of the values.
+   *
+   * @return The wire type.
+   */
+  int getWireType()
+  {
+    return wireType;
+  }
+
+  /**
+   * Reads a value.
+   *
+   * @param in The input.
+   * @return The value.
+   */
+  Object read(final CompactInput in)
+  {
+    return reader.apply(in);
+  }
+
+  /**
+   * Writes a value, without its tag.
+   *
+   * @param out   The output.
+   * @param value The value.
+   */
+  void write(final CompactOutput out, final Object value)
+  {
+    writer.accept(out, value);
+  }
+
+  /**
+   * Creates a codec for length-delimited values.
+   *
+   * @param writer Writes a value.
+   * @param reader Reads a value.
+   * @return The codec.
+   */
+  private static CompactCodec lengthDelimited(final BiConsumer<CompactOutput, Object> writer
+      , final Function<CompactInput, Object> reader)
+  {
+    return new CompactCodec(CompactOutput.LENGTH_DELIMITED, writer, reader);
+  }
+
+  /**
+   * Reads a {@link BigDecimal}, written as its scale followed by the bytes
+   * of its unscaled value.
+   *
+   * @param in The input.
+   * @return The {@link BigDecimal}.
+   */
+  private static BigDecimal readBigDecimal(final CompactInput in)
+  {
+    final int limit = in.pushLimit();
+    final int scale = (int) in.readSignedVarint();
+    final BigDecimal value = new BigDecimal(new BigInteger(in.readBytes()), scale);
+    in.popLimit(limit);
+
+    return value;
+  }
+
+  /**
+   * Reads an enumeration constant, written as its name.
+   *
+   * @param type The type of enumeration.
+   * @param name The name of the constant.
+   * @param <E>  The type of enumeration.
+   * @return The constant.
+   */
+  private static <E extends Enum<E>> E readEnum(final Class<E> type, final String name)
+  {
+    try
+    {
+      return Enum.valueOf(type, name);
+    }
+    catch (final IllegalArgumentException e)
+    {
+      throw new SerializationFailedException(String.format("Unknown constant %s of %s.", name, type.getName()), e);
+    }
+  }
+
+  /**
+   * Reads an {@link Instant}, written as seconds and nanoseconds since the
+   * epoch.
+   *
+   * @param in The input.
+   * @return The {@link Instant}.
+   */
+  private static Instant readInstant(final CompactInput in)
+  {
+    final int limit = in.pushLimit();
+    final Instant value = Instant.ofEpochSecond(in.readSignedVarint(), in.readVarint());
+    in.popLimit(limit);
+
+    return value;
+  }
+
+  /**
+   * Reads a {@link UUID}, written as its two halves.
+   *
+   * @param in The input.
+   * @return The {@link UUID}.
+   */
+  private static UUID readUUID(final CompactInput in)
+  {
+    final int limit = in.pushLimit();
+    final UUID value = new UUID(in.readFixed64(), in.readFixed64());
+    in.popLimit(limit);
+
+    return value;
+  }
+
+  /**
+   * Creates a codec for values written as variable-length integers.
+   *
+   * @param writer Writes a value.
+   * @param reader Reads a value.
+   * @return The codec.
+   */
+  private static CompactCodec varint(final BiConsumer<CompactOutput, Object> writer
+      , final Function<CompactInput, Object> reader)
+  {
+    return new CompactCodec(CompactOutput.VARINT, writer, reader);
+  }
+
+  /**
+   * Writes a {@link BigDecimal}.
+   *
+   * @param out   The output.
+   * @param value The {@link BigDecimal}.
+   * @see #readBigDecimal(CompactInput)
+   */
+  private static void writeBigDecimal(final CompactOutput out, final Object value)
+  {
+    final BigDecimal decimal = (BigDecimal) value;
+
+    final int mark = out.beginLengthDelimited();
+    out.writeSignedVarint(decimal.scale());
+    out.writeBytes(decimal.unscaledValue().toByteArray());
+    out.endLengthDelimited(mark);
+  }
+
+  /**
+   * Writes an {@link Instant}.
+   *
+   * @param out   The output.
+   * @param value The {@link Instant}.
+   * @see #readInstant(CompactInput)
+   */
+  private static void writeInstant(final CompactOutput out, final Object value)
+  {
+    final Instant instant = (Instant) value;
+
+    final int mark = out.beginLengthDelimited();
+    out.writeSignedVarint(instant.getEpochSecond());
+    out.writeVarint(instant.getNano());
+    out.endLengthDelimited(mark);
+  }
+
+  /**
+   * Writes a {@link UUID}.
+   *
+   * @param out   The output.
+   * @param value The {@link UUID}.
+   * @see #readUUID(CompactInput)
+   */
+  private static void writeUUID(final CompactOutput out, final Object value)
+  {
+    final UUID uuid = (UUID) value;
+
+    final int mark = out.beginLengthDelimited();
+    out.writeFixed64(uuid.getMostSignificantBits());
+    out.writeFixed64(uuid.getLeastSignificantBits());
+    out.endLengthDelimited(mark);
+  }
+}
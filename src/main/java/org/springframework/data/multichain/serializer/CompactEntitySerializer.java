@@ -0,0 +1,176 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.serializer;
+
+import org.springframework.core.serializer.support.SerializationFailedException;
+import org.springframework.data.convert.EntityInstantiators;
+import org.springframework.data.mapping.MappingException;
+import org.springframework.data.multichain.mapping.MultiChainPersistentEntity;
+import org.springframework.data.multichain.mapping.context.MultiChainMappingContext;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.springframework.util.Assert.notNull;
+
+/**
+ * <p>
+ * An {@link EntitySerializer} that stores entities as compact binary
+ * records, laid out according to the mapping metadata of each entity type.
+ * </p>
+ * <p>
+ * Each persistent property is written as a field tagged with its number
+ * (see {@link org.springframework.data.multichain.annotation.FieldNumber})
+ * and its wire type, followed by its value: integers as variable-length
+ * integers, floating point numbers as fixed-size values, and strings,
+ * binary data and nested entities as length-delimited values. Collections,
+ * arrays and maps are written as one field per element, except that
+ * numeric elements are packed into a single field. The layout is
+ * similar to that of Protocol Buffers, without a separate schema
+ * definition.
+ * </p>
+ * <p>
+ * Since fields are identified by number, records are typically much
+ * smaller than their JSON equivalent, and are read without parsing text.
+ * Properties can be added to and removed from entity types without making
+ * existing items unreadable, as long as field numbers are never reused.
+ * </p>
+ * <p>
+ * Entity types must have a constructor that Spring Data can use to create
+ * instances, and the types of all their properties must be known: values
+ * declared as {@link Object}, interfaces or abstract classes, other than
+ * collections and maps, are not supported.
+ * </p>
+ */
+public class CompactEntitySerializer implements EntitySerializer
+{
+  private final EntityInstantiators             instantiators = EntitySerializers.createEntityInstantiators();
+  private final MultiChainMappingContext        mappingContext;
+  private final Map<Class<?>, CompactSchema<?>> schemas       = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a serializer with its own mapping metadata.
+   */
+  public CompactEntitySerializer()
+  {
+    this(new MultiChainMappingContext());
+  }
+
+  /**
+   * Creates a serializer that uses the metadata of a given mapping context.
+   *
+   * @param mappingContext The {@link MultiChainMappingContext}.
+   * @throws IllegalArgumentException if {@code mappingContext} is
+   *                                  {@literal null}.
+   */
+  public CompactEntitySerializer(final MultiChainMappingContext mappingContext)
+  {
+    notNull(mappingContext, "MultiChainMappingContext must not be null.");
+
+    this.mappingContext = mappingContext;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public <T> T deserialize(final byte[] data, final int offset, final int length, final Class<T> type)
+  {
+    final CompactSchema<T> schema = getSchema(type);
+
+    try
+    {
+      return schema.read(new CompactInput(data, offset, length));
+    }
+    catch (final SerializationFailedException e)
+    {
+      throw e;
+    }
+    catch (final RuntimeException e)
+    {
+      throw new SerializationFailedException(String.format("Could not read %s.", type.getName()), e);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public byte getFormat()
+  {
+    return EntitySerializers.COMPACT;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public byte[] serialize(final Object entity)
+  {
+    final CompactOutput out = new CompactOutput(256);
+
+    getSchema(entity.getClass()).write(entity, out);
+
+    return out.toByteArray();
+  }
+
+  /**
+   * Gets the schema of an entity type, deriving it from the mapping
+   * metadata the first time it is needed.
+   *
+   * @param type The entity type.
+   * @param <T>  The entity type.
+   * @return The schema.
+   * @throws SerializationFailedException if the entity type cannot be
+   *                                      written in the compact format.
+   */
+  @SuppressWarnings("unchecked")
+  private <T> CompactSchema<T> getSchema(final Class<T> type)
+  {
+    final CompactSchema<?> schema = schemas.get(type);
+
+    return schema != null ? (CompactSchema<T>) schema : createSchema(type);
+  }
+
+  /**
+   * Derives the schema of an entity type.
+   *
+   * @param type The entity type.
+   * @param <T>  The entity type.
+   * @return The schema.
+   * @throws SerializationFailedException if the entity type cannot be
+   *                                      written in the compact format.
+   */
+  @SuppressWarnings("unchecked")
+  private <T> CompactSchema<T> createSchema(final Class<T> type)
+  {
+    try
+    {
+      final MultiChainPersistentEntity<T> entity = (MultiChainPersistentEntity<T>) mappingContext.getRequiredPersistentEntity(type);
+
+      // Schemas are not created inside computeIfAbsent, since creating one
+      // may look up others.
+      final CompactSchema<T> schema = new CompactSchema<>(entity, instantiators, this::getSchema);
+      final CompactSchema<?> existing = schemas.putIfAbsent(type, schema);
+
+      return existing != null ? (CompactSchema<T>) existing : schema;
+    }
+    catch (final MappingException e)
+    {
+      throw new SerializationFailedException(e.getMessage(), e);
+    }
+  }
+}
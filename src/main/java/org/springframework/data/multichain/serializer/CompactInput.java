@@ -0,0 +1,267 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.serializer;
+
+import org.springframework.core.serializer.support.SerializationFailedException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads records written by {@link CompactOutput}.
+ */
+final class CompactInput
+{
+  private final byte[] data;
+  private       int    limit;
+  private       int    position;
+
+  /**
+   * Creates an input over a range of bytes.
+   *
+   * @param data   The bytes.
+   * @param offset The position of the first byte to read.
+   * @param length The number of bytes to read.
+   */
+  CompactInput(final byte[] data, final int offset, final int length)
+  {
+    this.data = data;
+    this.limit = offset + length;
+    this.position = offset;
+  }
+
+  /**
+   * Checks whether the current record, or the whole input if no nested
+   * record is being read, has been read completely.
+   *
+   * @return {@literal true} if there is nothing left to read.
+   */
+  boolean isAtEnd()
+  {
+    return position >= limit;
+  }
+
+  /**
+   * Starts reading a nested record, written as a length-delimited value,
+   * limiting subsequent reads to the nested record.
+   *
+   * @return The limit to pass to {@link #popLimit(int)} once the nested
+   * record has been read.
+   */
+  int pushLimit()
+  {
+    final int length = readLength();
+    final int previous = limit;
+
+    limit = position + length;
+
+    return previous;
+  }
+
+  /**
+   * Ends reading a nested record.
+   *
+   * @param previous The limit returned by {@link #pushLimit()}.
+   */
+  void popLimit(final int previous)
+  {
+    position = limit;
+    limit = previous;
+  }
+
+  /**
+   * Reads a length-delimited value as bytes.
+   *
+   * @return The bytes.
+   */
+  byte[] readBytes()
+  {
+    final int length = readLength();
+    final byte[] bytes = Arrays.copyOfRange(data, position, position + length);
+    position += length;
+
+    return bytes;
+  }
+
+  /**
+   * Reads a value written as four bytes, little-endian.
+   *
+   * @return The value.
+   */
+  int readFixed32()
+  {
+    require(4);
+
+    int value = 0;
+    for (int i = 0; i < 4; ++i)
+    {
+      value |= (data[position++] & 0xFF) << (8 * i);
+    }
+
+    return value;
+  }
+
+  /**
+   * Reads a value written as eight bytes, little-endian.
+   *
+   * @return The value.
+   */
+  long readFixed64()
+  {
+    require(8);
+
+    long value = 0;
+    for (int i = 0; i < 8; ++i)
+    {
+      value |= (data[position++] & 0xFFL) << (8 * i);
+    }
+
+    return value;
+  }
+
+  /**
+   * Reads a ZigZag encoded signed variable-length integer.
+   *
+   * @return The value.
+   */
+  long readSignedVarint()
+  {
+    final long value = readVarint();
+
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  /**
+   * Reads a length-delimited UTF-8 encoded {@link String}.
+   *
+   * @return The {@link String}.
+   */
+  String readString()
+  {
+    final int length = readLength();
+    final String value = new String(data, position, length, StandardCharsets.UTF_8);
+    position += length;
+
+    return value;
+  }
+
+  /**
+   * Reads the tag of the next field.
+   *
+   * @return The tag; the field number is {@code tag >>> 3} and the wire
+   * type {@code tag & 7}.
+   */
+  int readTag()
+  {
+    final long tag = readVarint();
+
+    if (tag >>> 3 == 0 || tag > Integer.MAX_VALUE)
+    {
+      throw new SerializationFailedException(String.format("Invalid field tag %d.", tag));
+    }
+
+    return (int) tag;
+  }
+
+  /**
+   * Reads an unsigned variable-length integer.
+   *
+   * @return The value.
+   */
+  long readVarint()
+  {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7)
+    {
+      require(1);
+
+      final byte b = data[position++];
+      value |= (long) (b & 0x7F) << shift;
+
+      if (b >= 0)
+      {
+        return value;
+      }
+    }
+
+    throw new SerializationFailedException("Malformed variable-length integer.");
+  }
+
+  /**
+   * Skips the value of a field that is not known to the reader, such as
+   * one added by a newer version of the entity type.
+   *
+   * @param wireType The wire type of the value.
+   */
+  void skip(final int wireType)
+  {
+    switch (wireType)
+    {
+      case CompactOutput.VARINT:
+        readVarint();
+        break;
+
+      case CompactOutput.FIXED64:
+        require(8);
+        position += 8;
+        break;
+
+      case CompactOutput.LENGTH_DELIMITED:
+        final int length = readLength();
+        position += length;
+        break;
+
+      case CompactOutput.FIXED32:
+        require(4);
+        position += 4;
+        break;
+
+      default:
+        throw new SerializationFailedException(String.format("Unknown wire type %d.", wireType));
+    }
+  }
+
+  /**
+   * Reads the length of a length-delimited value, and checks that the
+   * value is within the current limit.
+   *
+   * @return The length.
+   */
+  private int readLength()
+  {
+    final long length = readVarint();
+
+    if (length > limit - position)
+    {
+      throw new SerializationFailedException("Truncated record.");
+    }
+
+    return (int) length;
+  }
+
+  /**
+   * Checks that a number of bytes can be read within the current limit.
+   *
+   * @param size The number of bytes.
+   */
+  private void require(final int size)
+  {
+    if (limit - position < size)
+    {
+      throw new SerializationFailedException("Truncated record.");
+    }
+  }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.serializer;
+
+import java.util.Arrays;
+
+/**
+ * A growable buffer for writing records in the compact binary format: a
+ * sequence of fields, each made of a tag (field number and wire type,
+ * written as a variable-length integer) followed by a value whose layout is
+ * given by the wire type.
+ */
+final class CompactOutput
+{
+  /**
+   * Wire type of values written as variable-length integers.
+   */
+  static final int VARINT           = 0;
+  /**
+   * Wire type of values written as eight bytes, little-endian.
+   */
+  static final int FIXED64          = 1;
+  /**
+   * Wire type of values written as their length, as a variable-length
+   * integer, followed by that many bytes.
+   */
+  static final int LENGTH_DELIMITED = 2;
+  /**
+   * Wire type of values written as four bytes, little-endian.
+   */
+  static final int FIXED32          = 5;
+
+  private byte[] buffer;
+  private int    position;
+
+  /**
+   * Creates an empty buffer.
+   *
+   * @param capacity The initial capacity of the buffer.
+   */
+  CompactOutput(final int capacity)
+  {
+    this.buffer = new byte[Math.max(16, capacity)];
+  }
+
+  /**
+   * Starts a length-delimited value, whose length is not known yet.
+   *
+   * @return A mark to pass to {@link #endLengthDelimited(int)} once the
+   * value has been written.
+   */
+  int beginLengthDelimited()
+  {
+    ensureCapacity(1);
+
+    // Reserve a single byte for the length, which is enough for values of
+    // up to 127 bytes; longer values are moved once their length is known.
+    return position++;
+  }
+
+  /**
+   * Ends a length-delimited value, writing its length in front of it.
+   *
+   * @param mark The mark returned by {@link #beginLengthDelimited()}.
+   */
+  void endLengthDelimited(final int mark)
+  {
+    final int length = position - mark - 1;
+    final int size = sizeOfVarint(length);
+
+    if (size > 1)
+    {
+      ensureCapacity(size - 1);
+      System.arraycopy(buffer, mark + 1, buffer, mark + size, length);
+      position += size - 1;
+    }
+
+    int value = length;
+    int index = mark;
+    while ((value & ~0x7F) != 0)
+    {
+      buffer[index++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    buffer[index] = (byte) value;
+  }
+
+  /**
+   * Gets the bytes written so far.
+   *
+   * @return A copy of the bytes written.
+   */
+  byte[] toByteArray()
+  {
+    return Arrays.copyOf(buffer, position);
+  }
+
+  /**
+   * Writes bytes as a length-delimited value.
+   *
+   * @param bytes The bytes.
+   */
+  void writeBytes(final byte[] bytes)
+  {
+    writeVarint(bytes.length);
+    ensureCapacity(bytes.length);
+    System.arraycopy(bytes, 0, buffer, position, bytes.length);
+    position += bytes.length;
+  }
+
+  /**
+   * Writes a value as four bytes, little-endian.
+   *
+   * @param value The value.
+   */
+  void writeFixed32(final int value)
+  {
+    ensureCapacity(4);
+    for (int i = 0; i < 4; ++i)
+    {
+      buffer[position++] = (byte) (value >>> (8 * i));
+    }
+  }
+
+  /**
+   * Writes a value as eight bytes, little-endian.
+   *
+   * @param value The value.
+   */
+  void writeFixed64(final long value)
+  {
+    ensureCapacity(8);
+    for (int i = 0; i < 8; ++i)
+    {
+      buffer[position++] = (byte) (value >>> (8 * i));
+    }
+  }
+
+  /**
+   * Writes a signed value as a variable-length integer, ZigZag encoded so
+   * that values close to zero take few bytes, whatever their sign.
+   *
+   * @param value The value.
+   */
+  void writeSignedVarint(final long value)
+  {
+    writeVarint((value << 1) ^ (value >> 63));
+  }
+
+  /**
+   * Writes a {@link String} as a length-delimited value, encoded in UTF-8.
+   *
+   * @param value The {@link String}.
+   */
+  void writeString(final String value)
+  {
+    final int mark = beginLengthDelimited();
+
+    // Reserve the largest possible size up front, so that characters can
+    // be written without checking the capacity each time.
+    ensureCapacity(3 * value.length());
+
+    final int length = value.length();
+    for (int i = 0; i < length; ++i)
+    {
+      final char c = value.charAt(i);
+
+      if (c < 0x80)
+      {
+        buffer[position++] = (byte) c;
+      }
+      else if (c < 0x800)
+      {
+        buffer[position++] = (byte) (0xC0 | (c >>> 6));
+        buffer[position++] = (byte) (0x80 | (c & 0x3F));
+      }
+      else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1)))
+      {
+        final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+        buffer[position++] = (byte) (0xF0 | (codePoint >>> 18));
+        buffer[position++] = (byte) (0x80 | ((codePoint >>> 12) & 0x3F));
+        buffer[position++] = (byte) (0x80 | ((codePoint >>> 6) & 0x3F));
+        buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+      }
+      else if (Character.isSurrogate(c))
+      {
+        // Unpaired surrogates cannot be encoded; write a replacement, as
+        // String#getBytes does.
+        buffer[position++] = '?';
+      }
+      else
+      {
+        buffer[position++] = (byte) (0xE0 | (c >>> 12));
+        buffer[position++] = (byte) (0x80 | ((c >>> 6) & 0x3F));
+        buffer[position++] = (byte) (0x80 | (c & 0x3F));
+      }
+    }
+
+    endLengthDelimited(mark);
+  }
+
+  /**
+   * Writes the tag of a field.
+   *
+   * @param number   The field number.
+   * @param wireType The wire type of the value that follows.
+   */
+  void writeTag(final int number, final int wireType)
+  {
+    writeVarint(((long) number << 3) | wireType);
+  }
+
+  /**
+   * Writes an unsigned value as a variable-length integer: seven bits per
+   * byte, least significant first, with the high bit of each byte set if
+   * more bytes follow.
+   *
+   * @param value The value.
+   */
+  void writeVarint(final long value)
+  {
+    ensureCapacity(10);
+
+    long remaining = value;
+    while ((remaining & ~0x7FL) != 0)
+    {
+      buffer[position++] = (byte) ((remaining & 0x7F) | 0x80);
+      remaining >>>= 7;
+    }
+    buffer[position++] = (byte) remaining;
+  }
+
+  /**
+   * Ensures that a number of bytes can be written without growing the
+   * buffer.
+   *
+   * @param size The number of bytes.
+   */
+  private void ensureCapacity(final int size)
+  {
+    if (buffer.length - position < size)
+    {
+      buffer = Arrays.copyOf(buffer, Math.max(2 * buffer.length, position + size));
+    }
+  }
+
+  /**
+   * Gets the number of bytes a value takes as a variable-length integer.
+   *
+   * @param value The value.
+   * @return The number of bytes.
+   */
+  private static int sizeOfVarint(final int value)
+  {
+    return value < (1 << 7) ? 1 : value < (1 << 14) ? 2 : value < (1 << 21) ? 3 : value < (1 << 28) ? 4 : 5;
+  }
+}
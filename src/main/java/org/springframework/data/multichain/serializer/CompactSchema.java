@@ -0,0 +1,571 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.serializer;
+
+import org.springframework.core.CollectionFactory;
+import org.springframework.core.serializer.support.SerializationFailedException;
+import org.springframework.data.convert.EntityInstantiator;
+import org.springframework.data.convert.EntityInstantiators;
+import org.springframework.data.mapping.MappingException;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
+import org.springframework.data.mapping.PreferredConstructor;
+import org.springframework.data.mapping.model.ParameterValueProvider;
+import org.springframework.data.multichain.mapping.MultiChainPersistentEntity;
+import org.springframework.data.multichain.mapping.MultiChainPersistentProperty;
+import org.springframework.data.util.TypeInformation;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The layout of an entity type in the compact binary format, derived from
+ * the mapping metadata of the type: one field per persistent property,
+ * tagged with {@link MultiChainPersistentProperty#getFieldNumber()}.
+ * <p>
+ * Fields are written in the order of their numbers, and {@literal null}
+ * values are not written. When reading, fields with unknown numbers are
+ * skipped and properties without a field keep the value given to them by
+ * the constructor, so that entity types can gain and lose properties
+ * without making existing items unreadable.
+ *
+ * @param <T> The entity type.
+ */
+final class CompactSchema<T>
+{
+  private static final Object[] NO_VALUES = new Object[0];
+
+  private final MultiChainPersistentEntity<T> entity;
+  private final Field[]                       fields;
+  private final EntityInstantiator            instantiator;
+  private final int[]                         numbers;
+
+  /**
+   * Derives the schema of an entity type.
+   *
+   * @param entity        The mapping metadata of the entity type.
+   * @param instantiators Creates entities.
+   * @param schemas       Gets the schema of other entity types, for
+   *                      properties whose values are entities.
+   * @throws MappingException if a property cannot be written in the
+   *                          compact format.
+   */
+  CompactSchema(final MultiChainPersistentEntity<T> entity
+      , final EntityInstantiators instantiators
+      , final Function<Class<?>, CompactSchema<?>> schemas)
+  {
+    final List<Field> fields = new ArrayList<>();
+    entity.doWithProperties((MultiChainPersistentProperty property) -> fields.add(new Field(property, schemas)));
+    fields.sort(Comparator.comparingInt(field -> field.number));
+
+    this.entity = entity;
+    this.fields = fields.toArray(new Field[0]);
+    this.instantiator = instantiators.getInstantiatorFor(entity);
+    this.numbers = fields.stream().mapToInt(field -> field.number).toArray();
+  }
+
+  /**
+   * Reads an entity from a record.
+   *
+   * @param in The input, limited to the record.
+   * @return The entity.
+   */
+  T read(final CompactInput in)
+  {
+    final Object[] values = fields.length > 0 ? new Object[fields.length] : NO_VALUES;
+
+    while (!in.isAtEnd())
+    {
+      final int tag = in.readTag();
+      final int index = Arrays.binarySearch(numbers, tag >>> 3);
+
+      if (index < 0)
+      {
+        in.skip(tag & 7);
+      }
+      else
+      {
+        fields[index].read(in, tag & 7, values, index);
+      }
+    }
+
+    for (int i = 0; i < fields.length; ++i)
+    {
+      values[i] = fields[i].complete(values[i]);
+    }
+
+    final T instance = instantiator.createInstance(entity, new ValueProvider(values));
+
+    final PreferredConstructor<T, MultiChainPersistentProperty> constructor = entity.getPersistenceConstructor();
+    final PersistentPropertyAccessor accessor = entity.getPropertyAccessor(instance);
+    for (int i = 0; i < fields.length; ++i)
+    {
+      if (values[i] != null && (constructor == null || !constructor.isConstructorParameter(fields[i].property)))
+      {
+        accessor.setProperty(fields[i].property, values[i]);
+      }
+    }
+
+    return instance;
+  }
+
+  /**
+   * Writes an entity as a record.
+   *
+   * @param instance The entity.
+   * @param out      The output.
+   */
+  void write(final Object instance, final CompactOutput out)
+  {
+    final PersistentPropertyAccessor accessor = entity.getPropertyAccessor(instance);
+
+    for (final Field field : fields)
+    {
+      final Object value = accessor.getProperty(field.property);
+
+      if (value != null)
+      {
+        field.write(out, value);
+      }
+    }
+  }
+
+  /**
+   * The field for a persistent property.
+   */
+  private static final class Field
+  {
+    private final CompactCodec                 codec;
+    private final Class<?>                     elementType;
+    private final Kind                         kind;
+    private final CompactCodec                 mapValueCodec;
+    private final int                          number;
+    private final MultiChainPersistentProperty property;
+
+    /**
+     * Derives the field for a persistent property.
+     *
+     * @param property The persistent property.
+     * @param schemas  Gets the schema of entity types.
+     */
+    Field(final MultiChainPersistentProperty property, final Function<Class<?>, CompactSchema<?>> schemas)
+    {
+      final Class<?> type = property.getType();
+
+      this.number = property.getFieldNumber();
+      this.property = property;
+
+      if (type == byte[].class || !(property.isCollectionLike() || property.isMap()))
+      {
+        this.kind = Kind.SINGLE;
+        this.elementType = type;
+        this.mapValueCodec = null;
+      }
+      else if (property.isMap())
+      {
+        this.kind = Kind.MAP;
+        this.elementType = getRequiredType(property, property.getTypeInformation().getComponentType());
+        this.mapValueCodec = CompactCodec.forType(getRequiredType(property, property.getTypeInformation().getMapValueType())
+            , schemas);
+      }
+      else
+      {
+        this.kind = type.isArray() ? Kind.ARRAY : Kind.COLLECTION;
+        this.elementType = type.isArray()
+                           ? type.getComponentType()
+                           : getRequiredType(property, property.getTypeInformation().getComponentType());
+        this.mapValueCodec = null;
+      }
+
+      try
+      {
+        this.codec = CompactCodec.forType(elementType, schemas);
+      }
+      catch (final MappingException e)
+      {
+        throw new MappingException(String.format("Property %s of %s cannot be written in the compact format."
+            , property.getName()
+            , property.getOwner().getName()), e);
+      }
+    }
+
+    /**
+     * Converts the values read for the field into the type of the property.
+     *
+     * @param value The value read, or the values collected for repeated
+     *              fields.
+     * @return The value of the property.
+     */
+    Object complete(final Object value)
+    {
+      if (value == null || kind == Kind.SINGLE)
+      {
+        return value;
+      }
+
+      final Class<?> type = property.getType();
+
+      if (kind == Kind.ARRAY)
+      {
+        final List<?> elements = (List<?>) value;
+        final Object array = Array.newInstance(elementType, elements.size());
+        for (int i = 0; i < elements.size(); ++i)
+        {
+          Array.set(array, i, elements.get(i));
+        }
+
+        return array;
+      }
+      else if (type.isInstance(value))
+      {
+        return value;
+      }
+      else if (kind == Kind.MAP)
+      {
+        final Map<Object, Object> map = CollectionFactory.createMap(type, elementType, ((Map<?, ?>) value).size());
+        map.putAll((Map<?, ?>) value);
+
+        return map;
+      }
+
+      final Collection<Object> collection = CollectionFactory.createCollection(type, elementType, ((List<?>) value).size());
+      collection.addAll((List<?>) value);
+
+      return collection;
+    }
+
+    /**
+     * Reads a value of the field.
+     *
+     * @param in       The input.
+     * @param wireType The wire type of the value.
+     * @param values   The values read so far, by field index.
+     * @param index    The index of the field.
+     */
+    @SuppressWarnings("unchecked")
+    void read(final CompactInput in, final int wireType, final Object[] values, final int index)
+    {
+      final int expected = kind == Kind.MAP ? CompactOutput.LENGTH_DELIMITED : codec.getWireType();
+
+      if (wireType != expected && !(isPacked() && wireType == CompactOutput.LENGTH_DELIMITED))
+      {
+        throw new SerializationFailedException(String.format("Field %d (%s) of %s has wire type %d instead of %d."
+            , number
+            , property.getName()
+            , property.getOwner().getName()
+            , wireType
+            , expected));
+      }
+
+      switch (kind)
+      {
+        case SINGLE:
+          values[index] = codec.read(in);
+          break;
+
+        case MAP:
+          if (values[index] == null)
+          {
+            values[index] = new LinkedHashMap<>();
+          }
+
+          readEntry(in, (Map<Object, Object>) values[index]);
+          break;
+
+        default:
+          if (values[index] == null)
+          {
+            values[index] = new ArrayList<>();
+          }
+
+          final List<Object> elements = (List<Object>) values[index];
+
+          if (wireType == codec.getWireType())
+          {
+            elements.add(codec.read(in));
+          }
+          else
+          {
+            final int limit = in.pushLimit();
+            while (!in.isAtEnd())
+            {
+              elements.add(codec.read(in));
+            }
+            in.popLimit(limit);
+          }
+      }
+    }
+
+    /**
+     * Writes the field, repeating it for each element of collections,
+     * arrays and maps.
+     *
+     * @param out   The output.
+     * @param value The value of the property.
+     */
+    void write(final CompactOutput out, final Object value)
+    {
+      switch (kind)
+      {
+        case SINGLE:
+          writeElement(out, value);
+          break;
+
+        case ARRAY:
+          final int length = Array.getLength(value);
+          if (isPacked())
+          {
+            final int mark = beginPacked(out);
+            for (int i = 0; i < length; ++i)
+            {
+              codec.write(out, Array.get(value, i));
+            }
+            out.endLengthDelimited(mark);
+          }
+          else
+          {
+            for (int i = 0; i < length; ++i)
+            {
+              writeElement(out, Array.get(value, i));
+            }
+          }
+          break;
+
+        case COLLECTION:
+          if (isPacked())
+          {
+            // Null elements cannot be written in either layout, and are
+            // left out.
+            final int mark = beginPacked(out);
+            for (final Object element : (Iterable<?>) value)
+            {
+              if (element != null)
+              {
+                codec.write(out, element);
+              }
+            }
+            out.endLengthDelimited(mark);
+          }
+          else
+          {
+            for (final Object element : (Iterable<?>) value)
+            {
+              writeElement(out, element);
+            }
+          }
+          break;
+
+        case MAP:
+          for (final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet())
+          {
+            if (entry.getKey() != null && entry.getValue() != null)
+            {
+              out.writeTag(number, CompactOutput.LENGTH_DELIMITED);
+
+              final int mark = out.beginLengthDelimited();
+              out.writeTag(1, codec.getWireType());
+              codec.write(out, entry.getKey());
+              out.writeTag(2, mapValueCodec.getWireType());
+              mapValueCodec.write(out, entry.getValue());
+              out.endLengthDelimited(mark);
+            }
+          }
+      }
+    }
+
+    /**
+     * Starts writing the elements of a packed field.
+     *
+     * @param out The output.
+     * @return The mark to end the field with.
+     */
+    private int beginPacked(final CompactOutput out)
+    {
+      out.writeTag(number, CompactOutput.LENGTH_DELIMITED);
+
+      return out.beginLengthDelimited();
+    }
+
+    /**
+     * Checks whether the elements of the field are packed: written one
+     * after the other as a single length-delimited value instead of as one
+     * field each, which saves a tag per element. Only repeated numeric
+     * values, which are not length-delimited themselves, are packed.
+     * Readers accept both layouts.
+     *
+     * @return {@literal true} if the elements are packed.
+     */
+    private boolean isPacked()
+    {
+      return (kind == Kind.ARRAY || kind == Kind.COLLECTION) && codec.getWireType() != CompactOutput.LENGTH_DELIMITED;
+    }
+
+    /**
+     * Reads a map entry, written as a nested record with the key as field
+     * {@literal 1} and the value as field {@literal 2}.
+     *
+     * @param in  The input.
+     * @param map The map to add the entry to.
+     */
+    private void readEntry(final CompactInput in, final Map<Object, Object> map)
+    {
+      final int limit = in.pushLimit();
+
+      Object key = null, value = null;
+      while (!in.isAtEnd())
+      {
+        final int tag = in.readTag();
+
+        if (tag == (1 << 3 | codec.getWireType()))
+        {
+          key = codec.read(in);
+        }
+        else if (tag == (2 << 3 | mapValueCodec.getWireType()))
+        {
+          value = mapValueCodec.read(in);
+        }
+        else
+        {
+          in.skip(tag & 7);
+        }
+      }
+
+      in.popLimit(limit);
+
+      if (key != null && value != null)
+      {
+        map.put(key, value);
+      }
+    }
+
+    /**
+     * Writes a single value, unless it is {@literal null}.
+     *
+     * @param out     The output.
+     * @param element The value.
+     */
+    private void writeElement(final CompactOutput out, final Object element)
+    {
+      if (element != null)
+      {
+        out.writeTag(number, codec.getWireType());
+        codec.write(out, element);
+      }
+    }
+
+    /**
+     * Gets the type of the elements of a collection or map property.
+     *
+     * @param property The property.
+     * @param type     The type information for the elements.
+     * @return The type of the elements.
+     * @throws MappingException if the type of the elements is not known.
+     */
+    private static Class<?> getRequiredType(final MultiChainPersistentProperty property, final TypeInformation<?> type)
+    {
+      if (type == null || type.getType() == Object.class)
+      {
+        throw new MappingException(String.format("Property %s of %s must declare the type of its elements to be written in the compact format."
+            , property.getName()
+            , property.getOwner().getName()));
+      }
+
+      return type.getType();
+    }
+  }
+
+  /**
+   * The ways in which properties are laid out as fields.
+   */
+  private enum Kind
+  {
+    /**
+     * A single value.
+     */
+    SINGLE,
+    /**
+     * An array, written as one field per element, or as a single packed
+     * field.
+     */
+    ARRAY,
+    /**
+     * A collection, written as one field per element, or as a single
+     * packed field.
+     */
+    COLLECTION,
+    /**
+     * A map, written as one field per entry.
+     */
+    MAP
+  }
+
+  /**
+   * Provides the values read for the properties that are passed to the
+   * persistence constructor of the entity type.
+   */
+  private final class ValueProvider implements ParameterValueProvider<MultiChainPersistentProperty>
+  {
+    private final Object[] values;
+
+    /**
+     * Creates a provider for the values read from a record.
+     *
+     * @param values The values, by field index.
+     */
+    ValueProvider(final Object[] values)
+    {
+      this.values = values;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <S> S getParameterValue(final PreferredConstructor.Parameter<S, MultiChainPersistentProperty> parameter)
+    {
+      final MultiChainPersistentProperty property = parameter.getName() != null
+                                                    ? entity.getPersistentProperty(parameter.getName())
+                                                    : null;
+
+      Object value = null;
+      for (int i = 0; property != null && i < fields.length; ++i)
+      {
+        if (fields[i].property.equals(property))
+        {
+          value = values[i];
+          break;
+        }
+      }
+
+      // Primitive parameters cannot be given null; give them the default
+      // value of their type, like a missing field in an entity created with
+      // a no-argument constructor.
+      if (value == null && parameter.getRawType().isPrimitive())
+      {
+        value = Array.get(Array.newInstance(parameter.getRawType(), 1), 0);
+      }
+
+      return (S) value;
+    }
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.serializer;
+
+import org.springframework.core.serializer.support.SerializationFailedException;
+
+/**
+ * <p>
+ * Compresses the data of MultiChain stream items, after entities have been
+ * converted by an {@link EntitySerializer}.
+ * </p>
+ * <p>
+ * Compressed items start with a header naming the codec that compressed
+ * them (see {@link EntitySerializers#COMPRESSED}), so they can be
+ * recognised and decompressed whatever codec is configured when they are
+ * read. Identifiers below {@literal 64} are reserved for the codecs
+ * provided by this module; custom codecs must use identifiers from
+ * {@literal 64} to {@literal 127}.
+ * </p>
+ * <p>
+ * Implementations must be thread-safe. Implementations that are selected
+ * through {@link org.springframework.data.multichain.annotation.MultiChainStream#compression()}
+ * must have a public no-argument constructor.
+ * </p>
+ */
+public interface CompressionCodec
+{
+  /**
+   * Compresses bytes.
+   *
+   * @param data   The bytes, which may contain other data before and after
+   *               those to compress.
+   * @param offset The position of the first byte to compress.
+   * @param length The number of bytes to compress.
+   * @return The compressed bytes.
+   * @throws SerializationFailedException if the bytes cannot be compressed.
+   */
+  byte[] compress(byte[] data, int offset, int length);
+
+  /**
+   * Decompresses bytes.
+   *
+   * @param data               The compressed bytes, which may contain other
+   *                           data before and after those to decompress.
+   * @param offset             The position of the first byte to
+   *                           decompress.
+   * @param length             The number of bytes to decompress.
+   * @param decompressedLength The number of bytes the data decompresses to,
+   *                           as read from the item. Items can be published
+   *                           by anyone allowed to write to the data stream,
+   *                           so implementations must check this length
+   *                           against a limit before allocating a buffer for
+   *                           it.
+   * @return The decompressed bytes.
+   * @throws SerializationFailedException if the bytes are corrupt, do not
+   *                                      decompress to
+   *                                      {@code decompressedLength} bytes,
+   *                                      or would decompress to more bytes
+   *                                      than allowed.
+   */
+  byte[] decompress(byte[] data, int offset, int length, int decompressedLength);
+
+  /**
+   * Gets the identifier of this codec.
+   *
+   * @return The codec identifier.
+   */
+  byte getId();
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.serializer;
+
+import org.springframework.core.serializer.support.SerializationFailedException;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static org.springframework.util.Assert.isTrue;
+
+/**
+ * A {@link CompressionCodec} that uses the Deflate algorithm provided by
+ * the JDK, in the zlib format. Since the length of the decompressed data is
+ * read from the item, which any publisher to the data stream can forge, data
+ * is only decompressed if that length does not exceed a maximum, and is
+ * within the ratio that Deflate can achieve for the compressed data.
+ */
+public class DeflateCompressionCodec implements CompressionCodec
+{
+  /**
+   * The default maximum number of bytes that data may decompress to.
+   */
+  public static final int DEFAULT_MAX_DECOMPRESSED_LENGTH = 64 * 1024 * 1024;
+
+  /**
+   * The largest ratio of decompressed to compressed length that Deflate can
+   * achieve.
+   */
+  private static final long MAX_RATIO = 1032;
+
+  private final int level;
+  private final int maxDecompressedLength;
+
+  /**
+   * Creates a codec that uses the default compression level.
+   */
+  public DeflateCompressionCodec()
+  {
+    this(Deflater.DEFAULT_COMPRESSION);
+  }
+
+  /**
+   * Creates a codec that uses a given compression level.
+   *
+   * @param level The compression level, from {@link Deflater#BEST_SPEED} to
+   *              {@link Deflater#BEST_COMPRESSION}, or
+   *              {@link Deflater#DEFAULT_COMPRESSION}.
+   * @throws IllegalArgumentException if {@code level} is not a valid
+   *                                  compression level.
+   */
+  public DeflateCompressionCodec(final int level)
+  {
+    this(level, DEFAULT_MAX_DECOMPRESSED_LENGTH);
+  }
+
+  /**
+   * Creates a codec that uses a given compression level, and decompresses
+   * data to no more than a given number of bytes.
+   *
+   * @param level                 The compression level, from
+   *                              {@link Deflater#BEST_SPEED} to
+   *                              {@link Deflater#BEST_COMPRESSION}, or
+   *                              {@link Deflater#DEFAULT_COMPRESSION}.
+   * @param maxDecompressedLength The maximum number of bytes that data may
+   *                              decompress to.
+   * @throws IllegalArgumentException if {@code level} is not a valid
+   *                                  compression level, or if
+   *                                  {@code maxDecompressedLength} is not
+   *                                  positive.
+   */
+  public DeflateCompressionCodec(final int level, final int maxDecompressedLength)
+  {
+    isTrue(level == Deflater.DEFAULT_COMPRESSION || (level >= Deflater.NO_COMPRESSION && level <= Deflater.BEST_COMPRESSION)
+        , String.format("Compression level %d is not valid.", level));
+    isTrue(maxDecompressedLength > 0, "Maximum decompressed length must be greater than zero.");
+
+    this.level = level;
+    this.maxDecompressedLength = maxDecompressedLength;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public byte[] compress(final byte[] data, final int offset, final int length)
+  {
+    final Deflater deflater = new Deflater(level);
+
+    try
+    {
+      deflater.setInput(data, offset, length);
+      deflater.finish();
+
+      // Repetitive data usually compresses to a fraction of its length, and
+      // the buffer grows for data that does not.
+      byte[] buffer = new byte[Math.max(64, length / 4)];
+      int size = 0;
+
+      while (!deflater.finished())
+      {
+        if (size == buffer.length)
+        {
+          buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+
+        size += deflater.deflate(buffer, size, buffer.length - size);
+      }
+
+      return Arrays.copyOf(buffer, size);
+    }
+    finally
+    {
+      deflater.end();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @throws SerializationFailedException if {@code decompressedLength}
+   *                                      exceeds the maximum for this codec,
+   *                                      or the length that Deflate can
+   *                                      produce from {@code length} bytes.
+   */
+  @Override
+  public byte[] decompress(final byte[] data, final int offset, final int length, final int decompressedLength)
+  {
+    // Check the length before allocating a buffer for it.
+    if (decompressedLength > maxDecompressedLength)
+    {
+      throw new SerializationFailedException(String.format("Compressed data would decompress to %d bytes, more than the maximum of %d."
+          , decompressedLength
+          , maxDecompressedLength));
+    }
+    else if (decompressedLength > length * MAX_RATIO)
+    {
+      throw new SerializationFailedException(String.format("%d bytes of compressed data cannot decompress to %d bytes."
+          , length
+          , decompressedLength));
+    }
+
+    final Inflater inflater = new Inflater();
+
+    try
+    {
+      inflater.setInput(data, offset, length);
+
+      final byte[] result = new byte[decompressedLength];
+      final byte[] excess = new byte[1];
+      int size = 0;
+
+      while (!inflater.finished())
+      {
+        // Once the expected number of bytes has been produced, the rest of
+        // the data must not produce any more.
+        final int inflated = size < decompressedLength
+                             ? inflater.inflate(result, size, decompressedLength - size)
+                             : inflater.inflate(excess);
+
+        size += inflated;
+
+        if (size > decompressedLength || inflated == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+        {
+          break;
+        }
+      }
+
+      if (!inflater.finished() || size != decompressedLength)
+      {
+        throw new SerializationFailedException(String.format("Compressed data does not decompress to %d bytes."
+            , decompressedLength));
+      }
+
+      return result;
+    }
+    catch (final DataFormatException e)
+    {
+      throw new SerializationFailedException("Compressed data is corrupt.", e);
+    }
+    finally
+    {
+      inflater.end();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public byte getId()
+  {
+    return EntitySerializers.DEFLATE;
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.serializer;
+
+import org.springframework.core.serializer.support.SerializationFailedException;
+
+/**
+ * <p>
+ * Converts entities to and from the bytes stored as the data of MultiChain
+ * stream items.
+ * </p>
+ * <p>
+ * Each serializer is identified by a format identifier, which is written in
+ * a short header in front of the bytes it produces, so that items written
+ * in different formats can be stored in the same stream and read side by
+ * side. Format {@link EntitySerializers#GSON} is written without a header,
+ * for compatibility with items written by earlier versions. Identifiers
+ * below {@literal 64} are reserved for the serializers provided by this
+ * module (see {@link EntitySerializers}); custom serializers must use
+ * identifiers from {@literal 64} to {@literal 127}.
+ * </p>
+ * <p>
+ * Implementations must be thread-safe. Implementations that are selected
+ * through {@link org.springframework.data.multichain.annotation.MultiChainStream#serializer()}
+ * must have a public no-argument constructor.
+ * </p>
+ */
+public interface EntitySerializer
+{
+  /**
+   * Gets the identifier of the format written by this serializer.
+   *
+   * @return The format identifier.
+   */
+  byte getFormat();
+
+  /**
+   * Converts bytes into an entity.
+   *
+   * @param data   The bytes, which may contain other data before and after
+   *               those to convert.
+   * @param offset The position of the first byte to convert.
+   * @param length The number of bytes to convert.
+   * @param type   The type of entity.
+   * @param <T>    The type of entity.
+   * @return The entity.
+   * @throws SerializationFailedException if the bytes cannot be converted.
+   */
+  <T> T deserialize(byte[] data, int offset, int length, Class<T> type);
+
+  /**
+   * Converts an entity into bytes.
+   *
+   * @param entity The entity.
+   * @return The bytes.
+   * @throws SerializationFailedException if the entity cannot be converted.
+   */
+  byte[] serialize(Object entity);
+}
@@ -0,0 +1,365 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.serializer;
+
+import org.springframework.core.serializer.support.SerializationFailedException;
+import org.springframework.data.convert.EntityInstantiators;
+import org.springframework.data.convert.ReflectionEntityInstantiator;
+import org.springframework.util.ClassUtils;
+
+import static org.springframework.util.Assert.notNull;
+
+/**
+ * <p>
+ * Identifiers of the formats written by the {@link EntitySerializer}s
+ * provided by this module, and methods for writing and reading items that
+ * identify their own format.
+ * </p>
+ * <p>
+ * An item written in any format other than {@link #GSON} starts with a two
+ * byte header: {@link #MAGIC}, followed by the format identifier. The magic
+ * byte can never start a valid UTF-8 sequence, so items without the header,
+ * which includes all items written by earlier versions, are read as JSON.
+ * </p>
+ * <p>
+ * An item may also be compressed by a {@link CompressionCodec}, in which
+ * case it starts with a six byte header: {@link #COMPRESSED}, followed by
+ * the codec identifier and the length of the item before compression, as a
+ * four byte big-endian integer. The compressed bytes are those of the item
+ * with its own format header, if any.
+ * </p>
+ */
+public final class EntitySerializers
+{
+  /**
+   * Identifier of the format written by {@link GsonEntitySerializer}.
+   */
+  public static final byte GSON          = 0;
+  /**
+   * Identifier of the format written by {@link JacksonJsonEntitySerializer}.
+   */
+  public static final byte JACKSON_JSON  = 1;
+  /**
+   * Identifier of the format written by {@link JacksonCborEntitySerializer}.
+   */
+  public static final byte JACKSON_CBOR  = 2;
+  /**
+   * Identifier of the format written by {@link JacksonSmileEntitySerializer}.
+   */
+  public static final byte JACKSON_SMILE = 3;
+  /**
+   * Identifier of the format written by {@link CompactEntitySerializer}.
+   */
+  public static final byte COMPACT       = 4;
+  /**
+   * The first byte of the header that identifies the format of an item.
+   */
+  public static final byte MAGIC         = (byte) 0xF5;
+  /**
+   * The first byte of the header that identifies a compressed item.
+   */
+  public static final byte COMPRESSED    = (byte) 0xF6;
+  /**
+   * Identifier of the codec {@link DeflateCompressionCodec}.
+   */
+  public static final byte DEFLATE       = 1;
+
+  private static final int COMPRESSED_HEADER_LENGTH = 6;
+  private static final int HEADER_LENGTH            = 2;
+  private static final int MAX_FORMAT               = 127;
+
+  private static final String NATIVE_IMAGE_PROPERTY = "org.graalvm.nativeimage.imagecode";
+
+  /**
+   * Prevents instantiation.
+   */
+  private EntitySerializers()
+  {
+  }
+
+  /**
+   * Gets the built-in {@link CompressionCodec} with a given identifier.
+   *
+   * @param id The identifier of the codec.
+   * @return A {@link CompressionCodec}, or {@literal null} if there is none
+   * with the identifier.
+   */
+  public static CompressionCodec getCodec(final byte id)
+  {
+    return id >= 0 ? BuiltIn.CODECS[id] : null;
+  }
+
+  /**
+   * Gets the built-in {@link EntitySerializer} for a format, if the
+   * libraries it requires are available.
+   *
+   * @param format The identifier of the format.
+   * @return An {@link EntitySerializer}, or {@literal null} if there is none
+   * for the format.
+   */
+  public static EntitySerializer getSerializer(final byte format)
+  {
+    return format >= 0 ? BuiltIn.SERIALIZERS[format] : null;
+  }
+
+  /**
+   * Gets the identifier of the format of an item that is not compressed.
+   *
+   * @param data The item.
+   * @return The identifier of the format.
+   */
+  public static byte getFormat(final byte[] data)
+  {
+    return hasHeader(data) ? data[1] : GSON;
+  }
+
+  /**
+   * Converts an item into an entity, using the serializer for the format of
+   * the item.
+   *
+   * @param data       The item.
+   * @param type       The type of entity.
+   * @param serializer The serializer to use if it writes the format of the
+   *                   item; the built-in serializer for the format is used
+   *                   otherwise.
+   * @param <T>        The type of entity.
+   * @return The entity.
+   * @throws SerializationFailedException if the format of the item is not
+   *                                      known, or the item cannot be
+   *                                      converted.
+   */
+  public static <T> T read(final byte[] data, final Class<T> type, final EntitySerializer serializer)
+  {
+    return read(data, type, serializer, null);
+  }
+
+  /**
+   * Converts an item, which may be compressed, into an entity, using the
+   * serializer for the format of the item.
+   *
+   * @param data       The item.
+   * @param type       The type of entity.
+   * @param serializer The serializer to use if it writes the format of the
+   *                   item; the built-in serializer for the format is used
+   *                   otherwise.
+   * @param codec      The codec to use if it compressed the item; the
+   *                   built-in codec with the identifier in the item is used
+   *                   otherwise.
+   * @param <T>        The type of entity.
+   * @return The entity.
+   * @throws SerializationFailedException if the format of the item or the
+   *                                      codec that compressed it is not
+   *                                      known, or the item cannot be
+   *                                      converted.
+   */
+  public static <T> T read(final byte[] data
+      , final Class<T> type
+      , final EntitySerializer serializer
+      , final CompressionCodec codec)
+  {
+    notNull(data, "Data must not be null.");
+    notNull(type, "Type must not be null.");
+
+    final byte[] item = isCompressed(data) ? decompress(data, codec) : data;
+    final byte format = getFormat(item);
+    final int offset = format == GSON ? 0 : HEADER_LENGTH;
+
+    final EntitySerializer reader = serializer != null && serializer.getFormat() == format
+                                    ? serializer
+                                    : getSerializer(format);
+
+    if (reader == null)
+    {
+      throw new SerializationFailedException(String.format("No serializer available for format %d.", format));
+    }
+
+    return reader.deserialize(item, offset, item.length - offset, type);
+  }
+
+  /**
+   * Converts an entity into an item, preceded by the header identifying the
+   * format of the item if necessary.
+   *
+   * @param entity     The entity.
+   * @param serializer The serializer to use.
+   * @return The item.
+   * @throws SerializationFailedException if the entity cannot be converted.
+   */
+  public static byte[] write(final Object entity, final EntitySerializer serializer)
+  {
+    notNull(serializer, "EntitySerializer must not be null.");
+
+    final byte[] body = serializer.serialize(entity);
+
+    if (serializer.getFormat() == GSON)
+    {
+      return body;
+    }
+
+    final byte[] data = new byte[HEADER_LENGTH + body.length];
+    data[0] = MAGIC;
+    data[1] = serializer.getFormat();
+    System.arraycopy(body, 0, data, HEADER_LENGTH, body.length);
+
+    return data;
+  }
+
+  /**
+   * Converts an entity into an item, preceded by the header identifying the
+   * format of the item if necessary, and compresses the item if it is large
+   * enough and compression makes it smaller.
+   *
+   * @param entity     The entity.
+   * @param serializer The serializer to use.
+   * @param codec      The codec to compress the item with, or
+   *                   {@literal null} to leave the item uncompressed.
+   * @param threshold  The length from which items are compressed.
+   * @return The item.
+   * @throws SerializationFailedException if the entity cannot be converted
+   *                                      or compressed.
+   */
+  public static byte[] write(final Object entity
+      , final EntitySerializer serializer
+      , final CompressionCodec codec
+      , final int threshold)
+  {
+    final byte[] data = write(entity, serializer);
+
+    if (codec == null || data.length < threshold)
+    {
+      return data;
+    }
+
+    final byte[] body = codec.compress(data, 0, data.length);
+
+    if (COMPRESSED_HEADER_LENGTH + body.length >= data.length)
+    {
+      return data;
+    }
+
+    final byte[] compressed = new byte[COMPRESSED_HEADER_LENGTH + body.length];
+    compressed[0] = COMPRESSED;
+    compressed[1] = codec.getId();
+    compressed[2] = (byte) (data.length >>> 24);
+    compressed[3] = (byte) (data.length >>> 16);
+    compressed[4] = (byte) (data.length >>> 8);
+    compressed[5] = (byte) data.length;
+    System.arraycopy(body, 0, compressed, COMPRESSED_HEADER_LENGTH, body.length);
+
+    return compressed;
+  }
+
+  /**
+   * Creates the {@link EntityInstantiators} with which serializers create
+   * the entities they read. Instantiators generate a class for each entity
+   * type, except in a GraalVM native image, which cannot define classes at
+   * runtime, where entities are created through reflection.
+   *
+   * @return The instantiators.
+   */
+  static EntityInstantiators createEntityInstantiators()
+  {
+    return System.getProperty(NATIVE_IMAGE_PROPERTY) != null
+           ? new EntityInstantiators(ReflectionEntityInstantiator.INSTANCE)
+           : new EntityInstantiators();
+  }
+
+  /**
+   * Checks whether an item is compressed.
+   *
+   * @param data The item.
+   * @return {@literal true} if the item starts with the header of a
+   * compressed item.
+   */
+  public static boolean isCompressed(final byte[] data)
+  {
+    return data.length >= COMPRESSED_HEADER_LENGTH && data[0] == COMPRESSED;
+  }
+
+  /**
+   * Decompresses a compressed item.
+   *
+   * @param data  The compressed item.
+   * @param codec The codec to use if it compressed the item; the built-in
+   *              codec with the identifier in the item is used otherwise.
+   * @return The item.
+   * @throws SerializationFailedException if the codec is not known, or the
+   *                                      item cannot be decompressed.
+   */
+  private static byte[] decompress(final byte[] data, final CompressionCodec codec)
+  {
+    final byte id = data[1];
+    final int length = (data[2] & 0xFF) << 24 | (data[3] & 0xFF) << 16 | (data[4] & 0xFF) << 8 | data[5] & 0xFF;
+
+    final CompressionCodec decompressor = codec != null && codec.getId() == id ? codec : getCodec(id);
+
+    if (decompressor == null)
+    {
+      throw new SerializationFailedException(String.format("No codec available for compression %d.", id));
+    }
+    else if (length < 0)
+    {
+      throw new SerializationFailedException(String.format("Compressed item has invalid length %d.", length));
+    }
+
+    return decompressor.decompress(data, COMPRESSED_HEADER_LENGTH, data.length - COMPRESSED_HEADER_LENGTH, length);
+  }
+
+  /**
+   * Checks whether an item starts with a format header.
+   *
+   * @param data The item.
+   * @return {@literal true} if the item starts with a format header.
+   */
+  private static boolean hasHeader(final byte[] data)
+  {
+    return data.length >= HEADER_LENGTH && data[0] == MAGIC;
+  }
+
+  /**
+   * Holds the built-in codecs and serializers, which are created the first
+   * time they are needed, for those formats whose libraries are available.
+   */
+  private static final class BuiltIn
+  {
+    private static final CompressionCodec[] CODECS      = new CompressionCodec[MAX_FORMAT + 1];
+    private static final EntitySerializer[] SERIALIZERS = new EntitySerializer[MAX_FORMAT + 1];
+
+    static
+    {
+      final ClassLoader classLoader = EntitySerializers.class.getClassLoader();
+
+      CODECS[DEFLATE] = new DeflateCompressionCodec();
+
+      SERIALIZERS[GSON] = new GsonEntitySerializer();
+      SERIALIZERS[COMPACT] = new CompactEntitySerializer();
+
+      if (ClassUtils.isPresent("com.fasterxml.jackson.databind.ObjectMapper", classLoader))
+      {
+        SERIALIZERS[JACKSON_JSON] = new JacksonJsonEntitySerializer();
+
+        if (ClassUtils.isPresent("com.fasterxml.jackson.dataformat.cbor.CBORFactory", classLoader))
+        {
+          SERIALIZERS[JACKSON_CBOR] = new JacksonCborEntitySerializer();
+        }
+        if (ClassUtils.isPresent("com.fasterxml.jackson.dataformat.smile.SmileFactory", classLoader))
+        {
+          SERIALIZERS[JACKSON_SMILE] = new JacksonSmileEntitySerializer();
+        }
+      }
+    }
+  }
+}
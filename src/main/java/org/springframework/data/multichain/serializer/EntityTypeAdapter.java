@@ -0,0 +1,1033 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.serializer;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.annotations.Since;
+import com.google.gson.annotations.Until;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.springframework.data.convert.EntityInstantiator;
+import org.springframework.data.convert.EntityInstantiators;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
+import org.springframework.data.mapping.PreferredConstructor;
+import org.springframework.data.mapping.model.ParameterValueProvider;
+import org.springframework.data.multichain.mapping.MultiChainPersistentEntity;
+import org.springframework.data.multichain.mapping.MultiChainPersistentProperty;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A Gson {@link TypeAdapter} for an entity type, with one binding per
+ * persistent property, derived from the mapping metadata of the type by
+ * {@link EntityTypeAdapterFactory}.
+ * <p>
+ * Properties are written in the same order, and under the same names, as
+ * by Gson's reflective adapter. When reading, the binding following the
+ * last one read is tried before looking names up, since properties are
+ * usually read in the order in which they were written.
+ *
+ * @param <T> The entity type.
+ */
+final class EntityTypeAdapter<T> extends TypeAdapter<T>
+{
+  private static final ParameterValueProvider<MultiChainPersistentProperty> NO_PARAMETERS = new NoParameters();
+
+  private static final int EXCLUDED_MODIFIERS = Modifier.STATIC | Modifier.TRANSIENT;
+
+  private final Binding[]                     bindings;
+  private final Map<String, Binding>          bindingsByName;
+  private final MultiChainPersistentEntity<T> entity;
+  private final EntityInstantiator            instantiator;
+
+  /**
+   * Creates an adapter.
+   *
+   * @param entity         The mapping metadata of the entity type.
+   * @param instantiator   Creates entities.
+   * @param bindings       The bindings, in the order in which they are
+   *                       written.
+   * @param bindingsByName The bindings, by each name they are read from.
+   */
+  private EntityTypeAdapter(final MultiChainPersistentEntity<T> entity
+      , final EntityInstantiator instantiator
+      , final Binding[] bindings
+      , final Map<String, Binding> bindingsByName)
+  {
+    this.bindings = bindings;
+    this.bindingsByName = bindingsByName;
+    this.entity = entity;
+    this.instantiator = instantiator;
+  }
+
+  /**
+   * Derives the adapter for an entity type.
+   *
+   * @param gson          The {@link Gson} instance the adapter is for.
+   * @param entity        The mapping metadata of the entity type.
+   * @param instantiators Creates entities.
+   * @param <T>           The entity type.
+   * @return The adapter, or {@literal null} if Gson would not write the
+   * entity type as a plain entity.
+   */
+  static <T> EntityTypeAdapter<T> create(final Gson gson
+      , final MultiChainPersistentEntity<T> entity
+      , final EntityInstantiators instantiators)
+  {
+    final PreferredConstructor<T, MultiChainPersistentProperty> constructor = entity.getPersistenceConstructor();
+
+    // Gson never passes values to constructors.
+    if (constructor == null || constructor.hasParameters())
+    {
+      return null;
+    }
+
+    final List<Binding> bindings = new ArrayList<>();
+    final Map<String, Binding> bindingsByName = new HashMap<>();
+
+    // Fields are bound in the same order as by Gson: those declared by the
+    // entity type first, then those declared by each of its superclasses.
+    for (Class<?> type = entity.getType(); type != Object.class; type = type.getSuperclass())
+    {
+      for (final Field field : type.getDeclaredFields())
+      {
+        if ((field.getModifiers() & EXCLUDED_MODIFIERS) != 0 || field.isSynthetic())
+        {
+          continue;
+        }
+
+        final MultiChainPersistentProperty property = entity.getPersistentProperty(field.getName());
+
+        if (property == null || !field.equals(property.getField()) || !isSupported(field))
+        {
+          return null;
+        }
+
+        final String[] names = getNames(gson, field);
+        final Binding binding = createBinding(gson, property, field, names[0], bindings.size());
+
+        for (final String name : names)
+        {
+          if (bindingsByName.putIfAbsent(name, binding) != null)
+          {
+            return null;
+          }
+        }
+
+        bindings.add(binding);
+      }
+    }
+
+    return new EntityTypeAdapter<>(entity
+        , instantiators.getInstantiatorFor(entity)
+        , bindings.toArray(new Binding[0])
+        , bindingsByName);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public T read(final JsonReader in) throws IOException
+  {
+    if (in.peek() == JsonToken.NULL)
+    {
+      in.nextNull();
+
+      return null;
+    }
+
+    final PersistentPropertyAccessor accessor = entity.getPropertyAccessor(instantiator.createInstance(entity, NO_PARAMETERS));
+
+    in.beginObject();
+
+    int next = 0;
+    while (in.hasNext())
+    {
+      final String name = in.nextName();
+      final Binding binding = next < bindings.length && bindings[next].name.equals(name)
+                              ? bindings[next]
+                              : bindingsByName.get(name);
+
+      if (binding == null)
+      {
+        in.skipValue();
+      }
+      else
+      {
+        binding.read(in, accessor);
+        next = binding.index + 1;
+      }
+    }
+
+    in.endObject();
+
+    return (T) accessor.getBean();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void write(final JsonWriter out, final T value) throws IOException
+  {
+    if (value == null)
+    {
+      out.nullValue();
+
+      return;
+    }
+
+    final PersistentPropertyAccessor accessor = entity.getPropertyAccessor(value);
+
+    out.beginObject();
+
+    for (final Binding binding : bindings)
+    {
+      binding.write(out, accessor);
+    }
+
+    out.endObject();
+  }
+
+  /**
+   * Creates the binding for a property, specialized by its type.
+   *
+   * @param gson     The {@link Gson} instance the adapter is for.
+   * @param property The property.
+   * @param field    The field of the property.
+   * @param name     The name to write the property under.
+   * @param index    The position of the binding.
+   * @return The binding.
+   */
+  private static Binding createBinding(final Gson gson
+      , final MultiChainPersistentProperty property
+      , final Field field
+      , final String name
+      , final int index)
+  {
+    final Class<?> type = field.getType();
+
+    if (type == boolean.class)
+    {
+      return new BooleanBinding(property, name, index);
+    }
+    else if (type == int.class)
+    {
+      return new IntBinding(property, name, index);
+    }
+    else if (type == long.class)
+    {
+      return new LongBinding(property, name, index);
+    }
+    else if (type == double.class)
+    {
+      return new DoubleBinding(property, name, index, gson.getAdapter(double.class));
+    }
+    else if (type == String.class)
+    {
+      return new StringBinding(property, name, index);
+    }
+    else if (type == int[].class)
+    {
+      return new IntArrayBinding(property, name, index);
+    }
+    else if (type == long[].class)
+    {
+      return new LongArrayBinding(property, name, index);
+    }
+    else if (type == double[].class)
+    {
+      return new DoubleArrayBinding(property, name, index, gson.getAdapter(double.class));
+    }
+
+    return new ObjectBinding(property, name, index, gson, field);
+  }
+
+  /**
+   * Gets the names of the JSON member for a field: the name it is written
+   * under, followed by any alternative names it is also read from.
+   *
+   * @param gson  The {@link Gson} instance the adapter is for.
+   * @param field The field.
+   * @return The names.
+   */
+  private static String[] getNames(final Gson gson, final Field field)
+  {
+    final SerializedName annotation = field.getAnnotation(SerializedName.class);
+
+    if (annotation == null)
+    {
+      return new String[] { gson.fieldNamingStrategy().translateName(field) };
+    }
+
+    final String[] names = new String[annotation.alternate().length + 1];
+    names[0] = annotation.value();
+    System.arraycopy(annotation.alternate(), 0, names, 1, annotation.alternate().length);
+
+    return names;
+  }
+
+  /**
+   * Checks whether a type refers to type variables, which Gson resolves
+   * against the entity type.
+   *
+   * @param type The type.
+   * @return {@literal true} if the type refers to type variables.
+   */
+  private static boolean hasTypeVariables(final Type type)
+  {
+    if (type instanceof TypeVariable)
+    {
+      return true;
+    }
+    else if (type instanceof ParameterizedType)
+    {
+      return Arrays.stream(((ParameterizedType) type).getActualTypeArguments()).anyMatch(EntityTypeAdapter::hasTypeVariables);
+    }
+    else if (type instanceof GenericArrayType)
+    {
+      return hasTypeVariables(((GenericArrayType) type).getGenericComponentType());
+    }
+    else if (type instanceof WildcardType)
+    {
+      return Arrays.stream(((WildcardType) type).getUpperBounds()).anyMatch(EntityTypeAdapter::hasTypeVariables)
+             || Arrays.stream(((WildcardType) type).getLowerBounds()).anyMatch(EntityTypeAdapter::hasTypeVariables);
+    }
+
+    return false;
+  }
+
+  /**
+   * Checks whether a field is written by Gson in a way that bindings
+   * reproduce: without annotations that change how it is excluded or
+   * written, and with a type that does not depend on the entity type.
+   *
+   * @param field The field.
+   * @return {@literal true} if the field can be bound.
+   */
+  private static boolean isSupported(final Field field)
+  {
+    return !field.isAnnotationPresent(Expose.class)
+           && !field.isAnnotationPresent(JsonAdapter.class)
+           && !field.isAnnotationPresent(Since.class)
+           && !field.isAnnotationPresent(Until.class)
+           && !hasTypeVariables(field.getGenericType());
+  }
+
+  /**
+   * Reads an {@code int} value, failing as Gson does if it is not one.
+   *
+   * @param in The JSON input.
+   * @return The value.
+   * @throws IOException if the value cannot be read.
+   */
+  private static int nextInt(final JsonReader in) throws IOException
+  {
+    try
+    {
+      return in.nextInt();
+    }
+    catch (final NumberFormatException e)
+    {
+      throw new JsonSyntaxException(e);
+    }
+  }
+
+  /**
+   * Reads a {@code long} value, failing as Gson does if it is not one.
+   *
+   * @param in The JSON input.
+   * @return The value.
+   * @throws IOException if the value cannot be read.
+   */
+  private static long nextLong(final JsonReader in) throws IOException
+  {
+    try
+    {
+      return in.nextLong();
+    }
+    catch (final NumberFormatException e)
+    {
+      throw new JsonSyntaxException(e);
+    }
+  }
+
+  /**
+   * Writes a {@code double} value, leaving values that are not finite to
+   * the adapter Gson uses, which either writes them or rejects them
+   * depending on its settings.
+   *
+   * @param out     The JSON output.
+   * @param value   The value.
+   * @param adapter The adapter Gson uses for {@code double} values.
+   * @throws IOException if the value cannot be written.
+   */
+  private static void writeDouble(final JsonWriter out, final double value, final TypeAdapter<Double> adapter) throws IOException
+  {
+    if (Double.isNaN(value) || Double.isInfinite(value))
+    {
+      adapter.write(out, value);
+    }
+    else
+    {
+      out.value(value);
+    }
+  }
+  /**
+   * Reads and writes the JSON member for a property.
+   */
+  private abstract static class Binding
+  {
+    final int                          index;
+    final String                       name;
+    final MultiChainPersistentProperty property;
+
+    /**
+     * Creates a binding.
+     *
+     * @param property The property.
+     * @param name     The name to write the property under.
+     * @param index    The position of the binding.
+     */
+    Binding(final MultiChainPersistentProperty property, final String name, final int index)
+    {
+      this.index = index;
+      this.name = name;
+      this.property = property;
+    }
+
+    /**
+     * Reads the value of the property.
+     *
+     * @param in       The JSON input, positioned at the value.
+     * @param accessor The accessor for the entity being read.
+     * @throws IOException if the value cannot be read.
+     */
+    abstract void read(JsonReader in, PersistentPropertyAccessor accessor) throws IOException;
+
+    /**
+     * Writes the property, as a name followed by a value.
+     *
+     * @param out      The JSON output.
+     * @param accessor The accessor for the entity being written.
+     * @throws IOException if the property cannot be written.
+     */
+    abstract void write(JsonWriter out, PersistentPropertyAccessor accessor) throws IOException;
+  }
+
+  /**
+   * A binding for a {@code boolean} property.
+   */
+  private static final class BooleanBinding extends Binding
+  {
+    /**
+     * Creates a binding.
+     *
+     * @param property The property.
+     * @param name     The name to write the property under.
+     * @param index    The position of the binding.
+     */
+    BooleanBinding(final MultiChainPersistentProperty property, final String name, final int index)
+    {
+      super(property, name, index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void read(final JsonReader in, final PersistentPropertyAccessor accessor) throws IOException
+    {
+      final JsonToken token = in.peek();
+
+      if (token == JsonToken.NULL)
+      {
+        in.nextNull();
+      }
+      else
+      {
+        accessor.setProperty(property, token == JsonToken.STRING ? Boolean.parseBoolean(in.nextString()) : in.nextBoolean());
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void write(final JsonWriter out, final PersistentPropertyAccessor accessor) throws IOException
+    {
+      out.name(name).value((boolean) accessor.getProperty(property));
+    }
+  }
+
+  /**
+   * A binding for a {@code double} property.
+   */
+  private static final class DoubleBinding extends Binding
+  {
+    private final TypeAdapter<Double> adapter;
+
+    /**
+     * Creates a binding.
+     *
+     * @param property The property.
+     * @param name     The name to write the property under.
+     * @param index    The position of the binding.
+     * @param adapter  The adapter Gson uses for {@code double} values, which
+     *                 decides how values that are not finite are written.
+     */
+    DoubleBinding(final MultiChainPersistentProperty property
+        , final String name
+        , final int index
+        , final TypeAdapter<Double> adapter)
+    {
+      super(property, name, index);
+
+      this.adapter = adapter;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void read(final JsonReader in, final PersistentPropertyAccessor accessor) throws IOException
+    {
+      if (in.peek() == JsonToken.NULL)
+      {
+        in.nextNull();
+      }
+      else
+      {
+        accessor.setProperty(property, in.nextDouble());
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void write(final JsonWriter out, final PersistentPropertyAccessor accessor) throws IOException
+    {
+      writeDouble(out.name(name), (double) accessor.getProperty(property), adapter);
+    }
+  }
+
+  /**
+   * A binding for a {@code double[]} property.
+   */
+  private static final class DoubleArrayBinding extends Binding
+  {
+    private final TypeAdapter<Double> adapter;
+
+    /**
+     * Creates a binding.
+     *
+     * @param property The property.
+     * @param name     The name to write the property under.
+     * @param index    The position of the binding.
+     * @param adapter  The adapter Gson uses for {@code double} values, which
+     *                 decides how values that are not finite are written.
+     */
+    DoubleArrayBinding(final MultiChainPersistentProperty property
+        , final String name
+        , final int index
+        , final TypeAdapter<Double> adapter)
+    {
+      super(property, name, index);
+
+      this.adapter = adapter;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void read(final JsonReader in, final PersistentPropertyAccessor accessor) throws IOException
+    {
+      if (in.peek() == JsonToken.NULL)
+      {
+        in.nextNull();
+        accessor.setProperty(property, null);
+
+        return;
+      }
+
+      double[] values = new double[16];
+      int count = 0;
+
+      in.beginArray();
+
+      while (in.hasNext())
+      {
+        if (count == values.length)
+        {
+          values = Arrays.copyOf(values, count * 2);
+        }
+
+        values[count++] = in.nextDouble();
+      }
+
+      in.endArray();
+
+      accessor.setProperty(property, Arrays.copyOf(values, count));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void write(final JsonWriter out, final PersistentPropertyAccessor accessor) throws IOException
+    {
+      final double[] values = (double[]) accessor.getProperty(property);
+
+      out.name(name);
+
+      if (values == null)
+      {
+        out.nullValue();
+
+        return;
+      }
+
+      out.beginArray();
+
+      for (final double value : values)
+      {
+        writeDouble(out, value, adapter);
+      }
+
+      out.endArray();
+    }
+  }
+
+  /**
+   * A binding for an {@code int} property.
+   */
+  private static final class IntBinding extends Binding
+  {
+    /**
+     * Creates a binding.
+     *
+     * @param property The property.
+     * @param name     The name to write the property under.
+     * @param index    The position of the binding.
+     */
+    IntBinding(final MultiChainPersistentProperty property, final String name, final int index)
+    {
+      super(property, name, index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void read(final JsonReader in, final PersistentPropertyAccessor accessor) throws IOException
+    {
+      if (in.peek() == JsonToken.NULL)
+      {
+        in.nextNull();
+      }
+      else
+      {
+        accessor.setProperty(property, nextInt(in));
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void write(final JsonWriter out, final PersistentPropertyAccessor accessor) throws IOException
+    {
+      out.name(name).value((int) accessor.getProperty(property));
+    }
+  }
+
+  /**
+   * A binding for an {@code int[]} property.
+   */
+  private static final class IntArrayBinding extends Binding
+  {
+    /**
+     * Creates a binding.
+     *
+     * @param property The property.
+     * @param name     The name to write the property under.
+     * @param index    The position of the binding.
+     */
+    IntArrayBinding(final MultiChainPersistentProperty property, final String name, final int index)
+    {
+      super(property, name, index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void read(final JsonReader in, final PersistentPropertyAccessor accessor) throws IOException
+    {
+      if (in.peek() == JsonToken.NULL)
+      {
+        in.nextNull();
+        accessor.setProperty(property, null);
+
+        return;
+      }
+
+      int[] values = new int[16];
+      int count = 0;
+
+      in.beginArray();
+
+      while (in.hasNext())
+      {
+        if (count == values.length)
+        {
+          values = Arrays.copyOf(values, count * 2);
+        }
+
+        values[count++] = nextInt(in);
+      }
+
+      in.endArray();
+
+      accessor.setProperty(property, Arrays.copyOf(values, count));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void write(final JsonWriter out, final PersistentPropertyAccessor accessor) throws IOException
+    {
+      final int[] values = (int[]) accessor.getProperty(property);
+
+      out.name(name);
+
+      if (values == null)
+      {
+        out.nullValue();
+
+        return;
+      }
+
+      out.beginArray();
+
+      for (final int value : values)
+      {
+        out.value(value);
+      }
+
+      out.endArray();
+    }
+  }
+
+  /**
+   * A binding for a {@code long} property.
+   */
+  private static final class LongBinding extends Binding
+  {
+    /**
+     * Creates a binding.
+     *
+     * @param property The property.
+     * @param name     The name to write the property under.
+     * @param index    The position of the binding.
+     */
+    LongBinding(final MultiChainPersistentProperty property, final String name, final int index)
+    {
+      super(property, name, index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void read(final JsonReader in, final PersistentPropertyAccessor accessor) throws IOException
+    {
+      if (in.peek() == JsonToken.NULL)
+      {
+        in.nextNull();
+      }
+      else
+      {
+        accessor.setProperty(property, nextLong(in));
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void write(final JsonWriter out, final PersistentPropertyAccessor accessor) throws IOException
+    {
+      out.name(name).value((long) accessor.getProperty(property));
+    }
+  }
+
+  /**
+   * A binding for a {@code long[]} property.
+   */
+  private static final class LongArrayBinding extends Binding
+  {
+    /**
+     * Creates a binding.
+     *
+     * @param property The property.
+     * @param name     The name to write the property under.
+     * @param index    The position of the binding.
+     */
+    LongArrayBinding(final MultiChainPersistentProperty property, final String name, final int index)
+    {
+      super(property, name, index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void read(final JsonReader in, final PersistentPropertyAccessor accessor) throws IOException
+    {
+      if (in.peek() == JsonToken.NULL)
+      {
+        in.nextNull();
+        accessor.setProperty(property, null);
+
+        return;
+      }
+
+      long[] values = new long[16];
+      int count = 0;
+
+      in.beginArray();
+
+      while (in.hasNext())
+      {
+        if (count == values.length)
+        {
+          values = Arrays.copyOf(values, count * 2);
+        }
+
+        values[count++] = nextLong(in);
+      }
+
+      in.endArray();
+
+      accessor.setProperty(property, Arrays.copyOf(values, count));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void write(final JsonWriter out, final PersistentPropertyAccessor accessor) throws IOException
+    {
+      final long[] values = (long[]) accessor.getProperty(property);
+
+      out.name(name);
+
+      if (values == null)
+      {
+        out.nullValue();
+
+        return;
+      }
+
+      out.beginArray();
+
+      for (final long value : values)
+      {
+        out.value(value);
+      }
+
+      out.endArray();
+    }
+  }
+
+  /**
+   * Provides no values, for entity types created with a no-argument
+   * constructor.
+   */
+  private static final class NoParameters implements ParameterValueProvider<MultiChainPersistentProperty>
+  {
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <S> S getParameterValue(final PreferredConstructor.Parameter<S, MultiChainPersistentProperty> parameter)
+    {
+      return null;
+    }
+  }
+
+  /**
+   * A binding for a property of any other type, read and written by the
+   * adapter Gson provides for its type.
+   */
+  private static final class ObjectBinding extends Binding
+  {
+    private final TypeAdapter<Object> adapter;
+    private final Class<?>            declaredType;
+    private final Gson                gson;
+    private final boolean             primitive;
+    private final boolean             runtimeTyped;
+
+    /**
+     * Creates a binding.
+     *
+     * @param property The property.
+     * @param name     The name to write the property under.
+     * @param index    The position of the binding.
+     * @param gson     The {@link Gson} instance the adapter is for.
+     * @param field    The field of the property.
+     */
+    @SuppressWarnings("unchecked")
+    ObjectBinding(final MultiChainPersistentProperty property
+        , final String name
+        , final int index
+        , final Gson gson
+        , final Field field)
+    {
+      super(property, name, index);
+
+      this.adapter = (TypeAdapter<Object>) gson.getAdapter(TypeToken.get(field.getGenericType()));
+      this.declaredType = field.getType();
+      this.gson = gson;
+      this.primitive = field.getType().isPrimitive();
+      this.runtimeTyped = !primitive && field.getGenericType() instanceof Class;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void read(final JsonReader in, final PersistentPropertyAccessor accessor) throws IOException
+    {
+      final Object value = adapter.read(in);
+
+      if (value != null || !primitive)
+      {
+        accessor.setProperty(property, value);
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void write(final JsonWriter out, final PersistentPropertyAccessor accessor) throws IOException
+    {
+      final Object value = accessor.getProperty(property);
+
+      // Like Gson, skip fields that refer to the entity itself.
+      if (value != accessor.getBean())
+      {
+        out.name(name);
+        getAdapter(value).write(out, value);
+      }
+    }
+
+    /**
+     * Gets the adapter to write a value with. As with Gson, values of
+     * properties declared as a plain class are written according to their
+     * runtime type, unless only the declared type has a dedicated adapter.
+     *
+     * @param value The value.
+     * @return The adapter.
+     */
+    @SuppressWarnings("unchecked")
+    private TypeAdapter<Object> getAdapter(final Object value)
+    {
+      if (!runtimeTyped || value == null || value.getClass() == declaredType)
+      {
+        return adapter;
+      }
+
+      final TypeAdapter<Object> runtimeAdapter = (TypeAdapter<Object>) gson.getAdapter(value.getClass());
+
+      return runtimeAdapter instanceof EntityTypeAdapter && !(adapter instanceof EntityTypeAdapter)
+             ? adapter
+             : runtimeAdapter;
+    }
+  }
+
+  /**
+   * A binding for a {@link String} property.
+   */
+  private static final class StringBinding extends Binding
+  {
+    /**
+     * Creates a binding.
+     *
+     * @param property The property.
+     * @param name     The name to write the property under.
+     * @param index    The position of the binding.
+     */
+    StringBinding(final MultiChainPersistentProperty property, final String name, final int index)
+    {
+      super(property, name, index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void read(final JsonReader in, final PersistentPropertyAccessor accessor) throws IOException
+    {
+      final JsonToken token = in.peek();
+
+      if (token == JsonToken.NULL)
+      {
+        in.nextNull();
+        accessor.setProperty(property, null);
+      }
+      else
+      {
+        accessor.setProperty(property, token == JsonToken.BOOLEAN ? Boolean.toString(in.nextBoolean()) : in.nextString());
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void write(final JsonWriter out, final PersistentPropertyAccessor accessor) throws IOException
+    {
+      out.name(name).value((String) accessor.getProperty(property));
+    }
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.serializer;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.reflect.TypeToken;
+import org.springframework.data.convert.EntityInstantiators;
+import org.springframework.data.mapping.MappingException;
+import org.springframework.data.multichain.mapping.MultiChainPersistentEntity;
+import org.springframework.data.multichain.mapping.context.MultiChainMappingContext;
+
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.Map;
+
+import static org.springframework.util.Assert.notNull;
+
+/**
+ * <p>
+ * A Gson {@link TypeAdapterFactory} that creates a dedicated adapter for
+ * each entity type, derived once from its mapping metadata, in place of
+ * the reflective adapter Gson would otherwise use.
+ * </p>
+ * <p>
+ * Each adapter holds one binding per property, specialized by the type of
+ * the property: primitive values, strings and arrays of primitive values
+ * are read and written directly on the JSON stream, and other values
+ * through the adapter Gson provides for their type. Entities are created
+ * and their properties accessed through the classes Spring Data generates
+ * for the entity type, instead of through reflection. The JSON is the same
+ * as that written by Gson itself, so items can be read by either.
+ * </p>
+ * <p>
+ * No adapter is created for types that Gson would treat differently from
+ * a plain entity, such as types without a no-argument constructor, generic
+ * types and types with Gson annotations other than
+ * {@link com.google.gson.annotations.SerializedName}; those are left to
+ * Gson. Fields are excluded as with Gson's default settings, so the
+ * factory should not be registered with a {@link Gson} instance that
+ * excludes fields otherwise.
+ * </p>
+ */
+public class EntityTypeAdapterFactory implements TypeAdapterFactory
+{
+  private final EntityInstantiators      instantiators = EntitySerializers.createEntityInstantiators();
+  private final MultiChainMappingContext mappingContext;
+
+  /**
+   * Creates a factory with its own mapping metadata.
+   */
+  public EntityTypeAdapterFactory()
+  {
+    this(new MultiChainMappingContext());
+  }
+
+  /**
+   * Creates a factory that uses the metadata of a given mapping context.
+   *
+   * @param mappingContext The {@link MultiChainMappingContext}.
+   * @throws IllegalArgumentException if {@code mappingContext} is
+   *                                  {@literal null}.
+   */
+  public EntityTypeAdapterFactory(final MultiChainMappingContext mappingContext)
+  {
+    notNull(mappingContext, "MultiChainMappingContext must not be null.");
+
+    this.mappingContext = mappingContext;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> TypeAdapter<T> create(final Gson gson, final TypeToken<T> type)
+  {
+    if (!(type.getType() instanceof Class) || !isEntityType(type.getRawType()))
+    {
+      return null;
+    }
+
+    try
+    {
+      final MultiChainPersistentEntity<T> entity = (MultiChainPersistentEntity<T>) mappingContext.getRequiredPersistentEntity(type.getRawType());
+
+      return EntityTypeAdapter.create(gson, entity, instantiators);
+    }
+    catch (final MappingException e)
+    {
+      // Types Spring Data cannot map are left to Gson.
+      return null;
+    }
+  }
+
+  /**
+   * Checks whether a type may be an entity type: a concrete class outside
+   * the Java platform, that is not a collection or map, and does not have
+   * its own adapter.
+   *
+   * @param type The type.
+   * @return {@literal true} if the type may be an entity type.
+   */
+  private static boolean isEntityType(final Class<?> type)
+  {
+    return !type.isPrimitive()
+           && !type.isArray()
+           && !type.isEnum()
+           && !type.isInterface()
+           && !type.isAnonymousClass()
+           && !type.isLocalClass()
+           && !Modifier.isAbstract(type.getModifiers())
+           && !Collection.class.isAssignableFrom(type)
+           && !Map.class.isAssignableFrom(type)
+           && !type.isAnnotationPresent(JsonAdapter.class)
+           && !type.getName().startsWith("java.")
+           && !type.getName().startsWith("javax.")
+           && !type.getName().startsWith("com.google.gson.");
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.serializer;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import org.springframework.core.serializer.support.SerializationFailedException;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.springframework.util.Assert.notNull;
+
+/**
+ * An {@link EntitySerializer} that stores entities as UTF-8 encoded JSON,
+ * produced by Gson. This is the format used by default, and the only one
+ * used by earlier versions.
+ * <p>
+ * Unless given a {@link Gson} instance of its own, the serializer reads and
+ * writes entities with the adapters created by
+ * {@link EntityTypeAdapterFactory}, which write the same JSON as Gson's
+ * reflective adapters without relying on reflection.
+ */
+public class GsonEntitySerializer implements EntitySerializer
+{
+  private final Gson gson;
+
+  /**
+   * Creates a serializer that uses Gson with its default settings, and
+   * adapters derived from the mapping metadata of each entity type.
+   */
+  public GsonEntitySerializer()
+  {
+    this(new GsonBuilder().registerTypeAdapterFactory(new EntityTypeAdapterFactory()).create());
+  }
+
+  /**
+   * Creates a serializer that uses a given {@link Gson} instance.
+   *
+   * @param gson The {@link Gson} instance to use.
+   * @throws IllegalArgumentException if {@code gson} is {@literal null}.
+   */
+  public GsonEntitySerializer(final Gson gson)
+  {
+    notNull(gson, "Gson must not be null.");
+
+    this.gson = gson;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public <T> T deserialize(final byte[] data, final int offset, final int length, final Class<T> type)
+  {
+    try
+    {
+      return gson.fromJson(new InputStreamReader(new ByteArrayInputStream(data, offset, length), StandardCharsets.UTF_8), type);
+    }
+    catch (final JsonParseException e)
+    {
+      throw new SerializationFailedException(String.format("Could not read %s from JSON.", type.getName()), e);
+    }
+  }
+
+  /**
+   * Converts a JSON tree into an entity, without going through JSON text.
+   *
+   * @param json The JSON tree.
+   * @param type The type of entity.
+   * @param <T>  The type of entity.
+   * @return The entity.
+   * @throws SerializationFailedException if the JSON cannot be converted.
+   */
+  public <T> T deserialize(final JsonElement json, final Class<T> type)
+  {
+    try
+    {
+      return gson.fromJson(json, type);
+    }
+    catch (final JsonParseException e)
+    {
+      throw new SerializationFailedException(String.format("Could not read %s from JSON.", type.getName()), e);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public byte getFormat()
+  {
+    return EntitySerializers.GSON;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public byte[] serialize(final Object entity)
+  {
+    return gson.toJson(entity).getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Converts an entity into a JSON tree, without going through JSON text.
+   *
+   * @param entity The entity.
+   * @return The JSON tree.
+   */
+  public JsonElement serializeToTree(final Object entity)
+  {
+    return gson.toJsonTree(entity);
+  }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.serializer;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+/**
+ * An {@link EntitySerializer} that stores entities as
+ * <a href="https://tools.ietf.org/html/rfc7049">CBOR</a>, a binary encoding
+ * of the JSON data model. Items are typically smaller than in JSON, because
+ * numbers are stored in binary.
+ * <p>
+ * Requires {@code com.fasterxml.jackson.dataformat:jackson-dataformat-cbor}.
+ */
+public class JacksonCborEntitySerializer extends JacksonEntitySerializer
+{
+  /**
+   * Creates a serializer.
+   */
+  public JacksonCborEntitySerializer()
+  {
+    super(new CBORFactory(), EntitySerializers.JACKSON_CBOR);
+  }
+}
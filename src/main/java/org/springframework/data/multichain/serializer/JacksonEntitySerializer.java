@@ -0,0 +1,129 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.serializer;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.core.serializer.support.SerializationFailedException;
+
+import java.io.IOException;
+
+import static org.springframework.util.Assert.notNull;
+
+/**
+ * <p>
+ * Base class for {@link EntitySerializer}s that use Jackson, in any of the
+ * data formats Jackson supports.
+ * </p>
+ * <p>
+ * Like Gson, Jackson is configured to read and write entity fields directly,
+ * ignoring getters and setters, so that entities are stored the same way
+ * regardless of the serializer chosen. Unknown fields are ignored when
+ * reading, so that fields can be removed from entities without making older
+ * items unreadable.
+ * </p>
+ */
+public abstract class JacksonEntitySerializer implements EntitySerializer
+{
+  private final byte         format;
+  private final ObjectMapper mapper;
+
+  /**
+   * Creates a serializer for a given data format.
+   *
+   * @param factory The Jackson {@link JsonFactory} for the data format.
+   * @param format  The identifier of the format.
+   */
+  protected JacksonEntitySerializer(final JsonFactory factory, final byte format)
+  {
+    this(configure(new ObjectMapper(factory)), format);
+  }
+
+  /**
+   * Creates a serializer that uses a given, fully configured
+   * {@link ObjectMapper}.
+   *
+   * @param mapper The {@link ObjectMapper} to use.
+   * @param format The identifier of the format.
+   * @throws IllegalArgumentException if {@code mapper} is {@literal null}.
+   */
+  protected JacksonEntitySerializer(final ObjectMapper mapper, final byte format)
+  {
+    notNull(mapper, "ObjectMapper must not be null.");
+
+    this.format = format;
+    this.mapper = mapper;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public <T> T deserialize(final byte[] data, final int offset, final int length, final Class<T> type)
+  {
+    try
+    {
+      return mapper.readValue(data, offset, length, type);
+    }
+    catch (final IOException e)
+    {
+      throw new SerializationFailedException(String.format("Could not read %s.", type.getName()), e);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public byte getFormat()
+  {
+    return format;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public byte[] serialize(final Object entity)
+  {
+    try
+    {
+      return mapper.writeValueAsBytes(entity);
+    }
+    catch (final IOException e)
+    {
+      throw new SerializationFailedException(String.format("Could not write %s.", entity.getClass().getName()), e);
+    }
+  }
+
+  /**
+   * Configures an {@link ObjectMapper} to access entity fields directly.
+   *
+   * @param mapper The {@link ObjectMapper} to configure.
+   * @return The {@link ObjectMapper}.
+   */
+  private static ObjectMapper configure(final ObjectMapper mapper)
+  {
+    return mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+                 .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
+                 .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                 .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+  }
+}
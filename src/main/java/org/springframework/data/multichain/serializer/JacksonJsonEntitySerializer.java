@@ -0,0 +1,35 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.serializer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+
+/**
+ * An {@link EntitySerializer} that stores entities as UTF-8 encoded JSON,
+ * produced by Jackson. Items written by this serializer are readable by
+ * other MultiChain clients, like those written by
+ * {@link GsonEntitySerializer}, but are typically faster to produce.
+ */
+public class JacksonJsonEntitySerializer extends JacksonEntitySerializer
+{
+  /**
+   * Creates a serializer.
+   */
+  public JacksonJsonEntitySerializer()
+  {
+    super(new JsonFactory(), EntitySerializers.JACKSON_JSON);
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.data.multichain.server;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.springframework.util.Assert.isTrue;
+import static org.springframework.util.Assert.notNull;
+
+/**
+ * <p>
+ * A point in time by which an operation must complete. A deadline can be
+ * attached to any sequence of repository or client calls by running them
+ * through {@link #run(Supplier)}:
+ * </p>
+ * <pre>
+ *   <code>
+ *     final Contract contract = Deadline.after(200, TimeUnit.MILLISECONDS)
+ *                                       .run(() -&gt; repository.findOne(id));
+ *   </code>
+ * </pre>
+ * <p>
+ * Every command sent to a MultiChain RPC server while the deadline is in
+ * effect is given no more than the time remaining before the deadline, from
+ * obtaining a pooled connection until the whole response has been read, and
+ * is aborted if still running when that time runs out. Commands attempted
+ * after the deadline has passed fail immediately.
+ * </p>
+ */
+public final class Deadline
+{
+  private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+  private final long time;
+
+  /**
+   * Creates a deadline.
+   *
+   * @param time The value of {@link System#nanoTime()} at which the deadline
+   *             passes.
+   */
+  private Deadline(final long time)
+  {
+    this.time = time;
+  }
+
+  /**
+   * Creates a deadline that passes after a given amount of time from now.
+   *
+   * @param timeout The amount of time after which the deadline passes.
+   * @param unit    The unit of {@code timeout}.
+   * @return A {@link Deadline}.
+   * @throws IllegalArgumentException if {@code timeout} is negative or
+   *                                  {@code unit} is {@literal null}.
+   */
+  public static Deadline after(final long timeout, final TimeUnit unit)
+  {
+    isTrue(timeout >= 0, "Timeout must not be negative.");
+    notNull(unit, "TimeUnit must not be null.");
+
+    return new Deadline(System.nanoTime() + unit.toNanos(timeout));
+  }
+
+  /**
+   * Gets the deadline in effect for the current thread.
+   *
+   * @return The {@link Deadline} in effect for the current thread, or
+   * {@literal null} if there is none.
+   */
+  public static Deadline current()
+  {
+    return CURRENT.get();
+  }
+
+  /**
+   * Gets whether the deadline has passed.
+   *
+   * @return {@literal true} if the deadline has passed, {@literal false}
+   * otherwise.
+   */
+  public boolean isExpired()
+  {
+    return remaining(TimeUnit.NANOSECONDS) <= 0;
+  }
+
+  /**
+   * Gets the time remaining before the deadline passes.
+   *
+   * @param unit The unit in which to express the remaining time.
+   * @return The time remaining before the deadline passes, which is zero or
+   * negative if the deadline has passed.
+   */
+  public long remaining(final TimeUnit unit)
+  {
+    return unit.convert(time - System.nanoTime(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Runs an action with this deadline in effect for the current thread. If a
+   * deadline is already in effect, the earlier of the two applies.
+   *
+   * @param action The action to run.
+   * @param <T>    The type of result produced by the action.
+   * @return The result produced by {@code action}.
+   * @throws IllegalArgumentException if {@code action} is {@literal null}.
+   */
+  public <T> T run(final Supplier<T> action)
+  {
+    notNull(action, "Action must not be null.");
+
+    final Deadline outer = CURRENT.get();
+
+    CURRENT.set(outer == null || time - outer.time < 0 ? this : outer);
+
+    try
+    {
+      return action.get();
+    }
+    finally
+    {
+      if (outer == null)
+      {
+        CURRENT.remove();
+      }
+      else
+      {
+        CURRENT.set(outer);
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString()
+  {
+    return "Deadline [" + remaining(TimeUnit.MILLISECONDS) + " ms remaining]";
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.data.multichain.server.command;
+
+import static org.springframework.util.Assert.hasText;
+import static org.springframework.util.Assert.isTrue;
+
+/**
+ * Request for fetching a range of the items in a particular data stream on
+ * the blockchain, in the order in which they were published. The data stream
+ * name, the position of the first item to fetch and the maximum number of
+ * items to fetch are included in the request.
+ */
+public class ListStreamItemsRequest extends Request<Object[]>
+{
+  private static final long serialVersionUID = 1L;
+
+  private final int    count;
+  private final int    start;
+  private final String stream;
+
+  /**
+   * Creates a request for fetching a range of the items in a particular
+   * data stream on the blockchain.
+   *
+   * @param stream The name of the data stream to query.
+   * @param start  The position of the first item to fetch, counting from
+   *               {@literal 0}.
+   * @param count  The maximum number of items to fetch.
+   * @throws IllegalArgumentException if {@code stream} is blank,
+   *                                  {@code start} is negative or
+   *                                  {@code count} is not positive.
+   */
+  public ListStreamItemsRequest(final String stream, final int start, final int count)
+  {
+    super(Command.liststreamitems);
+
+    hasText(stream, "Stream must not be blank.");
+    isTrue(start >= 0, "Start must not be negative.");
+    isTrue(count > 0, "Count must be positive.");
+
+    this.count = count;
+    this.start = start;
+    this.stream = stream.trim();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Object[] getParams()
+  {
+    return new Object[] {
+        stream  // The name of the data stream from which items should be fetched.
+        , false // Request non-verbose response.
+        , count // The maximum number of items to fetch.
+        , start // The position of the first item to fetch.
+    };
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.data.multichain.server.command;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Result for fetching a range of the items in a particular data stream on
+ * the blockchain.
+ */
+public class ListStreamItemsResult extends StreamItemResult
+{
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Creates an empty result, to be populated from a JSON-RPC response.
+   */
+  public ListStreamItemsResult()
+  {
+  }
+
+  /**
+   * Creates a result for an item in a range of the items in a data stream,
+   * whose data is available, such as an item held locally.
+   *
+   * @param id   The unique item identifier.
+   * @param keys The logical keys associated with the data.
+   * @param data The item data.
+   * @param time The date and time at which the item was added to the
+   *             blockchain, or {@literal null} if not known.
+   */
+  public ListStreamItemsResult(final String id, final List<String> keys, final StreamItemData data, final Date time)
+  {
+    super(id, keys, data, time);
+  }
+}
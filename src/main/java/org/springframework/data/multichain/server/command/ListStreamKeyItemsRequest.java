@@ -17,6 +17,7 @@
 package org.springframework.data.multichain.server.command;
 
 import static org.springframework.util.Assert.hasText;
+import static org.springframework.util.Assert.isTrue;
 
 /**
  * Request for fetching items in a particular data stream on the blockchain
@@ -27,7 +28,15 @@ public class ListStreamKeyItemsRequest extends Request<Object[]>
 {
   private static final long serialVersionUID = 1L;
 
+  /**
+   * The maximum number of items fetched by default, enough to tell whether
+   * a key is unique.
+   */
+  private static final int DEFAULT_COUNT = 2;
+
+  private final int    count;
   private final String key;
+  private final int    start;
   private final String stream;
 
   /**
@@ -40,13 +49,53 @@ public class ListStreamKeyItemsRequest extends Request<Object[]>
    *                                  blank.
    */
   public ListStreamKeyItemsRequest(final String stream, final String key)
+  {
+    // The most recent items, which are all of them for a unique key.
+    this(stream, key, -DEFAULT_COUNT, DEFAULT_COUNT, false);
+  }
+
+  /**
+   * Creates a request for fetching a range of the items in a particular data
+   * stream on the blockchain and tagged with a specified key, in the order
+   * in which they were published.
+   *
+   * @param stream The name of the data stream to query.
+   * @param key    The key for the items to query.
+   * @param start  The position of the first item to fetch among the items
+   *               tagged with the key, counting from {@literal 0}.
+   * @param count  The maximum number of items to fetch.
+   * @throws IllegalArgumentException if {@code stream} or {@code key} is
+   *                                  blank, {@code start} is negative or
+   *                                  {@code count} is not positive.
+   */
+  public ListStreamKeyItemsRequest(final String stream, final String key, final int start, final int count)
+  {
+    this(stream, key, start, count, true);
+  }
+
+  /**
+   * Creates a request for fetching a range of the items in a particular data
+   * stream on the blockchain and tagged with a specified key.
+   *
+   * @param stream   The name of the data stream to query.
+   * @param key      The key for the items to query.
+   * @param start    The position of the first item to fetch, counting from
+   *                 the end of the items tagged with the key if negative.
+   * @param count    The maximum number of items to fetch.
+   * @param validate Whether {@code start} must not be negative.
+   */
+  private ListStreamKeyItemsRequest(final String stream, final String key, final int start, final int count, final boolean validate)
   {
     super(Command.liststreamkeyitems);
 
     hasText(stream, "Stream must not be blank.");
     hasText(key, "Key must not be blank.");
+    isTrue(!validate || start >= 0, "Start must not be negative.");
+    isTrue(count > 0, "Count must be positive.");
 
+    this.count = count;
     this.key = key.trim();
+    this.start = start;
     this.stream = stream.trim();
   }
 
@@ -60,7 +109,8 @@ public class ListStreamKeyItemsRequest extends Request<Object[]>
         stream  // The name of the data stream from which items should be fetched.
         , key   // The logical key for which items should be fetched.
         , false // Request non-verbose response.
-        , 2     // Request maximum of 2 items per key.
+        , count // The maximum number of items to fetch.
+        , start // The position of the first item to fetch.
     };
   }
 }
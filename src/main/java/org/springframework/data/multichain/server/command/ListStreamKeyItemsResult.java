@@ -16,6 +16,9 @@
 
 package org.springframework.data.multichain.server.command;
 
+import java.util.Date;
+import java.util.List;
+
 /**
  * Result for fetching an item in a particular data stream on the blockchain
  * and tagged with a specified key.
@@ -23,4 +26,26 @@ package org.springframework.data.multichain.server.command;
 public class ListStreamKeyItemsResult extends StreamItemResult
 {
   private static final long serialVersionUID = 1L;
+
+  /**
+   * Creates an empty result, to be populated from a JSON-RPC response.
+   */
+  public ListStreamKeyItemsResult()
+  {
+  }
+
+  /**
+   * Creates a result for an item tagged with a key, whose data is
+   * available, such as an item held locally.
+   *
+   * @param id   The unique item identifier.
+   * @param keys The logical keys associated with the data.
+   * @param data The item data.
+   * @param time The date and time at which the item was added to the
+   *             blockchain, or {@literal null} if not known.
+   */
+  public ListStreamKeyItemsResult(final String id, final List<String> keys, final StreamItemData data, final Date time)
+  {
+    super(id, keys, data, time);
+  }
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.server.command;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.util.Assert.hasText;
+import static org.springframework.util.Assert.notEmpty;
+
+/**
+ * Request for fetching the items in a particular data stream on the
+ * blockchain that are tagged with all of a set of keys, which the node finds
+ * by intersecting its indexes of the keys. The data stream name and the keys
+ * for the items to fetch are included in the request. Querying requires
+ * MultiChain 2.0 or later, and fails if the node would have to scan more
+ * items than allowed by its {@code maxqueryscanitems} setting.
+ */
+public class ListStreamQueryItemsRequest extends Request<Object[]>
+{
+  private static final long serialVersionUID = 1L;
+
+  private static final String KEYS = "keys";
+
+  private final List<String> keys;
+  private final String       stream;
+
+  /**
+   * Creates a request for fetching the items in a particular data stream on
+   * the blockchain that are tagged with all of a set of keys.
+   *
+   * @param stream The name of the data stream to query.
+   * @param keys   The keys for the items to query.
+   * @throws IllegalArgumentException if {@code stream} or any of
+   *                                  {@code keys} is blank, or if
+   *                                  {@code keys} is empty.
+   */
+  public ListStreamQueryItemsRequest(final String stream, final List<String> keys)
+  {
+    super(Command.liststreamqueryitems);
+
+    hasText(stream, "Stream must not be blank.");
+    notEmpty(keys, "Keys must not be empty.");
+
+    final List<String> trimmed = new ArrayList<>(keys.size());
+    for (final String key : keys)
+    {
+      hasText(key, "Key must not be blank.");
+
+      trimmed.add(key.trim());
+    }
+
+    this.keys = Collections.unmodifiableList(trimmed);
+    this.stream = stream.trim();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Object[] getParams()
+  {
+    final Map<String, List<String>> query = Collections.singletonMap(KEYS, keys);
+
+    return new Object[] {
+        stream  // The name of the data stream from which items should be fetched.
+        , query // The keys that the items to fetch must all be tagged with.
+        , false // Request non-verbose response.
+    };
+  }
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.server.command;
+
+import java.util.List;
+
+/**
+ * Response for fetching the items in a particular data stream on the
+ * blockchain that are tagged with all of a set of keys. The matching items
+ * are included in the response, in the order in which they were published.
+ */
+public class ListStreamQueryItemsResponse extends Response<List<ListStreamQueryItemsResult>>
+{
+  private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.server.command;
+
+/**
+ * Result for fetching an item in a particular data stream on the blockchain
+ * that is tagged with all of a set of keys.
+ */
+public class ListStreamQueryItemsResult extends StreamItemResult
+{
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Creates an empty result, to be populated from a JSON-RPC response.
+   */
+  public ListStreamQueryItemsResult()
+  {
+  }
+}
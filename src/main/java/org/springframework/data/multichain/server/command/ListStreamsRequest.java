@@ -0,0 +1,59 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.data.multichain.server.command;
+
+import static org.springframework.util.Assert.hasText;
+
+/**
+ * Request for fetching information about a particular data stream on the
+ * blockchain, such as the number of items published to it. The data stream
+ * name is included in the request.
+ */
+public class ListStreamsRequest extends Request<Object[]>
+{
+  private static final long serialVersionUID = 1L;
+
+  private final String stream;
+
+  /**
+   * Creates a request for fetching information about a particular data
+   * stream on the blockchain.
+   *
+   * @param stream The name of the data stream to query.
+   * @throws IllegalArgumentException if {@code stream} is blank.
+   */
+  public ListStreamsRequest(final String stream)
+  {
+    super(Command.liststreams);
+
+    hasText(stream, "Stream must not be blank.");
+
+    this.stream = stream.trim();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Object[] getParams()
+  {
+    return new Object[] {
+        stream  // The name of the data stream to describe.
+        , false // Request non-verbose response.
+    };
+  }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.data.multichain.server.command;
+
+import java.util.List;
+
+/**
+ * Response for fetching information about a particular data stream on the
+ * blockchain. A single result describing the data stream is included in the
+ * response.
+ */
+public class ListStreamsResponse extends Response<List<ListStreamsResult>>
+{
+  private static final long serialVersionUID = 1L;
+}
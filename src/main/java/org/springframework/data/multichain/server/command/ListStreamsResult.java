@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.data.multichain.server.command;
+
+/**
+ * Result for fetching information about a particular data stream on the
+ * blockchain.
+ */
+public class ListStreamsResult extends Result
+{
+  private static final long serialVersionUID = 1L;
+
+  private Long    confirmed;
+  private Long    items;
+  private Long    keys;
+  private String  name;
+  private Boolean subscribed;
+
+  /**
+   * Gets the number of confirmed items in the data stream.
+   *
+   * @return The number of confirmed items, or {@literal null} if the node is
+   * not subscribed to the data stream.
+   */
+  public Long getConfirmed()
+  {
+    return confirmed;
+  }
+
+  /**
+   * Gets the number of items in the data stream, including those that have
+   * not been confirmed yet.
+   *
+   * @return The number of items, or {@literal null} if the node is not
+   * subscribed to the data stream.
+   */
+  public Long getItems()
+  {
+    return items;
+  }
+
+  /**
+   * Gets the number of distinct keys used in the data stream.
+   *
+   * @return The number of keys, or {@literal null} if the node is not
+   * subscribed to the data stream.
+   */
+  public Long getKeys()
+  {
+    return keys;
+  }
+
+  /**
+   * Gets the name of the data stream.
+   *
+   * @return The name of the data stream.
+   */
+  public String getName()
+  {
+    return name;
+  }
+
+  /**
+   * Gets whether the node is subscribed to the data stream. Nodes only index,
+   * and count, the items in the data streams to which they are subscribed.
+   *
+   * @return {@literal true} if the node is subscribed to the data stream.
+   */
+  public boolean isSubscribed()
+  {
+    return subscribed != null && subscribed;
+  }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.server.command;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.springframework.util.Assert.hasText;
+import static org.springframework.util.Assert.notEmpty;
+import static org.springframework.util.Assert.notNull;
+
+/**
+ * Request for publishing several items to a particular data stream on the
+ * blockchain in a single transaction, so that either all of the items are
+ * published or none is. The data stream name and the items to publish are
+ * included in the request.
+ */
+public class PublishMultiRequest extends Request<Object[]>
+{
+  private static final long serialVersionUID = 1L;
+
+  private static final String OFFCHAIN = "offchain";
+
+  private final List<Item> items;
+  private final boolean    offchain;
+  private final String     stream;
+
+  /**
+   * Creates a request for publishing several items to a particular data
+   * stream on the blockchain.
+   *
+   * @param stream   The name of the data stream to which the items should be
+   *                 published.
+   * @param items    The items to publish.
+   * @param offchain Whether the data of the items should be stored
+   *                 off-chain, which requires MultiChain 2.0 or later.
+   * @throws IllegalArgumentException if {@code stream} is blank, or if
+   *                                  {@code items} is {@literal null} or
+   *                                  empty.
+   */
+  public PublishMultiRequest(final String stream, final List<Item> items, final boolean offchain)
+  {
+    super(Command.publishmulti);
+
+    hasText(stream, "Stream must not be blank.");
+    notEmpty(items, "Items must not be empty.");
+
+    this.items = Collections.unmodifiableList(new ArrayList<>(items));
+    this.offchain = offchain;
+    this.stream = stream.trim();
+  }
+
+  /**
+   * Gets the items to publish.
+   *
+   * @return The items to publish.
+   */
+  public List<Item> getItems()
+  {
+    return items;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Object[] getParams()
+  {
+    if (offchain)
+    {
+      return new Object[] {
+          stream        // The name of the data stream to which the items should be published.
+          , items       // The items to publish, each with its key and data.
+          , OFFCHAIN    // Store the data off-chain.
+      };
+    }
+
+    return new Object[] {
+        stream  // The name of the data stream to which the items should be published.
+        , items // The items to publish, each with its key and data.
+    };
+  }
+
+  /**
+   * An item to publish, tagged with one or more specified keys.
+   */
+  public static final class Item implements Serializable
+  {
+    private static final long serialVersionUID = 1L;
+
+    private final StreamItemData data;
+    private final String         key;
+    private final List<String>   keys;
+
+    /**
+     * Creates an item to publish.
+     *
+     * @param key  The logical key for the item.
+     * @param data The data of the item.
+     * @throws IllegalArgumentException if {@code key} is blank, or if
+     *                                  {@code data} is {@literal null}.
+     */
+    public Item(final String key, final StreamItemData data)
+    {
+      hasText(key, "Key must not be blank.");
+      notNull(data, "Data must not be null.");
+
+      this.data = data;
+      this.key = key.trim();
+      this.keys = null;
+    }
+
+    /**
+     * Creates an item to publish, tagged with several keys. Items with
+     * several keys require MultiChain 2.0 or later.
+     *
+     * @param keys The logical keys for the item.
+     * @param data The data of the item.
+     * @throws IllegalArgumentException if {@code keys} is empty or any of
+     *                                  them is blank, or if {@code data}
+     *                                  is {@literal null}.
+     */
+    public Item(final List<String> keys, final StreamItemData data)
+    {
+      notEmpty(keys, "Keys must not be empty.");
+      notNull(data, "Data must not be null.");
+
+      final List<String> trimmed = new ArrayList<>(keys.size());
+      for (final String key : keys)
+      {
+        hasText(key, "Key must not be blank.");
+
+        trimmed.add(key.trim());
+      }
+
+      // Only one of the key and the keys is sent, as the node expects.
+      this.data = data;
+      this.key = trimmed.size() == 1 ? trimmed.get(0) : null;
+      this.keys = trimmed.size() == 1 ? null : Collections.unmodifiableList(trimmed);
+    }
+
+    /**
+     * Gets the data of the item.
+     *
+     * @return The data of the item.
+     */
+    public StreamItemData getData()
+    {
+      return data;
+    }
+
+    /**
+     * Gets the first logical key for the item.
+     *
+     * @return The first logical key for the item.
+     */
+    public String getKey()
+    {
+      return key != null ? key : keys.get(0);
+    }
+
+    /**
+     * Gets the logical keys for the item.
+     *
+     * @return The logical keys for the item.
+     */
+    public List<String> getKeys()
+    {
+      return key != null ? Collections.singletonList(key) : keys;
+    }
+  }
+}
@@ -16,21 +16,29 @@
 
 package org.springframework.data.multichain.server.command;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import static org.springframework.util.Assert.hasText;
+import static org.springframework.util.Assert.notEmpty;
+import static org.springframework.util.Assert.notNull;
 
 /**
  * Request for publishing an item to a particular data stream on the blockchain
- * and tagged with a specified key. The data stream name, the key for the item
- * to publish and a hexadecimal version of the JSON representation of the item
- * are included in the request.
+ * and tagged with one or more specified keys. The data stream name, the keys
+ * for the item to publish and the item data are included in the request.
  */
 public class PublishRequest extends Request<Object[]>
 {
   private static final long serialVersionUID = 1L;
 
-  private final String data;
-  private final String key;
-  private final String stream;
+  private static final String OFFCHAIN = "offchain";
+
+  private final StreamItemData data;
+  private final List<String>   keys;
+  private final boolean        offchain;
+  private final String         stream;
 
   /**
    * Creates a request for publishing an item to a particular data stream on
@@ -45,15 +53,84 @@ public class PublishRequest extends Request<Object[]>
    *                                  {@code data} is blank.
    */
   public PublishRequest(final String stream, final String key, final String data)
+  {
+    this(stream, key, StreamItemData.hex(data));
+  }
+
+  /**
+   * Creates a request for publishing an item to a particular data stream on
+   * the blockchain and tagged with a specified key, with item data in any of
+   * the forms supported by MultiChain.
+   *
+   * @param stream The name of the data stream to which the item should be
+   *               published.
+   * @param key    The logical key for the item to publish.
+   * @param data   The data of the item to publish.
+   * @throws IllegalArgumentException if {@code stream} or {@code key} is
+   *                                  blank, or if {@code data} is
+   *                                  {@literal null}.
+   */
+  public PublishRequest(final String stream, final String key, final StreamItemData data)
+  {
+    this(stream, key, data, false);
+  }
+
+  /**
+   * Creates a request for publishing an item to a particular data stream on
+   * the blockchain and tagged with a specified key, storing the item data
+   * either on-chain or off-chain. Off-chain items require MultiChain 2.0 or
+   * later: only a hash of their data is stored on the blockchain, and the
+   * data itself is delivered to other nodes separately.
+   *
+   * @param stream   The name of the data stream to which the item should be
+   *                 published.
+   * @param key      The logical key for the item to publish.
+   * @param data     The data of the item to publish.
+   * @param offchain Whether the data should be stored off-chain.
+   * @throws IllegalArgumentException if {@code stream} or {@code key} is
+   *                                  blank, or if {@code data} is
+   *                                  {@literal null}.
+   */
+  public PublishRequest(final String stream, final String key, final StreamItemData data, final boolean offchain)
+  {
+    this(stream, Collections.singletonList(key), data, offchain);
+  }
+
+  /**
+   * Creates a request for publishing an item to a particular data stream on
+   * the blockchain and tagged with several keys, storing the item data
+   * either on-chain or off-chain. Items with several keys require
+   * MultiChain 2.0 or later, and are found through any of their keys.
+   *
+   * @param stream   The name of the data stream to which the item should be
+   *                 published.
+   * @param keys     The logical keys for the item to publish.
+   * @param data     The data of the item to publish.
+   * @param offchain Whether the data should be stored off-chain.
+   * @throws IllegalArgumentException if {@code stream} or any of
+   *                                  {@code keys} is blank, or if
+   *                                  {@code keys} is empty or {@code data}
+   *                                  is {@literal null}.
+   */
+  public PublishRequest(final String stream, final List<String> keys, final StreamItemData data, final boolean offchain)
   {
     super(Command.publish);
 
     hasText(stream, "Stream must not be blank.");
-    hasText(key, "Key must not be blank.");
-    hasText(data, "Data must not be blank.");
+    notEmpty(keys, "Keys must not be empty.");
+    notNull(data, "Data must not be null.");
+
+    final List<String> trimmed = new ArrayList<>(keys.size());
+    for (final String key : keys)
+    {
+      hasText(key, "Key must not be blank.");
+
+      trimmed.add(key.trim());
+    }
 
     this.data = data;
-    this.key = key.trim();
+    this.keys = Collections.unmodifiableList(trimmed);
+    this.offchain = offchain;
     this.stream = stream.trim();
   }
 
@@ -63,10 +140,23 @@ public class PublishRequest extends Request<Object[]>
   @Override
   public Object[] getParams()
   {
+    // A single key is sent as such, for nodes older than MultiChain 2.0.
+    final Object key = keys.size() == 1 ? keys.get(0) : keys;
+
+    if (offchain)
+    {
+      return new Object[] {
+          stream        // The name of the data stream to which the item should be published.
+          , key         // The logical key, or keys, of the item to publish.
+          , data        // The data of the item to publish, as hexadecimal binary data, JSON or text.
+          , OFFCHAIN    // Store the data off-chain.
+      };
+    }
+
     return new Object[] {
         stream  // The name of the data stream to which the item should be published.
-        , key   // The logical key for which the item to publish.
-        , data  // Hexadecimal version of the JSON representation of the item to publish.
+        , key   // The logical key, or keys, of the item to publish.
+        , data  // The data of the item to publish, as hexadecimal binary data, JSON or text.
     };
   }
 }
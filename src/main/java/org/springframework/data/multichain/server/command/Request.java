@@ -61,6 +61,28 @@ public abstract class Request<T> extends Message
     return command.name();
   }
 
+  /**
+   * Gets the MultiChain JSON-RPC API command to invoke.
+   *
+   * @return The MultiChain JSON-RPC API {@link Command} to invoke.
+   */
+  public Command getCommandType()
+  {
+    return command;
+  }
+
+  /**
+   * Gets whether the request can safely be sent more than once, for example
+   * to another MultiChain RPC server after the first attempt failed.
+   *
+   * @return {@literal true} if the request does not change the state of the
+   * blockchain, {@literal false} otherwise.
+   */
+  public boolean isIdempotent()
+  {
+    return command.isIdempotent();
+  }
+
   /**
    * Gets optional parameters to be sent along with the request.
    *
@@ -85,8 +107,49 @@ public abstract class Request<T> extends Message
   /**
    * Represents a MultiChain API command.
    */
-  protected enum Command
+  public enum Command
   {
-    liststreamkeyitems, publish
+    liststreamitems(true, 10000), liststreamkeyitems(true, 5000), liststreamqueryitems(true, 10000), liststreams(true, 5000)
+    , publish(false, 15000), publishmulti(false, 30000);
+
+    private final long    defaultTimeout;
+    private final boolean idempotent;
+
+    /**
+     * Creates a command.
+     *
+     * @param idempotent     Whether the command can safely be invoked more
+     *                       than once.
+     * @param defaultTimeout The time, in milliseconds, to allow for the
+     *                       command to complete unless configured
+     *                       otherwise.
+     */
+    Command(final boolean idempotent, final long defaultTimeout)
+    {
+      this.defaultTimeout = defaultTimeout;
+      this.idempotent = idempotent;
+    }
+
+    /**
+     * Gets the time, in milliseconds, to allow for the command to complete
+     * unless configured otherwise.
+     *
+     * @return The default timeout for the command, in milliseconds.
+     */
+    public long getDefaultTimeout()
+    {
+      return defaultTimeout;
+    }
+
+    /**
+     * Gets whether the command can safely be invoked more than once.
+     *
+     * @return {@literal true} if the command does not change the state of
+     * the blockchain, {@literal false} otherwise.
+     */
+    public boolean isIdempotent()
+    {
+      return idempotent;
+    }
   }
 }
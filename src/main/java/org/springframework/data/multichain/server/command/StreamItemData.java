@@ -0,0 +1,224 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.server.command;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.annotations.JsonAdapter;
+import org.springframework.data.multichain.server.support.StreamItemDataAdapter;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+import static org.springframework.util.Assert.hasText;
+import static org.springframework.util.Assert.isTrue;
+import static org.springframework.util.Assert.notNull;
+
+/**
+ * <p>
+ * The data of a stream item, in any of the forms MultiChain accepts and
+ * returns:
+ * </p>
+ * <ul>
+ * <li>a hexadecimal {@link String}, for binary data;</li>
+ * <li>an object with a {@code json} field, for JSON data stored natively
+ * (MultiChain 1.0.2 and later);</li>
+ * <li>an object with a {@code text} field, for UTF-8 text.</li>
+ * </ul>
+ * <p>
+ * Data in any other form, such as the reference MultiChain returns instead
+ * of data too large to be shown inline, is kept as returned.
+ * </p>
+ */
+@JsonAdapter(StreamItemDataAdapter.class)
+public final class StreamItemData implements Serializable
+{
+  private static final String JSON = "json";
+  private static final String TEXT = "text";
+
+  private static final long serialVersionUID = 1L;
+
+  private transient JsonElement value;
+
+  /**
+   * Wraps the data of a stream item.
+   *
+   * @param value The data, as exchanged with MultiChain.
+   */
+  private StreamItemData(final JsonElement value)
+  {
+    this.value = value;
+  }
+
+  /**
+   * Creates item data from its JSON-RPC representation.
+   *
+   * @param value The data, as exchanged with MultiChain.
+   * @return The item data.
+   * @throws IllegalArgumentException if {@code value} is {@literal null}.
+   */
+  public static StreamItemData from(final JsonElement value)
+  {
+    notNull(value, "Value must not be null.");
+
+    return new StreamItemData(value);
+  }
+
+  /**
+   * Creates item data from binary data.
+   *
+   * @param hex The binary data, as a hexadecimal {@link String}.
+   * @return The item data.
+   * @throws IllegalArgumentException if {@code hex} is blank.
+   */
+  public static StreamItemData hex(final String hex)
+  {
+    hasText(hex, "Data must not be blank.");
+
+    return new StreamItemData(new JsonPrimitive(hex));
+  }
+
+  /**
+   * Creates item data to be stored as native JSON.
+   *
+   * @param json The JSON data.
+   * @return The item data.
+   * @throws IllegalArgumentException if {@code json} is {@literal null} or
+   *                                  JSON {@literal null}.
+   */
+  public static StreamItemData json(final JsonElement json)
+  {
+    isTrue(json != null && !json.isJsonNull(), "JSON must not be null.");
+
+    final JsonObject value = new JsonObject();
+    value.add(JSON, json);
+
+    return new StreamItemData(value);
+  }
+
+  /**
+   * Creates item data to be stored as text.
+   *
+   * @param text The text.
+   * @return The item data.
+   * @throws IllegalArgumentException if {@code text} is {@literal null}.
+   */
+  public static StreamItemData text(final String text)
+  {
+    notNull(text, "Text must not be null.");
+
+    final JsonObject value = new JsonObject();
+    value.addProperty(TEXT, text);
+
+    return new StreamItemData(value);
+  }
+
+  /**
+   * Gets binary data.
+   *
+   * @return The binary data as a hexadecimal {@link String}, or
+   * {@literal null} if the data is not binary.
+   */
+  public String getHex()
+  {
+    return value.isJsonPrimitive() ? value.getAsString() : null;
+  }
+
+  /**
+   * Gets native JSON data.
+   *
+   * @return The JSON data, or {@literal null} if the data is not native
+   * JSON.
+   */
+  public JsonElement getJson()
+  {
+    return getMember(JSON);
+  }
+
+  /**
+   * Gets text data.
+   *
+   * @return The text, or {@literal null} if the data is not text.
+   */
+  public String getText()
+  {
+    final JsonElement text = getMember(TEXT);
+
+    return text != null && text.isJsonPrimitive() ? text.getAsString() : null;
+  }
+
+  /**
+   * Gets the data as exchanged with MultiChain.
+   *
+   * @return The JSON-RPC representation of the data.
+   */
+  public JsonElement toJson()
+  {
+    return value;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString()
+  {
+    return value.toString();
+  }
+
+  /**
+   * Gets a field of data held in an object.
+   *
+   * @param name The name of the field.
+   * @return The field, or {@literal null} if the data is not an object or
+   * does not have the field.
+   */
+  private JsonElement getMember(final String name)
+  {
+    return value.isJsonObject() ? value.getAsJsonObject().get(name) : null;
+  }
+
+  /**
+   * Reads the data, which is serialized as JSON text.
+   *
+   * @param in The stream to read from.
+   * @throws IOException            if the data cannot be read.
+   * @throws ClassNotFoundException if the data cannot be read.
+   */
+  private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException
+  {
+    in.defaultReadObject();
+
+    value = new JsonParser().parse((String) in.readObject());
+  }
+
+  /**
+   * Writes the data as JSON text, since {@link JsonElement}s are not
+   * serializable.
+   *
+   * @param out The stream to write to.
+   * @throws IOException if the data cannot be written.
+   */
+  private void writeObject(final ObjectOutputStream out) throws IOException
+  {
+    out.defaultWriteObject();
+    out.writeObject(value.toString());
+  }
+}
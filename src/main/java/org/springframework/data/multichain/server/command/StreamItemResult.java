@@ -20,33 +20,68 @@ import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
 import org.springframework.data.multichain.server.support.UnixTimestampDateAdapter;
 
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 
 /**
  * Result of fetching details for an item in a particular data stream on the
  * blockchain.
  */
-abstract class StreamItemResult extends Result
+public abstract class StreamItemResult extends Result
 {
   private static final long serialVersionUID = 1L;
 
-  private String data;
+  private Boolean        available;
+  private Long           confirmations;
+  private StreamItemData data;
   @SerializedName("txid")
-  private String id;
-  private String key;
+  private String         id;
+  private String         key;
+  private List<String>   keys;
+  private Boolean        offchain;
   @JsonAdapter(UnixTimestampDateAdapter.class)
   @SerializedName("blocktime")
-  private Date   time;
+  private Date           time;
 
   /**
-   * Gets the item data. This is a hexadecimal representation of the
+   * Creates an empty result, to be populated from a JSON-RPC response.
+   */
+  StreamItemResult()
+  {
+  }
+
+  /**
+   * Creates a result for a confirmed item whose data is available, such as
+   * an item held locally.
+   *
+   * @param id   The unique item identifier.
+   * @param keys The logical keys associated with the data.
+   * @param data The item data.
+   * @param time The date and time at which the item was added to the
+   *             blockchain, or {@literal null} if not known.
+   */
+  StreamItemResult(final String id, final List<String> keys, final StreamItemData data, final Date time)
+  {
+    this.confirmations = 1L;
+    this.data = data;
+    this.id = id;
+    this.key = keys.isEmpty() ? null : keys.get(0);
+    this.keys = keys;
+    this.time = time;
+  }
+
+  /**
+   * Gets binary item data. This is a hexadecimal representation of the
    * binary version of the data.
    *
-   * @return The item data.
+   * @return The item data, or {@literal null} if the item does not hold
+   * binary data.
+   * @see #getItemData()
    */
   public String getData()
   {
-    return data;
+    return data != null ? data.getHex() : null;
   }
 
   /**
@@ -59,6 +94,16 @@ abstract class StreamItemResult extends Result
     return id;
   }
 
+  /**
+   * Gets the item data, in whichever form it is stored.
+   *
+   * @return The item data.
+   */
+  public StreamItemData getItemData()
+  {
+    return data;
+  }
+
   /**
    * Gets the logical key associated with the data.
    *
@@ -69,6 +114,22 @@ abstract class StreamItemResult extends Result
     return key;
   }
 
+  /**
+   * Gets all the logical keys associated with the data. Nodes older than
+   * MultiChain 2.0 associate a single key with each item.
+   *
+   * @return The logical keys associated with the data.
+   */
+  public List<String> getKeys()
+  {
+    if (keys != null)
+    {
+      return Collections.unmodifiableList(keys);
+    }
+
+    return key != null ? Collections.singletonList(key) : Collections.emptyList();
+  }
+
   /**
    * Gets the date and time at which the item was added to the blockchain.
    *
@@ -78,4 +139,43 @@ abstract class StreamItemResult extends Result
   {
     return time;
   }
+
+  /**
+   * Gets whether the item data is available to the node. The data of
+   * off-chain items is unavailable, and reported as {@literal null}, until
+   * the node has retrieved it from other nodes; the data of on-chain items
+   * is always available.
+   *
+   * @return {@literal true} if the item data is available.
+   */
+  public boolean isAvailable()
+  {
+    // Nodes older than MultiChain 2.0 do not report availability, and only
+    // store items on-chain.
+    return available == null || available;
+  }
+
+  /**
+   * Gets whether the item has been confirmed in a block. The position of
+   * unconfirmed items in the data stream may change when they are
+   * confirmed.
+   *
+   * @return {@literal true} if the item has been confirmed.
+   */
+  public boolean isConfirmed()
+  {
+    // Nodes that do not report confirmations only report the block time of
+    // confirmed items.
+    return confirmations != null ? confirmations > 0 : time != null;
+  }
+
+  /**
+   * Gets whether the item data is stored off-chain.
+   *
+   * @return {@literal true} if the item data is stored off-chain.
+   */
+  public boolean isOffchain()
+  {
+    return offchain != null && offchain;
+  }
 }
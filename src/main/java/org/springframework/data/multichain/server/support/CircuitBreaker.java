@@ -0,0 +1,281 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.server.support;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static org.springframework.util.Assert.hasText;
+import static org.springframework.util.Assert.notNull;
+
+/**
+ * <p>
+ * Guards calls to a single MultiChain RPC server so that callers fail fast
+ * once the server appears to be unavailable, instead of waiting for every
+ * call to time out.
+ * </p>
+ * <p>
+ * The outcomes of the most recent calls are recorded in a sliding window.
+ * Once the proportion of failed or slow calls in the window reaches the
+ * configured threshold, the circuit <em>opens</em> and rejects calls without
+ * attempting them. After a wait period, the circuit turns <em>half-open</em>
+ * and lets a small number of trial calls through. If those succeed, the
+ * circuit <em>closes</em> again; otherwise it opens for another wait period.
+ * </p>
+ */
+public class CircuitBreaker
+{
+  private final LongSupplier           clock;
+  private final String                 name;
+  private final CircuitBreakerSettings settings;
+
+  private final boolean[] failed;
+  private final boolean[] slow;
+
+  private int   calls;
+  private int   failures;
+  private int   halfOpenPermits;
+  private int   next;
+  private long  openedAt;
+  private int   slowCalls;
+  private State state = State.CLOSED;
+
+  /**
+   * Creates a circuit breaker for a MultiChain RPC server.
+   *
+   * @param name     A name for the guarded server, used in diagnostic
+   *                 messages.
+   * @param settings The {@link CircuitBreakerSettings} to use.
+   * @throws IllegalArgumentException if {@code name} is blank or
+   *                                  {@code settings} is {@literal null}.
+   */
+  public CircuitBreaker(final String name, final CircuitBreakerSettings settings)
+  {
+    this(name, settings, System::nanoTime);
+  }
+
+  /**
+   * Creates a circuit breaker for a MultiChain RPC server, using a specific
+   * source of time.
+   *
+   * @param name     A name for the guarded server.
+   * @param settings The {@link CircuitBreakerSettings} to use.
+   * @param clock    A source of monotonic time, in nanoseconds.
+   */
+  CircuitBreaker(final String name, final CircuitBreakerSettings settings, final LongSupplier clock)
+  {
+    hasText(name, "Name must not be blank.");
+    notNull(settings, "CircuitBreakerSettings must not be null.");
+
+    this.clock = clock;
+    this.name = name;
+    this.settings = settings;
+
+    this.failed = new boolean[Math.max(settings.getSlidingWindowSize(), settings.getPermittedCallsInHalfOpenState())];
+    this.slow = new boolean[failed.length];
+  }
+
+  /**
+   * Gets the name of the guarded server.
+   *
+   * @return The name of the guarded server.
+   */
+  public String getName()
+  {
+    return name;
+  }
+
+  /**
+   * Gets the current state of the circuit.
+   *
+   * @return The current {@link State} of the circuit.
+   */
+  public synchronized State getState()
+  {
+    return state;
+  }
+
+  /**
+   * Records that a call completed with a failure attributable to the
+   * guarded server.
+   *
+   * @param duration The time taken by the call, in nanoseconds.
+   */
+  public synchronized void onError(final long duration)
+  {
+    record(true, duration);
+  }
+
+  /**
+   * Records that a call completed without a failure attributable to the
+   * guarded server.
+   *
+   * @param duration The time taken by the call, in nanoseconds.
+   */
+  public synchronized void onSuccess(final long duration)
+  {
+    record(false, duration);
+  }
+
+  /**
+   * Attempts to obtain permission for a call to the guarded server. Every
+   * call for which permission is granted must be followed by a call to
+   * either {@link #onSuccess(long)} or {@link #onError(long)}.
+   *
+   * @return {@literal true} if the call may be attempted, {@literal false}
+   * if the call must be rejected.
+   */
+  public synchronized boolean tryAcquirePermission()
+  {
+    switch (state)
+    {
+      case CLOSED:
+        return true;
+
+      case OPEN:
+        // Keep rejecting calls until the wait period has elapsed.
+        if (clock.getAsLong() - openedAt < TimeUnit.MILLISECONDS.toNanos(settings.getWaitDurationInOpenState()))
+        {
+          return false;
+        }
+
+        transitionTo(State.HALF_OPEN);
+
+        // Fall through to grant a trial call.
+
+      default:
+        // Allow a limited number of trial calls through.
+        if (halfOpenPermits > 0)
+        {
+          --halfOpenPermits;
+
+          return true;
+        }
+
+        return false;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString()
+  {
+    return name + " [" + getState() + "]";
+  }
+
+  /**
+   * Determines whether the failure or slow call rates for the calls
+   * recorded so far have reached their thresholds.
+   *
+   * @return {@literal true} if either rate has reached its threshold,
+   * {@literal false} otherwise.
+   */
+  private boolean isThresholdReached()
+  {
+    return failures * 100 >= settings.getFailureRateThreshold() * calls
+        || slowCalls * 100 >= settings.getSlowCallRateThreshold() * calls;
+  }
+
+  /**
+   * Records the outcome of a call and changes the state of the circuit if
+   * the outcome warrants it.
+   *
+   * @param failure  Whether the call failed.
+   * @param duration The time taken by the call, in nanoseconds.
+   */
+  private void record(final boolean failure, final long duration)
+  {
+    // Outcomes of calls that were started before the circuit opened do not
+    // count towards the next evaluation.
+    if (state == State.OPEN)
+    {
+      return;
+    }
+
+    final boolean slowCall = duration > TimeUnit.MILLISECONDS.toNanos(settings.getSlowCallDurationThreshold());
+    final int window = state == State.HALF_OPEN
+                       ? settings.getPermittedCallsInHalfOpenState()
+                       : settings.getSlidingWindowSize();
+
+    // Evict the oldest outcome once the window is full.
+    if (calls == window)
+    {
+      failures -= failed[next] ? 1 : 0;
+      slowCalls -= slow[next] ? 1 : 0;
+    }
+    else
+    {
+      ++calls;
+    }
+
+    failed[next] = failure;
+    slow[next] = slowCall;
+    failures += failure ? 1 : 0;
+    slowCalls += slowCall ? 1 : 0;
+    next = (next + 1) % window;
+
+    if (state == State.HALF_OPEN)
+    {
+      // Decide only after all trial calls have completed.
+      if (calls == window)
+      {
+        transitionTo(isThresholdReached() ? State.OPEN : State.CLOSED);
+      }
+    }
+    else if (calls >= settings.getMinimumNumberOfCalls() && isThresholdReached())
+    {
+      transitionTo(State.OPEN);
+    }
+  }
+
+  /**
+   * Moves the circuit to a new state, discarding the outcomes recorded in
+   * the previous state.
+   *
+   * @param target The state to move to.
+   */
+  private void transitionTo(final State target)
+  {
+    calls = failures = next = slowCalls = 0;
+    halfOpenPermits = target == State.HALF_OPEN ? settings.getPermittedCallsInHalfOpenState() : 0;
+    openedAt = target == State.OPEN ? clock.getAsLong() : openedAt;
+    state = target;
+  }
+
+  /**
+   * States of a circuit.
+   */
+  public enum State
+  {
+    /**
+     * Calls are allowed through and their outcomes are recorded.
+     */
+    CLOSED,
+
+    /**
+     * A limited number of trial calls are allowed through to find out
+     * whether the server has recovered.
+     */
+    HALF_OPEN,
+
+    /**
+     * Calls are rejected without being attempted.
+     */
+    OPEN
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.server.support;
+
+import static org.springframework.util.Assert.isTrue;
+
+/**
+ * Thresholds and timings that govern when a {@link CircuitBreaker} guarding
+ * a MultiChain RPC server opens, and how it recovers after opening.
+ */
+public class CircuitBreakerSettings
+{
+  private int  failureRateThreshold          = 50;
+  private int  minimumNumberOfCalls          = 10;
+  private int  permittedCallsInHalfOpenState = 3;
+  private int  slidingWindowSize             = 20;
+  private long slowCallDurationThreshold     = 5000;
+  private int  slowCallRateThreshold         = 50;
+  private long waitDurationInOpenState       = 30000;
+
+  /**
+   * Gets the percentage of failed calls, within the sliding window, at or
+   * above which the circuit opens.
+   *
+   * @return The failure rate threshold, as a percentage.
+   */
+  public int getFailureRateThreshold()
+  {
+    return failureRateThreshold;
+  }
+
+  /**
+   * Gets the number of calls that must be recorded before failure and slow
+   * call rates are evaluated.
+   *
+   * @return The minimum number of calls to record before evaluating rates.
+   */
+  public int getMinimumNumberOfCalls()
+  {
+    return minimumNumberOfCalls;
+  }
+
+  /**
+   * Gets the number of trial calls allowed through while the circuit is
+   * half-open.
+   *
+   * @return The number of trial calls allowed while the circuit is half-open.
+   */
+  public int getPermittedCallsInHalfOpenState()
+  {
+    return permittedCallsInHalfOpenState;
+  }
+
+  /**
+   * Gets the number of most recent calls over which failure and slow call
+   * rates are calculated.
+   *
+   * @return The size of the sliding window.
+   */
+  public int getSlidingWindowSize()
+  {
+    return slidingWindowSize;
+  }
+
+  /**
+   * Gets the duration, in milliseconds, beyond which a call is considered
+   * slow.
+   *
+   * @return The slow call duration threshold, in milliseconds.
+   */
+  public long getSlowCallDurationThreshold()
+  {
+    return slowCallDurationThreshold;
+  }
+
+  /**
+   * Gets the percentage of slow calls, within the sliding window, at or
+   * above which the circuit opens.
+   *
+   * @return The slow call rate threshold, as a percentage.
+   */
+  public int getSlowCallRateThreshold()
+  {
+    return slowCallRateThreshold;
+  }
+
+  /**
+   * Gets the duration, in milliseconds, for which the circuit stays open
+   * before trial calls are allowed through.
+   *
+   * @return The wait duration in open state, in milliseconds.
+   */
+  public long getWaitDurationInOpenState()
+  {
+    return waitDurationInOpenState;
+  }
+
+  /**
+   * Sets the percentage of failed calls, within the sliding window, at or
+   * above which the circuit opens.
+   *
+   * @param failureRateThreshold The failure rate threshold, as a percentage
+   *                             between {@literal 1} and {@literal 100}.
+   */
+  public void setFailureRateThreshold(final int failureRateThreshold)
+  {
+    isTrue(failureRateThreshold > 0 && failureRateThreshold <= 100, "Failure rate threshold must be between 1 and 100.");
+
+    this.failureRateThreshold = failureRateThreshold;
+  }
+
+  /**
+   * Sets the number of calls that must be recorded before failure and slow
+   * call rates are evaluated.
+   *
+   * @param minimumNumberOfCalls The minimum number of calls to record before
+   *                             evaluating rates.
+   */
+  public void setMinimumNumberOfCalls(final int minimumNumberOfCalls)
+  {
+    isTrue(minimumNumberOfCalls > 0, "Minimum number of calls must be greater than zero.");
+
+    this.minimumNumberOfCalls = minimumNumberOfCalls;
+  }
+
+  /**
+   * Sets the number of trial calls allowed through while the circuit is
+   * half-open.
+   *
+   * @param permittedCallsInHalfOpenState The number of trial calls allowed
+   *                                      while the circuit is half-open.
+   */
+  public void setPermittedCallsInHalfOpenState(final int permittedCallsInHalfOpenState)
+  {
+    isTrue(permittedCallsInHalfOpenState > 0, "Permitted calls in half-open state must be greater than zero.");
+
+    this.permittedCallsInHalfOpenState = permittedCallsInHalfOpenState;
+  }
+
+  /**
+   * Sets the number of most recent calls over which failure and slow call
+   * rates are calculated.
+   *
+   * @param slidingWindowSize The size of the sliding window.
+   */
+  public void setSlidingWindowSize(final int slidingWindowSize)
+  {
+    isTrue(slidingWindowSize > 0, "Sliding window size must be greater than zero.");
+
+    this.slidingWindowSize = slidingWindowSize;
+  }
+
+  /**
+   * Sets the duration, in milliseconds, beyond which a call is considered
+   * slow.
+   *
+   * @param slowCallDurationThreshold The slow call duration threshold, in
+   *                                  milliseconds.
+   */
+  public void setSlowCallDurationThreshold(final long slowCallDurationThreshold)
+  {
+    isTrue(slowCallDurationThreshold > 0, "Slow call duration threshold must be greater than zero.");
+
+    this.slowCallDurationThreshold = slowCallDurationThreshold;
+  }
+
+  /**
+   * Sets the percentage of slow calls, within the sliding window, at or
+   * above which the circuit opens.
+   *
+   * @param slowCallRateThreshold The slow call rate threshold, as a
+   *                              percentage between {@literal 1} and
+   *                              {@literal 100}.
+   */
+  public void setSlowCallRateThreshold(final int slowCallRateThreshold)
+  {
+    isTrue(slowCallRateThreshold > 0 && slowCallRateThreshold <= 100, "Slow call rate threshold must be between 1 and 100.");
+
+    this.slowCallRateThreshold = slowCallRateThreshold;
+  }
+
+  /**
+   * Sets the duration, in milliseconds, for which the circuit stays open
+   * before trial calls are allowed through.
+   *
+   * @param waitDurationInOpenState The wait duration in open state, in
+   *                                milliseconds.
+   */
+  public void setWaitDurationInOpenState(final long waitDurationInOpenState)
+  {
+    isTrue(waitDurationInOpenState > 0, "Wait duration in open state must be greater than zero.");
+
+    this.waitDurationInOpenState = waitDurationInOpenState;
+  }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.server.support;
+
+import org.apache.http.conn.ConnectTimeoutException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.multichain.server.Deadline;
+import org.springframework.data.multichain.server.MultiChainClient;
+import org.springframework.data.multichain.server.command.Request;
+import org.springframework.data.multichain.server.command.Response;
+import org.springframework.web.client.RestClientException;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+import static org.springframework.util.Assert.notEmpty;
+import static org.springframework.util.Assert.noNullElements;
+import static org.springframework.util.Assert.notNull;
+
+/**
+ * <p>
+ * A {@link MultiChainClient} that guards each of one or more MultiChain RPC
+ * servers (nodes) with its own {@link CircuitBreaker}.
+ * </p>
+ * <p>
+ * Nodes are tried in the order in which they were provided, skipping nodes
+ * whose circuit is open. A command is sent to the next node only if it
+ * failed on the current node because of a problem with the node or the
+ * network, and only if sending it again is safe: either the command is
+ * {@link Request#isIdempotent() idempotent}, or the connection to the
+ * failed node could not even be established. Errors reported by a node
+ * through a JSON-RPC error response do not count as node failures.
+ * </p>
+ * <p>
+ * If no node is able to handle a command, a
+ * {@link DataAccessResourceFailureException} is thrown. When the circuits for
+ * all nodes are open, this happens immediately, without waiting for any
+ * network timeout. No further node is tried once the {@link Deadline} in
+ * effect, if any, has passed.
+ * </p>
+ */
+public class CircuitBreakingMultiChainClient implements MultiChainClient
+{
+  private final LongSupplier clock;
+  private final List<Node>   nodes;
+
+  /**
+   * Creates a client that guards a single MultiChain RPC server with a
+   * circuit breaker.
+   *
+   * @param client   The {@link MultiChainClient} for the server.
+   * @param settings The {@link CircuitBreakerSettings} to use.
+   * @throws IllegalArgumentException if {@code client} or {@code settings}
+   *                                  is {@literal null}.
+   */
+  public CircuitBreakingMultiChainClient(final MultiChainClient client, final CircuitBreakerSettings settings)
+  {
+    this(Collections.singletonList(client), settings);
+  }
+
+  /**
+   * Creates a client that guards several MultiChain RPC servers for the same
+   * blockchain with a circuit breaker each, failing over from one server to
+   * the next, in the given order.
+   *
+   * @param clients  The {@link MultiChainClient}s for the servers, in order
+   *                 of preference.
+   * @param settings The {@link CircuitBreakerSettings} to use for each
+   *                 server.
+   * @throws IllegalArgumentException if {@code clients} is empty or contains
+   *                                  {@literal null} elements, or if
+   *                                  {@code settings} is {@literal null}.
+   */
+  public CircuitBreakingMultiChainClient(final List<? extends MultiChainClient> clients, final CircuitBreakerSettings settings)
+  {
+    this(clients, settings, System::nanoTime);
+  }
+
+  /**
+   * Creates a client that guards several MultiChain RPC servers, using a
+   * specific source of time.
+   *
+   * @param clients  The {@link MultiChainClient}s for the servers.
+   * @param settings The {@link CircuitBreakerSettings} to use.
+   * @param clock    A source of monotonic time, in nanoseconds.
+   */
+  CircuitBreakingMultiChainClient(final List<? extends MultiChainClient> clients
+      , final CircuitBreakerSettings settings
+      , final LongSupplier clock)
+  {
+    notEmpty(clients, "MultiChainClients must not be empty.");
+    noNullElements(clients.toArray(), "MultiChainClients must not contain null elements.");
+    notNull(settings, "CircuitBreakerSettings must not be null.");
+
+    this.clock = clock;
+    this.nodes = new ArrayList<>(clients.size());
+
+    for (final MultiChainClient client : clients)
+    {
+      nodes.add(new Node(client, new CircuitBreaker(client.toString(), settings, clock)));
+    }
+  }
+
+  /**
+   * Gets the circuit breakers guarding the MultiChain RPC servers, in order
+   * of preference.
+   *
+   * @return The {@link CircuitBreaker}s guarding the servers.
+   */
+  public List<CircuitBreaker> getCircuitBreakers()
+  {
+    final List<CircuitBreaker> circuitBreakers = new ArrayList<>(nodes.size());
+    for (final Node node : nodes)
+    {
+      circuitBreakers.add(node.circuitBreaker);
+    }
+
+    return circuitBreakers;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @throws DataAccessResourceFailureException if none of the MultiChain RPC
+   *                                            servers could handle the
+   *                                            command.
+   */
+  @Override
+  public <Q extends Request, R extends Response<?>> R invoke(final Q request, final Class<R> responseType)
+  {
+    final Deadline deadline = Deadline.current();
+
+    RuntimeException failure = null;
+
+    for (final Node node : nodes)
+    {
+      // Stop trying once the caller has run out of time.
+      if (deadline != null && deadline.isExpired())
+      {
+        throw new QueryTimeoutException(String.format("Deadline passed before command %s could be invoked.", request.getCommand()), failure);
+      }
+
+      // Skip the node if its circuit is open.
+      if (!node.circuitBreaker.tryAcquirePermission())
+      {
+        continue;
+      }
+
+      final long start = clock.getAsLong();
+
+      try
+      {
+        final R response = node.client.invoke(request, responseType);
+
+        node.circuitBreaker.onSuccess(clock.getAsLong() - start);
+
+        return response;
+      }
+      catch (final RuntimeException e)
+      {
+        // Problems that do not originate from the node or the network must
+        // neither count against the node nor be retried elsewhere.
+        if (!isNodeFailure(e))
+        {
+          node.circuitBreaker.onSuccess(clock.getAsLong() - start);
+
+          throw e;
+        }
+
+        node.circuitBreaker.onError(clock.getAsLong() - start);
+
+        failure = e;
+
+        // Do not send the command again if the node may have processed it
+        // already.
+        if (!request.isIdempotent() && !isConnectFailure(e))
+        {
+          break;
+        }
+      }
+    }
+
+    if (failure == null)
+    {
+      throw new DataAccessResourceFailureException(String.format("Command %s rejected as no MultiChain RPC server is available: %s."
+          , request.getCommand()
+          , getCircuitBreakers()));
+    }
+
+    throw new DataAccessResourceFailureException(String.format("Command %s failed on MultiChain RPC server: %s."
+        , request.getCommand()
+        , failure.getMessage())
+        , failure);
+  }
+
+  /**
+   * Determines whether an exception indicates that a connection to a
+   * MultiChain RPC server could not be established, which implies that the
+   * server did not receive the command.
+   *
+   * @param e The exception to check.
+   * @return {@literal true} if {@code e} indicates a connection failure,
+   * {@literal false} otherwise.
+   */
+  private boolean isConnectFailure(final RuntimeException e)
+  {
+    for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause())
+    {
+      if (cause instanceof ConnectException
+          || cause instanceof ConnectTimeoutException
+          || cause instanceof NoRouteToHostException
+          || cause instanceof UnknownHostException)
+      {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Determines whether an exception indicates a failure of a MultiChain RPC
+   * server, or of the network between the client and the server.
+   *
+   * @param e The exception to check.
+   * @return {@literal true} if {@code e} indicates a failure of the server or
+   * the network, {@literal false} otherwise.
+   */
+  private boolean isNodeFailure(final RuntimeException e)
+  {
+    return e instanceof RestClientException
+        || e instanceof DataAccessResourceFailureException
+        || e instanceof QueryTimeoutException;
+  }
+
+  /**
+   * A MultiChain RPC server along with its circuit breaker.
+   */
+  private static final class Node
+  {
+    private final CircuitBreaker   circuitBreaker;
+    private final MultiChainClient client;
+
+    /**
+     * Creates a node.
+     *
+     * @param client         The {@link MultiChainClient} for the server.
+     * @param circuitBreaker The {@link CircuitBreaker} guarding the server.
+     */
+    private Node(final MultiChainClient client, final CircuitBreaker circuitBreaker)
+    {
+      this.circuitBreaker = circuitBreaker;
+      this.client = client;
+    }
+  }
+}
@@ -16,21 +16,68 @@
 package org.springframework.data.multichain.server.support;
 
 import org.springframework.data.multichain.server.MultiChainClient;
+import org.springframework.data.multichain.server.command.Request;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 
 import static org.springframework.util.Assert.hasText;
 import static org.springframework.util.Assert.isTrue;
 
 /**
  * Configures a {@link MultiChainTemplate} that can be used to communicate with
- * the MultiChain blockchain using a MultiChain RPC server.
+ * the MultiChain blockchain using a MultiChain RPC server. If failover hosts
+ * or circuit breaker settings are configured, the template for each host is
+ * guarded by a {@link CircuitBreakingMultiChainClient}. Each template pools
+ * up to {@link MultiChainTemplate#DEFAULT_MAX_CONNECTIONS} connections
+ * unless configured otherwise, which should exceed the number of threads
+ * invoking commands concurrently, such as those of parallel scans.
  */
 public class MultiChainClientFactory
 {
-  private String  host;
-  private String  password;
-  private int     port;
-  private boolean secure;
-  private String  username;
+  private CircuitBreakerSettings     circuitBreakerSettings;
+  private List<String>               failoverHosts          = Collections.emptyList();
+  private String                     host;
+  private int                        maxConnectionsPerRoute = MultiChainTemplate.DEFAULT_MAX_CONNECTIONS;
+  private int                        maxConnectionsTotal    = MultiChainTemplate.DEFAULT_MAX_CONNECTIONS;
+  private String                     password;
+  private int                        port;
+  private boolean                    secure;
+  private Map<Request.Command, Long> timeouts               = Collections.emptyMap();
+  private String                     username;
+
+  /**
+   * Sets the settings for the circuit breakers guarding the MultiChain RPC
+   * servers.
+   *
+   * @param circuitBreakerSettings The {@link CircuitBreakerSettings} to use.
+   */
+  public void setCircuitBreakerSettings(final CircuitBreakerSettings circuitBreakerSettings)
+  {
+    this.circuitBreakerSettings = circuitBreakerSettings;
+  }
+
+  /**
+   * Sets the DNS names or IP addresses of host machines for additional
+   * MultiChain RPC servers for the same blockchain, to fail over to when the
+   * primary server is unavailable. These servers must accept the same port,
+   * username and password as the primary server.
+   *
+   * @param failoverHosts The DNS names or IP addresses of the host machines
+   *                      to fail over to, in order of preference.
+   */
+  public void setFailoverHosts(final List<String> failoverHosts)
+  {
+    for (final String failoverHost : failoverHosts)
+    {
+      hasText(failoverHost, "MultiChain RPC server failover host name must not be blank.");
+    }
+
+    this.failoverHosts = new ArrayList<>(failoverHosts);
+  }
 
   /**
    * Sets the DNS name or IP address of the host machine for the MultiChain RPC
@@ -46,6 +93,35 @@ public class MultiChainClientFactory
     this.host = host;
   }
 
+  /**
+   * Sets the maximum number of connections to each MultiChain RPC server,
+   * which limits the number of commands sent to a server concurrently.
+   *
+   * @param maxConnectionsPerRoute The maximum number of connections to each
+   *                               MultiChain RPC server.
+   */
+  public void setMaxConnectionsPerRoute(final int maxConnectionsPerRoute)
+  {
+    isTrue(maxConnectionsPerRoute > 0, "MultiChain RPC maximum connections per route must be greater than zero.");
+
+    this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+  }
+
+  /**
+   * Sets the maximum number of connections pooled by the client for each
+   * MultiChain RPC server. A maximum less than the maximum number of
+   * connections per route is raised to the latter.
+   *
+   * @param maxConnectionsTotal The maximum number of connections in each
+   *                            pool.
+   */
+  public void setMaxConnectionsTotal(final int maxConnectionsTotal)
+  {
+    isTrue(maxConnectionsTotal > 0, "MultiChain RPC maximum connections in total must be greater than zero.");
+
+    this.maxConnectionsTotal = maxConnectionsTotal;
+  }
+
   /**
    * Sets the password to use for connecting to the MultiChain RPC server.
    *
@@ -84,6 +160,23 @@ public class MultiChainClientFactory
     this.secure = secure;
   }
 
+  /**
+   * Sets the time to allow for each type of command to complete, overriding
+   * {@link Request.Command#getDefaultTimeout()}.
+   *
+   * @param timeouts The time to allow for each type of command to complete,
+   *                 in milliseconds.
+   */
+  public void setTimeouts(final Map<Request.Command, Long> timeouts)
+  {
+    for (final Long timeout : timeouts.values())
+    {
+      isTrue(timeout != null && timeout > 0, "MultiChain RPC command timeout must be greater than zero.");
+    }
+
+    this.timeouts = new EnumMap<>(timeouts);
+  }
+
   /**
    * Sets the username to use for connecting to the MultiChain RPC server.
    *
@@ -105,6 +198,43 @@ public class MultiChainClientFactory
    */
   MultiChainClient getMultiChainClient()
   {
-    return new MultiChainTemplate(host, port, username, password, secure);
+    final MultiChainClient primary = createMultiChainTemplate(host);
+
+    if (circuitBreakerSettings == null && failoverHosts.isEmpty())
+    {
+      return primary;
+    }
+
+    final List<MultiChainClient> clients = new ArrayList<>(failoverHosts.size() + 1);
+    clients.add(primary);
+
+    for (final String failoverHost : failoverHosts)
+    {
+      clients.add(createMultiChainTemplate(failoverHost));
+    }
+
+    return new CircuitBreakingMultiChainClient(clients
+        , circuitBreakerSettings != null ? circuitBreakerSettings : new CircuitBreakerSettings());
+  }
+
+  /**
+   * Creates a {@link MultiChainTemplate} for a MultiChain RPC server.
+   *
+   * @param host The DNS name or IP address of the host machine for the
+   *             MultiChain RPC server.
+   * @return A {@link MultiChainTemplate}.
+   */
+  private MultiChainTemplate createMultiChainTemplate(final String host)
+  {
+    final MultiChainTemplate template = new MultiChainTemplate(host
+        , port
+        , username
+        , password
+        , secure
+        , maxConnectionsPerRoute
+        , Math.max(maxConnectionsTotal, maxConnectionsPerRoute));
+    timeouts.forEach(template::setTimeout);
+
+    return template;
   }
 }
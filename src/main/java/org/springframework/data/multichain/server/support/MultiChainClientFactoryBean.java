@@ -19,7 +19,8 @@ import org.springframework.beans.factory.FactoryBean;
 import org.springframework.data.multichain.server.MultiChainClient;
 
 /**
- * Creates a {@link MultiChainTemplate} based on the configuration.
+ * Creates a {@link MultiChainTemplate}, optionally guarded by a
+ * {@link CircuitBreakingMultiChainClient}, based on the configuration.
  */
 public class MultiChainClientFactoryBean
     extends MultiChainClientFactory
@@ -40,7 +41,7 @@ public class MultiChainClientFactoryBean
   @Override
   public Class<?> getObjectType()
   {
-    return MultiChainTemplate.class;
+    return MultiChainClient.class;
   }
 
   /**
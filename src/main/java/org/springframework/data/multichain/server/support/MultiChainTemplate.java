@@ -21,34 +21,72 @@ import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.CredentialsProvider;
 import org.apache.http.client.HttpClient;
+import org.apache.http.conn.ConnectTimeoutException;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.multichain.server.Deadline;
 import org.springframework.data.multichain.server.MultiChainClient;
 import org.springframework.data.multichain.server.command.Request;
 import org.springframework.data.multichain.server.command.Response;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.client.ClientHttpRequestFactory;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.json.GsonHttpMessageConverter;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.SocketTimeoutException;
 import java.net.URI;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static org.springframework.util.Assert.hasText;
 import static org.springframework.util.Assert.isTrue;
+import static org.springframework.util.Assert.notNull;
 
 /**
+ * <p>
  * Abstraction using which all communication with a MultiChain JSON-RPC server
  * is managed. Using {@link RestTemplate} provided by the Spring framework
  * internally to exchange request and response objects with the RPC server.
  * Serialization and deserialization of Java objects to and from JSON is
  * managed using the Gson library.
+ * </p>
+ * <p>
+ * Each command is given a limited amount of time to complete, which can be
+ * configured separately for each type of command through
+ * {@link #setTimeout(Request.Command, long)}. If a {@link Deadline} is in
+ * effect when a command is invoked, the command is given no more than the
+ * time remaining before the deadline. The time allowed applies separately
+ * to obtaining a pooled connection, establishing a new connection and
+ * waiting for data from the server. A command that runs out of time fails
+ * with a {@link QueryTimeoutException}.
+ * </p>
+ * <p>
+ * Connections to the RPC server are pooled. The pool allows
+ * {@link #DEFAULT_MAX_CONNECTIONS} connections unless configured otherwise,
+ * so that commands invoked concurrently, such as the range queries of a
+ * parallel scan, are sent to the server concurrently instead of waiting for
+ * a pooled connection.
+ * </p>
  */
 public class MultiChainTemplate implements MultiChainClient
 {
-  private final RestTemplate restTemplate;
-  private final Gson         serializer;
-  private final URI          uri;
+  /**
+   * The default maximum number of connections to the RPC server, both per
+   * route and in total.
+   */
+  public static final int DEFAULT_MAX_CONNECTIONS = 64;
+
+  private final RestTemplate               restTemplate;
+  private final Gson                       serializer;
+  private final Map<Request.Command, Long> timeouts = new EnumMap<>(Request.Command.class);
+  private final URI                        uri;
 
   /**
    * Creates a {@link MultiChainTemplate} that can be used to communicate with
@@ -74,9 +112,49 @@ public class MultiChainTemplate implements MultiChainClient
       , final String username
       , final String password
       , final boolean secure)
+  {
+    this(host, port, username, password, secure, DEFAULT_MAX_CONNECTIONS, DEFAULT_MAX_CONNECTIONS);
+  }
+
+  /**
+   * Creates a {@link MultiChainTemplate} that can be used to communicate with
+   * a MultiChain RPC server running on a given host and port, using specified
+   * username and password, and a given number of pooled connections.
+   *
+   * @param host                   The DNS name or IP address of the host
+   *                               machine for the MultiChain RPC server to
+   *                               connect to.
+   * @param port                   The TCP port number for the MultiChain RPC
+   *                               server to connect to.
+   * @param username               The username to use for connecting to the
+   *                               MultiChain RPC server.
+   * @param password               The password to use for connecting to the
+   *                               MultiChain RPC server.
+   * @param secure                 Whether the MultiChain RPC server accepts
+   *                               connections over a secure channel only
+   *                               (SSL).
+   * @param maxConnectionsPerRoute The maximum number of connections to the
+   *                               RPC server.
+   * @param maxConnectionsTotal    The maximum number of connections in the
+   *                               pool.
+   * @throws IllegalArgumentException if {@code host}, {@code username} or
+   *                                  {@code password} is {@literal null} or
+   *                                  blank, if {@code port} is invalid, if
+   *                                  {@code maxConnectionsPerRoute} is not
+   *                                  positive, or if
+   *                                  {@code maxConnectionsTotal} is less
+   *                                  than {@code maxConnectionsPerRoute}.
+   */
+  public MultiChainTemplate(final String host
+      , final int port
+      , final String username
+      , final String password
+      , final boolean secure
+      , final int maxConnectionsPerRoute
+      , final int maxConnectionsTotal)
   {
     this(createURI(host, port, secure)
-        , createRestTemplate(username, password)
+        , createRestTemplate(username, password, maxConnectionsPerRoute, maxConnectionsTotal)
         , new Gson());
   }
 
@@ -97,63 +175,144 @@ public class MultiChainTemplate implements MultiChainClient
 
   /**
    * {@inheritDoc}
+   *
+   * @throws QueryTimeoutException if the command does not complete in the
+   *                               time allowed for it, or if the
+   *                               {@link Deadline} in effect has passed.
    */
   public <Q extends Request, R extends Response<?>> R invoke(final Q request, final Class<R> responseType)
   {
+    // Find out how much time the command can be given.
+    final long timeout = getTimeout(request.getCommandType());
+
+    if (timeout <= 0)
+    {
+      throw new QueryTimeoutException(String.format("Deadline passed before command %s could be invoked.", request.getCommand()));
+    }
+
     // Generate JSON-RPC payload for the request.
     final String payload = createRequestPayload(request);
 
-    // Invoke the command and convert the response to the specified response
-    // object type.
-    return restTemplate.postForObject(uri, payload, responseType);
+    try
+    {
+      // Invoke the command and convert the response to the specified
+      // response object type.
+      return TimeoutClientHttpRequestFactory.withTimeout((int) Math.min(timeout, Integer.MAX_VALUE)
+          , () -> restTemplate.postForObject(uri, payload, responseType));
+    }
+    catch (final ResourceAccessException e)
+    {
+      if (e.getCause() instanceof SocketTimeoutException || e.getCause() instanceof ConnectTimeoutException)
+      {
+        throw new QueryTimeoutException(String.format("Command %s did not complete within %d ms.", request.getCommand(), timeout), e);
+      }
+
+      throw e;
+    }
+  }
+
+  /**
+   * Sets the time to allow for commands of a given type to complete,
+   * overriding {@link Request.Command#getDefaultTimeout()}.
+   *
+   * @param command The type of command.
+   * @param timeout The time to allow for the command to complete, in
+   *                milliseconds.
+   * @throws IllegalArgumentException if {@code command} is {@literal null}
+   *                                  or if {@code timeout} is not positive.
+   */
+  public void setTimeout(final Request.Command command, final long timeout)
+  {
+    notNull(command, "Command must not be null.");
+    isTrue(timeout > 0, "Timeout must be greater than zero.");
+
+    timeouts.put(command, timeout);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString()
+  {
+    return uri.toString();
   }
 
   /**
    * Creates a {@link ClientHttpRequestFactory} to communicate with a
    * MultiChain RPC server.
    *
-   * @param username The username to use for connecting to the MultiChain
-   *                 RPC server.
-   * @param password The password to use for connecting to the MultiChain
-   *                 RPC server.
+   * @param username               The username to use for connecting to the
+   *                               MultiChain RPC server.
+   * @param password               The password to use for connecting to the
+   *                               MultiChain RPC server.
+   * @param maxConnectionsPerRoute The maximum number of connections to the
+   *                               RPC server.
+   * @param maxConnectionsTotal    The maximum number of connections in the
+   *                               pool.
    * @return A {@link ClientHttpRequestFactory}.
    */
-  private static ClientHttpRequestFactory createClientHttpRequestFactory(final String username, final String password)
+  private static ClientHttpRequestFactory createClientHttpRequestFactory(final String username
+      , final String password
+      , final int maxConnectionsPerRoute
+      , final int maxConnectionsTotal)
   {
-    return new HttpComponentsClientHttpRequestFactory(createHttpClient(username, password));
+    return new TimeoutClientHttpRequestFactory(createHttpClient(username, password, maxConnectionsPerRoute, maxConnectionsTotal));
   }
 
   /**
    * Creates an Apache Commons {@link HttpClient} to communicate with a
    * MultiChain RPC server.
    *
-   * @param username The username to use for connecting to the MultiChain
-   *                 RPC server.
-   * @param password The password to use for connecting to the MultiChain
-   *                 RPC server.
+   * @param username               The username to use for connecting to the
+   *                               MultiChain RPC server.
+   * @param password               The password to use for connecting to the
+   *                               MultiChain RPC server.
+   * @param maxConnectionsPerRoute The maximum number of connections to the
+   *                               RPC server.
+   * @param maxConnectionsTotal    The maximum number of connections in the
+   *                               pool.
    * @return A {@link HttpClient}.
    */
-  private static HttpClient createHttpClient(final String username, final String password)
+  private static HttpClient createHttpClient(final String username
+      , final String password
+      , final int maxConnectionsPerRoute
+      , final int maxConnectionsTotal)
   {
     final CredentialsProvider credentialsProvider = new BasicCredentialsProvider();
     credentialsProvider.setCredentials(AuthScope.ANY, new UsernamePasswordCredentials(username, password));
 
-    return HttpClientBuilder.create().setDefaultCredentialsProvider(credentialsProvider).build();
+    // The defaults of HttpClient allow only two connections per route,
+    // which would serialize concurrent commands sent to the same server.
+    return HttpClientBuilder.create()
+                            .setDefaultCredentialsProvider(credentialsProvider)
+                            .setMaxConnPerRoute(maxConnectionsPerRoute)
+                            .setMaxConnTotal(maxConnectionsTotal)
+                            .build();
   }
 
   /**
    * Creates a {@link RestTemplate} that can be used to communicate with
    * a MultiChain RPC server, using specified username and password.
    *
-   * @param username The username to use for connecting to the MultiChain
-   *                 RPC server.
-   * @param password The password to use for connecting to the MultiChain
-   *                 RPC server.
+   * @param username               The username to use for connecting to the
+   *                               MultiChain RPC server.
+   * @param password               The password to use for connecting to the
+   *                               MultiChain RPC server.
+   * @param maxConnectionsPerRoute The maximum number of connections to the
+   *                               RPC server.
+   * @param maxConnectionsTotal    The maximum number of connections in the
+   *                               pool.
    * @return A {@link RestTemplate}.
    * @throws IllegalArgumentException if {@code username} or {@code password}
-   *                                  is {@literal null} or blank.
+   *                                  is {@literal null} or blank, or if the
+   *                                  maximum numbers of connections are
+   *                                  invalid.
    */
-  private static RestTemplate createRestTemplate(final String username, final String password)
+  private static RestTemplate createRestTemplate(final String username
+      , final String password
+      , final int maxConnectionsPerRoute
+      , final int maxConnectionsTotal)
   {
     // Ensure that the RPC username has been specified.
     hasText(username, "Username] must not be blank.");
@@ -161,7 +320,18 @@ public class MultiChainTemplate implements MultiChainClient
     // Ensure that the RPC password has been specified.
     hasText(password, "Password] must not be blank.");
 
-    return new RestTemplate(createClientHttpRequestFactory(username, password));
+    // Ensure that the connection pool can hold connections.
+    isTrue(maxConnectionsPerRoute > 0, "Maximum connections per route must be greater than zero.");
+    isTrue(maxConnectionsTotal >= maxConnectionsPerRoute, "Maximum connections in total must not be less than per route.");
+
+    // Responses are always read with Gson, even if other JSON libraries,
+    // such as Jackson for entity serialization, are available.
+    final RestTemplate restTemplate = new RestTemplate(Arrays.asList(new StringHttpMessageConverter()
+        , new GsonHttpMessageConverter()));
+    restTemplate.setRequestFactory(createClientHttpRequestFactory(username, password, maxConnectionsPerRoute, maxConnectionsTotal));
+    restTemplate.setErrorHandler(new JsonRpcResponseErrorHandler());
+
+    return restTemplate;
   }
 
   /**
@@ -236,7 +406,7 @@ public class MultiChainTemplate implements MultiChainClient
    * RPC server as part of the request, if {@code request} is not
    * {@literal null}.
    */
-  private <T extends Request> String createRequestPayload(final T request)
+  <T extends Request> String createRequestPayload(final T request)
   {
     if (request == null)
     {
@@ -252,6 +422,44 @@ public class MultiChainTemplate implements MultiChainClient
     return serializer.toJson(payload);
   }
 
+  /**
+   * Gets the time that can be given to a command, which is the time
+   * configured for the command, limited by the {@link Deadline} in effect,
+   * if any.
+   *
+   * @param command The command to invoke.
+   * @return The time that can be given to the command, in milliseconds.
+   */
+  private long getTimeout(final Request.Command command)
+  {
+    final long timeout = timeouts.getOrDefault(command, command.getDefaultTimeout());
+    final Deadline deadline = Deadline.current();
+
+    return deadline != null
+           ? Math.min(timeout, deadline.remaining(TimeUnit.MILLISECONDS))
+           : timeout;
+  }
+
+  /**
+   * Treats {@literal HTTP 500} responses as regular responses, since the
+   * MultiChain RPC server reports JSON-RPC errors (such as a missing data
+   * stream) with that status code, along with the error details in the
+   * response body. Such responses must be converted to {@link Response}
+   * objects so that the error details reach the caller, and so that they are
+   * not mistaken for a failure of the server itself.
+   */
+  private static final class JsonRpcResponseErrorHandler extends DefaultResponseErrorHandler
+  {
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean hasError(final HttpStatus statusCode)
+    {
+      return statusCode != HttpStatus.INTERNAL_SERVER_ERROR && super.hasError(statusCode);
+    }
+  }
+
   /**
    * Contains JSON-RPC parameters to include in the request to the MultiChain
    * RPC server.
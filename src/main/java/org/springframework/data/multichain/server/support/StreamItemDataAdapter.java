@@ -0,0 +1,77 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.server.support;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.springframework.data.multichain.server.command.StreamItemData;
+
+import java.io.IOException;
+
+/**
+ * Converts {@link StreamItemData} to and from the JSON-RPC representation
+ * of stream item data, which may be a hexadecimal {@link String} or an
+ * object.
+ */
+public class StreamItemDataAdapter extends TypeAdapter<StreamItemData>
+{
+  private static final TypeAdapter<JsonElement> ELEMENT = new Gson().getAdapter(JsonElement.class);
+
+  /**
+   * Reads stream item data.
+   *
+   * @param reader The {@link JsonReader} to read the data from.
+   * @return The {@link StreamItemData}, or {@literal null} if the data is
+   * JSON {@literal null}.
+   * @throws IOException if the data cannot be read.
+   */
+  @Override
+  public StreamItemData read(final JsonReader reader) throws IOException
+  {
+    if (reader.peek() == JsonToken.NULL)
+    {
+      reader.nextNull();
+
+      return null;
+    }
+
+    return StreamItemData.from(ELEMENT.read(reader));
+  }
+
+  /**
+   * Writes stream item data.
+   *
+   * @param writer The {@link JsonWriter} to write the data to.
+   * @param data   The {@link StreamItemData} to write.
+   * @throws IOException if the data cannot be written.
+   */
+  @Override
+  public void write(final JsonWriter writer, final StreamItemData data) throws IOException
+  {
+    if (data == null)
+    {
+      writer.nullValue();
+    }
+    else
+    {
+      ELEMENT.write(writer, data.toJson());
+    }
+  }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.server.support;
+
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * An {@link HttpComponentsClientHttpRequestFactory} that bounds each
+ * exchange with the server by a timeout chosen for it, from the moment the
+ * exchange starts until the response has been read.
+ * </p>
+ * <p>
+ * The time remaining when a request is created is applied to every phase
+ * of the request: obtaining a connection from the connection pool,
+ * establishing a new connection and waiting for data from the server. Since
+ * these apply to each phase separately, and the socket timeout to each
+ * read, a server that trickles its response, or an authentication
+ * challenge, could still keep the exchange going for longer. The request
+ * is therefore also aborted once the timeout runs out, whatever phase it
+ * is in, which fails the exchange with a {@link QueryTimeoutException}.
+ * </p>
+ */
+class TimeoutClientHttpRequestFactory extends HttpComponentsClientHttpRequestFactory
+{
+  private static final ScheduledThreadPoolExecutor ABORTER = createAborter();
+  private static final ThreadLocal<Exchange>       EXCHANGE = new ThreadLocal<>();
+
+  /**
+   * Creates a request factory for a given {@link HttpClient}.
+   *
+   * @param httpClient The {@link HttpClient} to use for sending requests.
+   */
+  TimeoutClientHttpRequestFactory(final HttpClient httpClient)
+  {
+    super(httpClient);
+  }
+
+  /**
+   * Runs an action, bounding all requests created by this factory on the
+   * current thread while the action runs by a given timeout, counted from
+   * now.
+   *
+   * @param timeout The timeout to apply, in milliseconds.
+   * @param action  The action to run.
+   * @param <T>     The type of result produced by the action.
+   * @return The result produced by {@code action}.
+   * @throws QueryTimeoutException if the requests were aborted because the
+   *                               timeout ran out.
+   */
+  static <T> T withTimeout(final int timeout, final Supplier<T> action)
+  {
+    final Exchange exchange = new Exchange(timeout);
+    EXCHANGE.set(exchange);
+
+    try
+    {
+      return action.get();
+    }
+    catch (final RuntimeException e)
+    {
+      // An aborted request fails in whichever way the phase it was in
+      // fails, such as a closed socket while reading the response.
+      if (exchange.isAborted())
+      {
+        throw new QueryTimeoutException(String.format("Request did not complete within %d ms and was aborted.", timeout), e);
+      }
+
+      throw e;
+    }
+    finally
+    {
+      EXCHANGE.remove();
+      exchange.complete();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void postProcessHttpRequest(final HttpUriRequest request)
+  {
+    final Exchange exchange = EXCHANGE.get();
+
+    if (exchange != null && request instanceof HttpRequestBase)
+    {
+      final int timeout = (int) Math.max(1, exchange.remaining());
+      final RequestConfig defaults = createRequestConfig(getHttpClient());
+
+      ((HttpRequestBase) request).setConfig((defaults != null ? RequestConfig.copy(defaults) : RequestConfig.custom())
+                                                .setConnectionRequestTimeout(timeout)
+                                                .setConnectTimeout(timeout)
+                                                .setSocketTimeout(timeout)
+                                                .build());
+
+      exchange.register((HttpRequestBase) request);
+    }
+  }
+
+  /**
+   * Creates the single daemon thread that aborts the requests that run out
+   * of time, shared by all factories.
+   *
+   * @return A {@link ScheduledThreadPoolExecutor}.
+   */
+  private static ScheduledThreadPoolExecutor createAborter()
+  {
+    final ScheduledThreadPoolExecutor aborter = new ScheduledThreadPoolExecutor(1, runnable -> {
+      final Thread thread = new Thread(runnable, "multichain-request-aborter");
+      thread.setDaemon(true);
+
+      return thread;
+    });
+    aborter.setRemoveOnCancelPolicy(true);
+
+    return aborter;
+  }
+
+  /**
+   * An exchange with the server bounded by a timeout, made of the requests
+   * created while it runs.
+   */
+  private static final class Exchange
+  {
+    private final List<ScheduledFuture<?>> aborts = new ArrayList<>(1);
+    private final long                     end;
+
+    private volatile boolean aborted;
+
+    /**
+     * Creates an exchange starting now.
+     *
+     * @param timeout The time allowed for the exchange, in milliseconds.
+     */
+    Exchange(final int timeout)
+    {
+      this.end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+    }
+
+    /**
+     * Stops aborting the requests of this exchange, once it has completed.
+     */
+    void complete()
+    {
+      for (final ScheduledFuture<?> abort : aborts)
+      {
+        abort.cancel(false);
+      }
+    }
+
+    /**
+     * Gets whether a request of this exchange has been aborted.
+     *
+     * @return {@literal true} if the timeout ran out.
+     */
+    boolean isAborted()
+    {
+      return aborted;
+    }
+
+    /**
+     * Aborts a request once the time allowed for this exchange runs out.
+     *
+     * @param request The request.
+     */
+    void register(final HttpRequestBase request)
+    {
+      aborts.add(ABORTER.schedule(() -> {
+        aborted = true;
+        request.abort();
+      }, end - System.nanoTime(), TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Gets the time remaining for this exchange.
+     *
+     * @return The remaining time, in milliseconds.
+     */
+    long remaining()
+    {
+      return TimeUnit.NANOSECONDS.toMillis(end - System.nanoTime());
+    }
+  }
+}
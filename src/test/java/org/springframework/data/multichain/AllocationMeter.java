@@ -0,0 +1,94 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.data.multichain;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Measures the bytes allocated on the heap by an operation, on the thread
+ * that performs the operation, so that tests can fail when an operation
+ * exceeds its allocation budget.
+ */
+public final class AllocationMeter
+{
+  private static final int ITERATIONS = 200;
+  private static final int WARMUP     = 200;
+
+  /**
+   * Prevents instantiation.
+   */
+  private AllocationMeter()
+  {
+  }
+
+  /**
+   * Asserts that an operation allocates no more than a given number of bytes,
+   * on average, each time it runs. The operation is first run a number of
+   * times without measuring, so that one-time allocations (such as class
+   * loading and caches) and the effects of JIT compilation are excluded.
+   * Skips the calling test if the JVM cannot measure thread allocation.
+   *
+   * @param operation The operation to measure.
+   * @param budget    The maximum number of bytes the operation may allocate.
+   * @param name      The name of the operation, for the failure message.
+   */
+  public static void assertAllocatesAtMost(final Runnable operation, final long budget, final String name)
+  {
+    final long allocated = measure(operation);
+
+    assertTrue(String.format("%s allocated %d bytes, exceeding its budget of %d bytes.", name, allocated, budget)
+        , allocated <= budget);
+  }
+
+  /**
+   * Measures the bytes an operation allocates, on average, each time it
+   * runs. Skips the calling test if the JVM cannot measure thread
+   * allocation.
+   *
+   * @param operation The operation to measure.
+   * @return The average number of bytes allocated by the operation.
+   */
+  public static long measure(final Runnable operation)
+  {
+    final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+    assumeTrue("Thread allocation cannot be measured on this JVM."
+        , bean instanceof com.sun.management.ThreadMXBean
+            && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported());
+
+    final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) bean;
+    threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+    for (int i = 0; i < WARMUP; ++i)
+    {
+      operation.run();
+    }
+
+    final long thread = Thread.currentThread().getId();
+    final long start = threadMXBean.getThreadAllocatedBytes(thread);
+
+    for (int i = 0; i < ITERATIONS; ++i)
+    {
+      operation.run();
+    }
+
+    return (threadMXBean.getThreadAllocatedBytes(thread) - start) / ITERATIONS;
+  }
+}
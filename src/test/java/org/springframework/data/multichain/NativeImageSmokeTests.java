@@ -0,0 +1,144 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.data.multichain;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.annotations.JsonAdapter;
+import org.junit.Test;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.data.multichain.repository.support.MultiChainRepositoryFactory;
+import org.springframework.data.multichain.server.command.Message;
+import org.springframework.data.multichain.server.simulator.MultiChainSimulator;
+import org.springframework.data.multichain.server.support.MultiChainTemplate;
+import org.springframework.domain.Contract;
+import org.springframework.repository.ContractRepository;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Smoke tests for running in a GraalVM native image. The tests run on the
+ * JVM, checking the reachability metadata shipped with this module and
+ * exercising repositories as they run in an image.
+ */
+public class NativeImageSmokeTests implements UnitTest
+{
+  private static final String NATIVE_IMAGE_PROPERTY = "org.graalvm.nativeimage.imagecode";
+  private static final String REFLECT_CONFIG        = "META-INF/native-image/org.example/spring-data-multichain/reflect-config.json";
+
+  /**
+   * Tests that all the classes exchanged with a MultiChain RPC server, and
+   * the adapters they use, are registered for reflection.
+   */
+  @Test
+  public void testReflectConfig() throws Exception
+  {
+    final Set<String> registered = getRegisteredTypeNames();
+
+    final String location = Message.class.getProtectionDomain().getCodeSource().getLocation().toString();
+    final String pattern = "classpath*:" + ClassUtils.classPackageAsResourcePath(Message.class) + "/*.class";
+    for (final Resource resource : new PathMatchingResourcePatternResolver().getResources(pattern))
+    {
+      if (!resource.getURL().toString().startsWith(location))
+      {
+        continue;
+      }
+
+      final String fileName = resource.getFilename();
+      final Class<?> type = ClassUtils.forName(ClassUtils.getPackageName(Message.class) + "." + fileName.substring(0, fileName.length() - 6)
+          , getClass().getClassLoader());
+
+      if (type.isInterface() || type.getDeclaredFields().length == 0)
+      {
+        continue;
+      }
+
+      assertTrue(type.getName(), registered.contains(type.getName()));
+
+      for (final Field field : type.getDeclaredFields())
+      {
+        if (field.isAnnotationPresent(JsonAdapter.class))
+        {
+          assertTrue(field.toString(), registered.contains(field.getAnnotation(JsonAdapter.class).value().getName()));
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests that entities can be saved and found through a repository, with
+   * entities created as in a native image.
+   */
+  @Test
+  public void testSaveAndFind()
+  {
+    final MultiChainSimulator simulator = new MultiChainSimulator();
+    simulator.createStream("contract");
+    simulator.start();
+
+    System.setProperty(NATIVE_IMAGE_PROPERTY, "runtime");
+
+    try
+    {
+      final ContractRepository repository = new MultiChainRepositoryFactory(new MultiChainTemplate("127.0.0.1"
+          , simulator.getPort(), simulator.getUsername(), simulator.getPassword(), false)).getRepository(ContractRepository.class);
+
+      final Contract contract = new Contract(getString(), getString(), getString(), new Date(), new Date(), BigDecimal.TEN);
+      repository.save(contract);
+
+      final Contract found = repository.findOne(contract.getId());
+      assertEquals(contract.getBuyer(), found.getBuyer());
+      assertEquals(contract.getPrice(), found.getPrice());
+    }
+    finally
+    {
+      System.clearProperty(NATIVE_IMAGE_PROPERTY);
+
+      simulator.stop();
+    }
+  }
+
+  /**
+   * Gets the names of the types registered for reflection by this module.
+   *
+   * @return The names of the types.
+   */
+  private Set<String> getRegisteredTypeNames() throws IOException
+  {
+    try (final InputStreamReader reader = new InputStreamReader(getClass().getClassLoader().getResourceAsStream(REFLECT_CONFIG)
+        , StandardCharsets.UTF_8))
+    {
+      return StreamSupport.stream(new JsonParser().parse(reader).getAsJsonArray().spliterator(), false)
+                          .map(JsonElement::getAsJsonObject)
+                          .map(type -> type.get("name").getAsString())
+                          .collect(Collectors.toSet());
+    }
+  }
+}
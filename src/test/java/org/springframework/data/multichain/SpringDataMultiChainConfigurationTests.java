@@ -19,10 +19,13 @@ package org.springframework.data.multichain;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.multichain.mapping.context.MultiChainMappingContext;
+import org.springframework.domain.Contract;
 import org.springframework.repository.ContractRepository;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Integration tests for loading Spring Data MultiChain repositories.
@@ -31,7 +34,9 @@ import static org.junit.Assert.assertNotNull;
 abstract class SpringDataMultiChainConfigurationTests
 {
   @Autowired
-  private ContractRepository repository;
+  private MultiChainMappingContext mappingContext;
+  @Autowired
+  private ContractRepository       repository;
 
   /**
    * Tests that the configuration loads successfully.
@@ -41,4 +46,14 @@ abstract class SpringDataMultiChainConfigurationTests
   {
     assertNotNull(repository);
   }
+
+  /**
+   * Tests that the entity types listed in the index written at compile time
+   * are mapped when the context starts.
+   */
+  @Test
+  public void testMappingContextInitialized()
+  {
+    assertTrue(mappingContext.hasPersistentEntityFor(Contract.class));
+  }
 }
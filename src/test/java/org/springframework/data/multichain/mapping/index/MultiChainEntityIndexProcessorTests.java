@@ -0,0 +1,250 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.data.multichain.mapping.index;
+
+import com.google.gson.Gson;
+import org.junit.Test;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AliasFor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.multichain.UnitTest;
+import org.springframework.data.multichain.annotation.MultiChainStream;
+import org.springframework.data.multichain.repository.MultiChainRepository;
+import org.springframework.data.multichain.repository.support.MultiChainRepositoryFactory;
+import org.springframework.data.multichain.server.simulator.MultiChainSimulator;
+import org.springframework.data.multichain.server.support.MultiChainTemplate;
+import org.springframework.domain.Contract;
+import org.springframework.lang.Nullable;
+import org.springframework.web.client.RestOperations;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link MultiChainEntityIndexProcessor}.
+ */
+public class MultiChainEntityIndexProcessorTests implements UnitTest
+{
+  private static final String SOURCE = "package com.example;\n"
+                                       + "import org.springframework.data.annotation.Id;\n"
+                                       + "import org.springframework.data.multichain.annotation.MultiChainStream;\n"
+                                       + "public class Entities {\n"
+                                       + "  @MultiChainStream(\"trades\") public static class Trade { @Id private String reference; }\n"
+                                       + "  @MultiChainStream public static class Quote extends Base { }\n"
+                                       + "  public static class Base { @Id public String getKey() { return null; } }\n"
+                                       + "  @MultiChainStream public abstract static class Abstract { }\n"
+                                       + "}\n";
+
+  private static final String REPOSITORIES = "package com.example;\n"
+                                             + "import org.springframework.data.multichain.repository.MultiChainRepository;\n"
+                                             + "import org.springframework.domain.Contract;\n"
+                                             + "public interface Repositories {\n"
+                                             + "  interface ContractRepository extends MultiChainRepository<Contract> { }\n"
+                                             + "  interface QueryRepository extends MultiChainRepository<Contract> { Contract findByName(String name); }\n"
+                                             + "}\n";
+
+  /**
+   * Tests that implementations are generated for repository interfaces
+   * without methods of their own when asked for, that the others are
+   * registered as proxies in native images, and that repositories are then
+   * created from the generated implementations without a proxy.
+   */
+  @Test
+  public void testGenerateRepositories() throws Exception
+  {
+    final Path output = Files.createTempDirectory(getString(32));
+
+    final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    final boolean compiled = compiler.getTask(null
+        , null
+        , null
+        , Arrays.asList("-processor", MultiChainEntityIndexProcessor.class.getName()
+            , "-A" + MultiChainEntityIndexProcessor.GENERATE_REPOSITORIES + "=true"
+            , "-classpath", getClasspath(MultiChainStream.class, Id.class, AliasFor.class, Contract.class, DataAccessException.class
+                , RestOperations.class, Gson.class, Nullable.class)
+            , "-d", output.toString())
+        , null
+        , Collections.singletonList(new Source("com/example/Repositories.java", REPOSITORIES))).call();
+
+    assertTrue(compiled);
+
+    final ClassLoader classLoader = new URLClassLoader(new URL[] { output.toUri().toURL() }, getClass().getClassLoader());
+    final MultiChainEntityIndex index = MultiChainEntityIndex.load(classLoader);
+
+    assertEquals("com.example.Repositories_ContractRepository_MultiChain"
+        , index.getImplementationName("com.example.Repositories$ContractRepository"));
+    assertNull(index.getImplementationName("com.example.Repositories$QueryRepository"));
+    assertEquals(2, index.getRepositoryInterfaceNames().size());
+
+    final String proxyConfig = new String(Files.readAllBytes(output.resolve(NativeImageMetadata.PROXY_CONFIG)), StandardCharsets.UTF_8);
+    assertTrue(proxyConfig.contains("\"com.example.Repositories$QueryRepository\""));
+    assertFalse(proxyConfig.contains("\"com.example.Repositories$ContractRepository\""));
+
+    final MultiChainSimulator simulator = new MultiChainSimulator();
+    simulator.createStream("contract");
+    simulator.start();
+
+    try
+    {
+      final MultiChainRepositoryFactory factory = new MultiChainRepositoryFactory(new MultiChainTemplate("127.0.0.1"
+          , simulator.getPort(), simulator.getUsername(), simulator.getPassword(), false));
+
+      @SuppressWarnings("unchecked")
+      final MultiChainRepository<Contract> repository = (MultiChainRepository<Contract>) factory
+          .getRepository(classLoader.loadClass("com.example.Repositories$ContractRepository"));
+
+      assertFalse(AopUtils.isAopProxy(repository));
+      assertEquals("com.example.Repositories_ContractRepository_MultiChain", repository.getClass().getName());
+
+      final Contract contract = new Contract(getString(), getString(), getString(), new Date(), new Date(), BigDecimal.ONE);
+
+      repository.save(contract);
+
+      assertNotNull(repository.findOne(contract.getId()));
+    }
+    finally
+    {
+      simulator.stop();
+    }
+  }
+
+  /**
+   * Tests that annotated entity types are indexed with the names of their
+   * data streams and identifier properties, and registered for reflection
+   * in native images along with their superclasses.
+   */
+  @Test
+  public void testProcess() throws Exception
+  {
+    final Path output = Files.createTempDirectory(getString(32));
+
+    final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    final boolean compiled = compiler.getTask(null
+        , null
+        , null
+        , Arrays.asList("-proc:only"
+            , "-processor", MultiChainEntityIndexProcessor.class.getName()
+            , "-classpath", getClasspath(MultiChainStream.class, Id.class, AliasFor.class)
+            , "-d", output.toString())
+        , null
+        , Collections.singletonList(new Source("com/example/Entities.java", SOURCE))).call();
+
+    assertTrue(compiled);
+
+    final MultiChainEntityIndex index = MultiChainEntityIndex.load(new URLClassLoader(new URL[] { output.toUri().toURL() }, null));
+
+    assertEquals(2, index.getEntityTypeNames().size());
+    assertEquals("trades", index.getStreamName("com.example.Entities$Trade"));
+    assertEquals("reference", index.getIdPropertyName("com.example.Entities$Trade"));
+    assertEquals("quote", index.getStreamName("com.example.Entities$Quote"));
+    assertEquals("key", index.getIdPropertyName("com.example.Entities$Quote"));
+    assertFalse(index.contains("com.example.Entities$Abstract"));
+
+    final String reflectConfig = new String(Files.readAllBytes(output.resolve(NativeImageMetadata.REFLECT_CONFIG)), StandardCharsets.UTF_8);
+    assertTrue(reflectConfig.contains("\"com.example.Entities$Trade\""));
+    assertTrue(reflectConfig.contains("\"com.example.Entities$Base\""));
+    assertFalse(reflectConfig.contains("\"com.example.Entities$Abstract\""));
+  }
+
+  /**
+   * Tests that the index on the classpath is found.
+   */
+  @Test
+  public void testLoad()
+  {
+    final MultiChainEntityIndex index = MultiChainEntityIndex.load(getClass().getClassLoader());
+
+    assertTrue(index.contains("org.springframework.domain.Contract"));
+    assertEquals("contract", index.getStreamName("org.springframework.domain.Contract"));
+    assertNull(index.getStreamName(getString()));
+  }
+
+  /**
+   * Gets a classpath made up of the locations of some classes.
+   *
+   * @param types The classes.
+   * @return The classpath.
+   */
+  private static String getClasspath(final Class<?>... types)
+  {
+    return Stream.of(types)
+                 .map(type -> {
+                   try
+                   {
+                     return new File(type.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+                   }
+                   catch (final URISyntaxException e)
+                   {
+                     throw new IllegalStateException(e);
+                   }
+                 })
+                 .collect(Collectors.joining(File.pathSeparator));
+  }
+
+  /**
+   * A source file held in memory.
+   */
+  private static final class Source extends SimpleJavaFileObject
+  {
+    private final String content;
+
+    /**
+     * Creates a source file.
+     *
+     * @param path    The path of the file.
+     * @param content The content of the file.
+     */
+    Source(final String path, final String content)
+    {
+      super(URI.create("string:///" + path), JavaFileObject.Kind.SOURCE);
+
+      this.content = content;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CharSequence getCharContent(final boolean ignoreEncodingErrors)
+    {
+      return content;
+    }
+  }
+}
@@ -17,12 +17,28 @@
 package org.springframework.data.multichain.mapping.model;
 
 import org.junit.Test;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mapping.MappingException;
+import org.springframework.data.multichain.annotation.Indexed;
 import org.springframework.data.multichain.annotation.MultiChainStream;
+import org.springframework.data.multichain.annotation.StreamItemFormat;
+import org.springframework.data.multichain.mapping.MultiChainPersistentEntity;
+import org.springframework.data.multichain.mapping.MultiChainPersistentProperty;
+import org.springframework.data.multichain.mapping.context.MultiChainMappingContext;
+import org.springframework.data.multichain.serializer.DeflateCompressionCodec;
+import org.springframework.data.multichain.serializer.JacksonCborEntitySerializer;
 import org.springframework.data.util.ClassTypeInformation;
 
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.Locale;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 /**
  * Unit tests for {@link SimpleMultiChainPersistentEntity}.
@@ -39,6 +55,47 @@ public class SimpleMultiChainPersistentEntityTests
     new SimpleMultiChainPersistentEntity<>(null);
   }
 
+  /**
+   * Tests that the compression specified for an entity class is reported.
+   */
+  @Test
+  public void testGetCompressionCodecType()
+  {
+    final SimpleMultiChainPersistentEntity<Delta> entity = new SimpleMultiChainPersistentEntity<>(ClassTypeInformation.from(Delta.class));
+
+    assertEquals(DeflateCompressionCodec.class, entity.getCompressionCodecType());
+    assertEquals(4096, entity.getCompressionThreshold());
+    assertNull(new SimpleMultiChainPersistentEntity<>(ClassTypeInformation.from(Beta.class)).getCompressionCodecType());
+  }
+
+  /**
+   * Tests that entities stored as native JSON cannot be compressed.
+   */
+  @Test(expected = MappingException.class)
+  public void testVerifyCompressedJson()
+  {
+    new SimpleMultiChainPersistentEntity<>(ClassTypeInformation.from(Epsilon.class)).verify();
+  }
+
+  /**
+   * Tests that no serializer is reported for an entity class that does not
+   * specify one, so that the one configured for the repository is used.
+   */
+  @Test
+  public void testGetSerializerTypeWithoutSerializer()
+  {
+    assertNull(new SimpleMultiChainPersistentEntity<>(ClassTypeInformation.from(Beta.class)).getSerializerType());
+  }
+
+  /**
+   * Tests that the serializer specified for an entity class is reported.
+   */
+  @Test
+  public void testGetSerializerTypeWithSerializer()
+  {
+    assertEquals(JacksonCborEntitySerializer.class, new SimpleMultiChainPersistentEntity<>(ClassTypeInformation.from(Delta.class)).getSerializerType());
+  }
+
   /**
    * Tests that the name of the MultiChain data stream to which entities of a
    * certain type are persisted can be determined even if the entity class is
@@ -71,6 +128,75 @@ public class SimpleMultiChainPersistentEntityTests
   {
     assertEquals(Gamma.class.getSimpleName().toLowerCase(Locale.ENGLISH), new SimpleMultiChainPersistentEntity<>(ClassTypeInformation.from(Gamma.class)).getStreamName());
   }
+
+  /**
+   * Tests that the keys derived from indexed properties hold the names of
+   * the properties and their values, and that missing values have no key.
+   */
+  @Test
+  public void testGetIndexKeys()
+  {
+    final MultiChainPersistentEntity<?> entity = new MultiChainMappingContext().getRequiredPersistentEntity(Zeta.class);
+
+    assertEquals(Arrays.asList("index:customerId:42", "index:status:OPEN"), entity.getIndexKeys(new Zeta("1", "42", Zeta.Status.OPEN)));
+    assertEquals(Collections.singletonList("index:status:OPEN"), entity.getIndexKeys(new Zeta("1", null, Zeta.Status.OPEN)));
+    assertEquals(Collections.emptyList(), new MultiChainMappingContext().getRequiredPersistentEntity(Gamma.class).getIndexKeys(new Gamma()));
+  }
+
+  /**
+   * Tests that equal values give the same key, whatever their scale or time
+   * zone.
+   */
+  @Test
+  public void testGetIndexKeyCanonical()
+  {
+    final MultiChainPersistentProperty property = new MultiChainMappingContext().getRequiredPersistentEntity(Zeta.class)
+        .getRequiredPersistentProperty("customerId");
+
+    assertEquals("index:customerId:1.5", property.getIndexKey(new BigDecimal("1.500")));
+    assertEquals("index:customerId:100", property.getIndexKey(new BigDecimal("1E+2")));
+    assertEquals("index:customerId:0", property.getIndexKey(new BigDecimal("0.00")));
+    assertEquals("index:customerId:1970-01-01T00:00:01Z", property.getIndexKey(new Date(1000)));
+    assertEquals("index:customerId:1970-01-01T00:00:01Z", property.getIndexKey(new java.sql.Date(1000)));
+    assertEquals("index:customerId:1970-01-01T00:00:01Z"
+        , property.getIndexKey(OffsetDateTime.of(1970, 1, 1, 2, 0, 1, 0, ZoneOffset.ofHours(2))));
+  }
+
+  /**
+   * Tests that keys longer than MultiChain accepts are rejected when they
+   * are derived, counting bytes rather than characters.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetIndexKeyTooLong()
+  {
+    final MultiChainPersistentProperty property = new MultiChainMappingContext().getRequiredPersistentEntity(Zeta.class)
+        .getRequiredPersistentProperty("customerId");
+
+    final char[] value = new char[120];
+    Arrays.fill(value, '\u00e9');
+
+    property.getIndexKey(new String(value));
+  }
+
+  /**
+   * Tests that entities cannot be split into chunks smaller than the
+   * minimum, which manifests read from the data stream are held to.
+   */
+  @Test(expected = MappingException.class)
+  public void testVerifyChunkSizeTooSmall()
+  {
+    new MultiChainMappingContext().getRequiredPersistentEntity(Theta.class);
+  }
+
+  /**
+   * Tests that the identifier of an entity cannot be indexed, since every
+   * entity is published under its identifier.
+   */
+  @Test(expected = MappingException.class)
+  public void testVerifyIndexedIdentifier()
+  {
+    new MultiChainMappingContext().getRequiredPersistentEntity(Eta.class);
+  }
 }
 
 /**
@@ -95,3 +221,79 @@ class Beta
 class Gamma
 {
 }
+
+/**
+ * A domain entity.
+ */
+@MultiChainStream(serializer = JacksonCborEntitySerializer.class
+    , compression = DeflateCompressionCodec.class
+    , compressionThreshold = 4096)
+class Delta
+{
+}
+
+/**
+ * A domain entity.
+ */
+@MultiChainStream(format = StreamItemFormat.JSON, compression = DeflateCompressionCodec.class)
+class Epsilon
+{
+}
+
+/**
+ * A domain entity with indexed properties.
+ */
+@MultiChainStream
+class Zeta
+{
+  @Id
+  String id;
+
+  @Indexed
+  String customerId;
+  @Indexed
+  Status status;
+
+  /**
+   * Creates an entity.
+   *
+   * @param id         The identifier of the entity.
+   * @param customerId The identifier of the customer.
+   * @param status     The status of the entity.
+   */
+  Zeta(final String id, final String customerId, final Status status)
+  {
+    this.id = id;
+    this.customerId = customerId;
+    this.status = status;
+  }
+
+  /**
+   * The statuses of an entity.
+   */
+  enum Status
+  {
+    OPEN, CLOSED
+  }
+}
+
+/**
+ * A domain entity with an indexed identifier.
+ */
+@MultiChainStream
+class Eta
+{
+  @Id
+  @Indexed
+  String id;
+}
+
+/**
+ * A domain entity split into chunks smaller than the minimum.
+ */
+@MultiChainStream(chunkSize = 16)
+class Theta
+{
+  @Id
+  String id;
+}
@@ -21,13 +21,21 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.data.mapping.MappingException;
 import org.springframework.data.mapping.model.Property;
 import org.springframework.data.mapping.model.SimpleTypeHolder;
+import org.springframework.data.multichain.annotation.FieldNumber;
 import org.springframework.data.multichain.mapping.MultiChainPersistentEntity;
 import org.springframework.data.util.ClassTypeInformation;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.beans.IntrospectionException;
+import java.beans.PropertyDescriptor;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Unit tests for {@link SimpleMultiChainPersistentProperty}.
@@ -61,6 +69,67 @@ public class SimpleMultiChainPersistentPropertyTests
     assertNull(new SimpleMultiChainPersistentProperty(property, entity, holder).createAssociation());
   }
 
+  /**
+   * Tests that the number assigned to a property is used.
+   */
+  @Test
+  public void testGetFieldNumber() throws NoSuchFieldException
+  {
+    assertEquals(7, new SimpleMultiChainPersistentProperty(Property.of(entity.getTypeInformation(), Foo.class.getDeclaredField("baz"))
+        , entity, holder).getFieldNumber());
+  }
+
+  /**
+   * Tests that properties without an assigned number get a stable number
+   * that cannot clash with assigned ones.
+   */
+  @Test
+  public void testGetFieldNumberDerived()
+  {
+    final int number = new SimpleMultiChainPersistentProperty(property, entity, holder).getFieldNumber();
+
+    assertTrue(number > FieldNumber.MAX_VALUE);
+    assertEquals(number, new SimpleMultiChainPersistentProperty(property, entity, holder).getFieldNumber());
+  }
+
+  /**
+   * Tests that numbers out of range cannot be assigned.
+   */
+  @Test(expected = MappingException.class)
+  public void testGetFieldNumberOutOfRange() throws NoSuchFieldException
+  {
+    new SimpleMultiChainPersistentProperty(Property.of(entity.getTypeInformation(), Foo.class.getDeclaredField("qux"))
+        , entity, holder);
+  }
+
+  /**
+   * Tests that the value of a property is read from its field.
+   */
+  @Test
+  public void testGetValue()
+  {
+    final Foo foo = new Foo();
+    ReflectionTestUtils.setField(foo, "bar", "value");
+
+    final SimpleMultiChainPersistentProperty subject = new SimpleMultiChainPersistentProperty(property, entity, holder);
+
+    assertEquals("value", subject.getValue(foo));
+    assertNull(subject.getValue(new Foo()));
+  }
+
+  /**
+   * Tests that the value of a property without a field is read through its
+   * getter.
+   */
+  @Test
+  public void testGetValueThroughGetter() throws IntrospectionException
+  {
+    final SimpleMultiChainPersistentProperty subject = new SimpleMultiChainPersistentProperty(Property.of(entity.getTypeInformation()
+        , new PropertyDescriptor("quux", Foo.class, "getQuux", null)), entity, holder);
+
+    assertEquals("quux", subject.getValue(new Foo()));
+  }
+
   /**
    * Tests that a property is not treated as an association to another
    * entity, since MultiChain does not support associations.
@@ -78,4 +147,18 @@ public class SimpleMultiChainPersistentPropertyTests
 class Foo
 {
   private String bar;
+  @FieldNumber(7)
+  private String baz;
+  @FieldNumber(0)
+  private String qux;
+
+  /**
+   * Gets a value computed rather than stored in a field.
+   *
+   * @return A constant value.
+   */
+  public String getQuux()
+  {
+    return "quux";
+  }
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.data.multichain.repository.support;
+
+import org.junit.Test;
+import org.springframework.data.multichain.UnitTest;
+import org.springframework.data.multichain.server.command.ListStreamItemsResult;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link AdaptivePageSize}.
+ */
+public class AdaptivePageSizeTests implements UnitTest
+{
+  /**
+   * Tests that pages grow while responses are fast, up to the maximum.
+   */
+  @Test
+  public void testGrow()
+  {
+    final AdaptivePageSize subject = new AdaptivePageSize(10, 1000, Long.MAX_VALUE, 100, TimeUnit.MILLISECONDS);
+
+    int previous = subject.get();
+    for (int i = 0; i < 20; ++i)
+    {
+      subject.record(getItems(subject.get(), null), TimeUnit.MILLISECONDS.toNanos(10));
+
+      assertTrue(subject.get() >= previous);
+      previous = subject.get();
+    }
+
+    assertEquals(1000, subject.get());
+  }
+
+  /**
+   * Tests that pages are kept below the maximum size.
+   */
+  @Test
+  public void testLimitBytes()
+  {
+    final AdaptivePageSize subject = new AdaptivePageSize(10, 10000, 100 * 1000, 100, TimeUnit.MILLISECONDS);
+
+    // Each item holds 20 bytes, so that 5000 items reach the maximum size.
+    for (int i = 0; i < 20; ++i)
+    {
+      subject.record(getItems(subject.get(), "00ff00ff00ff00ff00ff00ff00ff00ff00ff00ff"), 1);
+    }
+
+    assertTrue(subject.get() <= 5000);
+    assertTrue(subject.get() >= 4990);
+  }
+
+  /**
+   * Tests that pages shrink while responses are slow, down to the minimum.
+   */
+  @Test
+  public void testShrink()
+  {
+    final AdaptivePageSize subject = new AdaptivePageSize(10, 1000, Long.MAX_VALUE, 100, TimeUnit.MILLISECONDS);
+    ReflectionTestUtils.setField(subject, "pageSize", 1000);
+
+    for (int i = 0; i < 20; ++i)
+    {
+      subject.record(getItems(subject.get(), null), TimeUnit.SECONDS.toNanos(1));
+    }
+
+    assertEquals(10, subject.get());
+  }
+
+  /**
+   * Tests that a page size cannot be created with a maximum below its
+   * minimum.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testMaximumBelowMinimum()
+  {
+    new AdaptivePageSize(10, 5, 1, 1, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Gets a page of items.
+   *
+   * @param count The number of items.
+   * @param hex   The data of each item, or {@literal null}.
+   * @return The items.
+   */
+  private static List<ListStreamItemsResult> getItems(final int count, final String hex)
+  {
+    final ListStreamItemsResult item = SERIALIZER.fromJson(hex != null ? String.format("{\"data\":\"%s\"}", hex) : "{}"
+        , ListStreamItemsResult.class);
+
+    return Collections.nCopies(count, item);
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.data.multichain.repository.support;
+
+import org.junit.Test;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.data.multichain.UnitTest;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link ChunkManifest}.
+ */
+public class ChunkManifestTests implements UnitTest
+{
+  /**
+   * Tests that a manifest describes how data is split into chunks, and
+   * survives a round trip through item data.
+   */
+  @Test
+  public void testCreate()
+  {
+    final byte[] data = new byte[1000];
+    RANDOM.nextBytes(data);
+
+    final ChunkManifest subject = ChunkManifest.read(ChunkManifest.create(data, 300).toBytes(), data.length);
+
+    assertEquals(4, subject.getChunkCount());
+    assertEquals(1000, subject.getLength());
+    assertEquals(600, subject.getChunkOffset(2));
+    assertEquals(300, subject.getChunkLength(2));
+    assertEquals(100, subject.getChunkLength(3));
+    assertNotEquals(subject.getChunkKey(0), subject.getChunkKey(1));
+    assertTrue(subject.matches(data));
+
+    data[999] ^= 1;
+    assertFalse(subject.matches(data));
+  }
+
+  /**
+   * Tests that the chunks of different entities have different keys.
+   */
+  @Test
+  public void testGetChunkKey()
+  {
+    final byte[] data = new byte[10];
+
+    assertNotEquals(ChunkManifest.create(data, 5).getChunkKey(0), ChunkManifest.create(data, 5).getChunkKey(0));
+  }
+
+  /**
+   * Tests that item data written by serializers is not taken for a
+   * manifest.
+   */
+  @Test
+  public void testIsManifest()
+  {
+    final byte[] manifest = ChunkManifest.create(new byte[10], 5).toBytes();
+
+    assertTrue(ChunkManifest.isManifest(manifest));
+    assertFalse(ChunkManifest.isManifest(Arrays.copyOf(manifest, manifest.length - 1)));
+    assertFalse(ChunkManifest.isManifest("{}".getBytes()));
+  }
+
+  /**
+   * Tests that a manifest whose chunk count does not match the length of
+   * the data is rejected.
+   */
+  @Test(expected = DataRetrievalFailureException.class)
+  public void testReadInconsistent()
+  {
+    final byte[] manifest = ChunkManifest.create(new byte[1000], 200).toBytes();
+    manifest[4] = 3;
+
+    ChunkManifest.read(manifest, 1000);
+  }
+
+  /**
+   * Tests that a forged manifest declaring an entity longer than the
+   * maximum is rejected before anything is allocated.
+   */
+  @Test(expected = DataRetrievalFailureException.class)
+  public void testReadTooLong()
+  {
+    final byte[] manifest = ChunkManifest.create(new byte[1000], 200).toBytes();
+    ByteBuffer.wrap(manifest).putInt(1, 10).putInt(5, Integer.MAX_VALUE).putInt(9, Integer.MAX_VALUE / 10 + 1);
+
+    ChunkManifest.read(manifest, 1000);
+  }
+
+  /**
+   * Tests that a forged manifest splitting an entity into tiny chunks, so
+   * that reading it would take a call for every few bytes, is rejected.
+   */
+  @Test(expected = DataRetrievalFailureException.class)
+  public void testReadChunksTooSmall()
+  {
+    final byte[] manifest = ChunkManifest.create(new byte[1000], 200).toBytes();
+    ByteBuffer.wrap(manifest).putInt(1, 1000).putInt(9, 1);
+
+    ChunkManifest.read(manifest, 1000);
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.data.multichain.repository.support;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.multichain.UnitTest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for {@link FileCheckpointStore}.
+ */
+public class FileCheckpointStoreTests implements UnitTest
+{
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * Tests that the latest position saved for a scan is loaded, and that
+   * scans without a saved position start from the beginning.
+   */
+  @Test
+  public void testSaveAndLoad()
+  {
+    final Path directory = folder.getRoot().toPath().resolve("checkpoints");
+    final FileCheckpointStore store = new FileCheckpointStore(directory);
+
+    assertEquals(0, store.load("export"));
+
+    store.save("export", 1000);
+    store.save("export", 2000);
+    store.save("audit.2018", 42);
+
+    assertEquals(2000, new FileCheckpointStore(directory).load("export"));
+    assertEquals(42, store.load("audit.2018"));
+
+    // No temporary files are left behind.
+    assertEquals(2, directory.toFile().list().length);
+  }
+
+  /**
+   * Tests that names that could point outside the directory are rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testSaveWithPath()
+  {
+    new FileCheckpointStore(folder.getRoot().toPath()).save("../export", 0);
+  }
+
+  /**
+   * Tests that a corrupt checkpoint is reported rather than ignored.
+   */
+  @Test(expected = DataAccessResourceFailureException.class)
+  public void testLoadCorrupt() throws IOException
+  {
+    final Path directory = folder.getRoot().toPath();
+    Files.write(directory.resolve("export" + FileCheckpointStore.EXTENSION), "corrupt".getBytes(StandardCharsets.US_ASCII));
+
+    new FileCheckpointStore(directory).load("export");
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.data.multichain.repository.support;
+
+import org.junit.Test;
+import org.springframework.data.multichain.UnitTest;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for {@link Hex}.
+ */
+public class HexTests implements UnitTest
+{
+  /**
+   * Tests that uppercase and lowercase digits are both accepted.
+   */
+  @Test
+  public void testDecodeMixedCase()
+  {
+    assertArrayEquals(new byte[] { (byte) 0xAB, (byte) 0xCD }, Hex.decode("abCD"));
+  }
+
+  /**
+   * Tests that data can be decoded into part of an existing array, and
+   * encoded from part of an array.
+   */
+  @Test
+  public void testDecodeRange()
+  {
+    final byte[] data = new byte[4];
+
+    assertEquals(2, Hex.decode("abcd", data, 1));
+    assertArrayEquals(new byte[] { 0, (byte) 0xAB, (byte) 0xCD, 0 }, data);
+    assertEquals("abcd", Hex.encode(data, 1, 2));
+  }
+
+  /**
+   * Tests that data that does not fit in an existing array is rejected.
+   */
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testDecodeRangeOverflow()
+  {
+    Hex.decode("abcdef", new byte[4], 2);
+  }
+
+  /**
+   * Tests that data with an odd number of digits is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testDecodeOddLength()
+  {
+    Hex.decode("abc");
+  }
+
+  /**
+   * Tests that characters other than hexadecimal digits are rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testDecodeInvalidDigit()
+  {
+    Hex.decode("0g");
+  }
+
+  /**
+   * Tests that data survives a round trip, including leading zero bytes.
+   */
+  @Test
+  public void testEncode()
+  {
+    final byte[] data = new byte[getInt(1, 64)];
+    RANDOM.nextBytes(data);
+    data[0] = 0;
+
+    final String hex = Hex.encode(data);
+
+    assertEquals(2 * data.length, hex.length());
+    assertEquals("00", hex.substring(0, 2));
+    assertArrayEquals(data, Hex.decode(hex));
+  }
+}
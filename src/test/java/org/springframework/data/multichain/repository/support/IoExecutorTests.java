@@ -0,0 +1,185 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.data.multichain.repository.support;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.data.multichain.UnitTest;
+import org.springframework.data.multichain.server.Deadline;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link IoExecutor}.
+ */
+public class IoExecutorTests implements UnitTest
+{
+  private final IoExecutor subject = new IoExecutor(4, "io-test-");
+
+  /**
+   * Stops the threads.
+   */
+  @After
+  public void tearDown()
+  {
+    subject.close();
+  }
+
+  /**
+   * Tests that every task is run once, on the caller and the threads of the
+   * executor, never on the common fork/join pool.
+   */
+  @Test
+  public void testRunAll()
+  {
+    final AtomicIntegerArray runs = new AtomicIntegerArray(100);
+    final Set<String> threads = ConcurrentHashMap.newKeySet();
+
+    subject.runAll(runs.length(), i -> {
+      threads.add(Thread.currentThread().getName());
+      runs.incrementAndGet(i);
+      sleep(5);
+    });
+
+    for (int i = 0; i < runs.length(); ++i)
+    {
+      assertEquals(1, runs.get(i));
+    }
+
+    assertTrue(threads.stream().anyMatch(thread -> thread.startsWith("io-test-")));
+    assertTrue(threads.stream().allMatch(thread -> thread.startsWith("io-test-") || thread.equals(Thread.currentThread().getName())));
+  }
+
+  /**
+   * Tests that the exception thrown by a task is thrown to the caller.
+   */
+  @Test(expected = DataRetrievalFailureException.class)
+  public void testRunAllFailure()
+  {
+    subject.runAll(10, i -> {
+      if (i == 5)
+      {
+        throw new DataRetrievalFailureException(getString());
+      }
+    });
+  }
+
+  /**
+   * Tests that tasks submitted from the threads of an executor complete
+   * even though all of its threads are busy, as when entities split into
+   * chunks are decoded in parallel and each fetches its chunks in parallel.
+   */
+  @Test(timeout = 10000)
+  public void testRunAllNested()
+  {
+    final AtomicInteger runs = new AtomicInteger();
+
+    try (final IoExecutor executor = new IoExecutor(1, "io-nested-"))
+    {
+      executor.runAll(8, i -> executor.runAll(8, j -> {
+        runs.incrementAndGet();
+        sleep(1);
+      }));
+    }
+
+    assertEquals(64, runs.get());
+  }
+
+  /**
+   * Tests that the deadline in effect on the caller applies to its tasks.
+   */
+  @Test
+  public void testRunAllWithDeadline()
+  {
+    final Deadline deadline = Deadline.after(10, TimeUnit.SECONDS);
+    final AtomicInteger withDeadline = new AtomicInteger();
+
+    deadline.run(() -> {
+      subject.runAll(20, i -> {
+        if (Deadline.current() != null)
+        {
+          withDeadline.incrementAndGet();
+        }
+      });
+
+      return null;
+    });
+
+    assertEquals(20, withDeadline.get());
+  }
+
+  /**
+   * Tests that a task started in the background delivers its result.
+   */
+  @Test
+  public void testFork()
+  {
+    final String result = getString();
+
+    assertSame(result, subject.fork(() -> result).join());
+  }
+
+  /**
+   * Tests that a task is run by its caller when the executor has no
+   * threads.
+   */
+  @Test
+  public void testForkCallerRuns()
+  {
+    final Thread caller = Thread.currentThread();
+
+    assertSame(caller, IoExecutor.CALLER_RUNS.fork(Thread::currentThread).join());
+  }
+
+  /**
+   * Tests that tasks are run by their callers once the executor has been
+   * closed.
+   */
+  @Test
+  public void testClose()
+  {
+    subject.close();
+
+    assertSame(Thread.currentThread(), subject.fork(Thread::currentThread).join());
+  }
+
+  /**
+   * Sleeps for a while, to keep a thread busy.
+   *
+   * @param millis The time to sleep for, in milliseconds.
+   */
+  private static void sleep(final long millis)
+  {
+    try
+    {
+      Thread.sleep(millis);
+    }
+    catch (final InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
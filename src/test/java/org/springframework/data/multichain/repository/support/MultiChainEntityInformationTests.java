@@ -19,10 +19,14 @@ package org.springframework.data.multichain.repository.support;
 
 import org.junit.Test;
 import org.springframework.data.multichain.annotation.MultiChainStream;
+import org.springframework.data.multichain.mapping.MultiChainPersistentEntity;
+import org.springframework.data.multichain.mapping.context.MultiChainMappingContext;
 import org.springframework.data.multichain.mapping.model.SimpleMultiChainPersistentEntity;
 import org.springframework.data.util.ClassTypeInformation;
+import org.springframework.domain.Contract;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 /**
  * Unit tests for {@link MultiChainEntityInformation}.
@@ -39,6 +43,31 @@ public class MultiChainEntityInformationTests
     new MultiChainEntityInformation<>(null);
   }
 
+  /**
+   * Tests that the identifier of an entity is read from its identifier
+   * property.
+   */
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testGetId()
+  {
+    final MultiChainEntityInformation<Contract, String> subject = new MultiChainEntityInformation<>((MultiChainPersistentEntity<Contract>)
+        new MultiChainMappingContext().getRequiredPersistentEntity(Contract.class));
+
+    assertEquals("id", subject.getId(new Contract("id", null, null, null, null, null)));
+    assertNull(subject.getId(new Contract()));
+  }
+
+  /**
+   * Tests that entities without an identifier property have no identifier.
+   */
+  @Test
+  public void testGetIdWithoutIdProperty()
+  {
+    assertNull(new MultiChainEntityInformation<>(new SimpleMultiChainPersistentEntity<>(ClassTypeInformation.from(Customer.class)))
+                   .getId(new Customer()));
+  }
+
   /**
    * Tests that the name of the MultiChain data stream to which entities are
    * persisted can be determined from the metadata for the entity type
@@ -0,0 +1,446 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.data.multichain.repository.support;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.multichain.UnitTest;
+import org.springframework.data.multichain.annotation.Indexed;
+import org.springframework.data.multichain.annotation.MultiChainStream;
+import org.springframework.data.multichain.repository.MultiChainRepository;
+import org.springframework.data.multichain.server.command.ListStreamKeyItemsRequest;
+import org.springframework.data.multichain.server.command.ListStreamKeyItemsResponse;
+import org.springframework.data.multichain.server.command.ListStreamQueryItemsRequest;
+import org.springframework.data.multichain.server.command.ListStreamQueryItemsResponse;
+import org.springframework.data.multichain.server.simulator.MultiChainSimulator;
+import org.springframework.data.multichain.server.support.MultiChainTemplate;
+import org.springframework.data.repository.query.QueryCreationException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for {@link PartTreeMultiChainQuery}.
+ */
+public class PartTreeMultiChainQueryTests implements UnitTest
+{
+  private MultiChainRepositoryFactory factory;
+  private MultiChainTemplate          multiChainClient;
+  private MultiChainSimulator         simulator;
+
+  /**
+   * Starts a simulated MultiChain RPC server and creates a factory for
+   * repositories that store entities on it.
+   */
+  @Before
+  public void setUp()
+  {
+    simulator = new MultiChainSimulator();
+    simulator.createStream("order");
+    simulator.start();
+
+    multiChainClient = new MultiChainTemplate("127.0.0.1", simulator.getPort(), simulator.getUsername(), simulator.getPassword(), false);
+    factory = new MultiChainRepositoryFactory(multiChainClient);
+  }
+
+  /**
+   * Stops the simulated MultiChain RPC server.
+   */
+  @After
+  public void tearDown()
+  {
+    factory.close();
+    simulator.stop();
+  }
+
+  /**
+   * Tests that entities are published under the keys derived from their
+   * indexed properties, including entities split into chunks, and found
+   * through those keys.
+   */
+  @Test
+  public void testFindByIndexedProperty()
+  {
+    final OrderRepository repository = factory.getRepository(OrderRepository.class);
+
+    final List<Order> orders = Arrays.asList(new Order(getString(), "alice", "short")
+        , new Order(getString(), "bob", "short")
+        , new Order(getString(), "alice", String.join("", Collections.nCopies(64, "long"))));
+    repository.save(orders);
+
+    assertEquals(2, multiChainClient.invoke(new ListStreamKeyItemsRequest("order", "index:customerId:alice", 0, 10)
+        , ListStreamKeyItemsResponse.class).getResult().size());
+
+    assertEquals(Arrays.asList(orders.get(0).id, orders.get(2).id)
+        , repository.findByCustomerId("alice").stream().map(order -> order.id).collect(Collectors.toList()));
+    assertEquals(orders.get(2).text, repository.findByCustomerId("alice").get(1).text);
+
+    try (final Stream<Order> stream = repository.streamByCustomerId("bob"))
+    {
+      assertEquals(orders.get(1).id, stream.findFirst().get().id);
+    }
+
+    assertEquals(orders.get(1).id, repository.findOneByCustomerId("bob").get().id);
+    assertFalse(repository.findOneByCustomerId("carol").isPresent());
+    assertEquals(2, repository.countByCustomerId("alice"));
+    assertTrue(repository.existsByCustomerId("bob"));
+    assertFalse(repository.existsByCustomerId("carol"));
+    assertTrue(repository.findByCustomerId(null).isEmpty());
+
+    // Entities remain found by their identifiers.
+    assertEquals(orders.get(2).text, repository.findOne(orders.get(2).id).text);
+  }
+
+  /**
+   * Tests that identifiers in the form of a property and a value are not
+   * confused with index keys, and that identifiers cannot take the prefix
+   * reserved for index keys.
+   */
+  @Test
+  public void testFindOneWithIdLikeIndexKey()
+  {
+    final OrderRepository repository = factory.getRepository(OrderRepository.class);
+    repository.save(Arrays.asList(new Order("customerId:alice", "alice", "first"), new Order(getString(), "alice", "second")));
+
+    assertEquals("first", repository.findOne("customerId:alice").text);
+    assertEquals(2, repository.countByCustomerId("alice"));
+
+    try
+    {
+      repository.save(new Order("index:customerId:alice", "bob", "third"));
+      fail("Ids starting with index: must be rejected.");
+    }
+    catch (final DataIntegrityViolationException e)
+    {
+      // Expected.
+    }
+
+    try
+    {
+      repository.exists("index:customerId:alice");
+      fail("Ids starting with index: must be rejected.");
+    }
+    catch (final IllegalArgumentException e)
+    {
+      // Expected.
+    }
+  }
+
+  /**
+   * Tests that a query method returning a single entity fails if several
+   * are found.
+   */
+  @Test(expected = IncorrectResultSizeDataAccessException.class)
+  public void testFindOneByIndexedPropertyWithSeveral()
+  {
+    final OrderRepository repository = factory.getRepository(OrderRepository.class);
+    repository.save(Arrays.asList(new Order(getString(), "alice", "first"), new Order(getString(), "alice", "second")));
+
+    repository.findOneByCustomerId("alice");
+  }
+
+  /**
+   * Tests that query methods with several conditions find the entities
+   * meeting all of them, comparing indexed properties through a single
+   * query of the node and checking the other conditions on the client.
+   */
+  @Test
+  public void testFindByConditions()
+  {
+    final OrderRepository repository = factory.getRepository(OrderRepository.class);
+
+    final List<Order> orders = Arrays.asList(new Order(getString(), "alice", "north", 1, "first")
+        , new Order(getString(), "alice", "south", 5, "second")
+        , new Order(getString(), "bob", "north", 10, "third")
+        , new Order(getString(), "alice", "north", 20, String.join("", Collections.nCopies(64, "long"))));
+    repository.save(orders);
+
+    assertEquals(2, multiChainClient.invoke(new ListStreamQueryItemsRequest("order", Arrays.asList("index:customerId:alice", "index:region:north"))
+        , ListStreamQueryItemsResponse.class).getResult().size());
+
+    assertEquals(Arrays.asList(orders.get(0).id, orders.get(3).id)
+        , repository.findByCustomerIdAndRegion("alice", "north").stream().map(order -> order.id).collect(Collectors.toList()));
+    assertEquals(orders.get(3).text, repository.findByCustomerIdAndRegion("alice", "north").get(1).text);
+    assertEquals(1, repository.countByCustomerIdAndRegion("bob", "north"));
+    assertEquals(0, repository.countByCustomerIdAndRegion("bob", "south"));
+    assertEquals(0, repository.countByCustomerIdAndRegion("alice", null));
+
+    assertEquals(Arrays.asList(orders.get(1).id, orders.get(3).id)
+        , repository.findByCustomerIdAndQuantityGreaterThan("alice", 1).stream().map(order -> order.id).collect(Collectors.toList()));
+    assertEquals(Collections.singletonList(orders.get(1).id)
+        , repository.findByCustomerIdAndRegionIgnoreCase("alice", "SOUTH").stream().map(order -> order.id).collect(Collectors.toList()));
+  }
+
+  /**
+   * Tests that numbers of different types are compared by their values, and
+   * that infinities and {@code NaN} arguments are handled.
+   */
+  @Test
+  public void testFindByNumbers()
+  {
+    final OrderRepository repository = factory.getRepository(OrderRepository.class);
+
+    final List<Order> orders = Arrays.asList(new Order(getString(), "alice", "north", 1, "first")
+        , new Order(getString(), "alice", "south", 5, "second"));
+    repository.save(orders);
+
+    assertEquals(Collections.singletonList(orders.get(1).id)
+        , repository.findByCustomerIdAndQuantity("alice", 5L).stream().map(order -> order.id).collect(Collectors.toList()));
+    assertEquals(2, repository.findByCustomerIdAndQuantityLessThan("alice", Double.POSITIVE_INFINITY).size());
+    assertEquals(1, repository.findByCustomerIdAndQuantityLessThan("alice", 1.5).size());
+    assertTrue(repository.findByCustomerIdAndQuantityLessThan("alice", Double.NEGATIVE_INFINITY).isEmpty());
+    assertTrue(repository.findByCustomerIdAndQuantityLessThan("alice", Double.NaN).isEmpty());
+  }
+
+  /**
+   * Tests that query methods cannot order properties whose values are not
+   * comparable.
+   */
+  @Test(expected = QueryCreationException.class)
+  public void testFindByPropertyNotComparable()
+  {
+    factory.getRepository(OrderLocaleRepository.class);
+  }
+
+  /**
+   * Tests that query methods cannot have alternative conditions.
+   */
+  @Test(expected = QueryCreationException.class)
+  public void testFindByAlternatives()
+  {
+    factory.getRepository(OrderRegionRepository.class);
+  }
+
+  /**
+   * Tests that query methods cannot find entities by properties that are
+   * not indexed.
+   */
+  @Test(expected = QueryCreationException.class)
+  public void testFindByPropertyNotIndexed()
+  {
+    factory.getRepository(OrderTextRepository.class);
+  }
+}
+
+/**
+ * A domain entity with indexed properties, split into chunks of 128 bytes.
+ */
+@MultiChainStream(name = "order", chunkSize = 128)
+class Order
+{
+  @Id
+  String id;
+  @Indexed
+  String customerId;
+  Locale locale;
+  int    quantity;
+  @Indexed
+  String region;
+  String text;
+
+  /**
+   * Creates an order without a region.
+   *
+   * @param id         The identifier of the order.
+   * @param customerId The identifier of the customer placing the order.
+   * @param text       The text of the order.
+   */
+  Order(final String id, final String customerId, final String text)
+  {
+    this(id, customerId, null, 0, text);
+  }
+
+  /**
+   * Creates an order.
+   *
+   * @param id         The identifier of the order.
+   * @param customerId The identifier of the customer placing the order.
+   * @param region     The region to deliver the order to.
+   * @param quantity   The quantity ordered.
+   * @param text       The text of the order.
+   */
+  Order(final String id, final String customerId, final String region, final int quantity, final String text)
+  {
+    this.id = id;
+    this.customerId = customerId;
+    this.quantity = quantity;
+    this.region = region;
+    this.text = text;
+  }
+}
+
+/**
+ * Contract for data access operations on {@link Order}.
+ */
+interface OrderRepository extends MultiChainRepository<Order>
+{
+  /**
+   * Counts the orders placed by a customer.
+   *
+   * @param customerId The identifier of the customer.
+   * @return The number of orders.
+   */
+  long countByCustomerId(String customerId);
+
+  /**
+   * Counts the orders placed by a customer for a region.
+   *
+   * @param customerId The identifier of the customer.
+   * @param region     The region.
+   * @return The number of orders.
+   */
+  long countByCustomerIdAndRegion(String customerId, String region);
+
+  /**
+   * Finds whether a customer has placed any order.
+   *
+   * @param customerId The identifier of the customer.
+   * @return {@literal true} if the customer has placed an order.
+   */
+  boolean existsByCustomerId(String customerId);
+
+  /**
+   * Finds the orders placed by a customer.
+   *
+   * @param customerId The identifier of the customer.
+   * @return The orders.
+   */
+  List<Order> findByCustomerId(String customerId);
+
+  /**
+   * Finds the orders placed by a customer for a quantity.
+   *
+   * @param customerId The identifier of the customer.
+   * @param quantity   The quantity.
+   * @return The orders.
+   */
+  List<Order> findByCustomerIdAndQuantity(String customerId, long quantity);
+
+  /**
+   * Finds the orders placed by a customer for more than a quantity.
+   *
+   * @param customerId The identifier of the customer.
+   * @param quantity   The quantity.
+   * @return The orders.
+   */
+  List<Order> findByCustomerIdAndQuantityGreaterThan(String customerId, int quantity);
+
+  /**
+   * Finds the orders placed by a customer for less than a quantity.
+   *
+   * @param customerId The identifier of the customer.
+   * @param quantity   The quantity.
+   * @return The orders.
+   */
+  List<Order> findByCustomerIdAndQuantityLessThan(String customerId, double quantity);
+
+  /**
+   * Finds the orders placed by a customer for a region.
+   *
+   * @param customerId The identifier of the customer.
+   * @param region     The region.
+   * @return The orders.
+   */
+  List<Order> findByCustomerIdAndRegion(String customerId, String region);
+
+  /**
+   * Finds the orders placed by a customer for a region, regardless of the
+   * case of the region.
+   *
+   * @param customerId The identifier of the customer.
+   * @param region     The region.
+   * @return The orders.
+   */
+  List<Order> findByCustomerIdAndRegionIgnoreCase(String customerId, String region);
+
+  /**
+   * Finds the only order placed by a customer.
+   *
+   * @param customerId The identifier of the customer.
+   * @return The order, if any.
+   */
+  Optional<Order> findOneByCustomerId(String customerId);
+
+  /**
+   * Streams the orders placed by a customer.
+   *
+   * @param customerId The identifier of the customer.
+   * @return The orders.
+   */
+  Stream<Order> streamByCustomerId(String customerId);
+}
+
+/**
+ * Contract for data access operations on {@link Order} by a property that
+ * is not indexed.
+ */
+interface OrderTextRepository extends MultiChainRepository<Order>
+{
+  /**
+   * Finds the orders with a given text.
+   *
+   * @param text The text.
+   * @return The orders.
+   */
+  List<Order> findByText(String text);
+}
+
+/**
+ * Contract for data access operations on {@link Order} by alternative
+ * conditions.
+ */
+interface OrderRegionRepository extends MultiChainRepository<Order>
+{
+  /**
+   * Finds the orders placed by a customer or for a region.
+   *
+   * @param customerId The identifier of the customer.
+   * @param region     The region.
+   * @return The orders.
+   */
+  List<Order> findByCustomerIdOrRegion(String customerId, String region);
+}
+
+/**
+ * Contract for data access operations on {@link Order} that orders a
+ * property whose values are not comparable.
+ */
+interface OrderLocaleRepository extends MultiChainRepository<Order>
+{
+  /**
+   * Finds the orders placed by a customer for a locale after a given one.
+   *
+   * @param customerId The identifier of the customer.
+   * @param locale     The locale.
+   * @return The orders.
+   */
+  List<Order> findByCustomerIdAndLocaleGreaterThan(String customerId, Locale locale);
+}
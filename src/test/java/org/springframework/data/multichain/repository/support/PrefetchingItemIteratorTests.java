@@ -0,0 +1,153 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.data.multichain.repository.support;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.data.multichain.UnitTest;
+import org.springframework.data.multichain.server.command.ListStreamItemsResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link PrefetchingItemIterator}.
+ */
+public class PrefetchingItemIteratorTests implements UnitTest
+{
+  private final IoExecutor executor = new IoExecutor(2, "prefetch-");
+
+  /**
+   * Stops the threads fetching pages.
+   */
+  @After
+  public void tearDown()
+  {
+    executor.close();
+  }
+
+  /**
+   * Tests that closing an iterator ends it.
+   */
+  @Test
+  public void testClose()
+  {
+    final PrefetchingItemIterator<Integer> subject = new PrefetchingItemIterator<>(getItems(10, new ConcurrentLinkedQueue<>()), decoder(), 2, executor);
+
+    subject.close();
+
+    assertFalse(subject.hasNext());
+  }
+
+  /**
+   * Tests that an exception thrown while fetching a page is thrown to the
+   * consumer.
+   */
+  @Test(expected = DataRetrievalFailureException.class)
+  public void testFetchFailure()
+  {
+    new PrefetchingItemIterator<Integer>((start, count) -> {
+      throw new DataRetrievalFailureException(getString());
+    }, decoder(), 2, executor).hasNext();
+  }
+
+  /**
+   * Tests that all items are iterated over, a page at a time, until a short
+   * page is fetched.
+   */
+  @Test
+  public void testIterate()
+  {
+    final Queue<Integer> starts = new ConcurrentLinkedQueue<>();
+    final PrefetchingItemIterator<Integer> subject = new PrefetchingItemIterator<>(getItems(5, starts), decoder(), 2, executor);
+
+    final List<Integer> entities = new ArrayList<>();
+    subject.forEachRemaining(entities::add);
+
+    assertEquals(5, entities.size());
+    assertEquals(Arrays.asList(0, 2, 4), new ArrayList<>(starts));
+  }
+
+  /**
+   * Tests that the next page is fetched while the current one is consumed.
+   */
+  @Test
+  public void testPrefetch() throws InterruptedException
+  {
+    final CountDownLatch fetched = new CountDownLatch(2);
+    final BiFunction<Integer, Integer, List<ListStreamItemsResult>> items = getItems(10, new ConcurrentLinkedQueue<>());
+
+    final PrefetchingItemIterator<Integer> subject = new PrefetchingItemIterator<>((start, count) -> {
+      fetched.countDown();
+
+      return items.apply(start, count);
+    }, decoder(), 2, executor);
+
+    subject.next();
+
+    assertTrue(fetched.await(5, TimeUnit.SECONDS));
+  }
+
+  /**
+   * Gets a decoder that numbers items in the order in which they are
+   * decoded.
+   *
+   * @return A decoder.
+   */
+  private static Function<List<ListStreamItemsResult>, List<Integer>> decoder()
+  {
+    final AtomicInteger counter = new AtomicInteger();
+
+    return page -> {
+      final List<Integer> entities = new ArrayList<>();
+      page.forEach(item -> entities.add(counter.getAndIncrement()));
+
+      return entities;
+    };
+  }
+
+  /**
+   * Gets a fetcher for a stream holding a given number of items.
+   *
+   * @param total  The number of items in the stream.
+   * @param starts Receives the position of the first item of each page
+   *               fetched.
+   * @return A fetcher.
+   */
+  private static BiFunction<Integer, Integer, List<ListStreamItemsResult>> getItems(final int total, final Queue<Integer> starts)
+  {
+    return (start, count) -> {
+      starts.add(start);
+
+      return new ArrayList<>(Collections.nCopies(Math.max(0, Math.min(count, total - start)), new ListStreamItemsResult()));
+    };
+  }
+}
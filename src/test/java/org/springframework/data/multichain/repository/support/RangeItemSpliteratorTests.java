@@ -0,0 +1,170 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.data.multichain.repository.support;
+
+import org.junit.Test;
+import org.springframework.data.multichain.UnitTest;
+import org.springframework.data.multichain.server.command.ListStreamItemsResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link RangeItemSpliterator}.
+ */
+public class RangeItemSpliteratorTests implements UnitTest
+{
+  private static final BiFunction<Integer, Integer, List<ListStreamItemsResult>> FETCHER = RangeItemSpliteratorTests::getItems;
+  private static final Function<List<ListStreamItemsResult>, List<Integer>>      DECODER = page -> page.stream()
+                                                                                                      .map(item -> Integer.valueOf(item.getID()))
+                                                                                                      .collect(Collectors.toList());
+
+  /**
+   * Tests that a parallel stream over a range holds every entity in the
+   * range, in order.
+   */
+  @Test
+  public void testParallelStream()
+  {
+    final List<Integer> entities = StreamSupport.stream(new RangeItemSpliterator<>(FETCHER, DECODER, getPageSize(), 0, 1000, null), true)
+                                                .collect(Collectors.toList());
+
+    assertEquals(IntStream.range(0, 1000).boxed().collect(Collectors.toList()), entities);
+  }
+
+  /**
+   * Tests that a pool consuming a parallel stream goes on running other
+   * tasks while its only thread is blocked fetching a page.
+   */
+  @Test
+  public void testParallelStreamBlockingFetch() throws Exception
+  {
+    final ForkJoinPool pool = new ForkJoinPool(1);
+
+    try
+    {
+      final BiFunction<Integer, Integer, List<ListStreamItemsResult>> fetcher = (start, count) -> {
+        final CountDownLatch released = new CountDownLatch(1);
+        pool.execute(released::countDown);
+
+        try
+        {
+          assertTrue(released.await(5, TimeUnit.SECONDS));
+        }
+        catch (final InterruptedException e)
+        {
+          throw new IllegalStateException(e);
+        }
+
+        return getItems(start, count);
+      };
+
+      final List<Integer> entities = pool.submit(() -> StreamSupport.stream(new RangeItemSpliterator<>(fetcher, DECODER, getPageSize(), 0, 100, null), true)
+                                                                    .collect(Collectors.toList()))
+                                         .get(10, TimeUnit.SECONDS);
+
+      assertEquals(IntStream.range(0, 100).boxed().collect(Collectors.toList()), entities);
+    }
+    finally
+    {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Tests that splitting hands the first half of the range to a new
+   * spliterator.
+   */
+  @Test
+  public void testSplit()
+  {
+    final Spliterator<Integer> subject = new RangeItemSpliterator<>(FETCHER, DECODER, getPageSize(), 10, 30, null);
+
+    final Spliterator<Integer> prefix = subject.trySplit();
+
+    assertNotNull(prefix);
+    assertEquals(10, prefix.estimateSize());
+    assertEquals(10, subject.estimateSize());
+
+    final List<Integer> entities = new ArrayList<>();
+    prefix.forEachRemaining(entities::add);
+    subject.forEachRemaining(entities::add);
+
+    assertEquals(IntStream.range(10, 30).boxed().collect(Collectors.toList()), entities);
+  }
+
+  /**
+   * Tests that a range smaller than two pages is not split.
+   */
+  @Test
+  public void testSplitSmallRange()
+  {
+    assertNull(new RangeItemSpliterator<>(FETCHER, DECODER, getPageSize(), 0, 7, null).trySplit());
+  }
+
+  /**
+   * Tests that traversal ends early if the node holds fewer items than
+   * expected.
+   */
+  @Test
+  public void testShortStream()
+  {
+    final List<Integer> entities = new ArrayList<>();
+    new RangeItemSpliterator<>((start, count) -> getItems(start, Math.max(0, Math.min(count, 5 - start))), DECODER, getPageSize(), 0, 10, null)
+        .forEachRemaining(entities::add);
+
+    assertEquals(5, entities.size());
+  }
+
+  /**
+   * Gets a page size of 4 items.
+   *
+   * @return An {@link AdaptivePageSize}.
+   */
+  private static AdaptivePageSize getPageSize()
+  {
+    return new AdaptivePageSize(4, 4, Long.MAX_VALUE, 1, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Gets a range of items, identified by their positions.
+   *
+   * @param start The position of the first item.
+   * @param count The number of items.
+   * @return The items.
+   */
+  private static List<ListStreamItemsResult> getItems(final int start, final int count)
+  {
+    return IntStream.range(start, start + count)
+                    .mapToObj(i -> SERIALIZER.fromJson(String.format("{\"txid\":\"%d\"}", i), ListStreamItemsResult.class))
+                    .collect(Collectors.toList());
+  }
+}
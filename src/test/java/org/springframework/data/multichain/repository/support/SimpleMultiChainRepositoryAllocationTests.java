@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.data.multichain.repository.support;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.multichain.AllocationMeter;
+import org.springframework.data.multichain.UnitTest;
+import org.springframework.data.multichain.mapping.MultiChainPersistentEntity;
+import org.springframework.data.multichain.mapping.context.MultiChainMappingContext;
+import org.springframework.data.multichain.server.MultiChainClient;
+import org.springframework.data.multichain.server.command.ListStreamKeyItemsResponse;
+import org.springframework.data.multichain.server.command.PublishResponse;
+import org.springframework.data.multichain.server.command.Request;
+import org.springframework.data.multichain.server.command.Response;
+import org.springframework.domain.Contract;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * Allocation budgets for {@link SimpleMultiChainRepository}, measured with a
+ * {@link MultiChainClient} that returns canned responses, so that only the
+ * allocations made by the repository itself (mainly for converting entities
+ * to and from their stored form) are counted.
+ * </p>
+ * <p>
+ * Budgets are expressed as a fixed allowance plus a multiple of the size of
+ * the JSON representation of the entity, and are set with some headroom
+ * above the allocations measured when they were last revised. Lower them
+ * whenever an optimization reduces allocations, so that the gain cannot be
+ * lost unnoticed.
+ * </p>
+ */
+public class SimpleMultiChainRepositoryAllocationTests implements UnitTest
+{
+  private static final int PAYLOAD_SIZE = 4096;
+
+  private Contract                             contract;
+  private Map<Class<?>, Response<?>>           responses;
+  private SimpleMultiChainRepository<Contract> repository;
+  private int                                  size;
+
+  /**
+   * Creates a repository that receives canned responses.
+   */
+  @SuppressWarnings("unchecked")
+  @Before
+  public void setUp()
+  {
+    final MultiChainPersistentEntity<Contract> persistentEntity = (MultiChainPersistentEntity<Contract>) new MultiChainMappingContext()
+        .getRequiredPersistentEntity(Contract.class);
+
+    responses = new HashMap<>();
+    repository = new SimpleMultiChainRepository<>(new MultiChainEntityInformation<>(persistentEntity), new CannedMultiChainClient());
+
+    final StringBuilder buyer = new StringBuilder(PAYLOAD_SIZE);
+    while (buyer.length() < PAYLOAD_SIZE)
+    {
+      buyer.append(getString());
+    }
+
+    contract = new Contract(getString(), buyer.toString(), getString(), new Date(), new Date(), BigDecimal.valueOf(getInt()));
+    size = SERIALIZER.toJson(contract).length();
+  }
+
+  /**
+   * Tests that finding an entity stays within its allocation budget.
+   */
+  @Test
+  public void testFindOne()
+  {
+    responses.put(ListStreamKeyItemsResponse.class, SERIALIZER.fromJson(String.format("{\"result\":[{\"key\":\"%s\",\"data\":\"%s\",\"txid\":\"%s\"}]}"
+        , contract.getId()
+        , repository.serialize(contract).getHex()
+        , getString(256))
+        , ListStreamKeyItemsResponse.class));
+
+    AllocationMeter.assertAllocatesAtMost(() -> repository.findOne(contract.getId()), 4096 + 24L * size, "findOne");
+  }
+
+  /**
+   * Tests that saving an entity stays within its allocation budget.
+   */
+  @Test
+  public void testSave()
+  {
+    responses.put(ListStreamKeyItemsResponse.class, SERIALIZER.fromJson("{\"result\":[]}", ListStreamKeyItemsResponse.class));
+    responses.put(PublishResponse.class, SERIALIZER.fromJson(String.format("{\"result\":\"%s\"}", getString(256)), PublishResponse.class));
+
+    AllocationMeter.assertAllocatesAtMost(() -> repository.save(contract), 4096 + 30L * size, "save");
+  }
+
+  /**
+   * A {@link MultiChainClient} that returns a canned response for each type
+   * of response.
+   */
+  private final class CannedMultiChainClient implements MultiChainClient
+  {
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <Q extends Request, R extends Response<?>> R invoke(final Q request, final Class<R> responseType)
+    {
+      return responseType.cast(responses.get(responseType));
+    }
+  }
+}
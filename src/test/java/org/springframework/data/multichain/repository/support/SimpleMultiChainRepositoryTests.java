@@ -16,15 +16,106 @@
 
 package org.springframework.data.multichain.repository.support;
 
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.multichain.UnitTest;
+import org.springframework.data.multichain.annotation.MultiChainStream;
+import org.springframework.data.multichain.annotation.StreamItemFormat;
+import org.springframework.data.multichain.mapping.MultiChainPersistentEntity;
+import org.springframework.data.multichain.mapping.context.MultiChainMappingContext;
 import org.springframework.data.multichain.mapping.model.SimpleMultiChainPersistentEntity;
+import org.springframework.data.multichain.repository.StreamSubscription;
+import org.springframework.data.multichain.serializer.DeflateCompressionCodec;
+import org.springframework.data.multichain.serializer.GsonEntitySerializer;
+import org.springframework.data.multichain.serializer.JacksonSmileEntitySerializer;
+import org.springframework.data.multichain.server.command.ListStreamKeyItemsRequest;
+import org.springframework.data.multichain.server.command.ListStreamKeyItemsResponse;
+import org.springframework.data.multichain.server.command.PublishMultiRequest;
+import org.springframework.data.multichain.server.command.PublishRequest;
+import org.springframework.data.multichain.server.command.PublishResponse;
+import org.springframework.data.multichain.server.command.StreamItemData;
+import org.springframework.data.multichain.server.simulator.MultiChainSimulator;
+import org.springframework.data.multichain.server.support.MultiChainTemplate;
 import org.springframework.data.util.ClassTypeInformation;
+import org.springframework.domain.Contract;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Unit tests for {@link SimpleMultiChainRepository}.
  */
-public class SimpleMultiChainRepositoryTests
+public class SimpleMultiChainRepositoryTests implements UnitTest
 {
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private MultiChainEntityInformation<Contract, String> entityInformation;
+  private MultiChainTemplate                           multiChainClient;
+  private SimpleMultiChainRepository<Contract>         repository;
+  private MultiChainSimulator                          simulator;
+
+  /**
+   * Starts a simulated MultiChain RPC server and creates a repository that
+   * stores entities on it.
+   */
+  @SuppressWarnings("unchecked")
+  @Before
+  public void setUp()
+  {
+    simulator = new MultiChainSimulator();
+    simulator.createStream("contract");
+    simulator.start();
+
+    final MultiChainPersistentEntity<Contract> persistentEntity = (MultiChainPersistentEntity<Contract>) new MultiChainMappingContext()
+        .getRequiredPersistentEntity(Contract.class);
+
+    entityInformation = new MultiChainEntityInformation<>(persistentEntity);
+    multiChainClient = new MultiChainTemplate("127.0.0.1", simulator.getPort(), simulator.getUsername(), simulator.getPassword(), false);
+
+    repository = new SimpleMultiChainRepository<>(entityInformation, multiChainClient);
+  }
+
+  /**
+   * Stops the simulated MultiChain RPC server.
+   */
+  @After
+  public void tearDown()
+  {
+    simulator.stop();
+  }
+
   /**
    * Tests that a repository cannot be constructed without providing metadata
    * for the entities it manages.
@@ -45,6 +136,506 @@ public class SimpleMultiChainRepositoryTests
     new SimpleMultiChainRepository<>(new MultiChainEntityInformation<>(new SimpleMultiChainPersistentEntity<>(ClassTypeInformation.from(Foo.class)))
         , null);
   }
+
+  /**
+   * Tests that the items in a stream are counted.
+   */
+  @Test
+  public void testCount()
+  {
+    assertEquals(0, repository.count());
+
+    repository.save(Arrays.asList(getContract(), getContract(), getContract()));
+
+    assertEquals(3, repository.count());
+  }
+
+  /**
+   * Tests that entities are found a page at a time, in the order in which
+   * they were published.
+   */
+  @Test
+  public void testFindAll()
+  {
+    final List<Contract> contracts = IntStream.range(0, 5).mapToObj(i -> getContract()).collect(Collectors.toList());
+    repository.save(contracts);
+
+    final Page<Contract> page = repository.findAll(PageRequest.of(1, 2));
+
+    assertEquals(5, page.getTotalElements());
+    assertEquals(3, page.getTotalPages());
+    assertEquals(2, page.getNumberOfElements());
+    assertEquals(contracts.get(2).getId(), page.getContent().get(0).getId());
+    assertEquals(contracts.get(3).getId(), page.getContent().get(1).getId());
+
+    final Page<Contract> last = repository.findAll(page.nextPageable());
+
+    assertEquals(1, last.getNumberOfElements());
+    assertFalse(last.hasNext());
+  }
+
+  /**
+   * Tests that entities that have been split into chunks are found once,
+   * through their manifests.
+   */
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testFindAllChunked()
+  {
+    simulator.createStream("archive");
+
+    final SimpleMultiChainRepository<Archive> archives = new SimpleMultiChainRepository<>(new MultiChainEntityInformation<>((MultiChainPersistentEntity<Archive>) new MultiChainMappingContext()
+        .getRequiredPersistentEntity(Archive.class)), multiChainClient);
+
+    final Archive small = new Archive(getString(), getString());
+    final Archive large = new Archive(getString(), String.join(" ", Collections.nCopies(50, getString())));
+    archives.save(Arrays.asList(large, small));
+
+    final List<Archive> found = archives.findAll(Pageable.unpaged()).getContent();
+
+    assertEquals(2, found.size());
+    assertEquals(large.text, found.get(0).text);
+    assertEquals(small.text, found.get(1).text);
+  }
+
+  /**
+   * Tests that entities can only be found in the order in which they were
+   * published.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testFindAllSorted()
+  {
+    repository.findAll(PageRequest.of(0, 10, Sort.by("buyer")));
+  }
+
+  /**
+   * Tests that all entities are found without paging, in batches.
+   */
+  @Test
+  public void testFindAllUnpaged()
+  {
+    final List<Contract> contracts = IntStream.range(0, SimpleMultiChainRepository.BATCH_SIZE + 1)
+                                              .mapToObj(i -> getContract())
+                                              .collect(Collectors.toList());
+
+    // Publish the contracts in a single transaction, rather than one by one.
+    final List<PublishMultiRequest.Item> items = contracts.stream()
+                                                          .map(contract -> new PublishMultiRequest.Item(contract.getId(), repository.serialize(contract)))
+                                                          .collect(Collectors.toList());
+    multiChainClient.invoke(new PublishMultiRequest("contract", items, false), PublishResponse.class);
+
+    final Page<Contract> page = repository.findAll(Pageable.unpaged());
+
+    assertEquals(contracts.size(), page.getTotalElements());
+    assertEquals(contracts.get(contracts.size() - 1).getId(), page.getContent().get(contracts.size() - 1).getId());
+  }
+
+  /**
+   * Tests that replicated entities are found without contacting the node,
+   * and that entities not yet replicated are found on the node.
+   */
+  @Test
+  public void testFindReplicated() throws IOException
+  {
+    final List<Contract> contracts = IntStream.range(0, 3).mapToObj(i -> getContract()).collect(Collectors.toList());
+    repository.save(contracts.subList(0, 2));
+    simulator.mine();
+
+    try (final StreamReplica replica = new StreamReplica(folder.newFolder().toPath(), "contract", multiChainClient))
+    {
+      final SimpleMultiChainRepository<Contract> replicated = new SimpleMultiChainRepository<>(entityInformation, multiChainClient
+          , new GsonEntitySerializer(), null, replica);
+
+      assertEquals(2, replica.sync());
+
+      replicated.save(contracts.get(2));
+
+      assertEquals(3, replicated.findAll(PageRequest.of(0, 10)).getNumberOfElements());
+      assertNotNull(replicated.findOne(contracts.get(2).getId()));
+
+      simulator.stop();
+
+      assertEquals(contracts.get(0).getId(), replicated.findOne(contracts.get(0).getId()).getId());
+      assertTrue(replicated.exists(contracts.get(1).getId()));
+    }
+  }
+
+  /**
+   * Tests that entities are streamed in parallel, in the order in which
+   * they were published.
+   */
+  @Test
+  public void testParallelStreamAll()
+  {
+    final List<Contract> contracts = IntStream.range(0, 50).mapToObj(i -> getContract()).collect(Collectors.toList());
+    repository.save(contracts);
+
+    try (final Stream<Contract> stream = repository.parallelStreamAll())
+    {
+      assertTrue(stream.isParallel());
+      assertEquals(contracts.stream().map(Contract::getId).collect(Collectors.toList())
+          , stream.map(Contract::getId).collect(Collectors.toList()));
+    }
+  }
+
+  /**
+   * Tests that a scan resumes from the entity it stopped at, and ends at
+   * the first unconfirmed item.
+   */
+  @Test
+  public void testScan()
+  {
+    final List<Contract> contracts = IntStream.range(0, 3).mapToObj(i -> getContract()).collect(Collectors.toList());
+    repository.save(contracts);
+    simulator.mine();
+    repository.save(getContract());
+
+    final FileCheckpointStore checkpoints = new FileCheckpointStore(folder.getRoot().toPath());
+    final List<String> ids = new ArrayList<>();
+
+    try
+    {
+      repository.scan("settlement", checkpoints, (contract, position) -> {
+        if (position == 1)
+        {
+          throw new IllegalStateException();
+        }
+
+        ids.add(contract.getId());
+      });
+      fail();
+    }
+    catch (final IllegalStateException e)
+    {
+      assertEquals(1, checkpoints.load("settlement"));
+    }
+
+    assertEquals(3, repository.scan("settlement", checkpoints, (contract, position) -> ids.add(contract.getId())));
+    assertEquals(contracts.stream().map(Contract::getId).collect(Collectors.toList()), ids);
+    assertEquals(3, checkpoints.load("settlement"));
+  }
+
+  /**
+   * Tests that entities are delivered from a position onwards, including
+   * entities saved after subscribing, once they are confirmed.
+   */
+  @Test
+  public void testTail() throws InterruptedException
+  {
+    final List<Contract> contracts = IntStream.range(0, 4).mapToObj(i -> getContract()).collect(Collectors.toList());
+    repository.save(contracts.subList(0, 2));
+    simulator.mine();
+
+    final BlockingQueue<String> ids = new LinkedBlockingQueue<>();
+
+    try (final StreamSubscription subscription = repository.tail(1, (contract, position) -> ids.add(position + ":" + contract.getId())))
+    {
+      assertEquals("1:" + contracts.get(1).getId(), ids.poll(5, TimeUnit.SECONDS));
+
+      repository.save(contracts.subList(2, 4));
+      simulator.mine();
+
+      assertEquals("2:" + contracts.get(2).getId(), ids.poll(10, TimeUnit.SECONDS));
+      assertEquals("3:" + contracts.get(3).getId(), ids.poll(10, TimeUnit.SECONDS));
+
+      // The position passes an item only once the listener has returned.
+      for (int i = 0; i < 500 && subscription.getPosition() < 4; ++i)
+      {
+        Thread.sleep(10);
+      }
+      assertEquals(4, subscription.getPosition());
+    }
+  }
+
+  /**
+   * Tests that an entity that has not been saved cannot be found.
+   */
+  @Test
+  public void testFindOneMissing()
+  {
+    assertNull(repository.findOne(getString()));
+    assertFalse(repository.exists(getString()));
+  }
+
+  /**
+   * Tests that a saved entity can be found by its identifier.
+   */
+  @Test
+  public void testSave()
+  {
+    final Contract contract = getContract();
+
+    repository.save(contract);
+
+    final Contract found = repository.findOne(contract.getId());
+
+    assertNotNull(found);
+    assertEquals(contract.getBuyer(), found.getBuyer());
+    assertEquals(contract.getPrice(), found.getPrice());
+    assertTrue(repository.exists(contract.getId()));
+  }
+
+  /**
+   * Tests that an entity cannot be saved twice.
+   */
+  @Test(expected = DuplicateKeyException.class)
+  public void testSaveDuplicate()
+  {
+    final Contract contract = getContract();
+
+    repository.save(contract);
+    repository.save(contract);
+  }
+
+  /**
+   * Tests that an entity saved with a binary serializer can be found through
+   * a repository configured with a different serializer.
+   */
+  @Test
+  public void testSaveWithSerializer()
+  {
+    final Contract contract = getContract();
+
+    new SimpleMultiChainRepository<>(entityInformation, multiChainClient, new JacksonSmileEntitySerializer()).save(contract);
+
+    final Contract found = repository.findOne(contract.getId());
+
+    assertNotNull(found);
+    assertEquals(contract.getBuyer(), found.getBuyer());
+    assertEquals(contract.getEndDate(), found.getEndDate());
+    assertEquals(contract.getPrice(), found.getPrice());
+  }
+
+  /**
+   * Tests that entities larger than the chunk size are published as a
+   * manifest and chunks in a single transaction, and reassembled when
+   * found.
+   */
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testSaveChunked()
+  {
+    simulator.createStream("archive");
+
+    final SimpleMultiChainRepository<Archive> archives = new SimpleMultiChainRepository<>(new MultiChainEntityInformation<>((MultiChainPersistentEntity<Archive>) new MultiChainMappingContext()
+        .getRequiredPersistentEntity(Archive.class)), multiChainClient);
+
+    final Archive small = new Archive(getString(), getString());
+    final Archive large = new Archive(getString(), String.join(" ", Collections.nCopies(50, getString())));
+    archives.save(Arrays.asList(small, large));
+
+    assertTrue(getItemData("archive", small.id).getHex().startsWith("7b"));
+    assertTrue(getItemData("archive", large.id).getHex().startsWith("f7"));
+    assertEquals(small.text, archives.findOne(small.id).text);
+    assertEquals(large.text, archives.findOne(large.id).text);
+  }
+
+  /**
+   * Tests that identifiers cannot take the form of chunk keys, since their
+   * items would be taken for chunks and skipped when listing entities.
+   */
+  @Test
+  public void testSaveWithIdLikeChunkKey()
+  {
+    final Contract contract = new Contract("chunk:0123456789abcdef:0", getString(), getString(), new Date(), new Date(), BigDecimal.ONE);
+
+    try
+    {
+      repository.save(contract);
+      fail("Ids starting with chunk: must be rejected.");
+    }
+    catch (final DataIntegrityViolationException e)
+    {
+      // Expected.
+    }
+
+    try
+    {
+      repository.findOne(contract.getId());
+      fail("Ids starting with chunk: must be rejected.");
+    }
+    catch (final IllegalArgumentException e)
+    {
+      // Expected.
+    }
+
+    try
+    {
+      repository.exists(" " + contract.getId());
+      fail("Ids starting with chunk: must be rejected.");
+    }
+    catch (final IllegalArgumentException e)
+    {
+      // Expected.
+    }
+  }
+
+  /**
+   * Tests that entities larger than the maximum entity size are not
+   * published.
+   */
+  @Test(expected = DataIntegrityViolationException.class)
+  @SuppressWarnings("unchecked")
+  public void testSaveChunkedTooLarge()
+  {
+    simulator.createStream("archive");
+
+    final SimpleMultiChainRepository<Archive> archives = new SimpleMultiChainRepository<>(new MultiChainEntityInformation<>((MultiChainPersistentEntity<Archive>) new MultiChainMappingContext()
+        .getRequiredPersistentEntity(Archive.class)), multiChainClient);
+
+    archives.save(new Archive(getString(), String.join(" ", Collections.nCopies(200, getString()))));
+  }
+
+  /**
+   * Tests that a forged manifest declaring an entity larger than the
+   * maximum entity size is rejected, rather than allocated and fetched.
+   */
+  @Test(expected = DataRetrievalFailureException.class)
+  @SuppressWarnings("unchecked")
+  public void testFindOneForgedManifest()
+  {
+    simulator.createStream("archive");
+
+    final SimpleMultiChainRepository<Archive> archives = new SimpleMultiChainRepository<>(new MultiChainEntityInformation<>((MultiChainPersistentEntity<Archive>) new MultiChainMappingContext()
+        .getRequiredPersistentEntity(Archive.class)), multiChainClient);
+
+    final byte[] manifest = ChunkManifest.create(new byte[1000], 200).toBytes();
+    ByteBuffer.wrap(manifest).putInt(1, 16777216).putInt(5, Integer.MAX_VALUE).putInt(9, 128);
+
+    final String id = getString();
+    assertTrue(multiChainClient.invoke(new PublishRequest("archive", id, StreamItemData.hex(Hex.encode(manifest)))
+        , PublishResponse.class).isOk());
+
+    archives.findOne(id);
+  }
+
+  /**
+   * Tests that entities configured for compression are compressed once they
+   * reach the compression threshold, and can be found either way.
+   */
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testSaveCompressed()
+  {
+    simulator.createStream("document");
+
+    final MultiChainEntityInformation<Document, String> documentInformation = new MultiChainEntityInformation<>((MultiChainPersistentEntity<Document>) new MultiChainMappingContext()
+        .getRequiredPersistentEntity(Document.class));
+    final SimpleMultiChainRepository<Document> documents = new SimpleMultiChainRepository<>(documentInformation, multiChainClient
+        , new GsonEntitySerializer(), new DeflateCompressionCodec());
+
+    final Document small = new Document(getString(), getString());
+    final Document large = new Document(getString(), String.join(" ", Collections.nCopies(100, getString())));
+    documents.save(Arrays.asList(small, large));
+
+    assertFalse(getItemData("document", small.id).getHex().startsWith("f6"));
+    assertTrue(getItemData("document", large.id).getHex().startsWith("f6"));
+    assertEquals(small.text, documents.findOne(small.id).text);
+    assertEquals(large.text, documents.findOne(large.id).text);
+  }
+
+  /**
+   * Tests that entities configured to be stored off-chain are published
+   * off-chain, and cannot be read until their data is available.
+   */
+  @Test(expected = TransientDataAccessResourceException.class)
+  @SuppressWarnings("unchecked")
+  public void testSaveOffchain()
+  {
+    simulator.createStream("report");
+
+    final SimpleMultiChainRepository<Report> reports = new SimpleMultiChainRepository<>(new MultiChainEntityInformation<>((MultiChainPersistentEntity<Report>) new MultiChainMappingContext()
+        .getRequiredPersistentEntity(Report.class)), multiChainClient);
+
+    final Report report = new Report(getString());
+    reports.save(report);
+
+    assertTrue(multiChainClient.invoke(new ListStreamKeyItemsRequest("report", report.id), ListStreamKeyItemsResponse.class)
+                               .getResult().get(0).isOffchain());
+    assertNotNull(reports.findOne(report.id));
+
+    simulator.setOffchainAvailable(false);
+
+    assertTrue(reports.exists(report.id));
+
+    reports.findOne(report.id);
+  }
+
+  /**
+   * Tests that an entity configured to be stored as native JSON is
+   * published as JSON and can be found.
+   */
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testSaveAsJson()
+  {
+    simulator.createStream("note");
+
+    final MultiChainEntityInformation<Note, String> noteInformation = new MultiChainEntityInformation<>((MultiChainPersistentEntity<Note>) new MultiChainMappingContext()
+        .getRequiredPersistentEntity(Note.class));
+    final SimpleMultiChainRepository<Note> notes = new SimpleMultiChainRepository<>(noteInformation, multiChainClient);
+
+    final Note note = new Note(getString(), getString());
+    notes.save(note);
+
+    final StreamItemData data = getItemData("note", note.id);
+
+    assertNotNull(data.getJson());
+    assertEquals(note.text, data.getJson().getAsJsonObject().get("text").getAsString());
+    assertEquals(note.text, notes.findOne(note.id).text);
+  }
+
+  /**
+   * Tests that entities cannot be stored as native JSON with a serializer
+   * that does not write JSON.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  @SuppressWarnings("unchecked")
+  public void testSaveAsJsonWithBinarySerializer()
+  {
+    new SimpleMultiChainRepository<>(new MultiChainEntityInformation<>((MultiChainPersistentEntity<Note>) new MultiChainMappingContext()
+        .getRequiredPersistentEntity(Note.class)), multiChainClient, new JacksonSmileEntitySerializer());
+  }
+
+  /**
+   * Tests that entities are streamed in the order in which they were
+   * published, across pages.
+   */
+  @Test
+  public void testStreamAll()
+  {
+    final List<Contract> contracts = IntStream.range(0, 5).mapToObj(i -> getContract()).collect(Collectors.toList());
+    repository.save(contracts);
+
+    try (final Stream<Contract> stream = repository.streamAll())
+    {
+      assertEquals(contracts.stream().map(Contract::getId).collect(Collectors.toList())
+          , stream.map(Contract::getId).collect(Collectors.toList()));
+    }
+  }
+
+  /**
+   * Gets the data of the item having a given key.
+   *
+   * @param stream The name of the stream.
+   * @param key    The key.
+   * @return The item data.
+   */
+  private StreamItemData getItemData(final String stream, final String key)
+  {
+    return multiChainClient.invoke(new ListStreamKeyItemsRequest(stream, key), ListStreamKeyItemsResponse.class)
+                           .getResult().get(0).getItemData();
+  }
+
+  /**
+   * Gets a contract with random data.
+   *
+   * @return A {@link Contract}.
+   */
+  private Contract getContract()
+  {
+    return new Contract(getString(), getString(), getString(), new Date(), new Date(), BigDecimal.valueOf(getInt()));
+  }
 }
 
 /**
@@ -53,3 +644,92 @@ public class SimpleMultiChainRepositoryTests
 class Foo
 {
 }
+
+/**
+ * A domain entity split into chunks of 128 bytes, of up to 4 KB.
+ */
+@MultiChainStream(name = "archive", chunkSize = 128, maxEntitySize = 4096)
+class Archive
+{
+  @Id
+  String id;
+  String text;
+
+  /**
+   * Creates an archive.
+   *
+   * @param id   The identifier of the archive.
+   * @param text The text of the archive.
+   */
+  Archive(final String id, final String text)
+  {
+    this.id = id;
+    this.text = text;
+  }
+}
+
+/**
+ * A domain entity compressed from 256 bytes.
+ */
+@MultiChainStream(name = "document", compression = DeflateCompressionCodec.class, compressionThreshold = 256)
+class Document
+{
+  @Id
+  String id;
+  String text;
+
+  /**
+   * Creates a document.
+   *
+   * @param id   The identifier of the document.
+   * @param text The text of the document.
+   */
+  Document(final String id, final String text)
+  {
+    this.id = id;
+    this.text = text;
+  }
+}
+
+/**
+ * A domain entity stored off-chain.
+ */
+@MultiChainStream(name = "report", offchain = true)
+class Report
+{
+  @Id
+  String id;
+
+  /**
+   * Creates a report.
+   *
+   * @param id The identifier of the report.
+   */
+  Report(final String id)
+  {
+    this.id = id;
+  }
+}
+
+/**
+ * A domain entity stored as native JSON.
+ */
+@MultiChainStream(name = "note", format = StreamItemFormat.JSON)
+class Note
+{
+  @Id
+  String id;
+  String text;
+
+  /**
+   * Creates a note.
+   *
+   * @param id   The identifier of the note.
+   * @param text The text of the note.
+   */
+  Note(final String id, final String text)
+  {
+    this.id = id;
+    this.text = text;
+  }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.data.multichain.repository.support;
+
+import com.google.gson.JsonPrimitive;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.multichain.UnitTest;
+import org.springframework.data.multichain.server.command.ListStreamItemsResult;
+import org.springframework.data.multichain.server.command.ListStreamKeyItemsResult;
+import org.springframework.data.multichain.server.command.PublishMultiRequest;
+import org.springframework.data.multichain.server.command.PublishRequest;
+import org.springframework.data.multichain.server.command.PublishResponse;
+import org.springframework.data.multichain.server.command.StreamItemData;
+import org.springframework.data.multichain.server.simulator.MultiChainSimulator;
+import org.springframework.data.multichain.server.support.MultiChainTemplate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link StreamReplica}.
+ */
+public class StreamReplicaTests implements UnitTest
+{
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private MultiChainTemplate  multiChainClient;
+  private MultiChainSimulator simulator;
+
+  /**
+   * Starts a simulated MultiChain RPC server with a data stream.
+   */
+  @Before
+  public void setUp()
+  {
+    simulator = new MultiChainSimulator();
+    simulator.createStream("replicated");
+    simulator.start();
+
+    multiChainClient = new MultiChainTemplate("127.0.0.1", simulator.getPort(), simulator.getUsername(), simulator.getPassword(), false);
+  }
+
+  /**
+   * Stops the simulated MultiChain RPC server.
+   */
+  @After
+  public void tearDown()
+  {
+    simulator.stop();
+  }
+
+  /**
+   * Tests that items of every kind are found by key and by position once
+   * they have been copied.
+   */
+  @Test
+  public void testSync()
+  {
+    publish("binary", StreamItemData.hex("00ff10"));
+    publish("json", StreamItemData.json(new JsonPrimitive("value")));
+    publish("text", StreamItemData.text("text"));
+    simulator.mine();
+
+    try (final StreamReplica replica = open(StreamReplica.DEFAULT_REGION_SIZE))
+    {
+      assertEquals(3, replica.sync());
+      assertEquals(3, replica.size());
+
+      final List<ListStreamKeyItemsResult> found = replica.find("binary");
+      assertEquals(1, found.size());
+      assertEquals("00ff10", found.get(0).getData());
+      assertEquals("value", replica.find("json").get(0).getItemData().getJson().getAsString());
+      assertEquals("text", replica.find("text").get(0).getItemData().getText());
+      assertTrue(replica.find("missing").isEmpty());
+
+      final List<ListStreamItemsResult> listed = replica.list(1, 5);
+      assertEquals(Arrays.asList("json", "text"), listed.stream().map(ListStreamItemsResult::getKey).collect(Collectors.toList()));
+      assertTrue(listed.get(0).isConfirmed());
+      assertEquals(0, replica.sync());
+    }
+  }
+
+  /**
+   * Tests that items are only copied once confirmed, so that their
+   * positions do not change afterwards.
+   */
+  @Test
+  public void testSyncUnconfirmed()
+  {
+    publish("first", StreamItemData.hex("01"));
+    simulator.mine();
+    publish("second", StreamItemData.hex("02"));
+
+    try (final StreamReplica replica = open(StreamReplica.DEFAULT_REGION_SIZE))
+    {
+      assertEquals(1, replica.sync());
+      assertTrue(replica.find("second").isEmpty());
+
+      simulator.mine();
+
+      assertEquals(1, replica.sync());
+      assertEquals(1, replica.find("second").size());
+    }
+  }
+
+  /**
+   * Tests that off-chain items are only copied once their data is
+   * available.
+   */
+  @Test
+  public void testSyncUnavailable()
+  {
+    simulator.setOffchainAvailable(false);
+    multiChainClient.invoke(new PublishRequest("replicated", "offchain", StreamItemData.hex("01"), true), PublishResponse.class);
+    simulator.mine();
+
+    try (final StreamReplica replica = open(StreamReplica.DEFAULT_REGION_SIZE))
+    {
+      assertEquals(0, replica.sync());
+
+      simulator.setOffchainAvailable(true);
+
+      assertEquals(1, replica.sync());
+    }
+  }
+
+  /**
+   * Tests that the replica stalls on an item too large to fit in a region,
+   * keeping the items copied before it and no longer fetching items.
+   */
+  @Test
+  public void testSyncTooLarge()
+  {
+    publish("small", StreamItemData.hex("01"));
+    publish("large", StreamItemData.hex(String.join("", Collections.nCopies(300, "ab"))));
+    publish("after", StreamItemData.hex("02"));
+    simulator.mine();
+
+    try (final StreamReplica replica = open(256))
+    {
+      assertFalse(replica.isStalled());
+      assertEquals(1, replica.sync());
+      assertTrue(replica.isStalled());
+      assertEquals(1, replica.size());
+      assertEquals(1, replica.find("small").size());
+      assertTrue(replica.find("large").isEmpty());
+
+      simulator.stop();
+
+      assertEquals(0, replica.sync());
+      assertTrue(replica.find("after").isEmpty());
+    }
+  }
+
+  /**
+   * Tests that copied items are found after the replica has been reopened,
+   * across regions of the file and without contacting the node.
+   */
+  @Test
+  public void testReopen()
+  {
+    final List<PublishMultiRequest.Item> items = IntStream.range(0, 50)
+                                                          .mapToObj(i -> new PublishMultiRequest.Item("key-" + i, StreamItemData.hex(String.join("", Collections.nCopies(10 + 2 * i, "ab")))))
+                                                          .collect(Collectors.toList());
+    multiChainClient.invoke(new PublishMultiRequest("replicated", items, false), PublishResponse.class);
+    simulator.mine();
+
+    try (final StreamReplica replica = open(256))
+    {
+      assertEquals(50, replica.sync());
+    }
+
+    simulator.stop();
+
+    try (final StreamReplica replica = open(256))
+    {
+      assertEquals(50, replica.size());
+
+      for (int i = 0; i < 50; ++i)
+      {
+        assertEquals(items.get(i).getData().getHex(), replica.find("key-" + i).get(0).getData());
+      }
+
+      assertEquals("key-49", replica.list(49, 1).get(0).getKey());
+    }
+  }
+
+  /**
+   * Tests that a replica cannot be opened twice.
+   */
+  @Test(expected = DataAccessResourceFailureException.class)
+  public void testOpenTwice()
+  {
+    try (final StreamReplica replica = open(StreamReplica.DEFAULT_REGION_SIZE))
+    {
+      open(StreamReplica.DEFAULT_REGION_SIZE);
+    }
+  }
+
+  /**
+   * Opens the replica of the data stream, fetching two items at a time.
+   *
+   * @param regionSize The size of the memory-mapped regions.
+   * @return The replica.
+   */
+  private StreamReplica open(final int regionSize)
+  {
+    return new StreamReplica(folder.getRoot().toPath(), "replicated", multiChainClient, regionSize, 2);
+  }
+
+  /**
+   * Publishes an item to the data stream.
+   *
+   * @param key  The key of the item.
+   * @param data The data of the item.
+   */
+  private void publish(final String key, final StreamItemData data)
+  {
+    multiChainClient.invoke(new PublishRequest("replicated", key, data, false), PublishResponse.class);
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.data.multichain.repository.support;
+
+import org.junit.Test;
+import org.springframework.data.multichain.UnitTest;
+import org.springframework.data.multichain.repository.StreamListener;
+import org.springframework.data.multichain.server.command.ListStreamItemsResult;
+import org.springframework.data.multichain.server.command.StreamItemData;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link TailingSubscription}.
+ */
+public class TailingSubscriptionTests implements UnitTest
+{
+  /**
+   * Tests that the entities of confirmed items are delivered in order, with
+   * their positions, skipping items that do not hold entities by
+   * themselves.
+   */
+  @Test
+  public void testDeliver() throws InterruptedException
+  {
+    final List<ListStreamItemsResult> stream = new ArrayList<>();
+    IntStream.range(0, 7).forEach(i -> stream.add(getItem(i % 3 == 2 ? "chunk" : "item-" + i)));
+    stream.add(SERIALIZER.fromJson("{\"txid\":\"unconfirmed\",\"keys\":[\"unconfirmed\"],\"data\":\"00\",\"confirmations\":0}"
+        , ListStreamItemsResult.class));
+
+    final List<String> entities = Collections.synchronizedList(new ArrayList<>());
+    final CountDownLatch done = new CountDownLatch(4);
+
+    try (final TailingSubscription<String> subscription = subscribe(stream, 1, (entity, position) -> {
+      entities.add(entity + "@" + position);
+      done.countDown();
+    }))
+    {
+      assertTrue(done.await(5, TimeUnit.SECONDS));
+
+      // The unconfirmed item is neither delivered nor passed.
+      Thread.sleep(50);
+      assertEquals(7, subscription.getPosition());
+      assertTrue(subscription.isActive());
+    }
+
+    assertEquals(IntStream.of(1, 3, 4, 6).mapToObj(i -> "item-" + i + "@" + i).collect(Collectors.toList()), entities);
+  }
+
+  /**
+   * Tests that the subscription stops at an entity the listener fails on.
+   */
+  @Test
+  public void testListenerError() throws InterruptedException
+  {
+    final List<ListStreamItemsResult> stream = IntStream.range(0, 5).mapToObj(i -> getItem("item-" + i)).collect(Collectors.toList());
+
+    final AtomicReference<RuntimeException> error = new AtomicReference<>();
+    final CountDownLatch done = new CountDownLatch(1);
+
+    final TailingSubscription<String> subscription = subscribe(stream, 0, new StreamListener<String>()
+    {
+      @Override
+      public void onEntity(final String entity, final int position)
+      {
+        if (position == 2)
+        {
+          throw new IllegalStateException(entity);
+        }
+      }
+
+      @Override
+      public void onError(final RuntimeException e)
+      {
+        error.set(e);
+        done.countDown();
+      }
+    });
+
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertEquals("item-2", error.get().getMessage());
+    assertEquals(2, subscription.getPosition());
+    assertFalse(subscription.isActive());
+  }
+
+  /**
+   * Tests that the pause between polls shrinks while items arrive, grows
+   * while none do, and is skipped after a full batch.
+   */
+  @Test
+  public void testInterval()
+  {
+    final TailingSubscription<String> subscription = new TailingSubscription<>((start, count) -> Collections.emptyList()
+        , item -> null
+        , (entity, position) -> {
+    }, 0, 10, 100, 1000, "test");
+
+    assertEquals(200, subscription.getInterval(0));
+    assertEquals(400, subscription.getInterval(0));
+    assertEquals(800, subscription.getInterval(0));
+    assertEquals(1000, subscription.getInterval(0));
+    assertEquals(500, subscription.getInterval(3));
+    assertEquals(0, subscription.getInterval(10));
+    assertEquals(100, subscription.getInterval(1));
+
+    subscription.close();
+  }
+
+  /**
+   * Gets a confirmed item.
+   *
+   * @param key The key of the item, which is also the entity it holds.
+   * @return The item.
+   */
+  private static ListStreamItemsResult getItem(final String key)
+  {
+    return new ListStreamItemsResult(key, Collections.singletonList(key), StreamItemData.hex("00"), null);
+  }
+
+  /**
+   * Subscribes to a stream of items, two at a time, decoding each item into
+   * its key, except chunks.
+   *
+   * @param stream   The items in the stream.
+   * @param from     The position of the first item to deliver.
+   * @param listener The listener.
+   * @return The subscription.
+   */
+  private static TailingSubscription<String> subscribe(final List<ListStreamItemsResult> stream
+      , final int from
+      , final StreamListener<String> listener)
+  {
+    final BiFunction<Integer, Integer, List<ListStreamItemsResult>> fetcher = (start, count) ->
+        stream.subList(Math.min(start, stream.size()), Math.min(start + count, stream.size()));
+
+    return new TailingSubscription<>(fetcher
+        , item -> "chunk".equals(item.getKey()) ? null : item.getKey()
+        , listener
+        , from
+        , 2
+        , 1
+        , 10
+        , "test").start();
+  }
+}
@@ -0,0 +1,377 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.data.multichain.serializer;
+
+import org.junit.Test;
+import org.springframework.core.serializer.support.SerializationFailedException;
+import org.springframework.data.multichain.UnitTest;
+import org.springframework.data.multichain.annotation.FieldNumber;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link CompactEntitySerializer}.
+ */
+public class CompactEntitySerializerTests implements UnitTest
+{
+  private final CompactEntitySerializer subject = new CompactEntitySerializer();
+
+  /**
+   * Tests that properties without a field in a record, such as those added
+   * after the record was written, keep the value given by the constructor.
+   */
+  @Test
+  public void testReadMissingField()
+  {
+    final Version1 original = new Version1();
+    original.name = getString();
+
+    final Version2 read = roundTrip(original, Version2.class);
+
+    assertEquals(original.name, read.name);
+    assertEquals(Version2.DEFAULT_QUANTITY, read.quantity);
+  }
+
+  /**
+   * Tests that fields without a property, such as those of properties
+   * removed after the record was written, are skipped.
+   */
+  @Test
+  public void testReadUnknownField()
+  {
+    final Version2 original = new Version2();
+    original.name = getString();
+    original.quantity = getInt();
+    original.tags = Arrays.asList(getString(), getString());
+    original.nested = new Nested(getString(), getInt());
+
+    assertEquals(original.name, roundTrip(original, Version1.class).name);
+  }
+
+  /**
+   * Tests that entities created through a constructor taking their
+   * properties can be read.
+   */
+  @Test
+  public void testReadWithConstructor()
+  {
+    final Nested original = new Nested(getString(), getInt());
+
+    final Nested read = roundTrip(original, Nested.class);
+
+    assertEquals(original.label, read.label);
+    assertEquals(original.weight, read.weight);
+  }
+
+  /**
+   * Tests that repeated numeric values are read whether they were written
+   * packed or one field each.
+   */
+  @Test
+  public void testReadUnpacked()
+  {
+    final CompactOutput out = new CompactOutput(16);
+    for (final int value : new int[] { 3, -4 })
+    {
+      out.writeTag(1, CompactOutput.VARINT);
+      out.writeSignedVarint(value);
+    }
+    final byte[] data = out.toByteArray();
+
+    assertArrayEquals(new int[] { 3, -4 }, subject.deserialize(data, 0, data.length, Numbers.class).values);
+  }
+
+  /**
+   * Tests that truncated records are rejected.
+   */
+  @Test(expected = SerializationFailedException.class)
+  public void testReadTruncated()
+  {
+    final Version1 original = new Version1();
+    original.name = getString();
+
+    final byte[] data = subject.serialize(original);
+
+    subject.deserialize(data, 0, data.length - 1, Version1.class);
+  }
+
+  /**
+   * Tests that values of every supported type survive a round trip.
+   */
+  @Test
+  public void testRoundTrip()
+  {
+    final Everything original = new Everything();
+    original.amount = new BigDecimal("-12345.6789");
+    original.big = BigInteger.valueOf(Long.MAX_VALUE).multiply(BigInteger.TEN);
+    original.bytes = new byte[] { 0, 1, -1, 127 };
+    original.character = 'é';
+    original.date = new Date();
+    original.day = LocalDate.of(2018, 5, 1);
+    original.decimal = -2.5;
+    original.flag = true;
+    original.fraction = 0.25f;
+    original.id = UUID.randomUUID();
+    original.instant = Instant.ofEpochSecond(1525132800, 123456789);
+    original.integers = new int[] { -1, 0, 300 };
+    original.large = Long.MIN_VALUE;
+    original.nested = new Nested(getString(), getInt());
+    original.nesteds = Arrays.asList(new Nested(getString(), getInt()), new Nested(getString(), getInt()));
+    original.number = Integer.MIN_VALUE;
+    original.properties = new TreeMap<>(Collections.singletonMap(getString(), getInt()));
+    original.small = Short.MAX_VALUE;
+    original.status = Status.ACTIVE;
+    original.tags = new LinkedHashSet<>(Arrays.asList(getString(), getString()));
+    original.text = "Ω ≈ ç 😀";
+    original.time = LocalDateTime.of(2018, 5, 1, 12, 30, 15, 500);
+    original.tiny = Byte.MIN_VALUE;
+
+    final Everything read = roundTrip(original, Everything.class);
+
+    assertEquals(original.amount, read.amount);
+    assertEquals(original.big, read.big);
+    assertArrayEquals(original.bytes, read.bytes);
+    assertEquals(original.character, read.character);
+    assertEquals(original.date, read.date);
+    assertEquals(original.day, read.day);
+    assertEquals(original.decimal, read.decimal, 0);
+    assertEquals(original.flag, read.flag);
+    assertEquals(original.fraction, read.fraction, 0);
+    assertEquals(original.id, read.id);
+    assertEquals(original.instant, read.instant);
+    assertArrayEquals(original.integers, read.integers);
+    assertEquals(original.large, read.large);
+    assertEquals(original.nested.label, read.nested.label);
+    assertEquals(2, read.nesteds.size());
+    assertEquals(original.nesteds.get(1).label, read.nesteds.get(1).label);
+    assertEquals(original.number, read.number);
+    assertEquals(original.properties, read.properties);
+    assertEquals(original.small, read.small);
+    assertEquals(original.status, read.status);
+    assertEquals(original.tags, read.tags);
+    assertEquals(original.text, read.text);
+    assertEquals(original.time, read.time);
+    assertEquals(original.tiny, read.tiny);
+  }
+
+  /**
+   * Tests that {@literal null} properties are not written, and remain
+   * {@literal null} when read.
+   */
+  @Test
+  public void testRoundTripNulls()
+  {
+    final Everything read = roundTrip(new Everything(), Everything.class);
+
+    assertNull(read.amount);
+    assertNull(read.nested);
+    assertNull(read.tags);
+    assertNull(read.text);
+  }
+
+  /**
+   * Tests that entities are written in less space than in JSON.
+   */
+  @Test
+  public void testSerializeIsCompact()
+  {
+    final Version2 entity = new Version2();
+    entity.name = getString();
+    entity.quantity = getInt();
+    entity.tags = Arrays.asList(getString(), getString());
+    entity.nested = new Nested(getString(), getInt());
+
+    final byte[] data = subject.serialize(entity);
+
+    assertTrue(data.length < SERIALIZER.toJson(entity).getBytes(StandardCharsets.UTF_8).length);
+
+    // Explicit field numbers below 16 take a single byte per tag; "name"
+    // is field 1 and is written first.
+    assertEquals((1 << 3) | 2, data[0]);
+  }
+
+  /**
+   * Tests that entity types whose properties have the same field number are
+   * rejected.
+   */
+  @Test(expected = SerializationFailedException.class)
+  public void testSerializeDuplicateFieldNumbers()
+  {
+    subject.serialize(new Duplicate());
+  }
+
+  /**
+   * Tests that entity types with properties of undeclared types are
+   * rejected.
+   */
+  @Test(expected = SerializationFailedException.class)
+  public void testSerializeUntypedProperty()
+  {
+    subject.serialize(new Untyped());
+  }
+
+  /**
+   * Writes an entity and reads it back, with the header added by
+   * {@link EntitySerializers}.
+   *
+   * @param entity The entity.
+   * @param type   The type to read the entity as.
+   * @param <T>    The type to read the entity as.
+   * @return The entity read.
+   */
+  private <T> T roundTrip(final Object entity, final Class<T> type)
+  {
+    final byte[] data = EntitySerializers.write(entity, subject);
+
+    assertEquals(EntitySerializers.COMPACT, EntitySerializers.getFormat(data));
+
+    return EntitySerializers.read(data, type, null);
+  }
+
+  /**
+   * An enumeration.
+   */
+  enum Status
+  {
+    ACTIVE,
+    CLOSED
+  }
+
+  /**
+   * An entity with two properties having the same number.
+   */
+  static class Duplicate
+  {
+    @FieldNumber(1)
+    private String first;
+    @FieldNumber(1)
+    private String second;
+  }
+
+  /**
+   * An entity with a property of every supported type.
+   */
+  static class Everything
+  {
+    private BigDecimal           amount;
+    private BigInteger           big;
+    private byte[]               bytes;
+    private char                 character;
+    private Date                 date;
+    private LocalDate            day;
+    private double               decimal;
+    private boolean              flag;
+    private float                fraction;
+    private UUID                 id;
+    private Instant              instant;
+    private int[]                integers;
+    private long                 large;
+    private Nested               nested;
+    private List<Nested>         nesteds;
+    private Integer              number;
+    private Map<String, Integer> properties;
+    private short                small;
+    private Status               status;
+    private Set<String>          tags;
+    private String               text;
+    private LocalDateTime        time;
+    private byte                 tiny;
+  }
+
+  /**
+   * An entity created through a constructor that takes its properties.
+   */
+  static class Nested
+  {
+    private final String label;
+    private final int    weight;
+
+    /**
+     * Creates an entity.
+     *
+     * @param label  A label.
+     * @param weight A weight.
+     */
+    Nested(final String label, final int weight)
+    {
+      this.label = label;
+      this.weight = weight;
+    }
+  }
+
+  /**
+   * An entity with repeated numeric values.
+   */
+  static class Numbers
+  {
+    @FieldNumber(1)
+    private int[] values;
+  }
+
+  /**
+   * An entity with a property of undeclared type.
+   */
+  static class Untyped
+  {
+    private Object value;
+  }
+
+  /**
+   * The first version of an entity.
+   */
+  static class Version1
+  {
+    @FieldNumber(1)
+    private String name;
+  }
+
+  /**
+   * The second version of an entity, with more properties.
+   */
+  static class Version2
+  {
+    static final int DEFAULT_QUANTITY = 1;
+
+    @FieldNumber(1)
+    private String       name;
+    @FieldNumber(4)
+    private Nested       nested;
+    @FieldNumber(2)
+    private int          quantity = DEFAULT_QUANTITY;
+    @FieldNumber(3)
+    private List<String> tags;
+  }
+}
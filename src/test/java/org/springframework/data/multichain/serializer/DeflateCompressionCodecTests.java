@@ -0,0 +1,180 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.data.multichain.serializer;
+
+import org.junit.Test;
+import org.springframework.core.serializer.support.SerializationFailedException;
+import org.springframework.data.multichain.UnitTest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link DeflateCompressionCodec}.
+ */
+public class DeflateCompressionCodecTests implements UnitTest
+{
+  private final DeflateCompressionCodec subject = new DeflateCompressionCodec();
+
+  /**
+   * Tests that repetitive data is compressed and can be decompressed.
+   */
+  @Test
+  public void testCompress()
+  {
+    final byte[] data = getData();
+    final byte[] compressed = subject.compress(data, 0, data.length);
+
+    assertTrue(compressed.length < data.length / 4);
+    assertArrayEquals(data, subject.decompress(compressed, 0, compressed.length, data.length));
+  }
+
+  /**
+   * Tests that part of an array can be compressed and decompressed.
+   */
+  @Test
+  public void testCompressRange()
+  {
+    final byte[] data = getData();
+    final byte[] compressed = subject.compress(data, 10, data.length - 20);
+
+    final byte[] padded = new byte[compressed.length + 4];
+    System.arraycopy(compressed, 0, padded, 2, compressed.length);
+
+    assertArrayEquals(Arrays.copyOfRange(data, 10, data.length - 10), subject.decompress(padded, 2, compressed.length, data.length - 20));
+  }
+
+  /**
+   * Tests that data which does not compress is still compressed correctly.
+   */
+  @Test
+  public void testCompressRandomData()
+  {
+    final byte[] data = new byte[4096];
+    new Random().nextBytes(data);
+
+    final byte[] compressed = new DeflateCompressionCodec(1).compress(data, 0, data.length);
+
+    assertArrayEquals(data, subject.decompress(compressed, 0, compressed.length, data.length));
+  }
+
+  /**
+   * Tests that corrupt data cannot be decompressed.
+   */
+  @Test(expected = SerializationFailedException.class)
+  public void testDecompressCorrupt()
+  {
+    subject.decompress(getData(), 0, 100, 1000);
+  }
+
+  /**
+   * Tests that data decompressing to more bytes than expected is rejected.
+   */
+  @Test(expected = SerializationFailedException.class)
+  public void testDecompressLonger()
+  {
+    final byte[] data = getData();
+    final byte[] compressed = subject.compress(data, 0, data.length);
+
+    subject.decompress(compressed, 0, compressed.length, data.length - 1);
+  }
+
+  /**
+   * Tests that truncated data is rejected.
+   */
+  @Test(expected = SerializationFailedException.class)
+  public void testDecompressTruncated()
+  {
+    final byte[] data = getData();
+    final byte[] compressed = subject.compress(data, 0, data.length);
+
+    subject.decompress(compressed, 0, compressed.length - 8, data.length);
+  }
+
+  /**
+   * Tests that the codec identifies itself as the built-in Deflate codec.
+   */
+  @Test
+  public void testGetId()
+  {
+    assertEquals(EntitySerializers.DEFLATE, subject.getId());
+  }
+
+  /**
+   * Tests that the codec cannot be created with an invalid compression
+   * level.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidLevel()
+  {
+    new DeflateCompressionCodec(10);
+  }
+
+  /**
+   * Tests that data declared to decompress to more bytes than Deflate can
+   * produce from it is rejected before a buffer is allocated.
+   */
+  @Test(expected = SerializationFailedException.class)
+  public void testDecompressForgedLength()
+  {
+    final byte[] data = getData();
+    final byte[] compressed = subject.compress(data, 0, data.length);
+
+    new DeflateCompressionCodec(Deflater.DEFAULT_COMPRESSION, Integer.MAX_VALUE).decompress(compressed, 0, compressed.length
+        , Integer.MAX_VALUE);
+  }
+
+  /**
+   * Tests that data decompressing to more bytes than allowed is rejected.
+   */
+  @Test(expected = SerializationFailedException.class)
+  public void testDecompressTooLong()
+  {
+    final byte[] data = getData();
+    final byte[] compressed = subject.compress(data, 0, data.length);
+
+    new DeflateCompressionCodec(Deflater.DEFAULT_COMPRESSION, data.length - 1).decompress(compressed, 0, compressed.length, data.length);
+  }
+
+  /**
+   * Tests that a codec cannot be created with a maximum decompressed length
+   * that is not positive.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidMaxDecompressedLength()
+  {
+    new DeflateCompressionCodec(Deflater.DEFAULT_COMPRESSION, 0);
+  }
+
+  /**
+   * Gets repetitive data, such as JSON documents made of similar records.
+   *
+   * @return The data.
+   */
+  private byte[] getData()
+  {
+    return String.join(",", Collections.nCopies(500, String.format("{\"name\":\"%s\",\"count\":%d}", getString(), getInt())))
+                 .getBytes(StandardCharsets.UTF_8);
+  }
+}
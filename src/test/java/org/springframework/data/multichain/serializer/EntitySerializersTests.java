@@ -0,0 +1,296 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.data.multichain.serializer;
+
+import org.junit.Test;
+import org.springframework.core.serializer.support.SerializationFailedException;
+import org.springframework.data.multichain.UnitTest;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link EntitySerializers} and the built-in
+ * {@link EntitySerializer}s.
+ */
+public class EntitySerializersTests implements UnitTest
+{
+  /**
+   * Tests that items reaching the compression threshold are compressed,
+   * and can be read back with or without the codec.
+   */
+  @Test
+  public void testWriteCompressed()
+  {
+    final Item item = getItem();
+    item.name = String.join(",", Collections.nCopies(100, item.name));
+
+    final byte[] data = EntitySerializers.write(item, new JacksonCborEntitySerializer(), new DeflateCompressionCodec(), 1024);
+
+    assertTrue(EntitySerializers.isCompressed(data));
+    assertEquals(EntitySerializers.DEFLATE, data[1]);
+    assertTrue(data.length < EntitySerializers.write(item, new JacksonCborEntitySerializer()).length);
+    assertItemEquals(item, EntitySerializers.read(data, Item.class, null));
+    assertItemEquals(item, EntitySerializers.read(data, Item.class, new GsonEntitySerializer(), new DeflateCompressionCodec()));
+  }
+
+  /**
+   * Tests that items below the compression threshold, or which compression
+   * would not make smaller, are left uncompressed.
+   */
+  @Test
+  public void testWriteUncompressed()
+  {
+    final Item item = getItem();
+
+    final byte[] small = EntitySerializers.write(item, new GsonEntitySerializer(), new DeflateCompressionCodec(), 1024);
+    assertArrayEquals(EntitySerializers.write(item, new GsonEntitySerializer()), small);
+
+    final Item empty = new Item();
+    final byte[] incompressible = EntitySerializers.write(empty, new GsonEntitySerializer(), new DeflateCompressionCodec(), 0);
+    assertFalse(EntitySerializers.isCompressed(incompressible));
+    assertItemEquals(empty, EntitySerializers.read(incompressible, Item.class, null));
+  }
+
+  /**
+   * Tests that reading an item compressed by an unknown codec fails.
+   */
+  @Test(expected = SerializationFailedException.class)
+  public void testReadUnknownCodec()
+  {
+    EntitySerializers.read(new byte[] { EntitySerializers.COMPRESSED, 100, 0, 0, 0, 1, 0 }, Item.class, null);
+  }
+
+  /**
+   * Tests that reading a compressed item whose header declares a length
+   * far beyond what its data can decompress to fails without allocating a
+   * buffer of that length.
+   */
+  @Test(expected = SerializationFailedException.class)
+  public void testReadForgedLength()
+  {
+    final Item item = getItem();
+    item.name = String.join(",", Collections.nCopies(100, item.name));
+
+    final byte[] data = EntitySerializers.write(item, new JacksonCborEntitySerializer(), new DeflateCompressionCodec(), 1024);
+    data[2] = 0x7F;
+    data[3] = (byte) 0xFF;
+    data[4] = (byte) 0xFF;
+    data[5] = (byte) 0xFF;
+
+    EntitySerializers.read(data, Item.class, null);
+  }
+
+  /**
+   * Tests that a serializer is available for each built-in format.
+   */
+  @Test
+  public void testGetSerializer()
+  {
+    for (final byte format : new byte[] { EntitySerializers.GSON
+        , EntitySerializers.JACKSON_JSON
+        , EntitySerializers.JACKSON_CBOR
+        , EntitySerializers.JACKSON_SMILE
+        , EntitySerializers.COMPACT })
+    {
+      assertNotNull(EntitySerializers.getSerializer(format));
+      assertEquals(format, EntitySerializers.getSerializer(format).getFormat());
+    }
+  }
+
+  /**
+   * Tests that items without a format header, as written by earlier
+   * versions, are read as JSON.
+   */
+  @Test
+  public void testReadWithoutHeader()
+  {
+    final Item item = getItem();
+    final byte[] data = SERIALIZER.toJson(item).getBytes(StandardCharsets.UTF_8);
+
+    assertEquals(EntitySerializers.GSON, EntitySerializers.getFormat(data));
+    assertItemEquals(item, EntitySerializers.read(data, Item.class, new JacksonCborEntitySerializer()));
+  }
+
+  /**
+   * Tests that reading an item in an unknown format fails.
+   */
+  @Test(expected = SerializationFailedException.class)
+  public void testReadUnknownFormat()
+  {
+    EntitySerializers.read(new byte[] { EntitySerializers.MAGIC, 100, 0 }, Item.class, null);
+  }
+
+  /**
+   * Tests that an item written with a custom serializer is read with the
+   * same serializer.
+   */
+  @Test
+  public void testReadWithCustomSerializer()
+  {
+    final EntitySerializer serializer = new CustomEntitySerializer();
+    final byte[] data = EntitySerializers.write(getItem(), serializer);
+
+    assertSame(CustomEntitySerializer.ITEM, EntitySerializers.read(data, Item.class, serializer));
+  }
+
+  /**
+   * Tests that entities written with the Gson serializer have no header, so
+   * that they can be read by earlier versions.
+   */
+  @Test
+  public void testWriteGson()
+  {
+    final Item item = getItem();
+    final byte[] data = EntitySerializers.write(item, new GsonEntitySerializer());
+
+    assertArrayEquals(SERIALIZER.toJson(item).getBytes(StandardCharsets.UTF_8), data);
+    assertItemEquals(item, EntitySerializers.read(data, Item.class, null));
+  }
+
+  /**
+   * Tests that entities written with Jackson in JSON can be read back.
+   */
+  @Test
+  public void testWriteJacksonJson()
+  {
+    assertRoundTrip(new JacksonJsonEntitySerializer());
+  }
+
+  /**
+   * Tests that entities written with Jackson in CBOR can be read back.
+   */
+  @Test
+  public void testWriteJacksonCbor()
+  {
+    assertRoundTrip(new JacksonCborEntitySerializer());
+  }
+
+  /**
+   * Tests that entities written with Jackson in Smile can be read back.
+   */
+  @Test
+  public void testWriteJacksonSmile()
+  {
+    assertRoundTrip(new JacksonSmileEntitySerializer());
+  }
+
+  /**
+   * Asserts that two items hold the same data.
+   *
+   * @param expected The expected item.
+   * @param actual   The actual item.
+   */
+  private static void assertItemEquals(final Item expected, final Item actual)
+  {
+    assertNotNull(actual);
+    assertEquals(expected.name, actual.name);
+    assertEquals(expected.count, actual.count);
+    assertEquals(expected.price, actual.price);
+    assertEquals(expected.tags, actual.tags);
+  }
+
+  /**
+   * Asserts that an item written with a serializer starts with the header
+   * for the format of the serializer, and can be read back both with the
+   * serializer and with the built-in serializer for the format.
+   *
+   * @param serializer The serializer.
+   */
+  private void assertRoundTrip(final EntitySerializer serializer)
+  {
+    final Item item = getItem();
+    final byte[] data = EntitySerializers.write(item, serializer);
+
+    assertEquals(EntitySerializers.MAGIC, data[0]);
+    assertEquals(serializer.getFormat(), EntitySerializers.getFormat(data));
+    assertItemEquals(item, EntitySerializers.read(data, Item.class, serializer));
+    assertItemEquals(item, EntitySerializers.read(data, Item.class, new GsonEntitySerializer()));
+  }
+
+  /**
+   * Gets an item with random data.
+   *
+   * @return An {@link Item}.
+   */
+  private Item getItem()
+  {
+    final Item item = new Item();
+    item.count = getInt();
+    item.name = getString();
+    item.price = BigDecimal.valueOf(getInt(), 2);
+    item.tags = Arrays.asList(getString(), getString());
+
+    return item;
+  }
+
+  /**
+   * A custom serializer, which reads every item as the same entity.
+   */
+  private static class CustomEntitySerializer implements EntitySerializer
+  {
+    static final Item ITEM = new Item();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> T deserialize(final byte[] data, final int offset, final int length, final Class<T> type)
+    {
+      return type.cast(ITEM);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte getFormat()
+    {
+      return 64;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] serialize(final Object entity)
+    {
+      return new byte[0];
+    }
+  }
+
+  /**
+   * An entity.
+   */
+  private static class Item
+  {
+    private int          count;
+    private String       name;
+    private BigDecimal   price;
+    private List<String> tags = Collections.emptyList();
+  }
+}
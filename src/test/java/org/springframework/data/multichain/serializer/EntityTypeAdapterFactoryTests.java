@@ -0,0 +1,263 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.data.multichain.serializer;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.annotations.SerializedName;
+import org.junit.Test;
+import org.springframework.data.multichain.UnitTest;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link EntityTypeAdapterFactory}.
+ */
+public class EntityTypeAdapterFactoryTests implements UnitTest
+{
+  private final Gson gson    = new Gson();
+  private final Gson subject = new GsonBuilder().registerTypeAdapterFactory(new EntityTypeAdapterFactory()).create();
+
+  /**
+   * Tests that adapters are created for plain entity types only, leaving
+   * other types to Gson.
+   */
+  @Test
+  public void testCreate()
+  {
+    assertTrue(subject.getAdapter(Everything.class) instanceof EntityTypeAdapter);
+    assertTrue(subject.getAdapter(Nested.class) instanceof EntityTypeAdapter);
+    assertFalse(subject.getAdapter(Immutable.class) instanceof EntityTypeAdapter);
+    assertFalse(subject.getAdapter(String.class) instanceof EntityTypeAdapter);
+    assertFalse(subject.getAdapter(Status.class) instanceof EntityTypeAdapter);
+  }
+
+  /**
+   * Tests that entities written by Gson are read with the values of all
+   * their properties.
+   */
+  @Test
+  public void testRead()
+  {
+    final Everything original = Everything.create(this);
+
+    assertEquals(gson.toJson(original), gson.toJson(subject.fromJson(gson.toJson(original), Everything.class)));
+  }
+
+  /**
+   * Tests that properties are read under their alternative names, in any
+   * order, skipping unknown names.
+   */
+  @Test
+  public void testReadAlternateNames()
+  {
+    final Nested read = subject.fromJson("{\"unknown\":[1,{}],\"w\":5,\"title\":\"x\",\"weight\":7}", Nested.class);
+
+    assertEquals("x", read.label);
+    assertEquals(7, read.weight);
+  }
+
+  /**
+   * Tests that {@literal null} values are read as with Gson: primitive
+   * properties keep their value, and others become {@literal null}.
+   */
+  @Test
+  public void testReadNull()
+  {
+    final Everything read = subject.fromJson("{\"integer\":null,\"text\":null,\"longs\":null,\"nested\":null}", Everything.class);
+
+    assertEquals(Everything.DEFAULT_INTEGER, read.integer);
+    assertNull(read.text);
+    assertNull(read.longs);
+    assertNull(read.nested);
+  }
+
+  /**
+   * Tests that numbers that do not fit a property are rejected.
+   */
+  @Test(expected = JsonSyntaxException.class)
+  public void testReadInvalidNumber()
+  {
+    subject.fromJson("{\"integer\":1.5}", Everything.class);
+  }
+
+  /**
+   * Tests that arrays of primitive values are read in full, however long.
+   */
+  @Test
+  public void testReadLongArray()
+  {
+    final Everything original = new Everything();
+    original.doubles = RANDOM.doubles(getInt(100, 1000)).toArray();
+    original.ints = RANDOM.ints(getInt(100, 1000)).toArray();
+    original.longs = RANDOM.longs(getInt(100, 1000)).toArray();
+
+    final Everything read = subject.fromJson(gson.toJson(original), Everything.class);
+
+    assertArrayEquals(original.doubles, read.doubles, 0);
+    assertArrayEquals(original.ints, read.ints);
+    assertArrayEquals(original.longs, read.longs);
+  }
+
+  /**
+   * Tests that entities are written exactly as Gson writes them.
+   */
+  @Test
+  public void testWrite()
+  {
+    final Everything original = Everything.create(this);
+
+    assertEquals(gson.toJson(original), subject.toJson(original));
+    assertEquals(gson.toJson(new Everything()), subject.toJson(new Everything()));
+  }
+
+  /**
+   * Tests that values that are not finite are rejected, as by Gson.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testWriteNaN()
+  {
+    final Everything original = new Everything();
+    original.decimal = Double.NaN;
+
+    subject.toJson(original);
+  }
+
+  /**
+   * An enumeration.
+   */
+  enum Status
+  {
+    ACTIVE,
+    CLOSED
+  }
+
+  /**
+   * An entity with properties of many types.
+   */
+  static class Everything
+  {
+    static final int DEFAULT_INTEGER = 3;
+
+    private static final String IGNORED = "ignored";
+
+    private BigDecimal           amount;
+    private double               decimal;
+    private double[]             doubles;
+    private boolean              flag;
+    private float                fraction;
+    private int                  integer  = DEFAULT_INTEGER;
+    private int[]                ints;
+    private long                 large;
+    private long[]               longs;
+    private Nested               nested;
+    private List<Nested>         nesteds;
+    private Integer              number;
+    private Map<String, Integer> properties;
+    private Status               status;
+    private String               text;
+    private transient String     skipped;
+
+    /**
+     * Creates an entity with random values for all its properties.
+     *
+     * @param test The test to get random values from.
+     * @return The entity.
+     */
+    static Everything create(final UnitTest test)
+    {
+      final Everything entity = new Everything();
+      entity.amount = new BigDecimal(RANDOM.nextLong()).movePointLeft(4);
+      entity.decimal = RANDOM.nextDouble();
+      entity.doubles = RANDOM.doubles(3).toArray();
+      entity.flag = true;
+      entity.fraction = RANDOM.nextFloat();
+      entity.integer = test.getInt();
+      entity.ints = RANDOM.ints(3).toArray();
+      entity.large = RANDOM.nextLong();
+      entity.longs = RANDOM.longs(3).toArray();
+      entity.nested = new Nested(test.getString(), test.getInt());
+      entity.nesteds = Arrays.asList(new Nested(test.getString(), test.getInt()), new Nested("<&>", 0));
+      entity.number = test.getInt();
+      entity.properties = Collections.singletonMap(test.getString(), test.getInt());
+      entity.skipped = test.getString();
+      entity.status = Status.CLOSED;
+      entity.text = test.getString();
+
+      return entity;
+    }
+  }
+
+  /**
+   * An entity without a no-argument constructor.
+   */
+  static class Immutable
+  {
+    private final String value;
+
+    /**
+     * Creates an entity.
+     *
+     * @param value A value.
+     */
+    Immutable(final String value)
+    {
+      this.value = value;
+    }
+  }
+
+  /**
+   * An entity with properties written under other names.
+   */
+  static class Nested
+  {
+    @SerializedName("title")
+    private String label;
+    @SerializedName(value = "weight", alternate = "w")
+    private int    weight;
+
+    /**
+     * Creates an empty entity.
+     */
+    Nested()
+    {
+    }
+
+    /**
+     * Creates an entity.
+     *
+     * @param label  A label.
+     * @param weight A weight.
+     */
+    Nested(final String label, final int weight)
+    {
+      this.label = label;
+      this.weight = weight;
+    }
+  }
+}
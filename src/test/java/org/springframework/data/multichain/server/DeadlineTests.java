@@ -0,0 +1,85 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.data.multichain.server;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link Deadline}.
+ */
+public class DeadlineTests
+{
+  /**
+   * Tests that a deadline cannot be created with a negative timeout.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testAfterWithNegativeTimeout()
+  {
+    Deadline.after(-1, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Tests that the remaining time is reported correctly.
+   */
+  @Test
+  public void testRemaining()
+  {
+    final Deadline subject = Deadline.after(1, TimeUnit.MINUTES);
+
+    assertFalse(subject.isExpired());
+    assertTrue(subject.remaining(TimeUnit.SECONDS) > 50);
+    assertTrue(Deadline.after(0, TimeUnit.SECONDS).isExpired());
+  }
+
+  /**
+   * Tests that a deadline is in effect only while an action runs with it.
+   */
+  @Test
+  public void testRun()
+  {
+    final Deadline subject = Deadline.after(1, TimeUnit.MINUTES);
+
+    assertNull(Deadline.current());
+    assertSame(subject, subject.run(Deadline::current));
+    assertNull(Deadline.current());
+  }
+
+  /**
+   * Tests that the earlier of two nested deadlines applies.
+   */
+  @Test
+  public void testRunNested()
+  {
+    final Deadline earlier = Deadline.after(1, TimeUnit.SECONDS);
+    final Deadline later = Deadline.after(1, TimeUnit.MINUTES);
+
+    assertSame(earlier, later.run(() -> earlier.run(Deadline::current)));
+    assertSame(earlier, earlier.run(() -> later.run(Deadline::current)));
+    assertSame(later, later.run(() -> {
+      earlier.run(Deadline::current);
+
+      return Deadline.current();
+    }));
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.data.multichain.server.command;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Unit tests for {@link ListStreamItemsRequest}.
+ */
+public class ListStreamItemsRequestTests implements CommandTest
+{
+  /**
+   * Tests that the API command for the request is
+   * {@link Request.Command#liststreamitems}.
+   */
+  @Test
+  public void testGetCommand()
+  {
+    assertEquals(Request.Command.liststreamitems.name(), new ListStreamItemsRequest(getString(), 0, 1).getCommand());
+  }
+
+  /**
+   * Tests that the data stream name and the range of items are included in
+   * the optional information to be included with the request.
+   */
+  @Test
+  public void testGetParams()
+  {
+    final String stream = getString();
+
+    final Object[] subject = new ListStreamItemsRequest(stream, 20, 10).getParams();
+
+    assertNotNull(subject);
+    assertEquals(4, subject.length);
+    assertEquals(stream, subject[0]);
+    assertEquals(10, subject[2]);
+    assertEquals(20, subject[3]);
+  }
+
+  /**
+   * Tests that a request cannot be created for a negative position.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeStart()
+  {
+    new ListStreamItemsRequest(getString(), -1, 1);
+  }
+}
@@ -48,8 +48,31 @@ public class ListStreamKeyItemsRequestTests implements CommandTest
     final Object[] subject = new ListStreamKeyItemsRequest(stream, key).getParams();
 
     assertNotNull(subject);
-    assertEquals(4, subject.length);
+    assertEquals(5, subject.length);
     assertEquals(stream, subject[0]);
     assertEquals(key, subject[1]);
   }
+
+  /**
+   * Tests that the range of items to fetch is included in the optional
+   * information to be included with the request.
+   */
+  @Test
+  public void testGetParamsWithRange()
+  {
+    final Object[] subject = new ListStreamKeyItemsRequest(getString(), getString(), 10, 100).getParams();
+
+    assertEquals(5, subject.length);
+    assertEquals(100, subject[3]);
+    assertEquals(10, subject[4]);
+  }
+
+  /**
+   * Tests that a range cannot start before the first item.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructWithNegativeStart()
+  {
+    new ListStreamKeyItemsRequest(getString(), getString(), -1, 100);
+  }
 }
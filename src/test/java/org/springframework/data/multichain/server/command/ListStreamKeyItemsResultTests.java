@@ -18,7 +18,10 @@ package org.springframework.data.multichain.server.command;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Unit tests for {@link ListStreamKeyItemsResult}.
@@ -48,5 +51,32 @@ public class ListStreamKeyItemsResultTests implements CommandTest
     assertNotNull(subject.getID());
     assertNotNull(subject.getKey());
     assertNotNull(subject.getTime());
+    assertTrue(subject.isAvailable());
+    assertFalse(subject.isOffchain());
+  }
+
+  /**
+   * Tests that an off-chain item whose data is not yet available can be
+   * deserialized correctly.
+   */
+  @Test
+  public void testDeserializeUnavailable()
+  {
+    final ListStreamKeyItemsResult subject = deserialize(String.format("{ "
+                                                                           + "\"txid\" : \"%s\", "
+                                                                           + "\"key\" : \"%s\", "
+                                                                           + "\"offchain\" : true, "
+                                                                           + "\"available\" : false, "
+                                                                           + "\"data\" : null "
+                                                                           + " }"
+        , getString()
+        , getString())
+        , ListStreamKeyItemsResult.class);
+
+    assertNotNull(subject);
+    assertNull(subject.getData());
+    assertNull(subject.getItemData());
+    assertFalse(subject.isAvailable());
+    assertTrue(subject.isOffchain());
   }
 }
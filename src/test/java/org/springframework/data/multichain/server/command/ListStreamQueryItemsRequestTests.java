@@ -0,0 +1,70 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.server.command;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Unit tests for {@link ListStreamQueryItemsRequest}.
+ */
+public class ListStreamQueryItemsRequestTests implements CommandTest
+{
+  /**
+   * Tests that the API command for the request is
+   * {@link Request.Command#liststreamqueryitems}.
+   */
+  @Test
+  public void testGetCommand()
+  {
+    assertEquals(Request.Command.liststreamqueryitems.name()
+        , new ListStreamQueryItemsRequest(getString(), Collections.singletonList(getString())).getCommand());
+  }
+
+  /**
+   * Tests that the data stream name and the query for the keys are included
+   * in the optional information to be included with the request.
+   */
+  @Test
+  public void testGetParams()
+  {
+    final String stream = getString();
+    final List<String> keys = Arrays.asList(getString(), getString());
+
+    final Object[] subject = new ListStreamQueryItemsRequest(stream, keys).getParams();
+
+    assertNotNull(subject);
+    assertEquals(3, subject.length);
+    assertEquals(stream, subject[0]);
+    assertEquals(keys, ((Map<?, ?>) subject[1]).get("keys"));
+  }
+
+  /**
+   * Tests that a query must have keys.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructWithoutKeys()
+  {
+    new ListStreamQueryItemsRequest(getString(), Collections.emptyList());
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.data.multichain.server.command;
+
+import com.google.gson.JsonObject;
+import org.junit.Test;
+import org.springframework.util.SerializationUtils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Unit tests for {@link StreamItemData}.
+ */
+public class StreamItemDataTests implements CommandTest
+{
+  /**
+   * Tests that binary data is exchanged as a hexadecimal {@link String}.
+   */
+  @Test
+  public void testHex()
+  {
+    final String hex = getString();
+    final StreamItemData subject = deserialize(SERIALIZER.toJson(StreamItemData.hex(hex)), StreamItemData.class);
+
+    assertEquals(String.format("\"%s\"", hex), SERIALIZER.toJson(subject));
+    assertEquals(hex, subject.getHex());
+    assertNull(subject.getJson());
+    assertNull(subject.getText());
+  }
+
+  /**
+   * Tests that native JSON data is exchanged as an object with a
+   * {@code json} field.
+   */
+  @Test
+  public void testJson()
+  {
+    final JsonObject json = new JsonObject();
+    json.addProperty("name", getString());
+
+    final StreamItemData subject = deserialize(String.format("{ \"json\" : %s }", json), StreamItemData.class);
+
+    assertEquals(json, subject.getJson());
+    assertEquals(String.format("{\"json\":%s}", json), SERIALIZER.toJson(subject));
+    assertNull(subject.getHex());
+    assertNull(subject.getText());
+  }
+
+  /**
+   * Tests that data survives Java serialization.
+   */
+  @Test
+  public void testSerializable()
+  {
+    final JsonObject json = new JsonObject();
+    json.addProperty("name", getString());
+
+    final StreamItemData subject = (StreamItemData) SerializationUtils.deserialize(SerializationUtils.serialize(StreamItemData.json(json)));
+
+    assertEquals(json, subject.getJson());
+  }
+
+  /**
+   * Tests that text data is exchanged as an object with a {@code text}
+   * field.
+   */
+  @Test
+  public void testText()
+  {
+    final String text = getString();
+    final StreamItemData subject = deserialize(SERIALIZER.toJson(StreamItemData.text(text)), StreamItemData.class);
+
+    assertEquals(text, subject.getText());
+    assertNull(subject.getHex());
+    assertNull(subject.getJson());
+  }
+
+  /**
+   * Tests that data in other forms, such as references to data too large to
+   * be returned inline, is kept as returned.
+   */
+  @Test
+  public void testUnknown()
+  {
+    final StreamItemData subject = deserialize("{ \"txid\" : \"ab\", \"vout\" : 0, \"size\" : 1000000 }", StreamItemData.class);
+
+    assertNull(subject.getHex());
+    assertNull(subject.getJson());
+    assertNull(subject.getText());
+    assertEquals(1000000, subject.toJson().getAsJsonObject().get("size").getAsInt());
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.server.simulator;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.util.Assert.isTrue;
+import static org.springframework.util.Assert.notNull;
+
+/**
+ * Distribution of the delay that a {@link MultiChainSimulator} adds before
+ * responding to each command, to approximate the response times of a real
+ * MultiChain RPC server.
+ */
+@FunctionalInterface
+public interface LatencyDistribution
+{
+  /**
+   * Gets a distribution that never adds any delay.
+   *
+   * @return A {@link LatencyDistribution}.
+   */
+  static LatencyDistribution none()
+  {
+    return random -> 0;
+  }
+
+  /**
+   * Gets a distribution that always adds the same delay.
+   *
+   * @param delay The delay to add.
+   * @param unit  The unit of {@code delay}.
+   * @return A {@link LatencyDistribution}.
+   * @throws IllegalArgumentException if {@code delay} is negative.
+   */
+  static LatencyDistribution fixed(final long delay, final TimeUnit unit)
+  {
+    isTrue(delay >= 0, "Delay must not be negative.");
+    notNull(unit, "TimeUnit must not be null.");
+
+    final long nanos = unit.toNanos(delay);
+
+    return random -> nanos;
+  }
+
+  /**
+   * Gets a distribution whose delays are spread evenly between a minimum and
+   * a maximum.
+   *
+   * @param minimum The minimum delay.
+   * @param maximum The maximum delay.
+   * @param unit    The unit of {@code minimum} and {@code maximum}.
+   * @return A {@link LatencyDistribution}.
+   * @throws IllegalArgumentException if {@code minimum} is negative or
+   *                                  greater than {@code maximum}.
+   */
+  static LatencyDistribution uniform(final long minimum, final long maximum, final TimeUnit unit)
+  {
+    isTrue(minimum >= 0 && minimum <= maximum, "Minimum delay must not be negative or greater than the maximum delay.");
+    notNull(unit, "TimeUnit must not be null.");
+
+    final long lower = unit.toNanos(minimum), range = unit.toNanos(maximum) - lower;
+
+    return random -> lower + (long) (random.nextDouble() * range);
+  }
+
+  /**
+   * Gets a distribution whose delays follow an exponential distribution,
+   * with most delays being short and a long tail of rare, long delays.
+   *
+   * @param mean The mean delay.
+   * @param unit The unit of {@code mean}.
+   * @return A {@link LatencyDistribution}.
+   * @throws IllegalArgumentException if {@code mean} is negative.
+   */
+  static LatencyDistribution exponential(final long mean, final TimeUnit unit)
+  {
+    isTrue(mean >= 0, "Mean delay must not be negative.");
+    notNull(unit, "TimeUnit must not be null.");
+
+    final long nanos = unit.toNanos(mean);
+
+    return random -> (long) (-Math.log(1 - random.nextDouble()) * nanos);
+  }
+
+  /**
+   * Gets a distribution whose delays follow a log-normal distribution, which
+   * closely resembles the response times of most network services: delays
+   * cluster around the median, with a long tail whose weight is controlled
+   * by {@code sigma}.
+   *
+   * @param median The median delay.
+   * @param sigma  The standard deviation of the natural logarithm of the
+   *               delay; {@literal 0.5} gives a moderate tail, {@literal 1}
+   *               a heavy one.
+   * @param unit   The unit of {@code median}.
+   * @return A {@link LatencyDistribution}.
+   * @throws IllegalArgumentException if {@code median} or {@code sigma} is
+   *                                  negative.
+   */
+  static LatencyDistribution logNormal(final long median, final double sigma, final TimeUnit unit)
+  {
+    isTrue(median >= 0, "Median delay must not be negative.");
+    isTrue(sigma >= 0, "Sigma must not be negative.");
+    notNull(unit, "TimeUnit must not be null.");
+
+    final long nanos = unit.toNanos(median);
+
+    return random -> (long) (nanos * Math.exp(sigma * random.nextGaussian()));
+  }
+
+  /**
+   * Gets the next delay from the distribution.
+   *
+   * @param random A source of randomness.
+   * @return The next delay, in nanoseconds.
+   */
+  long nextDelay(Random random);
+}
@@ -0,0 +1,612 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.server.simulator;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.context.Lifecycle;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.util.Assert.hasText;
+import static org.springframework.util.Assert.isTrue;
+import static org.springframework.util.Assert.notNull;
+import static org.springframework.util.Assert.state;
+
+/**
+ * <p>
+ * An in-process HTTP server that implements the subset of the MultiChain
+ * JSON-RPC API used by this module ({@code publish}, {@code publishmulti},
+ * {@code liststreamkeyitems}, {@code liststreamkeys}, {@code liststreamitems},
+ * {@code liststreamqueryitems}, {@code liststreams} and
+ * {@code getstreamitem}) over an in-memory
+ * blockchain, so that
+ * {@link org.springframework.data.multichain.server.MultiChainClient}s and
+ * repositories can be tested and benchmarked without a real MultiChain node.
+ * </p>
+ * <p>
+ * The simulator listens on the loopback interface only, on an ephemeral
+ * port unless {@link #setPort(int) configured} otherwise, and requires HTTP
+ * Basic authentication, challenging unauthenticated requests just like a
+ * real node. Its behaviour can be made more realistic by configuring:
+ * </p>
+ * <ul>
+ * <li>the {@link #setLatency(LatencyDistribution) latency} added to each
+ * command;</li>
+ * <li>the fraction of commands that fail with a
+ * {@link #setErrorRate(double) JSON-RPC error}, or with an
+ * {@link #setFailureRate(double) HTTP 503} response as if the node were
+ * overloaded;</li>
+ * <li>the {@link #setBlockInterval(long) interval} at which blocks are
+ * mined, confirming the items published since the previous block;</li>
+ * <li>whether the data of items published off-chain is
+ * {@link #setOffchainAvailable(boolean) available} to the node; and</li>
+ * <li>the number of {@link #setThreads(int) threads} handling commands,
+ * which limits the number of commands handled concurrently.</li>
+ * </ul>
+ * <p>
+ * Latency and error rates may be changed while the simulator is running;
+ * all other settings take effect when the simulator is {@link #start()
+ * started}.
+ * </p>
+ */
+public class MultiChainSimulator implements Lifecycle
+{
+  private static final String NODELAY = "sun.net.httpserver.nodelay";
+
+  static
+  {
+    // The JDK HTTP server sends response headers and body in separate
+    // packets. Unless Nagle's algorithm is disabled, the body is held back
+    // until the client acknowledges the headers, which adds the client's
+    // delayed acknowledgement timeout (typically 40 ms) to every response.
+    // The setting is read when the first server is created.
+    if (System.getProperty(NODELAY) == null)
+    {
+      System.setProperty(NODELAY, "true");
+    }
+  }
+
+  private final SimulatedNode node = new SimulatedNode();
+
+  private ScheduledExecutorService blockProducer;
+  private ExecutorService          executor;
+  private String                   password = "multichain";
+  private int                      port;
+  private HttpServer               server;
+  private int                      threads  = 4;
+  private String                   username = "multichainrpc";
+
+  private volatile long                blockInterval = 15000;
+  private volatile double              errorRate;
+  private volatile double              failureRate;
+  private volatile LatencyDistribution latency = LatencyDistribution.none();
+
+  /**
+   * Creates a stream, if it does not exist already.
+   *
+   * @param name The name of the stream.
+   * @throws IllegalArgumentException if {@code name} is {@literal null} or
+   *                                  blank.
+   */
+  public void createStream(final String name)
+  {
+    hasText(name, "Stream name must not be blank.");
+
+    node.createStream(name);
+  }
+
+  /**
+   * Gets the height of the latest block on the simulated blockchain.
+   *
+   * @return The height of the latest block.
+   */
+  public long getHeight()
+  {
+    return node.getHeight();
+  }
+
+  /**
+   * Gets the password required to connect to the simulator.
+   *
+   * @return The password.
+   */
+  public String getPassword()
+  {
+    return password;
+  }
+
+  /**
+   * Gets the TCP port on which the simulator listens.
+   *
+   * @return The port, or {@literal 0} if the simulator has not been started
+   * and no specific port has been configured.
+   */
+  public synchronized int getPort()
+  {
+    return server != null ? server.getAddress().getPort() : port;
+  }
+
+  /**
+   * Gets the address at which the simulator accepts JSON-RPC commands.
+   *
+   * @return The {@link URI} for the simulator.
+   * @throws IllegalStateException if the simulator is not running.
+   */
+  public synchronized URI getUri()
+  {
+    state(isRunning(), "Simulator is not running.");
+
+    return URI.create(String.format("http://%s:%d", getHost(), getPort()));
+  }
+
+  /**
+   * Gets the username required to connect to the simulator.
+   *
+   * @return The username.
+   */
+  public String getUsername()
+  {
+    return username;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized boolean isRunning()
+  {
+    return server != null;
+  }
+
+  /**
+   * Mines a block, confirming all items published since the previous block,
+   * regardless of the configured block interval.
+   */
+  public void mine()
+  {
+    node.mine();
+  }
+
+  /**
+   * Sets the interval at which blocks are mined. Items published to the
+   * simulator are visible immediately, but remain unconfirmed until the
+   * next block is mined. Defaults to 15 seconds, which is the default target
+   * block time for MultiChain blockchains.
+   *
+   * @param blockInterval The block interval, in milliseconds, or
+   *                      {@literal 0} to confirm each item as soon as it is
+   *                      published.
+   * @throws IllegalArgumentException if {@code blockInterval} is negative.
+   */
+  public void setBlockInterval(final long blockInterval)
+  {
+    isTrue(blockInterval >= 0, "Block interval must not be negative.");
+
+    this.blockInterval = blockInterval;
+  }
+
+  /**
+   * Sets whether streams are created as soon as items are published to
+   * them. If not, streams must be {@link #createStream(String) created} in
+   * advance, as on a real node, and commands that refer to other streams
+   * fail. Defaults to {@literal true}.
+   *
+   * @param createStreams Whether streams should be created on demand.
+   */
+  public void setCreateStreams(final boolean createStreams)
+  {
+    node.setCreateStreams(createStreams);
+  }
+
+  /**
+   * Sets the fraction of commands that fail with a JSON-RPC error response,
+   * regardless of their validity. Defaults to {@literal 0}.
+   *
+   * @param errorRate The fraction of commands to fail, between {@literal 0}
+   *                  and {@literal 1}.
+   * @throws IllegalArgumentException if {@code errorRate} is not between
+   *                                  {@literal 0} and {@literal 1}.
+   */
+  public void setErrorRate(final double errorRate)
+  {
+    isTrue(errorRate >= 0 && errorRate <= 1, "Error rate must be between 0 and 1.");
+
+    this.errorRate = errorRate;
+  }
+
+  /**
+   * Sets the fraction of commands that are rejected with an
+   * {@literal HTTP 503} response, without being executed, as if the node
+   * were unavailable. Defaults to {@literal 0}.
+   *
+   * @param failureRate The fraction of commands to reject, between
+   *                    {@literal 0} and {@literal 1}.
+   * @throws IllegalArgumentException if {@code failureRate} is not between
+   *                                  {@literal 0} and {@literal 1}.
+   */
+  public void setFailureRate(final double failureRate)
+  {
+    isTrue(failureRate >= 0 && failureRate <= 1, "Failure rate must be between 0 and 1.");
+
+    this.failureRate = failureRate;
+  }
+
+  /**
+   * Sets the distribution of the delay added before responding to each
+   * command. Defaults to {@link LatencyDistribution#none()}.
+   *
+   * @param latency The {@link LatencyDistribution} to use.
+   * @throws IllegalArgumentException if {@code latency} is {@literal null}.
+   */
+  public void setLatency(final LatencyDistribution latency)
+  {
+    notNull(latency, "LatencyDistribution must not be null.");
+
+    this.latency = latency;
+  }
+
+  /**
+   * Sets whether the data of items published off-chain is available, or
+   * whether items are reported without data, as by a node that has yet to
+   * retrieve it from the nodes that published the items. Defaults to
+   * {@literal true}.
+   *
+   * @param offchainAvailable Whether off-chain item data is available.
+   */
+  public void setOffchainAvailable(final boolean offchainAvailable)
+  {
+    node.setOffchainAvailable(offchainAvailable);
+  }
+
+  /**
+   * Sets the credentials required to connect to the simulator. Defaults to
+   * {@literal multichainrpc} and {@literal multichain}.
+   *
+   * @param username The username.
+   * @param password The password.
+   * @throws IllegalArgumentException if {@code username} or {@code password}
+   *                                  is {@literal null} or blank.
+   */
+  public void setCredentials(final String username, final String password)
+  {
+    hasText(username, "Username must not be blank.");
+    hasText(password, "Password must not be blank.");
+
+    this.password = password;
+    this.username = username;
+  }
+
+  /**
+   * Sets the TCP port on which the simulator listens. Defaults to
+   * {@literal 0}, for an ephemeral port chosen when the simulator starts.
+   *
+   * @param port The port.
+   * @throws IllegalArgumentException if {@code port} is not a valid port
+   *                                  number.
+   */
+  public void setPort(final int port)
+  {
+    isTrue(port >= 0 && port <= 65535, "Port must be between 0 and 65535.");
+
+    this.port = port;
+  }
+
+  /**
+   * Sets the number of threads handling commands, which limits the number of
+   * commands handled concurrently, just like the {@code rpcthreads} setting
+   * of a real node. Defaults to {@literal 4}.
+   *
+   * @param threads The number of threads.
+   * @throws IllegalArgumentException if {@code threads} is not positive.
+   */
+  public void setThreads(final int threads)
+  {
+    isTrue(threads > 0, "Threads must be greater than zero.");
+
+    this.threads = threads;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @throws IllegalStateException if the simulator cannot listen on the
+   *                               configured port.
+   */
+  @Override
+  public synchronized void start()
+  {
+    if (isRunning())
+    {
+      return;
+    }
+
+    final HttpServer httpServer;
+    try
+    {
+      httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+    }
+    catch (final IOException e)
+    {
+      throw new IllegalStateException(String.format("Simulator could not listen on port %d.", port), e);
+    }
+
+    executor = Executors.newFixedThreadPool(threads, new SimulatorThreadFactory("multichain-simulator-rpc-"));
+
+    httpServer.createContext("/", this::handle);
+    httpServer.setExecutor(executor);
+    httpServer.start();
+
+    if (blockInterval > 0)
+    {
+      blockProducer = Executors.newSingleThreadScheduledExecutor(new SimulatorThreadFactory("multichain-simulator-miner-"));
+      blockProducer.scheduleAtFixedRate(node::mine, blockInterval, blockInterval, TimeUnit.MILLISECONDS);
+    }
+
+    server = httpServer;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void stop()
+  {
+    if (!isRunning())
+    {
+      return;
+    }
+
+    server.stop(0);
+    executor.shutdownNow();
+
+    if (blockProducer != null)
+    {
+      blockProducer.shutdownNow();
+    }
+
+    blockProducer = null;
+    executor = null;
+    server = null;
+  }
+
+  /**
+   * Gets the host name at which the simulator can be reached.
+   *
+   * @return The host name.
+   */
+  private String getHost()
+  {
+    return server.getAddress().getAddress().getHostAddress();
+  }
+
+  /**
+   * Handles an HTTP request.
+   *
+   * @param exchange The HTTP request and response.
+   * @throws IOException if the response cannot be sent.
+   */
+  private void handle(final HttpExchange exchange) throws IOException
+  {
+    try
+    {
+      // Read the request in full before responding, so that the connection
+      // can be reused for the next request, even if this one is rejected.
+      final byte[] request = StreamUtils.copyToByteArray(exchange.getRequestBody());
+
+      if (!"POST".equals(exchange.getRequestMethod()))
+      {
+        exchange.sendResponseHeaders(HttpURLConnection.HTTP_BAD_METHOD, -1);
+
+        return;
+      }
+
+      if (!isAuthorized(exchange))
+      {
+        exchange.getResponseHeaders().set("WWW-Authenticate", "Basic realm=\"jsonrpc\"");
+        exchange.sendResponseHeaders(HttpURLConnection.HTTP_UNAUTHORIZED, -1);
+
+        return;
+      }
+
+      if (ThreadLocalRandom.current().nextDouble() < failureRate)
+      {
+        delay();
+
+        exchange.sendResponseHeaders(HttpURLConnection.HTTP_UNAVAILABLE, -1);
+
+        return;
+      }
+
+      final JsonObject response = new JsonObject();
+      final int status = execute(request, response);
+
+      delay();
+
+      final byte[] body = response.toString().getBytes(StandardCharsets.UTF_8);
+
+      exchange.getResponseHeaders().set("Content-Type", "application/json");
+      exchange.sendResponseHeaders(status, body.length);
+
+      try (final OutputStream out = exchange.getResponseBody())
+      {
+        out.write(body);
+      }
+    }
+    finally
+    {
+      exchange.close();
+    }
+  }
+
+  /**
+   * Waits for a delay drawn from the configured latency distribution.
+   */
+  private void delay()
+  {
+    final long nanos = latency.nextDelay(ThreadLocalRandom.current());
+
+    if (nanos > 0)
+    {
+      try
+      {
+        TimeUnit.NANOSECONDS.sleep(nanos);
+      }
+      catch (final InterruptedException e)
+      {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Executes the JSON-RPC command in an HTTP request, filling in the
+   * JSON-RPC response.
+   *
+   * @param body     The body of the HTTP request.
+   * @param response The JSON-RPC response to fill in.
+   * @return The HTTP status code for the response: {@literal 200} on
+   * success, {@literal 404} if the command is not supported and
+   * {@literal 500} for any other error, as with a real node.
+   */
+  private int execute(final byte[] body, final JsonObject response)
+  {
+    JsonElement id = JsonNull.INSTANCE;
+
+    try
+    {
+      final JsonObject request;
+      try
+      {
+        request = new JsonParser().parse(new String(body, StandardCharsets.UTF_8)).getAsJsonObject();
+      }
+      catch (final RuntimeException e)
+      {
+        throw new SimulatedNode.RpcException(SimulatedNode.RPC_PARSE_ERROR, "Parse error");
+      }
+
+      if (request.has("id"))
+      {
+        id = request.get("id");
+      }
+
+      if (ThreadLocalRandom.current().nextDouble() < errorRate)
+      {
+        throw new SimulatedNode.RpcException(SimulatedNode.RPC_MISC_ERROR, "Simulated error.");
+      }
+
+      final JsonElement method = request.get("method");
+      final JsonElement params = request.get("params");
+
+      response.add("result", node.invoke(method != null && method.isJsonPrimitive() ? method.getAsString() : ""
+          , params != null && params.isJsonArray() ? params.getAsJsonArray() : new JsonArray()));
+      response.add("error", JsonNull.INSTANCE);
+      response.add("id", id);
+
+      return HttpURLConnection.HTTP_OK;
+    }
+    catch (final SimulatedNode.RpcException e)
+    {
+      final JsonObject error = new JsonObject();
+      error.addProperty("code", e.getCode());
+      error.addProperty("message", e.getMessage());
+
+      response.add("result", JsonNull.INSTANCE);
+      response.add("error", error);
+      response.add("id", id);
+
+      return e.getCode() == SimulatedNode.RPC_METHOD_NOT_FOUND
+             ? HttpURLConnection.HTTP_NOT_FOUND
+             : HttpURLConnection.HTTP_INTERNAL_ERROR;
+    }
+    finally
+    {
+      if (blockInterval == 0 && node.hasPendingItems())
+      {
+        node.mine();
+      }
+    }
+  }
+
+  /**
+   * Determines whether an HTTP request carries the credentials required to
+   * connect to the simulator.
+   *
+   * @param exchange The HTTP request.
+   * @return {@literal true} if the request is authorized, {@literal false}
+   * otherwise.
+   */
+  private boolean isAuthorized(final HttpExchange exchange)
+  {
+    final String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+    final String expected = "Basic " + Base64.getEncoder()
+                                             .encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+
+    return expected.equals(authorization);
+  }
+
+  /**
+   * Creates named daemon threads, so that a simulator that is not stopped
+   * does not prevent the JVM from exiting.
+   */
+  private static final class SimulatorThreadFactory implements ThreadFactory
+  {
+    private final AtomicInteger count = new AtomicInteger();
+    private final String        prefix;
+
+    /**
+     * Creates a thread factory.
+     *
+     * @param prefix The prefix for the names of the threads.
+     */
+    private SimulatorThreadFactory(final String prefix)
+    {
+      this.prefix = prefix;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Thread newThread(final Runnable runnable)
+    {
+      final Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+      thread.setDaemon(true);
+
+      return thread;
+    }
+  }
+}
@@ -0,0 +1,356 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.data.multichain.server.simulator;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.multichain.UnitTest;
+import org.springframework.data.multichain.server.MultiChainClient;
+import org.springframework.data.multichain.server.command.ListStreamKeyItemsRequest;
+import org.springframework.data.multichain.server.command.ListStreamKeyItemsResponse;
+import org.springframework.data.multichain.server.command.ListStreamKeyItemsResult;
+import org.springframework.data.multichain.server.command.ListStreamsRequest;
+import org.springframework.data.multichain.server.command.ListStreamsResponse;
+import org.springframework.data.multichain.server.command.ListStreamsResult;
+import org.springframework.data.multichain.server.command.PublishRequest;
+import org.springframework.data.multichain.server.command.PublishResponse;
+import org.springframework.data.multichain.server.command.StreamItemData;
+import org.springframework.data.multichain.server.support.MultiChainTemplate;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link MultiChainSimulator}.
+ */
+public class MultiChainSimulatorTests implements UnitTest
+{
+  private MultiChainClient    client;
+  private MultiChainSimulator subject;
+
+  /**
+   * Starts a simulator and creates a client for it.
+   */
+  @Before
+  public void setUp()
+  {
+    subject = new MultiChainSimulator();
+    subject.start();
+
+    client = new MultiChainTemplate("127.0.0.1", subject.getPort(), subject.getUsername(), subject.getPassword(), false);
+  }
+
+  /**
+   * Stops the simulator.
+   */
+  @After
+  public void tearDown()
+  {
+    subject.stop();
+  }
+
+  /**
+   * Tests that unauthenticated requests are challenged.
+   */
+  @Test
+  public void testAuthenticationChallenge() throws IOException
+  {
+    final HttpURLConnection connection = (HttpURLConnection) subject.getUri().toURL().openConnection();
+    connection.setRequestMethod("POST");
+    connection.setDoOutput(true);
+    connection.getOutputStream().close();
+
+    assertEquals(HttpURLConnection.HTTP_UNAUTHORIZED, connection.getResponseCode());
+    assertTrue(connection.getHeaderField("WWW-Authenticate").startsWith("Basic"));
+  }
+
+  /**
+   * Tests that injected errors are reported as JSON-RPC errors.
+   */
+  @Test
+  public void testErrorRate()
+  {
+    subject.setErrorRate(1);
+
+    final ListStreamKeyItemsResponse response = client.invoke(new ListStreamKeyItemsRequest(getString(), getString())
+        , ListStreamKeyItemsResponse.class);
+
+    assertFalse(response.isOk());
+    assertEquals(SimulatedNode.RPC_MISC_ERROR, response.getError().getCode());
+  }
+
+  /**
+   * Tests that injected failures are reported as unavailability of the
+   * server.
+   */
+  @Test(expected = HttpServerErrorException.class)
+  public void testFailureRate()
+  {
+    subject.setFailureRate(1);
+
+    client.invoke(new ListStreamKeyItemsRequest(getString(), getString()), ListStreamKeyItemsResponse.class);
+  }
+
+  /**
+   * Tests that the configured latency is added to each command.
+   */
+  @Test
+  public void testLatency()
+  {
+    subject.setLatency(LatencyDistribution.fixed(200, TimeUnit.MILLISECONDS));
+
+    final long start = System.nanoTime();
+    client.invoke(new ListStreamKeyItemsRequest(getString(), getString()), ListStreamKeyItemsResponse.class);
+
+    assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 200);
+  }
+
+  /**
+   * Tests that streams are summarized with the number of items and keys in
+   * them.
+   */
+  @Test
+  public void testListStreams()
+  {
+    final String stream = getString(), key = getString();
+
+    client.invoke(new PublishRequest(stream, key, "00"), PublishResponse.class);
+    client.invoke(new PublishRequest(stream, key, "01"), PublishResponse.class);
+
+    final ListStreamsResponse response = client.invoke(new ListStreamsRequest(stream), ListStreamsResponse.class);
+
+    assertTrue(response.isOk());
+    assertEquals(1, response.getResult().size());
+
+    final ListStreamsResult result = response.getResult().get(0);
+    assertEquals(stream, result.getName());
+    assertTrue(result.isSubscribed());
+    assertEquals(2, result.getItems().longValue());
+    assertEquals(0, result.getConfirmed().longValue());
+    assertEquals(1, result.getKeys().longValue());
+
+    assertEquals(SimulatedNode.RPC_STREAM_NOT_FOUND, client.invoke(new ListStreamsRequest(getString()), ListStreamsResponse.class)
+                                                           .getError().getCode());
+  }
+
+  /**
+   * Tests that items remain unconfirmed until a block is mined.
+   */
+  @Test
+  public void testMine() throws IOException
+  {
+    final String stream = getString(), key = getString();
+
+    client.invoke(new PublishRequest(stream, key, "00ff"), PublishResponse.class);
+
+    assertEquals(0, invoke("liststreamkeyitems", stream, key).getAsJsonArray().get(0).getAsJsonObject().get("confirmations").getAsInt());
+
+    subject.mine();
+
+    final JsonObject item = invoke("liststreamkeyitems", stream, key).getAsJsonArray().get(0).getAsJsonObject();
+    assertEquals(1, item.get("confirmations").getAsInt());
+    assertTrue(item.has("blocktime"));
+  }
+
+  /**
+   * Tests that a published item can be found through all the stream item
+   * commands.
+   */
+  @Test
+  public void testPublish() throws IOException
+  {
+    final String stream = getString(), key = getString();
+
+    final PublishResponse response = client.invoke(new PublishRequest(stream, key, "00ff"), PublishResponse.class);
+
+    assertTrue(response.isOk());
+    assertEquals(64, response.getResult().length());
+
+    final ListStreamKeyItemsResponse items = client.invoke(new ListStreamKeyItemsRequest(stream, key)
+        , ListStreamKeyItemsResponse.class);
+
+    assertTrue(items.isOk());
+    assertEquals(1, items.getResult().size());
+    assertEquals("00ff", items.getResult().get(0).getData());
+
+    assertEquals(1, invoke("liststreamitems", stream).getAsJsonArray().size());
+    assertEquals(1, invoke("liststreamkeys", stream).getAsJsonArray().get(0).getAsJsonObject().get("items").getAsInt());
+    assertEquals(key, invoke("getstreamitem", stream, response.getResult()).getAsJsonObject().get("key").getAsString());
+  }
+
+  /**
+   * Tests that items can be published off-chain, and are reported without
+   * data while their data is unavailable to the node.
+   */
+  @Test
+  public void testPublishOffchain() throws IOException
+  {
+    final String stream = getString(), key = getString();
+
+    assertTrue(client.invoke(new PublishRequest(stream, key, StreamItemData.hex("00ff"), true), PublishResponse.class).isOk());
+
+    final ListStreamKeyItemsResult item = client.invoke(new ListStreamKeyItemsRequest(stream, key), ListStreamKeyItemsResponse.class)
+                                                .getResult().get(0);
+    assertTrue(item.isOffchain());
+    assertTrue(item.isAvailable());
+    assertEquals("00ff", item.getData());
+
+    subject.setOffchainAvailable(false);
+
+    final JsonObject unavailable = invoke("liststreamkeyitems", stream, key).getAsJsonArray().get(0).getAsJsonObject();
+    assertFalse(unavailable.get("available").getAsBoolean());
+    assertTrue(unavailable.get("data").isJsonNull());
+  }
+
+  /**
+   * Tests that items can be published to a stream only after it has been
+   * created, if streams are not created on demand.
+   */
+  @Test
+  public void testPublishToMissingStream()
+  {
+    final String stream = getString();
+
+    subject.setCreateStreams(false);
+
+    final PublishResponse response = client.invoke(new PublishRequest(stream, getString(), "00"), PublishResponse.class);
+
+    assertFalse(response.isOk());
+    assertEquals(SimulatedNode.RPC_STREAM_NOT_FOUND, response.getError().getCode());
+
+    subject.createStream(stream);
+
+    assertTrue(client.invoke(new PublishRequest(stream, getString(), "00"), PublishResponse.class).isOk());
+  }
+
+  /**
+   * Tests that several items can be published in a single transaction.
+   */
+  @Test
+  public void testPublishMulti() throws IOException
+  {
+    final String stream = getString();
+
+    final JsonArray items = new JsonArray();
+    for (int i = 0; i < 3; ++i)
+    {
+      final JsonObject item = new JsonObject();
+      item.addProperty("key", "key" + i);
+      item.addProperty("data", "0" + i);
+
+      items.add(item);
+    }
+
+    assertEquals(64, invoke("publishmulti", stream, items).getAsString().length());
+
+    final JsonArray keys = invoke("liststreamkeys", stream).getAsJsonArray();
+    assertEquals(3, keys.size());
+
+    final JsonArray page = invoke("liststreamitems", stream, false, 2, 1).getAsJsonArray();
+    assertEquals(2, page.size());
+    assertEquals("01", page.get(0).getAsJsonObject().get("data").getAsString());
+  }
+
+  /**
+   * Tests that the simulator cannot be given an invalid error rate.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetErrorRateAboveOne()
+  {
+    subject.setErrorRate(1.5);
+  }
+
+  /**
+   * Tests that unsupported commands are rejected.
+   */
+  @Test
+  public void testUnsupportedCommand() throws IOException
+  {
+    final HttpURLConnection connection = post(getString());
+
+    assertEquals(HttpURLConnection.HTTP_NOT_FOUND, connection.getResponseCode());
+  }
+
+  /**
+   * Invokes a command on the simulator, bypassing the client.
+   *
+   * @param method The command.
+   * @param params The parameters for the command.
+   * @return The result of the command.
+   */
+  private JsonElement invoke(final String method, final Object... params) throws IOException
+  {
+    final HttpURLConnection connection = post(method, params);
+
+    assertEquals(HttpURLConnection.HTTP_OK, connection.getResponseCode());
+
+    try (final InputStream in = connection.getInputStream())
+    {
+      final JsonObject response = new JsonParser().parse(new InputStreamReader(in, StandardCharsets.UTF_8))
+                                                  .getAsJsonObject();
+
+      assertNotNull(response.get("result"));
+
+      return response.get("result");
+    }
+  }
+
+  /**
+   * Posts a JSON-RPC request to the simulator.
+   *
+   * @param method The command.
+   * @param params The parameters for the command.
+   * @return The connection to read the response from.
+   */
+  private HttpURLConnection post(final String method, final Object... params) throws IOException
+  {
+    final JsonObject request = new JsonObject();
+    request.addProperty("id", getString());
+    request.addProperty("method", method);
+    request.add("params", SERIALIZER.toJsonTree(params));
+
+    final HttpURLConnection connection = (HttpURLConnection) subject.getUri().toURL().openConnection();
+    connection.setRequestMethod("POST");
+    connection.setDoOutput(true);
+    connection.setRequestProperty("Authorization", "Basic " + Base64.getEncoder()
+                                                                    .encodeToString((subject.getUsername() + ":" + subject.getPassword()).getBytes(StandardCharsets.UTF_8)));
+
+    try (final OutputStream out = connection.getOutputStream())
+    {
+      out.write(request.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    return connection;
+  }
+}
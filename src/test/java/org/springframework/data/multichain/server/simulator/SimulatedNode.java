@@ -0,0 +1,664 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.server.simulator;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * The in-memory state of a simulated MultiChain blockchain, along with the
+ * implementation of the JSON-RPC commands supported by
+ * {@link MultiChainSimulator}.
+ * </p>
+ * <p>
+ * Published items are visible immediately, as on a real node, but remain
+ * unconfirmed until the next block is {@link #mine() mined}. Items may be
+ * published off-chain, in which case their data can be made
+ * {@link #setOffchainAvailable(boolean) unavailable}, as on a node that has
+ * not yet retrieved it.
+ * </p>
+ */
+final class SimulatedNode
+{
+  static final int RPC_INVALID_PARAMETER = -8;
+  static final int RPC_METHOD_NOT_FOUND  = -32601;
+  static final int RPC_MISC_ERROR        = -1;
+  static final int RPC_PARSE_ERROR       = -32700;
+  static final int RPC_STREAM_NOT_FOUND  = -708;
+  static final int RPC_TX_NOT_FOUND      = -5;
+
+  private static final int     DEFAULT_COUNT = 10;
+  private static final Pattern HEX           = Pattern.compile("([0-9a-fA-F]{2})*");
+  private static final String  PUBLISHER     = "1SimuLatedMu1tiChainNodeAddressXXXXXX";
+
+  private final AtomicLong                   height  = new AtomicLong();
+  private final Queue<SimulatedStreamItem>   pending = new ConcurrentLinkedQueue<>();
+  private final Map<String, SimulatedStream> streams = new ConcurrentHashMap<>();
+
+  private volatile boolean createStreams     = true;
+  private volatile boolean offchainAvailable = true;
+
+  /**
+   * Creates a stream, if it does not exist already.
+   *
+   * @param name The name of the stream.
+   */
+  void createStream(final String name)
+  {
+    streams.computeIfAbsent(name, SimulatedStream::new);
+  }
+
+  /**
+   * Sets whether streams should be created as soon as items are published to
+   * them, rather than having to be created in advance.
+   *
+   * @param createStreams Whether streams should be created on demand.
+   */
+  void setCreateStreams(final boolean createStreams)
+  {
+    this.createStreams = createStreams;
+  }
+
+  /**
+   * Sets whether the data of off-chain items is available to the node, or
+   * whether the node has yet to retrieve it from the nodes that published
+   * the items.
+   *
+   * @param offchainAvailable Whether off-chain item data is available.
+   */
+  void setOffchainAvailable(final boolean offchainAvailable)
+  {
+    this.offchainAvailable = offchainAvailable;
+  }
+
+  /**
+   * Gets the height of the latest block.
+   *
+   * @return The height of the latest block.
+   */
+  long getHeight()
+  {
+    return height.get();
+  }
+
+  /**
+   * Gets whether any published items are waiting to be confirmed.
+   *
+   * @return {@literal true} if there are unconfirmed items, {@literal false}
+   * otherwise.
+   */
+  boolean hasPendingItems()
+  {
+    return !pending.isEmpty();
+  }
+
+  /**
+   * Executes a JSON-RPC command.
+   *
+   * @param method The name of the command.
+   * @param params The parameters for the command.
+   * @return The result of the command.
+   * @throws RpcException if the command cannot be executed.
+   */
+  JsonElement invoke(final String method, final JsonArray params)
+  {
+    switch (method)
+    {
+      case "getstreamitem":
+        return getStreamItem(params);
+
+      case "liststreamitems":
+        return listStreamItems(params);
+
+      case "liststreamkeyitems":
+        return listStreamKeyItems(params);
+
+      case "liststreamkeys":
+        return listStreamKeys(params);
+
+      case "liststreamqueryitems":
+        return listStreamQueryItems(params);
+
+      case "liststreams":
+        return listStreams(params);
+
+      case "publish":
+        return publish(params);
+
+      case "publishmulti":
+        return publishMulti(params);
+
+      default:
+        throw new RpcException(RPC_METHOD_NOT_FOUND, "Method not found");
+    }
+  }
+
+  /**
+   * Mines a block, confirming all items published since the previous block.
+   */
+  void mine()
+  {
+    final long block = height.incrementAndGet();
+    final long blocktime = System.currentTimeMillis() / 1000;
+
+    for (SimulatedStreamItem item = pending.poll(); item != null; item = pending.poll())
+    {
+      item.confirm(block, blocktime);
+    }
+  }
+
+  /**
+   * Implements {@code getstreamitem stream txid}.
+   *
+   * @param params The command parameters.
+   * @return The item.
+   */
+  private JsonElement getStreamItem(final JsonArray params)
+  {
+    final SimulatedStream stream = getStream(params);
+    final SimulatedStreamItem item = stream.getItem(getString(params, 1, "txid"));
+
+    if (item == null)
+    {
+      throw new RpcException(RPC_TX_NOT_FOUND, "Item with this txid not found");
+    }
+
+    return item.toJson(height.get(), offchainAvailable);
+  }
+
+  /**
+   * Implements {@code liststreamitems stream (verbose count start)}.
+   *
+   * @param params The command parameters.
+   * @return The items.
+   */
+  private JsonElement listStreamItems(final JsonArray params)
+  {
+    final SimulatedStream stream = getStream(params);
+    final int count = getInt(params, 2, DEFAULT_COUNT);
+
+    return toJson(stream.getItems(getInt(params, 3, -count), count));
+  }
+
+  /**
+   * Implements {@code liststreamkeyitems stream key (verbose count start)}.
+   *
+   * @param params The command parameters.
+   * @return The items.
+   */
+  private JsonElement listStreamKeyItems(final JsonArray params)
+  {
+    final SimulatedStream stream = getStream(params);
+    final String key = getString(params, 1, "key");
+    final int count = getInt(params, 3, DEFAULT_COUNT);
+
+    return toJson(stream.getItems(key, getInt(params, 4, -count), count));
+  }
+
+  /**
+   * Implements {@code liststreamqueryitems stream query (verbose)}, for
+   * queries by {@code key} or {@code keys}. Queries by publisher are
+   * answered as if every item was published by the simulated node.
+   *
+   * @param params The command parameters.
+   * @return The items tagged with all the keys.
+   */
+  private JsonElement listStreamQueryItems(final JsonArray params)
+  {
+    final SimulatedStream stream = getStream(params);
+    final JsonElement query = getParam(params, 1, "query");
+
+    if (!query.isJsonObject())
+    {
+      throw new RpcException(RPC_INVALID_PARAMETER, "Query should be object");
+    }
+
+    final JsonObject conditions = query.getAsJsonObject();
+    final JsonElement keys = conditions.has("keys") ? conditions.get("keys") : conditions.get("key");
+    final JsonElement publishers = conditions.has("publishers") ? conditions.get("publishers") : conditions.get("publisher");
+
+    if (keys == null && publishers == null)
+    {
+      throw new RpcException(RPC_INVALID_PARAMETER, "Query should contain key(s) or publisher(s)");
+    }
+    else if (publishers != null && !getKeys(publishers).stream().allMatch(PUBLISHER::equals))
+    {
+      return new JsonArray();
+    }
+
+    return toJson(keys != null ? stream.getItems(getKeys(keys)) : stream.getItems(0, Integer.MAX_VALUE));
+  }
+
+  /**
+   * Implements {@code liststreamkeys stream (keys verbose count start)}.
+   *
+   * @param params The command parameters.
+   * @return A summary of the keys.
+   */
+  private JsonElement listStreamKeys(final JsonArray params)
+  {
+    final SimulatedStream stream = getStream(params);
+    final JsonElement keys = params.size() > 1 ? params.get(1) : new JsonPrimitive("*");
+
+    final Map<String, List<SimulatedStreamItem>> summary;
+    if (keys.isJsonPrimitive() && "*".equals(keys.getAsString()))
+    {
+      final int count = getInt(params, 3, Integer.MAX_VALUE);
+
+      summary = stream.getKeys(getInt(params, 4, count == Integer.MAX_VALUE ? 0 : -count), count);
+    }
+    else
+    {
+      summary = stream.getKeys(getKeys(keys));
+    }
+
+    final JsonArray result = new JsonArray();
+    summary.forEach((key, items) -> {
+      final JsonObject json = new JsonObject();
+      json.addProperty("key", key);
+      json.addProperty("items", items.size());
+      json.addProperty("confirmed", items.stream().filter(SimulatedStreamItem::isConfirmed).count());
+
+      result.add(json);
+    });
+
+    return result;
+  }
+
+  /**
+   * Implements {@code liststreams (streams verbose)}.
+   *
+   * @param params The command parameters.
+   * @return A summary of the streams.
+   */
+  private JsonElement listStreams(final JsonArray params)
+  {
+    final JsonElement names = params.size() > 0 && !params.get(0).isJsonNull() ? params.get(0) : new JsonPrimitive("*");
+
+    final JsonArray result = new JsonArray();
+    if (names.isJsonPrimitive() && "*".equals(names.getAsString()))
+    {
+      streams.values().forEach(stream -> result.add(stream.toJson()));
+    }
+    else
+    {
+      for (final String name : getKeys(names))
+      {
+        final SimulatedStream stream = streams.get(name);
+
+        if (stream == null)
+        {
+          throw new RpcException(RPC_STREAM_NOT_FOUND, String.format("Stream with this name, ref or creation txid not found: %s", name));
+        }
+
+        result.add(stream.toJson());
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Implements {@code publish stream key|keys data (options)}.
+   *
+   * @param params The command parameters.
+   * @return The identifier of the transaction.
+   */
+  private JsonElement publish(final JsonArray params)
+  {
+    final SimulatedStream stream = getStreamForPublishing(params);
+    final List<String> keys = getKeys(getParam(params, 1, "key"));
+    final JsonElement data = getData(getParam(params, 2, "data"));
+    final boolean offchain = isOffchain(params, 3);
+
+    final String txid = createTxid();
+    append(stream, Collections.singletonList(new SimulatedStreamItem(txid, PUBLISHER, keys, data, offchain)));
+
+    return new JsonPrimitive(txid);
+  }
+
+  /**
+   * Implements {@code publishmulti stream items (options)}, where each item
+   * is an object with the fields {@code key} or {@code keys}, {@code data}
+   * and, optionally, {@code for}, overriding the default stream.
+   *
+   * @param params The command parameters.
+   * @return The identifier of the transaction.
+   */
+  private JsonElement publishMulti(final JsonArray params)
+  {
+    final SimulatedStream defaultStream = getStreamForPublishing(params);
+    final JsonElement items = getParam(params, 1, "items");
+    final boolean offchain = isOffchain(params, 2);
+
+    if (!items.isJsonArray() || items.getAsJsonArray().size() == 0)
+    {
+      throw new RpcException(RPC_INVALID_PARAMETER, "Items should be non-empty array");
+    }
+
+    // Validate all items before publishing any, since a transaction is
+    // either accepted as a whole or not at all.
+    final String txid = createTxid();
+    final Map<SimulatedStream, List<SimulatedStreamItem>> published = new LinkedHashMap<>();
+
+    for (final JsonElement element : items.getAsJsonArray())
+    {
+      if (!element.isJsonObject())
+      {
+        throw new RpcException(RPC_INVALID_PARAMETER, "Item should be an object");
+      }
+
+      final JsonObject item = element.getAsJsonObject();
+      final SimulatedStream stream = item.has("for")
+                                     ? getStreamForPublishing(item.get("for").getAsString())
+                                     : defaultStream;
+      final JsonElement keys = item.has("keys") ? item.get("keys") : item.get("key");
+
+      if (keys == null || !item.has("data"))
+      {
+        throw new RpcException(RPC_INVALID_PARAMETER, "Item should have key(s) and data");
+      }
+
+      published.computeIfAbsent(stream, s -> new ArrayList<>())
+               .add(new SimulatedStreamItem(txid, PUBLISHER, getKeys(keys), getData(item.get("data")), offchain));
+    }
+
+    published.forEach(this::append);
+
+    return new JsonPrimitive(txid);
+  }
+
+  /**
+   * Adds items to a stream and queues them for confirmation in the next
+   * block.
+   *
+   * @param stream The stream.
+   * @param items  The items.
+   */
+  private void append(final SimulatedStream stream, final List<SimulatedStreamItem> items)
+  {
+    stream.add(items);
+    pending.addAll(items);
+  }
+
+  /**
+   * Creates a random transaction identifier.
+   *
+   * @return A {@link String} of 64 hexadecimal digits.
+   */
+  private static String createTxid()
+  {
+    final ThreadLocalRandom random = ThreadLocalRandom.current();
+
+    return String.format("%016x%016x%016x%016x", random.nextLong(), random.nextLong(), random.nextLong(), random.nextLong());
+  }
+
+  /**
+   * Validates item data, which must be either a hexadecimal {@link String},
+   * or an object with a single {@code json} or {@code text} field.
+   *
+   * @param data The data.
+   * @return The data.
+   */
+  private static JsonElement getData(final JsonElement data)
+  {
+    if (data.isJsonPrimitive() && HEX.matcher(data.getAsString()).matches())
+    {
+      return data;
+    }
+    else if (data.isJsonObject()
+        && data.getAsJsonObject().size() == 1
+        && (data.getAsJsonObject().has("json") || data.getAsJsonObject().has("text")))
+    {
+      return data;
+    }
+
+    throw new RpcException(RPC_INVALID_PARAMETER, "data should be hexadecimal string or recognized object format");
+  }
+
+  /**
+   * Gets an optional integer parameter.
+   *
+   * @param params       The command parameters.
+   * @param index        The index of the parameter.
+   * @param defaultValue The value to use if the parameter is absent.
+   * @return The value of the parameter.
+   */
+  private static int getInt(final JsonArray params, final int index, final int defaultValue)
+  {
+    if (params.size() <= index || params.get(index).isJsonNull())
+    {
+      return defaultValue;
+    }
+
+    try
+    {
+      return params.get(index).getAsInt();
+    }
+    catch (final RuntimeException e)
+    {
+      throw new RpcException(RPC_INVALID_PARAMETER, String.format("Parameter %d should be an integer", index + 1));
+    }
+  }
+
+  /**
+   * Converts a key parameter, which may be either a single key or an array
+   * of keys, into a list of keys.
+   *
+   * @param keys The parameter.
+   * @return The keys.
+   */
+  private static List<String> getKeys(final JsonElement keys)
+  {
+    final List<String> result = new ArrayList<>();
+
+    if (keys.isJsonArray())
+    {
+      keys.getAsJsonArray().forEach(key -> result.add(key.getAsString()));
+    }
+    else if (keys.isJsonPrimitive())
+    {
+      result.add(keys.getAsString());
+    }
+
+    if (result.isEmpty())
+    {
+      throw new RpcException(RPC_INVALID_PARAMETER, "At least one key should be specified");
+    }
+
+    return result;
+  }
+
+  /**
+   * Gets a mandatory parameter.
+   *
+   * @param params The command parameters.
+   * @param index  The index of the parameter.
+   * @param name   The name of the parameter.
+   * @return The parameter.
+   */
+  private static JsonElement getParam(final JsonArray params, final int index, final String name)
+  {
+    final JsonElement param = params.size() > index ? params.get(index) : JsonNull.INSTANCE;
+
+    if (param.isJsonNull())
+    {
+      throw new RpcException(RPC_INVALID_PARAMETER, String.format("Missing %s", name));
+    }
+
+    return param;
+  }
+
+  /**
+   * Gets a mandatory {@link String} parameter.
+   *
+   * @param params The command parameters.
+   * @param index  The index of the parameter.
+   * @param name   The name of the parameter.
+   * @return The value of the parameter.
+   */
+  private static String getString(final JsonArray params, final int index, final String name)
+  {
+    return getParam(params, index, name).getAsString();
+  }
+
+  /**
+   * Checks whether the publishing options parameter, if present, asks for
+   * item data to be stored off-chain.
+   *
+   * @param params The command parameters.
+   * @param index  The index of the options parameter.
+   * @return {@literal true} if the item data should be stored off-chain.
+   */
+  private static boolean isOffchain(final JsonArray params, final int index)
+  {
+    if (params.size() <= index || params.get(index).isJsonNull())
+    {
+      return false;
+    }
+
+    final String options = params.get(index).getAsString().trim();
+
+    if (options.isEmpty() || "onchain".equalsIgnoreCase(options))
+    {
+      return false;
+    }
+    else if ("offchain".equalsIgnoreCase(options))
+    {
+      return true;
+    }
+
+    throw new RpcException(RPC_INVALID_PARAMETER, String.format("Invalid option: %s", options));
+  }
+
+  /**
+   * Gets the stream identified by the first command parameter.
+   *
+   * @param params The command parameters.
+   * @return The stream.
+   */
+  private SimulatedStream getStream(final JsonArray params)
+  {
+    final String name = getString(params, 0, "stream");
+    final SimulatedStream stream = streams.get(name);
+
+    if (stream == null)
+    {
+      throw new RpcException(RPC_STREAM_NOT_FOUND, String.format("Stream with this name, ref or creation txid not found: %s", name));
+    }
+
+    return stream;
+  }
+
+  /**
+   * Gets the stream identified by the first command parameter for
+   * publishing to it, creating the stream if allowed.
+   *
+   * @param params The command parameters.
+   * @return The stream.
+   */
+  private SimulatedStream getStreamForPublishing(final JsonArray params)
+  {
+    return getStreamForPublishing(getString(params, 0, "stream"));
+  }
+
+  /**
+   * Gets a stream for publishing to it, creating the stream if allowed.
+   *
+   * @param name The name of the stream.
+   * @return The stream.
+   */
+  private SimulatedStream getStreamForPublishing(final String name)
+  {
+    if (createStreams)
+    {
+      return streams.computeIfAbsent(name, SimulatedStream::new);
+    }
+
+    final SimulatedStream stream = streams.get(name);
+
+    if (stream == null)
+    {
+      throw new RpcException(RPC_STREAM_NOT_FOUND, String.format("Stream with this name, ref or creation txid not found: %s", name));
+    }
+
+    return stream;
+  }
+
+  /**
+   * Converts items into their JSON representation.
+   *
+   * @param items The items.
+   * @return A {@link JsonArray}.
+   */
+  private JsonArray toJson(final List<SimulatedStreamItem> items)
+  {
+    final long current = height.get();
+
+    final JsonArray result = new JsonArray();
+    final boolean available = offchainAvailable;
+    items.forEach(item -> result.add(item.toJson(current, available)));
+
+    return result;
+  }
+
+  /**
+   * Indicates that a JSON-RPC command could not be executed.
+   */
+  static final class RpcException extends RuntimeException
+  {
+    private final int code;
+
+    /**
+     * Creates an exception.
+     *
+     * @param code    The JSON-RPC error code.
+     * @param message The error message.
+     */
+    RpcException(final int code, final String message)
+    {
+      super(message, null, false, false);
+
+      this.code = code;
+    }
+
+    /**
+     * Gets the JSON-RPC error code.
+     *
+     * @return The JSON-RPC error code.
+     */
+    int getCode()
+    {
+      return code;
+    }
+  }
+}
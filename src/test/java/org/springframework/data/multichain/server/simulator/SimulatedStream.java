@@ -0,0 +1,308 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.server.simulator;
+
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A data stream on a simulated blockchain. Items are kept in the order in
+ * which they were published, and are indexed by key and by transaction
+ * identifier. Any number of threads may read from the stream while another
+ * publishes to it.
+ */
+final class SimulatedStream
+{
+  private final Map<String, List<SimulatedStreamItem>> itemsByKey  = new LinkedHashMap<>();
+  private final Map<String, SimulatedStreamItem>       itemsByTxid = new HashMap<>();
+  private final List<SimulatedStreamItem>              items       = new ArrayList<>();
+  private final ReadWriteLock                          lock        = new ReentrantReadWriteLock();
+  private final String                                 name;
+
+  /**
+   * Creates an empty stream.
+   *
+   * @param name The name of the stream.
+   */
+  SimulatedStream(final String name)
+  {
+    this.name = name;
+  }
+
+  /**
+   * Publishes items to the stream.
+   *
+   * @param published The items to publish.
+   */
+  void add(final List<SimulatedStreamItem> published)
+  {
+    lock.writeLock().lock();
+
+    try
+    {
+      for (final SimulatedStreamItem item : published)
+      {
+        items.add(item);
+        itemsByTxid.putIfAbsent(item.getTxid(), item);
+
+        for (final String key : item.getKeys())
+        {
+          itemsByKey.computeIfAbsent(key, k -> new ArrayList<>()).add(item);
+        }
+      }
+    }
+    finally
+    {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Gets an item by the identifier of the transaction that published it.
+   *
+   * @param txid The transaction identifier.
+   * @return The item, or {@literal null} if none was found.
+   */
+  SimulatedStreamItem getItem(final String txid)
+  {
+    lock.readLock().lock();
+
+    try
+    {
+      return itemsByTxid.get(txid);
+    }
+    finally
+    {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Gets a range of items from the stream.
+   *
+   * @param start The index of the first item to get; negative values count
+   *              back from the end of the stream.
+   * @param count The maximum number of items to get.
+   * @return The items in the range.
+   */
+  List<SimulatedStreamItem> getItems(final int start, final int count)
+  {
+    lock.readLock().lock();
+
+    try
+    {
+      return slice(items, start, count);
+    }
+    finally
+    {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Gets a range of the items having a given key.
+   *
+   * @param key   The key.
+   * @param start The index of the first item to get, among the items having
+   *              the key; negative values count back from the last such
+   *              item.
+   * @param count The maximum number of items to get.
+   * @return The items in the range.
+   */
+  List<SimulatedStreamItem> getItems(final String key, final int start, final int count)
+  {
+    lock.readLock().lock();
+
+    try
+    {
+      return slice(itemsByKey.getOrDefault(key, Collections.emptyList()), start, count);
+    }
+    finally
+    {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Gets the items having all of a given set of keys.
+   *
+   * @param keys The keys.
+   * @return The items having all the keys, in the order in which they were
+   * published.
+   */
+  List<SimulatedStreamItem> getItems(final List<String> keys)
+  {
+    lock.readLock().lock();
+
+    try
+    {
+      // Scan the items of the least used key.
+      List<SimulatedStreamItem> candidates = null;
+      for (final String key : keys)
+      {
+        final List<SimulatedStreamItem> keyItems = itemsByKey.getOrDefault(key, Collections.emptyList());
+
+        if (candidates == null || keyItems.size() < candidates.size())
+        {
+          candidates = keyItems;
+        }
+      }
+
+      final List<SimulatedStreamItem> result = new ArrayList<>();
+      for (final SimulatedStreamItem item : candidates)
+      {
+        if (item.getKeys().containsAll(keys))
+        {
+          result.add(item);
+        }
+      }
+
+      return result;
+    }
+    finally
+    {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Gets a summary of a range of the keys used in the stream, in the order
+   * in which they were first used.
+   *
+   * @param start The index of the first key to summarize; negative values
+   *              count back from the last key.
+   * @param count The maximum number of keys to summarize.
+   * @return The items having each key in the range, by key.
+   */
+  Map<String, List<SimulatedStreamItem>> getKeys(final int start, final int count)
+  {
+    lock.readLock().lock();
+
+    try
+    {
+      final List<String> keys = slice(new ArrayList<>(itemsByKey.keySet()), start, count);
+
+      final Map<String, List<SimulatedStreamItem>> summary = new LinkedHashMap<>();
+      for (final String key : keys)
+      {
+        summary.put(key, new ArrayList<>(itemsByKey.get(key)));
+      }
+
+      return summary;
+    }
+    finally
+    {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Gets the items having any of a given set of keys.
+   *
+   * @param keys The keys.
+   * @return The items having each key, by key, for those keys that are in
+   * use.
+   */
+  Map<String, List<SimulatedStreamItem>> getKeys(final List<String> keys)
+  {
+    lock.readLock().lock();
+
+    try
+    {
+      final Map<String, List<SimulatedStreamItem>> summary = new LinkedHashMap<>();
+      for (final String key : keys)
+      {
+        final List<SimulatedStreamItem> keyItems = itemsByKey.get(key);
+
+        if (keyItems != null)
+        {
+          summary.put(key, new ArrayList<>(keyItems));
+        }
+      }
+
+      return summary;
+    }
+    finally
+    {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Gets the name of the stream.
+   *
+   * @return The name of the stream.
+   */
+  String getName()
+  {
+    return name;
+  }
+
+  /**
+   * Converts a summary of the stream into its JSON representation, as
+   * reported by a node subscribed to the stream.
+   *
+   * @return A {@link JsonObject}.
+   */
+  JsonObject toJson()
+  {
+    lock.readLock().lock();
+
+    try
+    {
+      final JsonObject json = new JsonObject();
+      json.addProperty("name", name);
+      json.addProperty("subscribed", true);
+      json.addProperty("synchronized", true);
+      json.addProperty("items", items.size());
+      json.addProperty("confirmed", items.stream().filter(SimulatedStreamItem::isConfirmed).count());
+      json.addProperty("keys", itemsByKey.size());
+
+      return json;
+    }
+    finally
+    {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Gets a range of elements from a list, following the MultiChain
+   * convention for the {@code start} and {@code count} parameters.
+   *
+   * @param list  The list.
+   * @param start The index of the first element; negative values count back
+   *              from the end of the list.
+   * @param count The maximum number of elements.
+   * @param <T>   The type of elements.
+   * @return A copy of the elements in the range.
+   */
+  private static <T> List<T> slice(final List<T> list, final int start, final int count)
+  {
+    final int from = Math.max(0, start < 0 ? list.size() + start : Math.min(start, list.size()));
+    final int to = (int) Math.min(list.size(), (long) from + Math.max(0, count));
+
+    return new ArrayList<>(list.subList(from, to));
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.multichain.server.simulator;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.util.List;
+
+/**
+ * An item published to a data stream on a simulated blockchain.
+ */
+final class SimulatedStreamItem
+{
+  private final JsonElement  data;
+  private final List<String> keys;
+  private final boolean      offchain;
+  private final String       publisher;
+  private final String       txid;
+
+  private volatile long block = -1;
+  private volatile long blocktime;
+
+  /**
+   * Creates an unconfirmed item.
+   *
+   * @param txid      The identifier of the transaction that published the
+   *                  item.
+   * @param publisher The address that published the item.
+   * @param keys      The keys for the item.
+   * @param data      The item data, either as a hexadecimal {@link String}
+   *                  or as a {@code {"json" : ...}} or {@code {"text" : ...}}
+   *                  object.
+   * @param offchain  Whether the item data is stored off-chain.
+   */
+  SimulatedStreamItem(final String txid
+      , final String publisher
+      , final List<String> keys
+      , final JsonElement data
+      , final boolean offchain)
+  {
+    this.data = data;
+    this.keys = keys;
+    this.offchain = offchain;
+    this.publisher = publisher;
+    this.txid = txid;
+  }
+
+  /**
+   * Records that the item has been included in a block.
+   *
+   * @param block     The height of the block.
+   * @param blocktime The time of the block, in seconds since
+   *                  {@literal January 1, 1970}.
+   */
+  void confirm(final long block, final long blocktime)
+  {
+    this.blocktime = blocktime;
+    this.block = block;
+  }
+
+  /**
+   * Gets the keys for the item.
+   *
+   * @return The keys for the item.
+   */
+  List<String> getKeys()
+  {
+    return keys;
+  }
+
+  /**
+   * Gets the identifier of the transaction that published the item.
+   *
+   * @return The transaction identifier.
+   */
+  String getTxid()
+  {
+    return txid;
+  }
+
+  /**
+   * Gets whether the item has been included in a block.
+   *
+   * @return {@literal true} if the item has been confirmed, {@literal false}
+   * otherwise.
+   */
+  boolean isConfirmed()
+  {
+    return block >= 0;
+  }
+
+  /**
+   * Converts the item into the non-verbose JSON representation returned by
+   * the MultiChain stream item commands.
+   *
+   * @param height            The height of the latest block on the
+   *                          simulated chain.
+   * @param offchainAvailable Whether the data of off-chain items is
+   *                          available to the node.
+   * @return A {@link JsonObject}.
+   */
+  JsonObject toJson(final long height, final boolean offchainAvailable)
+  {
+    final boolean available = !offchain || offchainAvailable;
+
+    final JsonArray publishers = new JsonArray();
+    publishers.add(publisher);
+
+    final JsonArray keyArray = new JsonArray();
+    keys.forEach(keyArray::add);
+
+    final JsonObject json = new JsonObject();
+    json.add("publishers", publishers);
+    json.add("keys", keyArray);
+    // MultiChain 1.0 nodes report a single key.
+    json.addProperty("key", keys.get(0));
+    json.addProperty("offchain", offchain);
+    json.addProperty("available", available);
+    // Nodes report no data for off-chain items they have not retrieved yet.
+    json.add("data", available ? data : JsonNull.INSTANCE);
+
+    final long confirmedIn = block;
+    json.addProperty("confirmations", confirmedIn >= 0 ? height - confirmedIn + 1 : 0);
+
+    if (confirmedIn >= 0)
+    {
+      json.add("blocktime", new JsonPrimitive(blocktime));
+    }
+
+    json.addProperty("txid", txid);
+
+    return json;
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.data.multichain.server.support;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link CircuitBreaker}.
+ */
+public class CircuitBreakerTests
+{
+  private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+  private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(2000);
+
+  private final AtomicLong clock = new AtomicLong();
+
+  private CircuitBreaker subject;
+
+  /**
+   * Sets up objects required to run the tests.
+   */
+  @Before
+  public void setup()
+  {
+    final CircuitBreakerSettings settings = new CircuitBreakerSettings();
+    settings.setFailureRateThreshold(50);
+    settings.setMinimumNumberOfCalls(4);
+    settings.setPermittedCallsInHalfOpenState(2);
+    settings.setSlidingWindowSize(4);
+    settings.setSlowCallDurationThreshold(1000);
+    settings.setSlowCallRateThreshold(75);
+    settings.setWaitDurationInOpenState(30000);
+
+    subject = new CircuitBreaker("node", settings, clock::get);
+  }
+
+  /**
+   * Tests that a circuit cannot be created without settings.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructWithoutSettings()
+  {
+    new CircuitBreaker("node", null);
+  }
+
+  /**
+   * Tests that the circuit stays closed until the minimum number of calls
+   * has been recorded, even if all of them fail.
+   */
+  @Test
+  public void testStaysClosedBelowMinimumNumberOfCalls()
+  {
+    for (int i = 0; i < 3; ++i)
+    {
+      assertTrue(subject.tryAcquirePermission());
+      subject.onError(FAST);
+    }
+
+    assertEquals(CircuitBreaker.State.CLOSED, subject.getState());
+  }
+
+  /**
+   * Tests that the circuit opens once the failure rate reaches the
+   * threshold, and rejects calls from then on.
+   */
+  @Test
+  public void testOpensOnFailureRate()
+  {
+    subject.onSuccess(FAST);
+    subject.onSuccess(FAST);
+    subject.onError(FAST);
+    assertEquals(CircuitBreaker.State.CLOSED, subject.getState());
+
+    subject.onError(FAST);
+    assertEquals(CircuitBreaker.State.OPEN, subject.getState());
+    assertFalse(subject.tryAcquirePermission());
+  }
+
+  /**
+   * Tests that the circuit opens once the slow call rate reaches the
+   * threshold, even if none of the calls fail.
+   */
+  @Test
+  public void testOpensOnSlowCallRate()
+  {
+    subject.onSuccess(FAST);
+    subject.onSuccess(SLOW);
+    subject.onSuccess(SLOW);
+    subject.onSuccess(SLOW);
+
+    assertEquals(CircuitBreaker.State.OPEN, subject.getState());
+  }
+
+  /**
+   * Tests that old outcomes slide out of the window.
+   */
+  @Test
+  public void testSlidingWindow()
+  {
+    subject.onError(FAST);
+    subject.onSuccess(FAST);
+    subject.onSuccess(FAST);
+    subject.onSuccess(FAST);
+
+    // The first failure is evicted, so that one more failure keeps the rate
+    // below the threshold.
+    subject.onError(FAST);
+    assertEquals(CircuitBreaker.State.CLOSED, subject.getState());
+  }
+
+  /**
+   * Tests that the circuit lets a limited number of trial calls through
+   * after the wait period, and closes if they succeed.
+   */
+  @Test
+  public void testClosesAfterSuccessfulTrialCalls()
+  {
+    open();
+
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+
+    assertTrue(subject.tryAcquirePermission());
+    assertTrue(subject.tryAcquirePermission());
+    assertFalse(subject.tryAcquirePermission());
+    assertEquals(CircuitBreaker.State.HALF_OPEN, subject.getState());
+
+    subject.onSuccess(FAST);
+    subject.onSuccess(FAST);
+
+    assertEquals(CircuitBreaker.State.CLOSED, subject.getState());
+    assertTrue(subject.tryAcquirePermission());
+  }
+
+  /**
+   * Tests that the circuit opens again if the trial calls fail.
+   */
+  @Test
+  public void testReopensAfterFailedTrialCalls()
+  {
+    open();
+
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+
+    assertTrue(subject.tryAcquirePermission());
+    assertTrue(subject.tryAcquirePermission());
+
+    subject.onError(FAST);
+    subject.onSuccess(FAST);
+
+    assertEquals(CircuitBreaker.State.OPEN, subject.getState());
+    assertFalse(subject.tryAcquirePermission());
+  }
+
+  /**
+   * Opens the circuit.
+   */
+  private void open()
+  {
+    for (int i = 0; i < 4; ++i)
+    {
+      subject.onError(FAST);
+    }
+
+    assertEquals(CircuitBreaker.State.OPEN, subject.getState());
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.data.multichain.server.support;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.multichain.UnitTest;
+import org.springframework.data.multichain.server.MultiChainClient;
+import org.springframework.data.multichain.server.command.ListStreamKeyItemsRequest;
+import org.springframework.data.multichain.server.command.ListStreamKeyItemsResponse;
+import org.springframework.data.multichain.server.command.PublishRequest;
+import org.springframework.data.multichain.server.command.PublishResponse;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link CircuitBreakingMultiChainClient}.
+ */
+public class CircuitBreakingMultiChainClientTests implements UnitTest
+{
+  private MultiChainClient       primary;
+  private MultiChainClient       secondary;
+  private CircuitBreakerSettings settings;
+
+  /**
+   * Sets up objects required to run the tests.
+   */
+  @Before
+  public void setup()
+  {
+    primary = mock(MultiChainClient.class);
+    secondary = mock(MultiChainClient.class);
+
+    settings = new CircuitBreakerSettings();
+    settings.setMinimumNumberOfCalls(2);
+    settings.setSlidingWindowSize(2);
+  }
+
+  /**
+   * Tests that a client cannot be constructed without any servers.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructWithoutClients()
+  {
+    new CircuitBreakingMultiChainClient(Collections.emptyList(), settings);
+  }
+
+  /**
+   * Tests that a client cannot be constructed without circuit breaker
+   * settings.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructWithoutSettings()
+  {
+    new CircuitBreakingMultiChainClient(primary, null);
+  }
+
+  /**
+   * Tests that commands are sent to the preferred server while it is
+   * available.
+   */
+  @Test
+  public void testInvokePrimary()
+  {
+    final ListStreamKeyItemsResponse response = new ListStreamKeyItemsResponse();
+    when(primary.invoke(any(ListStreamKeyItemsRequest.class), eq(ListStreamKeyItemsResponse.class))).thenReturn(response);
+
+    final CircuitBreakingMultiChainClient subject = new CircuitBreakingMultiChainClient(Arrays.asList(primary, secondary), settings);
+
+    assertSame(response, subject.invoke(new ListStreamKeyItemsRequest(getString(), getString()), ListStreamKeyItemsResponse.class));
+    verify(secondary, never()).invoke(any(), any());
+  }
+
+  /**
+   * Tests that idempotent commands fail over to the next server when the
+   * preferred server fails.
+   */
+  @Test
+  public void testInvokeFailsOverIdempotentCommand()
+  {
+    final ListStreamKeyItemsResponse response = new ListStreamKeyItemsResponse();
+    when(primary.invoke(any(ListStreamKeyItemsRequest.class), eq(ListStreamKeyItemsResponse.class)))
+        .thenThrow(new ResourceAccessException("Read timed out", new SocketTimeoutException()));
+    when(secondary.invoke(any(ListStreamKeyItemsRequest.class), eq(ListStreamKeyItemsResponse.class))).thenReturn(response);
+
+    final CircuitBreakingMultiChainClient subject = new CircuitBreakingMultiChainClient(Arrays.asList(primary, secondary), settings);
+
+    assertSame(response, subject.invoke(new ListStreamKeyItemsRequest(getString(), getString()), ListStreamKeyItemsResponse.class));
+  }
+
+  /**
+   * Tests that non-idempotent commands are not sent to another server if
+   * the preferred server may have received them.
+   */
+  @Test
+  public void testInvokeDoesNotFailOverNonIdempotentCommand()
+  {
+    when(primary.invoke(any(PublishRequest.class), eq(PublishResponse.class)))
+        .thenThrow(new ResourceAccessException("Read timed out", new SocketTimeoutException()));
+
+    final CircuitBreakingMultiChainClient subject = new CircuitBreakingMultiChainClient(Arrays.asList(primary, secondary), settings);
+
+    try
+    {
+      subject.invoke(new PublishRequest(getString(), getString(), getString()), PublishResponse.class);
+
+      fail("Expected the command to fail.");
+    }
+    catch (final DataAccessResourceFailureException e)
+    {
+      verify(secondary, never()).invoke(any(), any());
+    }
+  }
+
+  /**
+   * Tests that non-idempotent commands fail over to the next server if the
+   * preferred server could not be connected to.
+   */
+  @Test
+  public void testInvokeFailsOverNonIdempotentCommandOnConnectFailure()
+  {
+    final PublishResponse response = new PublishResponse();
+    when(primary.invoke(any(PublishRequest.class), eq(PublishResponse.class)))
+        .thenThrow(new ResourceAccessException("Connection refused", new ConnectException()));
+    when(secondary.invoke(any(PublishRequest.class), eq(PublishResponse.class))).thenReturn(response);
+
+    final CircuitBreakingMultiChainClient subject = new CircuitBreakingMultiChainClient(Arrays.asList(primary, secondary), settings);
+
+    assertSame(response, subject.invoke(new PublishRequest(getString(), getString(), getString()), PublishResponse.class));
+  }
+
+  /**
+   * Tests that commands are rejected without contacting the server once its
+   * circuit has opened.
+   */
+  @Test
+  public void testInvokeFailsFastWhenOpen()
+  {
+    when(primary.invoke(any(ListStreamKeyItemsRequest.class), eq(ListStreamKeyItemsResponse.class)))
+        .thenThrow(new ResourceAccessException("Connection refused", new ConnectException()));
+
+    final CircuitBreakingMultiChainClient subject = new CircuitBreakingMultiChainClient(primary, settings);
+
+    for (int i = 0; i < 3; ++i)
+    {
+      try
+      {
+        subject.invoke(new ListStreamKeyItemsRequest(getString(), getString()), ListStreamKeyItemsResponse.class);
+
+        fail("Expected the command to fail.");
+      }
+      catch (final DataAccessResourceFailureException e)
+      {
+        // Expected.
+      }
+    }
+
+    assertEquals(CircuitBreaker.State.OPEN, subject.getCircuitBreakers().get(0).getState());
+    verify(primary, times(2)).invoke(any(), any());
+  }
+}
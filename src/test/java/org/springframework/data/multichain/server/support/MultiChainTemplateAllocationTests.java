@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.data.multichain.server.support;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.multichain.AllocationMeter;
+import org.springframework.data.multichain.UnitTest;
+import org.springframework.data.multichain.server.command.ListStreamKeyItemsRequest;
+import org.springframework.data.multichain.server.command.ListStreamKeyItemsResponse;
+import org.springframework.data.multichain.server.command.PublishRequest;
+import org.springframework.data.multichain.server.command.PublishResponse;
+import org.springframework.data.multichain.server.simulator.MultiChainSimulator;
+
+/**
+ * <p>
+ * Allocation budgets for {@link MultiChainTemplate}, measured against a
+ * {@link MultiChainSimulator}. Only allocations on the calling thread are
+ * counted, which covers creating the request, the HTTP exchange and
+ * decoding the response.
+ * </p>
+ * <p>
+ * Budgets are expressed as a fixed allowance plus a multiple of the size of
+ * the item data, and are set with some headroom above the allocations
+ * measured when they were last revised. Lower them whenever an optimization
+ * reduces allocations, so that the gain cannot be lost unnoticed.
+ * </p>
+ */
+public class MultiChainTemplateAllocationTests implements UnitTest
+{
+  private static final int PAYLOAD_SIZE = 8192;
+
+  private String              data;
+  private MultiChainSimulator simulator;
+  private String              stream;
+  private MultiChainTemplate  template;
+
+  /**
+   * Starts a simulated MultiChain RPC server and creates a template for it.
+   */
+  @Before
+  public void setUp()
+  {
+    simulator = new MultiChainSimulator();
+    simulator.start();
+
+    template = new MultiChainTemplate("127.0.0.1", simulator.getPort(), simulator.getUsername(), simulator.getPassword(), false);
+
+    final StringBuilder hex = new StringBuilder(PAYLOAD_SIZE);
+    while (hex.length() < PAYLOAD_SIZE)
+    {
+      hex.append(String.format("%02x", getInt(0, 255)));
+    }
+
+    data = hex.toString();
+    stream = getString();
+  }
+
+  /**
+   * Stops the simulated MultiChain RPC server.
+   */
+  @After
+  public void tearDown()
+  {
+    simulator.stop();
+  }
+
+  /**
+   * Tests that invoking a command that returns an item stays within its
+   * allocation budget.
+   */
+  @Test
+  public void testInvokeListStreamKeyItems()
+  {
+    final String key = getString();
+
+    template.invoke(new PublishRequest(stream, key, data), PublishResponse.class);
+
+    AllocationMeter.assertAllocatesAtMost(() -> template.invoke(new ListStreamKeyItemsRequest(stream, key), ListStreamKeyItemsResponse.class)
+        , 32768 + 20L * data.length()
+        , "invoke(liststreamkeyitems)");
+  }
+
+  /**
+   * Tests that invoking a command that sends an item stays within its
+   * allocation budget.
+   */
+  @Test
+  public void testInvokePublish()
+  {
+    AllocationMeter.assertAllocatesAtMost(() -> template.invoke(new PublishRequest(stream, getString(), data), PublishResponse.class)
+        , 32768 + 28L * data.length()
+        , "invoke(publish)");
+  }
+}
@@ -17,9 +17,31 @@
 package org.springframework.data.multichain.server.support;
 
 import org.junit.Test;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.data.multichain.UnitTest;
+import org.springframework.data.multichain.server.Deadline;
+import org.springframework.data.multichain.server.command.ListStreamKeyItemsRequest;
+import org.springframework.data.multichain.server.command.ListStreamKeyItemsResponse;
+import org.springframework.data.multichain.server.command.Request;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Unit tests for {@link MultiChainTemplate}.
@@ -75,4 +97,197 @@ public class MultiChainTemplateTests implements UnitTest
   {
     new MultiChainTemplate(getString(), -1, getString(), getString(), getBoolean());
   }
+
+  /**
+   * Tests that a {@link MultiChainTemplate} cannot be constructed with a
+   * pool that holds fewer connections than allowed per route.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructWithInvalidMaxConnections()
+  {
+    new MultiChainTemplate("127.0.0.1", 9560, getString(), getString(), false, 8, 4);
+  }
+
+  /**
+   * Tests that a timeout cannot be set for a command without specifying the
+   * command.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetTimeoutWithoutCommand()
+  {
+    new MultiChainTemplate("127.0.0.1", 9560, getString(), getString(), false).setTimeout(null, 1000);
+  }
+
+  /**
+   * Tests that a command is not attempted after the deadline in effect has
+   * passed.
+   */
+  @Test(expected = QueryTimeoutException.class)
+  public void testInvokeAfterDeadline()
+  {
+    final MultiChainTemplate subject = new MultiChainTemplate("127.0.0.1", 9560, getString(), getString(), false);
+
+    Deadline.after(0, TimeUnit.MILLISECONDS)
+            .run(() -> subject.invoke(new ListStreamKeyItemsRequest(getString(), getString()), ListStreamKeyItemsResponse.class));
+  }
+
+  /**
+   * Tests that a command fails once the time configured for it runs out, if
+   * the server does not respond.
+   */
+  @Test
+  public void testInvokeTimesOut() throws IOException
+  {
+    try (final ServerSocket server = new ServerSocket(0))
+    {
+      // Accept connections without ever responding.
+      final Thread acceptor = new Thread(() -> {
+        try (final Socket ignored = server.accept())
+        {
+          Thread.sleep(5000);
+        }
+        catch (final Exception ignored)
+        {
+        }
+      });
+      acceptor.setDaemon(true);
+      acceptor.start();
+
+      final MultiChainTemplate subject = new MultiChainTemplate("127.0.0.1", server.getLocalPort(), getString(), getString(), false);
+      subject.setTimeout(Request.Command.liststreamkeyitems, 200);
+
+      final long start = System.nanoTime();
+
+      try
+      {
+        subject.invoke(new ListStreamKeyItemsRequest(getString(), getString()), ListStreamKeyItemsResponse.class);
+
+        fail("Expected the command to time out.");
+      }
+      catch (final QueryTimeoutException e)
+      {
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+      }
+    }
+  }
+
+  /**
+   * Tests that a command fails once the time configured for it runs out,
+   * even if the server keeps sending its response slowly enough that no
+   * single read times out.
+   */
+  @Test
+  public void testInvokeTimesOutWithSlowResponse() throws IOException
+  {
+    try (final ServerSocket server = new ServerSocket(0))
+    {
+      // Trickle a response, a byte every 50 ms, for up to 10 seconds.
+      final Thread dripper = new Thread(() -> {
+        try (final Socket socket = server.accept())
+        {
+          final OutputStream out = socket.getOutputStream();
+          out.write("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: 1000\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+          out.flush();
+
+          for (int i = 0; i < 200; ++i)
+          {
+            Thread.sleep(50);
+            out.write(' ');
+            out.flush();
+          }
+        }
+        catch (final Exception ignored)
+        {
+        }
+      });
+      dripper.setDaemon(true);
+      dripper.start();
+
+      final MultiChainTemplate subject = new MultiChainTemplate("127.0.0.1", server.getLocalPort(), getString(), getString(), false);
+      subject.setTimeout(Request.Command.liststreamkeyitems, 500);
+
+      final long start = System.nanoTime();
+
+      try
+      {
+        subject.invoke(new ListStreamKeyItemsRequest(getString(), getString()), ListStreamKeyItemsResponse.class);
+
+        fail("Expected the command to time out.");
+      }
+      catch (final QueryTimeoutException e)
+      {
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1500));
+      }
+    }
+  }
+
+  /**
+   * Tests that commands invoked concurrently are sent to the server over
+   * as many connections, instead of waiting for the two connections per
+   * route that HttpClient pools by default.
+   */
+  @Test
+  public void testInvokeConcurrently() throws Exception
+  {
+    final int threads = 8;
+
+    try (final ServerSocket server = new ServerSocket(0, threads * 2))
+    {
+      // Accept connections without ever responding, counting them.
+      final List<Socket> accepted = new CopyOnWriteArrayList<>();
+      final Thread acceptor = new Thread(() -> {
+        try
+        {
+          while (!server.isClosed())
+          {
+            accepted.add(server.accept());
+          }
+        }
+        catch (final IOException ignored)
+        {
+        }
+      });
+      acceptor.setDaemon(true);
+      acceptor.start();
+
+      final MultiChainTemplate subject = new MultiChainTemplate("127.0.0.1", server.getLocalPort(), getString(), getString(), false);
+      subject.setTimeout(Request.Command.liststreamkeyitems, 1000);
+
+      final ExecutorService executor = Executors.newFixedThreadPool(threads);
+      try
+      {
+        final List<Future<?>> commands = new ArrayList<>();
+        for (int i = 0; i < threads; ++i)
+        {
+          commands.add(executor.submit(() -> subject.invoke(new ListStreamKeyItemsRequest(getString(), getString())
+              , ListStreamKeyItemsResponse.class)));
+        }
+
+        for (final Future<?> command : commands)
+        {
+          try
+          {
+            command.get();
+
+            fail("Expected the command to time out.");
+          }
+          catch (final ExecutionException e)
+          {
+            assertTrue(e.getCause() instanceof QueryTimeoutException);
+          }
+        }
+      }
+      finally
+      {
+        executor.shutdownNow();
+      }
+
+      assertEquals(threads, accepted.size());
+
+      for (final Socket socket : accepted)
+      {
+        socket.close();
+      }
+    }
+  }
 }